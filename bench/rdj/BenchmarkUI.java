@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+//  Silent UI for the JMH benchmarks (bench/), nothing the benchmarks call should end up measuring console or log output
+
+public class BenchmarkUI implements UI
+{
+    public static final UI SILENT = new BenchmarkUI();
+
+    @Override public void test(String message) { }
+    @Override public void log(String message, boolean status, boolean log, boolean logfile, boolean errfile, boolean print) { }
+    @Override public void processGraph(int value) { }
+    @Override public void processProgress(int filesProgressPercent, int fileProgressPercent, long bytesTotalParam, long bytesProcessedParam, double bytesPerMiliSecondParam) { }
+    @Override public void fileProgress() { }
+    @Override public void processFinished(FCPathList openFCPathList, boolean open) { }
+    @Override public void processStarted() { }
+    @Override public void buildReady(FCPathList fcPathListParam, boolean validBuild) { }
+}
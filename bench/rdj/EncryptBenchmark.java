@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//  Encryption hot path: encryptBuffer (with and without password) against the bitwise encryptByteFastXOR and the MAC token creation
+//  Score is buffers per second, multiply by bufferSize for bytes per second
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptBenchmark
+{
+    @Param({ "65536", "1048576" })	public int	bufferSize;
+    @Param({ "", "password" })		public String	password;
+
+    private byte[]	targetSourceBytes;
+    private byte[]	keySourceBytes;
+    private byte[]	targetDestinBytes;
+    private ByteBuffer	targetSourceBuffer;
+    private ByteBuffer	keySourceBuffer;
+    private Path	keyPath;
+    private FinalCrypt	finalCrypt;
+
+    @Setup
+    public void setup() throws IOException
+    {
+	Random random = new Random(1L); // Same data every run
+	targetSourceBytes = new byte[bufferSize]; random.nextBytes(targetSourceBytes);
+	keySourceBytes = new byte[bufferSize]; random.nextBytes(keySourceBytes);
+	targetDestinBytes = new byte[bufferSize];
+	targetSourceBuffer = ByteBuffer.wrap(targetSourceBytes);
+	keySourceBuffer = ByteBuffer.wrap(keySourceBytes);
+
+	keyPath = Files.createTempFile("finalcrypt_bench_", ".key"); Files.write(keyPath, keySourceBytes);
+	finalCrypt = new FinalCrypt(BenchmarkUI.SILENT);
+	FinalCrypt.setPwd(password);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException { FinalCrypt.setPwd(""); Files.deleteIfExists(keyPath); }
+
+    @Benchmark
+    public ByteBuffer encryptBuffer() { FinalCrypt.resetPwdPos(); return FinalCrypt.encryptBuffer(targetSourceBuffer, keySourceBuffer, false); }
+
+    @Benchmark
+    public byte[] encryptByteFastXOR() // Password independent
+    {
+	for (int index = 0; index < bufferSize; index++) { targetDestinBytes[index] = FinalCrypt.encryptByteFastXOR(targetSourceBytes[index], keySourceBytes[index]); }
+	return targetDestinBytes;
+    }
+
+    @Benchmark
+    public ByteBuffer createTargetDestinMessageAuthenticationCode() { return finalCrypt.createTargetDestinMessageAuthenticationCode(keyPath); } // Includes the key header read
+}
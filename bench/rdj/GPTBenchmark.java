@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//  GPT serialization: the 128 entry table (16 KiB) as bytes and the partition array & header CRC32 updates done before every GPT write
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GPTBenchmark
+{
+    private GPT gpt;
+
+    @Setup
+    public void setup() { gpt = new GPT(BenchmarkUI.SILENT); gpt.gpt_Entries1.create(1024L * 1024 * 1024); } // Two key partitions
+
+    @Benchmark
+    public byte[] getEntriesBytes() { return gpt.gpt_Entries1.getBytes(); }
+
+    @Benchmark
+    public int getEntriesBytesWithCRC32()
+    {
+	gpt.gpt_Header1.setCRC32Partitions(); gpt.gpt_Header1.setHeaderCRC32Bytes();
+	return gpt.gpt_Entries1.getBytes().length + gpt.gpt_Header1.getHeaderCRC32();
+    }
+}
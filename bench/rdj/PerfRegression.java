@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+//  ant perf-test: fixed size encrypt / decrypt, scan, key generation & GPT workloads compared against a checked in baseline
+//  Every workload is divided by its own plain JDK reference doing the same unavoidable work right next to it on the same machine:
+//  encrypt / decrypt: SYNC writes of the same file sizes (FinalCrypt writes with SYNC, so the disk latency cancels out)
+//  scan / classify: a JDK walk & header read of the very same tree (FCBenchmark.runScan), keygen: one thread SecureRandom to a file, gpt: CRC32 of the same bytes
+//  The baseline holds the median per run ratio (higher is better) of RUNS after a warmup run, plus its spread (median absolute deviation / median)
+//  A ratio fails below baseline * (1 - tolerance), tolerance "auto" = SPREAD_FACTOR * the larger of baseline & measured spread within MIN_TOLERANCE - MAX_TOLERANCE
+//  SPREAD_FACTOR: 3 standard errors of the difference of two medians of RUNS (sigma = 1.4826 MAD, median standard error = 1.2533 sigma / sqrt(RUNS))
+//  Needs nothing but the JDK & the non GUI project classes (no JavaFX / JMH / JUnit), so it runs offline on any plain Linux box
+//  Usage: PerfRegression <baseline.properties> <tolerance: auto or e.g. 0.25> <update: true rewrites the baseline with this machine's ratios>
+
+public class PerfRegression
+{
+    private static final int	RUNS =			7;
+    private static final int	WARMUP_RUNS =		1;	// JIT & page cache, not measured
+    private static final double	SPREAD_FACTOR =		3.0 * 1.4826 * 1.2533 * Math.sqrt(2.0 / RUNS);
+    private static final double	MIN_TOLERANCE =		0.05;
+    private static final double	MAX_TOLERANCE =		0.50;
+    private static final int	ENCRYPT_FILES =		100;
+    private static final String	ENCRYPT_SIZES =		"1K-512K";
+    private static final int	SCAN_FILES =		5000;
+    private static final String	SCAN_SIZES =		"256-4K";
+    private static final long	KEY_SIZE =		64L * 1024L * 1024L;
+    private static final int	GPT_OPERATIONS =	20000;
+    private static final int	BUFFER_SIZE =		1024 * 1024; // FinalCrypt default
+    private static final String	CPUS =			"reference.cpus";
+    private static final String	SPREAD =		".spread";
+
+    private static final String	SYNC_MIB =		"reference.sync_write.mib_per_second";
+    private static final String	SYNC_FILES =		"reference.sync_write.files_per_second";
+    private static final LinkedHashMap<String, String> REFERENCE = new LinkedHashMap<>(); // Result -> the reference it gets divided by
+    static
+    {
+	REFERENCE.put("encrypt.mib_per_second", SYNC_MIB);	REFERENCE.put("encrypt.files_per_second", SYNC_FILES);
+	REFERENCE.put("decrypt.mib_per_second", SYNC_MIB);	REFERENCE.put("decrypt.files_per_second", SYNC_FILES);
+	REFERENCE.put("scan.files_per_second", "scan.reference.files_per_second");
+	REFERENCE.put("classify.files_per_second", "classify.reference.files_per_second");
+	REFERENCE.put("keygen.mib_per_second", "keygen.reference.mib_per_second");
+	REFERENCE.put("gpt.ops_per_second", "gpt.reference.ops_per_second");
+    }
+
+    private final Path		baselinePath;
+    private final double	tolerance;	// < 0 = auto
+    private final boolean	update;
+    private final UI		ui = new ErrorUI();
+    private final LinkedHashMap<String, List<Double>> valueMap = new LinkedHashMap<>(); // Raw results & references per run
+    private final LinkedHashMap<String, List<Double>> ratioMap = new LinkedHashMap<>(); // Result / reference per run
+    private boolean		failed = false;
+
+    public PerfRegression(Path baselinePath, double tolerance, boolean update)
+    {
+	this.baselinePath = baselinePath;
+	this.tolerance = tolerance;
+	this.update = update;
+    }
+
+    public static void main(String[] args)
+    {
+	if ( args.length < 3 ) { System.err.print("Usage: PerfRegression <baseline.properties> <tolerance: auto or 0.25> <update>\r\n"); System.exit(2); }
+	double tolerance = ( args[1].equals("auto") ) ? -1.0 : Double.parseDouble(args[1]);
+	System.exit(( new PerfRegression(Paths.get(args[0]), tolerance, Boolean.parseBoolean(args[2])).run() ) ? 0 : 1);
+    }
+
+    public boolean run()
+    {
+	System.out.print("Performance regression test: median of " + RUNS + " runs (after " + WARMUP_RUNS + " warmup) relative to the reference workloads, tolerance " + ( ( tolerance < 0.0 ) ? "auto" : Math.round(tolerance * 100) + "%" ) + "\r\n\r\n");
+	long[] encryptSizes = FCBenchmark.parseSizes(ENCRYPT_SIZES); long[] scanSizes = FCBenchmark.parseSizes(SCAN_SIZES);
+	for (int run = 1; run <= WARMUP_RUNS + RUNS; run++)
+	{
+	    LinkedHashMap<String, Double> runMap = new LinkedHashMap<>();
+	    LinkedHashMap<String, Double> syncMap = new LinkedHashMap<>(); syncWrite(syncMap, encryptSizes[0], encryptSizes[1]);
+	    FCBenchmark encryptBenchmark = new FCBenchmark(ui, ENCRYPT_FILES, encryptSizes[0], encryptSizes[1], BUFFER_SIZE, "");
+	    if ( encryptBenchmark.run(null) ) { runMap.putAll(encryptBenchmark.getResults()); } else { fail("encrypt / decrypt round trip failed"); }
+	    syncWrite(runMap, encryptSizes[0], encryptSizes[1]); if ( ! failed ) { for (String name:syncMap.keySet()) { runMap.put(name, Math.sqrt(syncMap.get(name) * runMap.get(name))); } } // Bracketed: before & after the round trip
+	    FCBenchmark scanBenchmark = new FCBenchmark(ui, SCAN_FILES, scanSizes[0], scanSizes[1], BUFFER_SIZE, "");
+	    if ( scanBenchmark.runScan(null) ) { runMap.putAll(scanBenchmark.getResults()); } else { fail("scan classification mismatch"); }
+	    keyGeneration(runMap); gpt(runMap);
+	    if ( failed ) { return false; }
+	    if ( run <= WARMUP_RUNS ) { continue; }
+
+	    for (Map.Entry<String, Double> value:runMap.entrySet()) { add(valueMap, value.getKey(), value.getValue()); }
+	    for (Map.Entry<String, String> reference:REFERENCE.entrySet())
+	    {
+		Double value = runMap.get(reference.getKey()); Double referenceValue = runMap.get(reference.getValue());
+		if ( ( value != null ) && ( referenceValue != null ) && ( referenceValue > 0.0 ) ) { add(ratioMap, reference.getKey(), value / referenceValue); } // Paired: both measured back to back
+	    }
+	}
+
+	Properties baseline = new Properties();
+	try { baseline.load(Files.newBufferedReader(baselinePath, StandardCharsets.UTF_8)); } catch (IOException ex) { if ( ! update ) { fail("baseline: " + baselinePath + " " + ex.getMessage()); return false; } }
+	String baselineCpus = baseline.getProperty(CPUS); int cpus = Runtime.getRuntime().availableProcessors();
+	if ( ( baselineCpus != null ) && ( ! baselineCpus.equals(Integer.toString(cpus)) ) ) { System.out.print("Warning: baseline measured with " + baselineCpus + " cpu, this machine has " + cpus + " (keygen is multithreaded)\r\n\r\n"); }
+
+	System.out.print(String.format(Locale.ROOT, "%-28s%14s%14s%10s%8s%10s%10s%8s  %s\r\n", "Result", "Measured", "Reference", "Ratio", "Spread", "Baseline", "Change", "Limit", "Status"));
+	boolean regression = false;
+	for (Map.Entry<String, List<Double>> ratio:ratioMap.entrySet())
+	{
+	    String name = ratio.getKey(); double ratioValue = median(ratio.getValue()); double spread = spread(ratio.getValue());
+	    String baselineValue = baseline.getProperty(name); String status; String change = ""; String limit = "";
+	    if ( baselineValue == null ) { status = "NEW"; }
+	    else
+	    {
+		double baselineRatio = Double.parseDouble(baselineValue); double baselineSpread = Double.parseDouble(baseline.getProperty(name + SPREAD, "0"));
+		double metricTolerance = ( tolerance >= 0.0 ) ? tolerance : Math.max(MIN_TOLERANCE, Math.min(MAX_TOLERANCE, SPREAD_FACTOR * Math.max(baselineSpread, spread)));
+		change = String.format(Locale.ROOT, "%+.1f%%", ( ( ratioValue / baselineRatio ) - 1.0 ) * 100.0); limit = String.format(Locale.ROOT, "-%.0f%%", metricTolerance * 100.0);
+		if	( ratioValue < baselineRatio * ( 1.0 - metricTolerance ) )	{ status = "REGRESSION"; regression = true; }
+		else if ( spread > 2.0 * baselineSpread )				{ status = "OK (noisy)"; }
+		else									{ status = "OK"; }
+	    }
+	    System.out.print(String.format(Locale.ROOT, "%-28s%14.1f%14.1f%10.4f%7.1f%%%10s%10s%8s  %s\r\n", name, median(valueMap.get(name)), median(valueMap.get(REFERENCE.get(name))), ratioValue, spread * 100.0, ( baselineValue != null ) ? baselineValue : "-", change, limit, status));
+	}
+
+	if ( update ) { return writeBaseline(); }
+	System.out.print("\r\n" + ( ( regression ) ? "FAILED: ratios below their limit" : "PASSED" ) + "\r\n");
+	return ! regression;
+    }
+
+//  Disk reference: the encrypt file sizes (same log uniform distribution & seed) written in BUFFER_SIZE chunks on a SYNC channel
+    private void syncWrite(Map<String, Double> runMap, long minSize, long maxSize)
+    {
+	Path referencePath = null;
+	try
+	{
+	    referencePath = Files.createTempDirectory("finalcrypt_perf_reference_");
+	    SplittableRandom random = new SplittableRandom(FCBenchmark.SEED); byte[] bytes = randomBytes(random);
+	    double logMinSize = Math.log(minSize); double logMaxSize = Math.log(maxSize); long totalBytes = 0L;
+	    long startNanoTime = System.nanoTime();
+	    for (int file = 0; file < ENCRYPT_FILES; file++)
+	    {
+		long size = Math.min(maxSize, Math.round(Math.exp(logMinSize + ( random.nextDouble() * ( logMaxSize - logMinSize ) ))));
+		Path filePath = referencePath.resolve(String.format("f%06d.dat", file));
+		try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SYNC))
+		{
+		    for (long written = 0; written < size;) { ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, (int)Math.min(bytes.length, size - written)); while ( byteBuffer.hasRemaining() ) { written += fileChannel.write(byteBuffer); } }
+		}
+		totalBytes += size;
+	    }
+	    double seconds = Math.max(( System.nanoTime() - startNanoTime ) / 1000000000.0, 0.000001);
+	    runMap.put(SYNC_MIB, ( totalBytes / ( 1024.0 * 1024.0 ) ) / seconds); runMap.put(SYNC_FILES, ENCRYPT_FILES / seconds);
+	}
+	catch (IOException ex) { fail("reference sync write: " + ex.getMessage()); }
+	finally { if ( referencePath != null ) { delete(referencePath); } }
+    }
+
+//  Reference: one thread, one RandomSource stream written in BUFFER_SIZE chunks & one force, OTPKeyGenerator runs two streams per thread
+    private void keyGeneration(Map<String, Double> runMap)
+    {
+	Path keyPath = null;
+	try
+	{
+	    keyPath = Files.createTempFile("finalcrypt_perf_", ".key");
+	    SecureRandom random = RandomSource.getInstance(); byte[] bytes = new byte[BUFFER_SIZE];
+	    long startNanoTime = System.nanoTime();
+	    try (FileChannel fileChannel = FileChannel.open(keyPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+	    {
+		for (long written = 0; written < KEY_SIZE;) { random.nextBytes(bytes); ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, (int)Math.min(bytes.length, KEY_SIZE - written)); while ( byteBuffer.hasRemaining() ) { written += fileChannel.write(byteBuffer); } }
+		fileChannel.force(true);
+	    }
+	    runMap.put("keygen.reference.mib_per_second", ( KEY_SIZE / ( 1024.0 * 1024.0 ) ) / ( ( System.nanoTime() - startNanoTime ) / 1000000000.0 ));
+	    Files.delete(keyPath); // OTPKeyGenerator creates it
+
+	    startNanoTime = System.nanoTime();
+	    if ( ! new OTPKeyGenerator(ui, keyPath, KEY_SIZE).generate() ) { fail("key generation failed"); return; }
+	    runMap.put("keygen.mib_per_second", ( KEY_SIZE / ( 1024.0 * 1024.0 ) ) / ( ( System.nanoTime() - startNanoTime ) / 1000000000.0 ));
+	}
+	catch (IOException ex) { fail("key generation: " + ex.getMessage()); }
+	finally { if ( keyPath != null ) { try { Files.deleteIfExists(keyPath); } catch (IOException ex) { } } }
+    }
+
+//  In memory: partition array & header CRC32 plus the entry table bytes, as done before every GPT write. Reference: plain CRC32 of the same table bytes
+    private void gpt(Map<String, Double> runMap)
+    {
+	GPT gpt = new GPT(ui); gpt.gpt_Entries1.create(1024L * 1024L * 1024L); long bytes = 0L;
+	byte[] entryBytes = gpt.gpt_Entries1.getBytes(); CRC32 crc32 = new CRC32(); long checksum = 0L;
+	long startNanoTime = System.nanoTime();
+	for (int operation = 0; operation < GPT_OPERATIONS; operation++) { crc32.reset(); crc32.update(entryBytes); checksum ^= crc32.getValue(); byte[] copyBytes = entryBytes.clone(); bytes += copyBytes.length; }
+	runMap.put("gpt.reference.ops_per_second", GPT_OPERATIONS / ( ( System.nanoTime() - startNanoTime ) / 1000000000.0 ));
+
+	startNanoTime = System.nanoTime();
+	for (int operation = 0; operation < GPT_OPERATIONS; operation++) { gpt.gpt_Header1.setCRC32Partitions(); gpt.gpt_Header1.setHeaderCRC32Bytes(); bytes += gpt.gpt_Entries1.getBytes().length; }
+	if ( ( bytes == 0 ) || ( checksum == -1L ) ) { fail("gpt: empty entry table"); return; }
+	runMap.put("gpt.ops_per_second", GPT_OPERATIONS / ( ( System.nanoTime() - startNanoTime ) / 1000000000.0 ));
+    }
+
+    private static byte[] randomBytes(SplittableRandom random) { byte[] bytes = new byte[BUFFER_SIZE]; for (int index = 0; index < bytes.length; index++) { bytes[index] = (byte)random.nextInt(256); } return bytes; }
+    private static void add(Map<String, List<Double>> map, String name, double value) { List<Double> values = map.get(name); if ( values == null ) { values = new ArrayList<>(); map.put(name, values); } values.add(value); }
+    private static double median(List<Double> values) { List<Double> sorted = new ArrayList<>(values); Collections.sort(sorted); int middle = sorted.size() / 2; return ( sorted.size() % 2 == 1 ) ? sorted.get(middle) : ( sorted.get(middle - 1) + sorted.get(middle) ) / 2.0; }
+    private static double spread(List<Double> values) { double median = median(values); List<Double> deviations = new ArrayList<>(); for (double value:values) { deviations.add(Math.abs(value - median)); } return ( median > 0.0 ) ? median(deviations) / median : 0.0; } // Relative median absolute deviation
+    private void fail(String message) { failed = true; System.err.print("Error: PerfRegression: " + message + "\r\n"); }
+
+    private void delete(Path path)
+    {
+	try (Stream<Path> stream = Files.walk(path)) { stream.sorted(Collections.reverseOrder()).forEach(deletePath -> { try { Files.deleteIfExists(deletePath); } catch (IOException ex) { } }); }
+	catch (IOException ex) { System.err.print("Warning: PerfRegression: " + path + " " + ex.getMessage() + "\r\n"); }
+    }
+
+    private boolean writeBaseline()
+    {
+	List<String> lines = new ArrayList<>();
+	lines.add("# Performance regression baseline (ant perf-test): median result / reference ratio of " + RUNS + " runs, higher is better, .spread = relative median absolute deviation");
+	lines.add("# Regenerate on the reference machine after an intended performance change with: ant -Dperf.update=true perf-test");
+	lines.add("# Measured on " + System.getProperty("os.name") + " " + System.getProperty("os.arch") + ", Java " + System.getProperty("java.version"));
+	lines.add(CPUS + "=" + Runtime.getRuntime().availableProcessors());
+	List<String> names = new ArrayList<>(ratioMap.keySet()); Collections.sort(names);
+	for (String name:names) { lines.add(name + "=" + String.format(Locale.ROOT, "%.4f", median(ratioMap.get(name)))); lines.add(name + SPREAD + "=" + String.format(Locale.ROOT, "%.4f", spread(ratioMap.get(name)))); }
+	try { Files.write(baselinePath, lines, StandardCharsets.UTF_8); } catch (IOException ex) { fail("baseline: " + baselinePath + " " + ex.getMessage()); return false; }
+	System.out.print("\r\nBaseline written: " + baselinePath + "\r\n");
+	return true;
+    }
+
+//  Only errors reach the console, the workloads' own tables would drown the comparison
+    private static class ErrorUI implements UI
+    {
+	@Override public void test(String message) { }
+	@Override public void log(String message, boolean status, boolean log, boolean logfile, boolean errfile, boolean print) { if ( errfile ) { System.err.print(message); } }
+	@Override public void processGraph(int value) { }
+	@Override public void processProgress(int filesProgressPercent, int fileProgressPercent, long bytesTotalParam, long bytesProcessedParam, double bytesPerMiliSecondParam) { }
+	@Override public void fileProgress() { }
+	@Override public void processFinished(FCPathList openFCPathList, boolean open) { }
+	@Override public void processStarted() { }
+	@Override public void buildReady(FCPathList fcPathListParam, boolean validBuild) { }
+    }
+}
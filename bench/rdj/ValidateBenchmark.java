@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//  Classification & formatting: Validate.getFCPath on a plain text file, an encrypted (MAC token) file and a device path
+//  The device path defaults to /dev/sda, override with -Dfinalcrypt.bench.device=/dev/.. (passed to the fork with -jvmArgsAppend)
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidateBenchmark
+{
+    private Path	dirPath;
+    private Path	keyPath;
+    private Path	plainPath;
+    private Path	encryptedPath;
+    private Path	devicePath;
+    private byte[]	hashBytes;
+    private long	humanSize =	1L;
+
+    @Setup
+    public void setup() throws IOException
+    {
+	Random random = new Random(1L);
+	byte[] keyBytes = new byte[65536]; random.nextBytes(keyBytes);
+	byte[] dataBytes = new byte[65536]; random.nextBytes(dataBytes);
+	hashBytes = new byte[32]; random.nextBytes(hashBytes); // SHA-256 sized
+
+	dirPath = Files.createTempDirectory("finalcrypt_bench_");
+	keyPath = dirPath.resolve("key"); Files.write(keyPath, keyBytes);
+	plainPath = dirPath.resolve("plain"); Files.write(plainPath, dataBytes);
+
+	ByteBuffer macBuffer = new FinalCrypt(BenchmarkUI.SILENT).createTargetDestinMessageAuthenticationCode(keyPath);
+	byte[] encryptedBytes = new byte[macBuffer.remaining() + dataBytes.length]; macBuffer.get(encryptedBytes, 0, macBuffer.remaining());
+	System.arraycopy(dataBytes, 0, encryptedBytes, encryptedBytes.length - dataBytes.length, dataBytes.length);
+	encryptedPath = dirPath.resolve("plain.bit"); Files.write(encryptedPath, encryptedBytes);
+
+	devicePath = Paths.get(System.getProperty("finalcrypt.bench.device", "/dev/sda"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException { Files.deleteIfExists(keyPath); Files.deleteIfExists(plainPath); Files.deleteIfExists(encryptedPath); Files.deleteIfExists(dirPath); }
+
+//		       getFCPath(UI ui, String caller, Path path, boolean isKey, Path keyPath, boolean disabledMAC, boolean report)
+    @Benchmark
+    public FCPath getFCPathPlain()	{ return Validate.getFCPath(BenchmarkUI.SILENT, "", plainPath,	    false, keyPath, false, false); }
+
+    @Benchmark
+    public FCPath getFCPathEncrypted()	{ return Validate.getFCPath(BenchmarkUI.SILENT, "", encryptedPath,  false, keyPath, false, false); }
+
+    @Benchmark
+    public FCPath getFCPathDevice()	{ return Validate.getFCPath(BenchmarkUI.SILENT, "", devicePath,	    false, keyPath, false, false); }
+
+    @Benchmark
+    public String getHexString()	{ return FinalCrypt.getHexString(hashBytes, 2); }
+
+    @Benchmark
+    public String getHumanSize()	{ humanSize = ( humanSize < Long.MAX_VALUE / 7 ) ? humanSize * 7 : 1L; return Validate.getHumanSize(humanSize, 1); } // Walks all units
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+//  Asynchronous log file writer (logfile / errfile of CLUI & GUIFX)
+//  Callers only enqueue into a bounded ring buffer (full = caller waits, lines are never dropped)
+//  One writer thread keeps the file open and appends in batches: flushed (forced) per batch of at most FLUSH_SIZE bytes or after FLUSH_PERIOD
+//  A shutdown hook drains and flushes whatever is left
+
+public class AsyncLogWriter
+{
+    private static final int	CAPACITY =	    8192;	    // Messages
+    private static final int	FLUSH_SIZE =	    64 * 1024;	    // Bytes
+    private static final long	FLUSH_PERIOD =	    200L;	    // Milliseconds
+    private static final String	END =		    new String();   // Poison pill (identity)
+
+    private final Path				path;
+    private final ArrayBlockingQueue<String>	messageQueue =	new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread			writerThread;
+    private final Object			flushMonitor =	new Object();
+    private long				enqueued =	0L; // Guarded by flushMonitor
+    private long				written =	0L; // Guarded by flushMonitor
+    private volatile boolean			closed =	false;
+    private FileChannel				fileChannel;
+
+    public AsyncLogWriter(Path path)
+    {
+	this.path = path;
+	writerThread = new Thread(() -> run(), "AsyncLogWriter " + path.getFileName()); writerThread.setDaemon(true); writerThread.start();
+	Runtime.getRuntime().addShutdownHook(new Thread(() -> close(), "AsyncLogWriter shutdown " + path.getFileName()));
+    }
+
+    public Path getPath() { return path; }
+
+    public void write(String message)
+    {
+	if ( closed ) { writeDirect(message); return; } // e.g. logging from other shutdown hooks
+	synchronized (flushMonitor) { enqueued++; }
+	try { messageQueue.put(message); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); writeDirect(message); synchronized (flushMonitor) { written++; flushMonitor.notifyAll(); } }
+    }
+
+//  Blocks until everything written before this call is on disk (or timeoutMillis passed)
+    public boolean flush(long timeoutMillis)
+    {
+	long deadline = System.currentTimeMillis() + timeoutMillis;
+	synchronized (flushMonitor)
+	{
+	    long target = enqueued;
+	    while ( written < target ) { long wait = deadline - System.currentTimeMillis(); if ( ( wait <= 0 ) || ( ! writerThread.isAlive() ) ) { return false; } try { flushMonitor.wait(wait); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); return false; } }
+	}
+	return true;
+    }
+
+    public synchronized void close()
+    {
+	if ( closed ) { return; }
+	closed = true; // Later messages are written directly
+	try { messageQueue.put(END); writerThread.join(5000L); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+    }
+
+    private void run()
+    {
+	ArrayList<String> batchList = new ArrayList<>();
+	ByteBuffer batchBuffer = ByteBuffer.allocate(FLUSH_SIZE);
+	boolean ended = false;
+	while ( ! ended )
+	{
+	    batchList.clear();
+	    try { String message = messageQueue.poll(FLUSH_PERIOD, TimeUnit.MILLISECONDS); if ( message == null ) { continue; } batchList.add(message); } catch (InterruptedException ex) { break; }
+
+//	    Gather until FLUSH_SIZE chars or FLUSH_PERIOD passed
+	    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_PERIOD); int size = batchList.get(0).length(); int gathered = 1;
+	    while ( ( size < FLUSH_SIZE ) && ( batchList.get(batchList.size() - 1) != END ) )
+	    {
+		if ( messageQueue.drainTo(batchList, CAPACITY) == 0 )
+		{
+		    long wait = deadline - System.nanoTime(); if ( wait <= 0 ) { break; }
+		    String message; try { message = messageQueue.poll(wait, TimeUnit.NANOSECONDS); } catch (InterruptedException ex) { break; }
+		    if ( message == null ) { break; } batchList.add(message);
+		}
+		for (; gathered < batchList.size(); gathered++) { size += batchList.get(gathered).length(); }
+	    }
+
+	    int messages = 0;
+	    for (String message:batchList)
+	    {
+		if ( message == END ) { ended = true; break; } // close() puts it last: everything before it gets written
+		messages++;
+		byte[] bytes = message.getBytes(Charset.defaultCharset()); // Same encoding as the former message.getBytes()
+		if ( bytes.length > batchBuffer.remaining() ) { batchBuffer.flip(); write(batchBuffer); batchBuffer.clear(); }
+		if ( bytes.length > batchBuffer.capacity() ) { write(ByteBuffer.wrap(bytes)); } else { batchBuffer.put(bytes); }
+	    }
+	    batchBuffer.flip(); write(batchBuffer); batchBuffer.clear(); force();
+	    synchronized (flushMonitor) { written += messages; flushMonitor.notifyAll(); }
+	}
+	batchList.clear(); messageQueue.drainTo(batchList); // Raced in behind the poison pill
+	for (String message:batchList) { if ( message != END ) { write(ByteBuffer.wrap(message.getBytes(Charset.defaultCharset()))); } }
+	force();
+	try { if ( fileChannel != null ) { fileChannel.close(); } } catch (IOException ex) {  }
+    }
+
+    private void write(ByteBuffer byteBuffer)
+    {
+	try
+	{
+	    if ( fileChannel == null ) { fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND); }
+	    while ( byteBuffer.hasRemaining() ) { fileChannel.write(byteBuffer); }
+	}
+	catch (IOException ex) { System.err.print("AsyncLogWriter: " + path + " " + ex.getMessage() + "\r\n"); try { if ( fileChannel != null ) { fileChannel.close(); } } catch (IOException ex2) {  } fileChannel = null; } // Next batch reopens
+    }
+
+    private void force() { try { if ( fileChannel != null ) { fileChannel.force(false); } } catch (IOException ex) {  } }
+
+    private void writeDirect(String message)
+    {
+	try { Files.write(path, message.getBytes(Charset.defaultCharset()), StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC); } catch (IOException ex) { System.err.print("AsyncLogWriter: " + path + " " + ex.getMessage() + "\r\n"); }
+    }
+}
@@ -31,14 +31,13 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Scanner;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import static rdj.GUIFX.getHexString;
+import static rdj.FinalCrypt.getHexString;
 
 /* commandline test routine
 
@@ -54,6 +53,8 @@ public class CLUI implements UI
     private Version version;
     private UI ui;
     private final Configuration configuration;
+    private AsyncLogWriter logFileWriter; // Created on first use
+    private AsyncLogWriter errFileWriter;
     private boolean symlink = false;
     private boolean verbose = false;
     
@@ -81,8 +82,6 @@ public class CLUI implements UI
     private FCPathList deleteGPTTargetList;
     private  FCPathList targetFCPathList;
     private boolean keySourceChecksumReadEnded = false;
-    private int bufferSize;
-    private Long totalTranfered;
     private Long filesizeInBytes = 100L * (1024L * 1024L);  // Create OTP Key File Size
     private Path keyPath;
 //    private boolean disabledMAC = false;
@@ -93,6 +92,13 @@ public class CLUI implements UI
     private String pwd =		"";
     private boolean pwdPromptNeeded =	false;
     private boolean pwdIsSet =		false;
+    private boolean stream =		false;
+    private boolean verifytree =	false;
+    private long throttle =		0L; // --verify-tree max files per second
+    private boolean benchmark =		false;
+    private boolean benchmarkScan =	false;
+    private int benchmarkFiles =	0;	// 0 = default of the benchmark
+    private long[] benchmarkSizes =	null;	// null = default of the benchmark
     
     public CLUI(String[] args)
     {	
@@ -102,10 +108,10 @@ public class CLUI implements UI
 	boolean kfset = false;
 	boolean kfsetneeded = true;
         boolean validInvocation = true;
-        boolean negatePattern = false;
 
         ArrayList<Path> targetPathList = new ArrayList<>();
         ArrayList<Path> extendedTargetPathList = new ArrayList<>();
+        String batchFilePathString = null; // Resolved after parsing: depends on the mode, not on the parameter order
         Path batchFilePath = null;
 //        Path targetFilePath = null;
 	
@@ -117,7 +123,7 @@ public class CLUI implements UI
         version = new Version(this);
         version.checkCurrentlyInstalledVersion(this);
 
-        String pattern = "glob:*";
+        FCPathPattern fcPathPattern = new FCPathPattern(); // -w -W -r (repeatable), none selects all
         
         // Load the FinalCrypt Objext
         finalCrypt = new FinalCrypt(this);
@@ -148,8 +154,15 @@ public class CLUI implements UI
             else if (  args[paramCnt].equals("--create-keyfile"))						    { if ((!encrypt)&&(!decrypt)&&(!createkeydev)&&(!clonekeydev)&&(!printgpt)&&(!deletegpt)) { createkeyfile = true; kfsetneeded = false; tfsetneeded = false; } }
             else if (  args[paramCnt].equals("--clone-keydev"))							    { if ((!encrypt)&&(!decrypt)&&(!createkeydev)&&(!clonekeydev)&&(!printgpt)&&(!deletegpt)) { clonekeydev = true; kfsetneeded = true; tfsetneeded = true; } }
             else if (( args[paramCnt].equals("--key-chksum") ))							    { key_checksum = true; kfsetneeded = true; }
+            else if (( args[paramCnt].equals("--rng")) && ( paramCnt + 1 < args.length ) )				    { try { RandomSource.setAlgorithm(args[paramCnt + 1]); paramCnt++; } catch (NoSuchAlgorithmException | IllegalArgumentException ex) { log("\r\nWarning: Invalid Option Value [--rng " + args[paramCnt + 1] + "] available: " + RandomSource.getAvailable() + "\r\n", false, true, true, false, false); usagePrompt(true); } }
+            else if (  args[paramCnt].equals("--benchmark-rng"))						    { RandomSource.benchmark(this, 64L * 1024L * 1024L); System.exit(0); }
+            else if (( args[paramCnt].equals("--verify-write") ))						    { DeviceController.setVerifyWrites(true); }
+            else if (( args[paramCnt].equals("--metrics")) && ( paramCnt + 1 < args.length ) )			    { try { Metrics.startExport(configuration.getDataDirPath(), args[paramCnt + 1], Metrics.EXPORT_PERIOD_DEFAULT); paramCnt++; } catch (IllegalArgumentException ex) { log("\r\nWarning: Invalid Option Value [--metrics prom|json]" + "\r\n", false, true, true, false, false); usagePrompt(true); } }
             else if (( args[paramCnt].equals("--no-key-size") ))						    { FCPath.KEY_SIZE_MIN = 1; }
             else if (  args[paramCnt].equals("--print-gpt"))                                                        { if ((!encrypt)&&(!decrypt)&&(!createkeydev)&&(!clonekeydev)&&(!printgpt)&&(!deletegpt)) { printgpt = true; kfsetneeded = false; tfsetneeded = true; } }
+            else if (  args[paramCnt].equals("--verify-tree"))							    { if ((!encrypt)&&(!decrypt)&&(!createkeydev)&&(!clonekeydev)&&(!printgpt)&&(!deletegpt)&&(!verifytree)) { verifytree = true; kfsetneeded = true; tfsetneeded = true; } }
+            else if (  args[paramCnt].equals("--benchmark"))							    { if ((!encrypt)&&(!decrypt)&&(!createkeydev)&&(!clonekeydev)&&(!printgpt)&&(!deletegpt)&&(!verifytree)&&(!benchmark)&&(!benchmarkScan)) { benchmark = true; kfsetneeded = false; tfsetneeded = false; } }
+            else if (  args[paramCnt].equals("--benchmark-scan"))						    { if ((!encrypt)&&(!decrypt)&&(!createkeydev)&&(!clonekeydev)&&(!printgpt)&&(!deletegpt)&&(!verifytree)&&(!benchmark)&&(!benchmarkScan)) { benchmarkScan = true; kfsetneeded = false; tfsetneeded = false; } }
             else if (  args[paramCnt].equals("--delete-gpt"))                                                       { if ((!encrypt)&&(!decrypt)&&(!createkeydev)&&(!clonekeydev)&&(!printgpt)&&(!deletegpt)) { deletegpt = true; kfsetneeded = false; tfsetneeded = true; } }
             else if (( args[paramCnt].equals("--print") ))							    { finalCrypt.setPrint(true); }
             else if (( args[paramCnt].equals("-v")) || ( args[paramCnt].equals("--verbose") ))                      { finalCrypt.setVerbose(true); verbose = true; }
@@ -174,22 +187,36 @@ public class CLUI implements UI
 			&&  (!printgpt)
 			&&  (!deletegpt)
 			&&  (!createkeyfile)
+			&&  (!verifytree)
+			&&  (!benchmark)
+			&&  (!benchmarkScan)
 		    )												    { log("\r\nWarning: No <--Mode> parameter specified" + "\r\n",			    false, true, true, false, false); usagePrompt(true); }
 
 //          Filtering Options
             else if ( args[paramCnt].equals("--dry"))                                                               { finalCrypt.setDry(true); }
-            else if ( ( args[paramCnt].equals("-w")) && (!args[paramCnt+1].isEmpty()) )				    { negatePattern = false; pattern = "glob:" + args[paramCnt+1]; paramCnt++; }
-            else if ( ( args[paramCnt].equals("-W")) && (!args[paramCnt+1].isEmpty()) )				    { negatePattern = true; pattern = "glob:" + args[paramCnt+1]; paramCnt++; }
-            else if ( ( args[paramCnt].equals("-r")) && (!args[paramCnt+1].isEmpty()) )				    { pattern = "regex:" + args[paramCnt+1]; paramCnt++; }
+            else if ( args[paramCnt].equals("--stream"))                                                            { stream = true; }
+            else if ( ( args[paramCnt].equals("--throttle")) && (paramCnt+1 < args.length) )			    { if ( validateIntegerString(args[paramCnt + 1]) ) { throttle = Long.valueOf( args[paramCnt + 1] ); paramCnt++; } else { log("\r\nWarning: Invalid Option Value [--throttle files/s]" + "\r\n", false, true, true, false, false); usagePrompt(true); }}
+            else if ( ( args[paramCnt].equals("--benchmark-files")) && (paramCnt+1 < args.length) )		    { if ( validateIntegerString(args[paramCnt + 1]) ) { benchmarkFiles = Integer.valueOf( args[paramCnt + 1] ); paramCnt++; } else { log("\r\nWarning: Invalid Option Value [--benchmark-files n]" + "\r\n", false, true, true, false, false); usagePrompt(true); }}
+            else if ( ( args[paramCnt].equals("--benchmark-size")) && (paramCnt+1 < args.length) )		    { benchmarkSizes = FCBenchmark.parseSizes(args[paramCnt + 1]); if ( benchmarkSizes != null ) { paramCnt++; } else { log("\r\nWarning: Invalid Option Value [--benchmark-size min-max]" + "\r\n", false, true, true, false, false); usagePrompt(true); }}
+            else if ( ( args[paramCnt].equals("-w")) && (!args[paramCnt+1].isEmpty()) )				    { fcPathPattern.addInclude("glob:" + args[paramCnt+1]); paramCnt++; }
+            else if ( ( args[paramCnt].equals("-W")) && (!args[paramCnt+1].isEmpty()) )				    { fcPathPattern.addExclude("glob:" + args[paramCnt+1]); paramCnt++; }
+            else if ( ( args[paramCnt].equals("-r")) && (!args[paramCnt+1].isEmpty()) )				    { fcPathPattern.addInclude("regex:" + args[paramCnt+1]); paramCnt++; }
+            else if ( ( args[paramCnt].equals("-R")) && (!args[paramCnt+1].isEmpty()) )				    { fcPathPattern.addInclude(FCPathPattern.PATH_REGEX + args[paramCnt+1]); paramCnt++; }
 
 //          File Parameters
             else if ( ( args[paramCnt].equals("-k")) )								    { if (paramCnt+1 < args.length) { keyFCPath = Validate.getFCPath(ui, "", Paths.get(args[paramCnt+1]), true, Paths.get(args[paramCnt+1]), finalCrypt.disabledMAC, true); kfset = true; paramCnt++; } else { log("\r\nWarning: Missing key parameter <-k \"keyfile\">" + "\r\n", false, true, true, false, false); usagePrompt(true); } }
             else if ( ( args[paramCnt].equals("-K")) && (!args[paramCnt+1].isEmpty()) )				    { keyPath = Paths.get(args[paramCnt+1]); paramCnt++; } // Create OTP Key File
             else if ( ( args[paramCnt].equals("-t")) )								    { if (paramCnt+1 < args.length) { targetPathList.add(Paths.get(args[paramCnt+1])); tfset = true; paramCnt++; } else { log("\r\nWarning: Missing target parameter <[-t \"file/dir\"]>" + "\r\n", false, true, true, false, false); usagePrompt(true); } }
-            else if ( ( args[paramCnt].equals("-b")) && (!args[paramCnt+1].isEmpty()) )				    { tfset = addBatchTargetFiles(args[paramCnt+1], targetPathList); paramCnt++; }
+            else if ( ( args[paramCnt].equals("-b")) && (!args[paramCnt+1].isEmpty()) )				    { batchFilePathString = args[paramCnt+1]; paramCnt++; }
             else { log("\r\nWarning: Invalid Parameter: " + args[paramCnt] + "\r\n", false, true, true, true, false); usagePrompt(true); }
         }
 
+	if ( batchFilePathString != null )
+	{
+	    if ((encrypt) || (decrypt)) { batchFilePath = getBatchFilePath(batchFilePathString); if ( batchFilePath != null ) { tfset = true; } } // Streamed by streamSelection
+	    else			{ if ( addBatchTargetFiles(batchFilePathString, targetPathList) ) { tfset = true; } }
+	}
+
         if (( encryptModeNeeded )   && ( decrypt ))								    { log("\r\nWarning: MAC Mode Disabled! Use --encrypt if you know what you are doing!!!\r\n",  false, true, true, false, false); usagePrompt(true); }
         if (( encryptModeNeeded )   && ( ! encrypt ))								    { log("\r\nWarning: Missing valid parameter <--encrypt>" + "\r\n",			    false, true, true, false, false); usagePrompt(true); }
         if (( kfsetneeded )	    && ( ! kfset ))								    { log("\r\nWarning: Missing valid parameter <-k \"keyfile\">" + "\r\n",			    false, true, true, false, false); usagePrompt(true); }
@@ -279,6 +306,16 @@ public class CLUI implements UI
 
 	if ( pwdIsSet ) { FinalCrypt.setPwd(pwd); }
 
+	if ( ( benchmark ) || ( benchmarkScan ) ) // -t: optional parent dir of the dataset (e.g. on the disk to measure)
+	{
+	    Path parentPath = null; if ( targetPathList.size() > 0 ) { parentPath = targetPathList.get(0); }
+	    if ( benchmarkFiles == 0 ) { benchmarkFiles = ( benchmark ) ? FCBenchmark.FILES_DEFAULT : FCBenchmark.SCAN_FILES_DEFAULT; }
+	    if ( benchmarkSizes == null ) { benchmarkSizes = ( benchmark ) ? new long[] { FCBenchmark.MIN_SIZE_DEFAULT, FCBenchmark.MAX_SIZE_DEFAULT } : new long[] { FCBenchmark.SCAN_MIN_SIZE_DEFAULT, FCBenchmark.SCAN_MAX_SIZE_DEFAULT }; }
+	    FCBenchmark fcBenchmark = new FCBenchmark(this, benchmarkFiles, benchmarkSizes[0], benchmarkSizes[1], finalCrypt.getBufferSize(), pwd);
+	    boolean ok = ( benchmark ) ? fcBenchmark.run(parentPath) : fcBenchmark.runScan(parentPath);
+	    System.exit(( ok ) ? 0 : 1);
+	}
+
 //	====================================================================================================================
 //	 Start writing OTP key file
 //	====================================================================================================================
@@ -287,84 +324,11 @@ public class CLUI implements UI
 
 	if (createkeyfile)
 	{
-	    Long factor = 0L;
-	    bufferSize = 1048576;
-	    totalTranfered = 0L;
-
-	    
 	    if ( Files.exists(keyPath, LinkOption.NOFOLLOW_LINKS) ) { log("Warning: file: \"" + keyPath.toAbsolutePath().toString() + "\" exists! Aborted!\r\n\r\n", false, true, false, false, false); System.exit(1); }
 	    else						    { log("Creating OTP Key File" + " (" + Validate.getHumanSize(filesizeInBytes, 1) + ")...", false, true, false, false, false); }
 
-	    if ( filesizeInBytes < bufferSize) { bufferSize = filesizeInBytes.intValue(); }
-
-	    boolean inputEnded = false;
-	    long writeKeyFileChannelPosition = 0L;
-	    long writeKeyFileChannelTransfered = 0L;
-	    totalTranfered = 0L;
-	    Long remainder = 0L;
-
-//	    Write the keyfile to 1st partition
-
-	    byte[]      randomBytes1 =	    new byte[bufferSize];
-	    byte[]      randomBytes2 =	    new byte[bufferSize];
-	    byte[]      randomBytes3 =	    new byte[bufferSize];
-	    ByteBuffer  randomBuffer1 =	    ByteBuffer.allocate(bufferSize); randomBuffer1.clear();
-	    ByteBuffer  randomBuffer2 =	    ByteBuffer.allocate(bufferSize); randomBuffer2.clear();
-	    ByteBuffer  randomBuffer3 =	    ByteBuffer.allocate(bufferSize); randomBuffer3.clear();
-
-
-	    SecureRandom random = new SecureRandom();
-
-	    write1loop: while ( (totalTranfered < filesizeInBytes) && (! inputEnded ))
-	    {
-		remainder = (filesizeInBytes - totalTranfered);
-
-		if	    ( remainder >= bufferSize )				
-		{
-		    randomBytes1 =	    new byte[bufferSize];
-		    randomBytes2 =	    new byte[bufferSize];
-		    randomBytes3 =	    new byte[bufferSize];
-		    randomBuffer1 =	    ByteBuffer.allocate(bufferSize); randomBuffer1.clear();
-		    randomBuffer2 =	    ByteBuffer.allocate(bufferSize); randomBuffer2.clear();
-		    randomBuffer3 =	    ByteBuffer.allocate(bufferSize); randomBuffer3.clear();
-		}
-		else if (( remainder > 0 ) && ( remainder < bufferSize ))
-		{
-		    randomBytes1 =	    new byte[remainder.intValue()];
-		    randomBytes2 =	    new byte[remainder.intValue()];
-		    randomBytes3 =	    new byte[remainder.intValue()];
-		    randomBuffer1 =	    ByteBuffer.allocate(remainder.intValue()); randomBuffer1.clear();
-		    randomBuffer2 =	    ByteBuffer.allocate(remainder.intValue()); randomBuffer2.clear();
-		    randomBuffer3 =	    ByteBuffer.allocate(remainder.intValue()); randomBuffer3.clear();
-		}
-		else							{ inputEnded = true; }
-//              Randomize raw key or write raw key straight to partition
-		random.nextBytes(randomBytes1); randomBuffer1.put(randomBytes1); randomBuffer1.flip();
-		random.nextBytes(randomBytes2); randomBuffer2.put(randomBytes2); randomBuffer2.flip();
-
-		randomBuffer3 = FinalCrypt.encryptBuffer(randomBuffer1, randomBuffer2, false); // Encrypt
-
-//              Write Device
-		try (final SeekableByteChannel writeKeyFileChannel = Files.newByteChannel(keyPath, EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.SYNC)))
-		{
-		    writeKeyFileChannel.position(writeKeyFileChannelPosition);
-		    writeKeyFileChannelTransfered = writeKeyFileChannel.write(randomBuffer3); randomBuffer3.rewind();
-		    totalTranfered += writeKeyFileChannelTransfered; 
-//		    log("tot: " + filesizeInBytes + " trans: " + totalTranfered + " remain: " + remainder + " p: " + (double)totalTranfered / filesizeInBytes + "\r\n", false, true, false, false, false);
-		    
-		    writeKeyFileChannelPosition += writeKeyFileChannelTransfered;
-
-		    writeKeyFileChannel.close();
-		} catch (IOException ex) { log("\r\nError: " + ex.getMessage() + "\r\n", false, true, true, true, false); inputEnded = true; break; }
-		randomBuffer1.clear(); randomBuffer2.clear(); randomBuffer3.clear();
-	    }
-	    writeKeyFileChannelPosition = 0;                
-	    writeKeyFileChannelTransfered = 0;                
-	    inputEnded = false;
-
-
-	    log("finished\r\n", false, true, false, false, false);
-	    System.exit(0);
+	    if ( new OTPKeyGenerator(this, keyPath, filesizeInBytes).generate() ) { log("finished\r\n", false, true, false, false, false); System.exit(0); }
+	    else								 { log("failed\r\n", false, true, false, false, false); System.exit(1); }
 	}
 
 //	====================================================================================================================
@@ -406,17 +370,32 @@ public class CLUI implements UI
 	}
 	
 	
+//////////////////////////////////////////////////// VERIFY TREE /////////////////////////////////////////////////////
+
+	if ((verifytree) && (keyFCPath != null) && (keyFCPath.isValidKey))
+	{
+	    new FCTreeVerifier(this, keyFCPath, fcPathPattern, symlink, verbose, throttle).verify(targetPathList);
+	    return;
+	}
+
 //////////////////////////////////////////////////// BUILD SELECTION /////////////////////////////////////////////////
         
 	targetFCPathList = new FCPathList();
+
+	if (((stream) || (batchFilePath != null)) && ((encrypt) || (decrypt)) && (keyFCPath != null) && (keyFCPath.isValidKey)) // Batchfiles are always streamed
+	{
+	    if ((decrypt) && (finalCrypt.disabledMAC)) { log("Warning: MAC Mode Disabled! Use --encrypt if you know what you are doing!!!\r\n", true, true, true, false, false); return; }
+	    streamSelection(targetPathList, batchFilePath, keyFCPath, fcPathPattern);
+	    return;
+	}
 //	if (!cfsetneeded) { keyFCPath = (FCPath) targetPathList.get(0); }
 	if (!kfsetneeded) 
 	{
 //    					  getFCPath(UI ui, String caller,	      Path path, boolean isKey,          Path keyPath, boolean disabledMAC,    boolean report)
 		     keyFCPath = Validate.getFCPath(ui,            "", targetPathList.get(0),         false, targetPathList.get(0), finalCrypt.disabledMAC,          true);
 	}
-//	   buildTargetSelection(UI ui, ArrayList<Path> userSelectedItemsPathList, Path keyPath, ArrayList<FCPath> targetFCPathList, boolean symlink, String pattern, boolean negatePattern,    boolean disabledMAC, boolean status)
-	Validate.buildSelection(this,			          targetPathList,    keyFCPath,		          targetFCPathList,	    symlink,	    pattern,	     negatePattern, finalCrypt.disabledMAC,         false);
+//	   buildTargetSelection(UI ui, ArrayList<Path> userSelectedItemsPathList, Path keyPath, ArrayList<FCPath> targetFCPathList, boolean symlink, FCPathPattern fcPathPattern,    boolean disabledMAC, boolean status)
+	Validate.buildSelection(this,			          targetPathList,    keyFCPath,		          targetFCPathList,	    symlink,	    fcPathPattern,   finalCrypt.disabledMAC,         false);
 	
 /////////////////////////////////////////////// SET BUILD MODES ////////////////////////////////////////////////////
 
@@ -550,7 +529,7 @@ public class CLUI implements UI
 	}
 	else if ((clonekeydev) && (cloneKeyDeviceFound))
 	{
-	    if (cloneKeyDeviceFound)	{ processStarted(); deviceManager = new DeviceManager(ui); deviceManager.start(); deviceManager.cloneKeyDevice(keyFCPath, (FCPath) cloneKeyList.get(0));  processFinished(new FCPathList(), false); }
+	    if (cloneKeyDeviceFound)	{ processStarted(); deviceManager = new DeviceManager(ui); deviceManager.start(); deviceManager.cloneKeyDevice(keyFCPath, cloneKeyList);  processFinished(new FCPathList(), false); }
 	    else			{ log("No valid target device found:\r\n", false, true, true, false, false); log(targetFCPathList.getStats(), false, true, false, false, false); }
 	}
 	else if ((printgpt) && (printGPTDeviceFound))
@@ -570,31 +549,78 @@ public class CLUI implements UI
 //  =======================================================================================================================================================================
 
 
+//  Streaming Selection: encrypting / decrypting starts as soon as the scanning thread publishes its first encryptable / decryptable
+//  Batchfile: FCBatchReader publishes the valid lines to the same queue (after the -t items) and targetFCPathList only counts them (addStat)
+    private void streamSelection(ArrayList<Path> targetPathList, Path batchFilePath, FCPath keyFCPath, FCPathPattern fcPathPattern)
+    {
+	final FCPathQueue streamQueue = new FCPathQueue();
+	final FCBatchReader batchReader; if ( batchFilePath != null ) { batchReader = new FCBatchReader(this, batchFilePath, keyFCPath.path, fcPathPattern, symlink, finalCrypt.disabledMAC); } else { batchReader = null; }
+	if ( ( batchReader != null ) && ( targetPathList.size() > 0 ) ) { streamQueue.addProducer(); }
+	Thread scanThread = new Thread(() ->
+	{
+	    if ( ( batchReader == null ) || ( targetPathList.size() > 0 ) )
+	    {
+//				   buildSelection(UI ui, ArrayList<Path> pathList, FCPath keyFCPath, FCPathList targetFCPathList, boolean symlink, FCPathPattern fcPathPattern,   boolean disabledMAC, boolean status, FCPathQueue streamQueue, boolean encryptmode)
+		Validate.buildSelection(this,		   targetPathList,	   keyFCPath,	    targetFCPathList,	      symlink,	      fcPathPattern,	   finalCrypt.disabledMAC,	      false,	     streamQueue,	     encrypt);
+	    }
+	    if ( batchReader != null )
+	    {
+		batchReader.read((FCPath fcPath) -> { synchronized (targetFCPathList) { targetFCPathList.addStat(fcPath); } streamQueue.publish(fcPath, encrypt); });
+		streamQueue.setScanEnded();
+	    }
+	}, "FinalCrypt Scan"); scanThread.setDaemon(true);
+
+	Runtime.getRuntime().addShutdownHook(new Thread()
+	{
+	    @Override public void run()
+	    {
+		if (finalCrypt.processRunning)
+		{
+		    finalCrypt.setStopPending(true);
+		    try{ Thread.sleep(2000); } catch (InterruptedException ex) {}
+		    log("\r\nStreaming User Interrupted...\r\n", false, true, true, false, false);
+		}
+	    }
+	});
+
+	if (finalCrypt.disabledMAC) { log("\"Warning: MAC Mode Disabled! (files will be encrypted without Message Authentication Code Header)\r\n", true, true, true, false, false); }
+	processStarted();
+	scanThread.start();
+	finalCrypt.encryptSelection(targetFCPathList, streamQueue, keyFCPath, encrypt, pwd, false);
+	if ( batchReader != null ) { batchReader.stop(); }
+	try { scanThread.join(); } catch (InterruptedException ex) { }
+
+	if ( streamQueue.getPublishedFiles() == 0 )
+	{
+	    if (encrypt) { log("No encryptable targets found:\r\n", false, true, true, false, false); }
+	    else	 { log("No decryptable targets found\r\n\r\n", false, true, true, false, false); if ( targetFCPathList.encryptedFiles > 0 ) { log("Wrong key / password?\r\n\r\n", false, true, false, false, false); } }
+	    log(targetFCPathList.getStats(), false, true, false, false, false);
+	}
+    }
+
+//  -b with --encrypt / --decrypt: the batchfile itself gets validated now and streamed into the encryptor by streamSelection
+    private Path getBatchFilePath(String batchFilePathString)
+    {
+//		      isValidFile(UI ui, String caller,                       Path targetSourcePath, isKey	boolean device, long minSize, boolean symlink, boolean writable, boolean report)
+        if ( Validate.isValidFile(this,  "CLUI.getBatchFilePath", Paths.get(batchFilePathString), false,              false,	          1L,         symlink,             false,           true) )
+	{
+            log("Streaming items from batchfile: " + batchFilePathString + "\r\n", false, true, true, false, false);
+	    return Paths.get(batchFilePathString);
+	}
+        log("Warning: batchfile: " + batchFilePathString + " is not a valid file!\r\n", false, true, true, false, false);
+	return null;
+    }
+
     private boolean addBatchTargetFiles(String batchFilePathString, ArrayList<Path> targetFilesPathList)
     {
         boolean ifset = false;
-        Path batchFilePath;
-        Path targetFilePath;
 //		      isValidFile(UI ui, String caller,                       Path targetSourcePath, isKey	boolean device, long minSize, boolean symlink, boolean writable, boolean report)
         if ( Validate.isValidFile(this,  "CLUI.addBatchTargetFiles", Paths.get(batchFilePathString), false,              false,	          1L,         symlink,             true,           true) )
         {
             log("Adding items from batchfile: " + batchFilePathString + "\r\n", false, true, true, false, false);
-            batchFilePath = Paths.get(batchFilePathString);
-            try
-            {
-                for (String targetFilePathString:Files.readAllLines(batchFilePath))
-                {
-//                  Entry may not be a directory (gets filtered and must be a valid file)
-//				  isValidFile(UI ui, String caller,                        Path targetSourcePath, boolean isKey, boolean device, long minSize, boolean symlink, boolean writable, boolean report)
-                    if ( Validate.isValidFile(   ui, "CLUI.addBatchTargetFiles", Paths.get(targetFilePathString),          false,	     false,	      0L,         symlink,             true,           true) )
-                    {
-                        targetFilePath = Paths.get(targetFilePathString); targetFilesPathList.add(targetFilePath); ifset = true;
-//                        println("Adding: " + targetFilePathString);
-                    }
-                    else { /* println("Invalid file: " + targetFilePathString);*/ } // Reporting in isValidFile is already set to true, so if invalid then user is informed
-                }
-            }
-            catch (IOException ex) { log("Files.readAllLines(" + batchFilePath + ");" + ex.getMessage(), false, true, true, true, false); }
+//	    Entries may not be directories (gets filtered and must be valid files), duplicates & invalid lines get reported with their line number
+	    FCBatchReader batchReader = new FCBatchReader(this, Paths.get(batchFilePathString), null, new FCPathPattern(), symlink, finalCrypt.disabledMAC);
+	    ifset = batchReader.readPaths((Path targetFilePath) -> { synchronized (targetFilesPathList) { targetFilesPathList.add(targetFilePath); } });
             if ( ! ifset ) { log("Warning: batchfile: " + batchFilePathString + " doesn't contain any valid items!\r\n", false, true, true, false, false); }
         }
         else
@@ -657,6 +683,9 @@ public class CLUI implements UI
         log("            <--clone-keydev>      -k \"source_device\" -t \"target_device\"     Clone Key Device (only unix).\r\n", false, true, false, false, false);
         log("            [--print-gpt]         -t \"target_device\"			    Print GUID Partition Table.\r\n", false, true, false, false, false);
         log("            [--delete-gpt]        -t \"target_device\"			    Delete GUID Partition Table (DATA LOSS!).\r\n", false, true, false, false, false);
+        log("            [--verify-tree]       -k \"keyfile\" -t \"dir\"		    Read only header audit: decryptable / foreign key / legacy / corrupt.\r\n", false, true, false, false, false);
+        log("            [--benchmark]         [-t \"dir\"]				    Encrypt & decrypt a generated dataset (in a temp dir under dir) and report MiB/s, files/s & latency.\r\n", false, true, false, false, false);
+        log("            [--benchmark-scan]    [-t \"dir\"]				    Scan & classify a generated tree (plain, MAC, foreign key, symlinks) and report files/s & heap.\r\n", false, true, false, false, false);
         log("\r\n", false, true, false, false, false);
 	log("Options:\r\n", false, true, false, false, false);
         log("            [-h] [--help]	  Shows this help page.\r\n", false, true, false, false, false);
@@ -684,9 +713,21 @@ public class CLUI implements UI
         log("Filtering Options:\r\n", false, true, false, false, false);
         log("\r\n", false, true, false, false, false);
         log("            [--dry]               Dry run without encrypting files for safe testing purposes.\r\n", false, true, false, false, false);
+        log("            [--stream]            Start en/decrypting while targets are still being scanned (totals & ETA provisional).\r\n", false, true, false, false, false);
+        log("            [--rng algorithm]     Key generation RNG (--create-keyfile / --create-keydev): default, NativePRNGNonBlocking, DRBG:256, SHA1PRNG...\r\n", false, true, false, false, false);
+        log("            [--benchmark-rng]     Measures the throughput of every available key generation RNG on this machine.\r\n", false, true, false, false, false);
+        log("            [--verify-write]      --create-keydev reads both key partitions back & compares their SHA-256.\r\n", false, true, false, false, false);
+        log("            [--metrics prom|json] Writes per stage I/O metrics to ~/.finalcrypt/metrics.prom (or .json) every 10 seconds.\r\n", false, true, false, false, false);
+        log("            [--throttle n]        --verify-tree reads at most n file headers per second.\r\n", false, true, false, false, false);
+        log("            [--benchmark-files n] --benchmark(-scan) dataset file count (default " + FCBenchmark.FILES_DEFAULT + " / " + FCBenchmark.SCAN_FILES_DEFAULT + ").\r\n", false, true, false, false, false);
+        log("            [--benchmark-size min-max] --benchmark(-scan) file sizes in bytes, K, M or G suffix, log uniform (default 1K-4M / 256-16K).\r\n", false, true, false, false, false);
         log("            [-w \'wildcard\']       File wildcard INCLUDE filter. Uses: \"Globbing Patterns Syntax\".\r\n", false, true, false, false, false);
         log("            [-W \'wildcard\']       File wildcard EXCLUDE filter. Uses: \"Globbing Patterns Syntax\".\r\n", false, true, false, false, false);
         log("            [-r \'regex\']          File regular expression filter. Advanced filename filter!\r\n", false, true, false, false, false);
+        log("            [-R \'regex\']          Path regular expression filter, relative to the target dir (absolute when starting with ^/).\r\n", false, true, false, false, false);
+        log("                                 Filters may be repeated. -w / -W wildcards containing a '/' and -R match the path relative to the target dir\r\n", false, true, false, false, false);
+        log("                                 and skip whole directories early (e.g. -w 'src/main/**' or -R '^src/main/.*'). -r always matches the filename.\r\n", false, true, false, false, false);
+        log("                                 -W 'node_modules/**' skips node_modules dirs at any depth, -W '/abs/dir/**' only that one.\r\n", false, true, false, false, false);
         log("\r\n", false, true, false, false, false);
         log("Parameters:\r\n", false, true, false, false, false);
         log("\r\n", false, true, false, false, false);
@@ -695,6 +736,8 @@ public class CLUI implements UI
         log("            <-t / -b>             The target items you want to encrypt. Individual (-t) or by batch (-b).\r\n", false, true, false, false, false);
         log("            <[-t \"file/dir\"]>     Target file or dir you want to encrypt (encrypts dirs recursively).\r\n", false, true, false, false, false);
         log("            <[-b \"batchfile\"]>    Batchfile with targetfiles you want to encrypt (only files).\r\n", false, true, false, false, false);
+        log("                                 Streamed: duplicate and invalid lines are skipped and reported by line number.\r\n", false, true, false, false, false);
+        log("                                 Path filters (-w / -W with a '/') match relative to the batchfile's dir.\r\n", false, true, false, false, false);
         log("\r\n", false, true, false, false, false);
         log(Version.getProductName() + " " + version.checkCurrentlyInstalledVersion(this) + " - Author: " + Version.getAuthor() + " - Copyright: " + Version.getCopyright() + "\r\n\r\n", false, true, false, false, false);
         System.exit(error ? 1 : 0);
@@ -848,8 +891,10 @@ public class CLUI implements UI
 
     public void status(String message)		    {  }
     public void log(String message, boolean err)    { if ( ! err ) { System.out.print(message); } else { System.err.print(message); } }
-    public void logfile(String message)		    { try { Files.write(configuration.getLogFilePath(), message.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC); } catch (IOException ex) { log("Files.write(" + configuration.getLogFilePath() + ")..));", false, true, true, false, false); } }
-    public void errfile(String message)		    { try { Files.write(configuration.getErrFilePath(), message.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC); } catch (IOException ex) { log("Files.write(" + configuration.getErrFilePath() + ")..));", false, true, true, false, false); } }
+    public void logfile(String message)		    { getLogFileWriter().write(message); }
+    public void errfile(String message)		    { getErrFileWriter().write(message); }
+    private synchronized AsyncLogWriter getLogFileWriter() { if ( logFileWriter == null ) { logFileWriter = new AsyncLogWriter(configuration.getLogFilePath()); } return logFileWriter; }
+    private synchronized AsyncLogWriter getErrFileWriter() { if ( errFileWriter == null ) { errFileWriter = new AsyncLogWriter(configuration.getErrFilePath()); } return errFileWriter; }
     public void print(String message, boolean err)  { if ( ! err ) { System.out.print(message); } else { System.err.print(message); } }
     
     public static void main(String[] args) { new CLUI(args); }
@@ -81,7 +81,7 @@ public class Configuration
         String.format("%02d", currentTimeCalendar.get(Calendar.MINUTE)) + ":" +
         String.format("%02d", currentTimeCalendar.get(Calendar.SECOND));
         
-        dataDirPath =   Paths.get(System.getProperty("user.home"), ".finalcrypt");
+        dataDirPath =   getDefaultDataDirPath();
         logDirPath =    Paths.get(dataDirPath.toString(),"log");
         logFilePath =   Paths.get(logDirPath.toString(),"finalcrypt_" + timeStampString+ ".log");
         errorFilePath = Paths.get(logDirPath.toString(),"finalcrypt_" + timeStampString+ ".err");
@@ -94,6 +94,8 @@ public class Configuration
 
     // Just the getters and setters
 
+    public static Path getDefaultDataDirPath() { return Paths.get(System.getProperty("user.home"), ".finalcrypt"); } // Also for classes without a Configuration (e.g. FinalCrypt)
+
     public Path	    getDataDirPath()	{return dataDirPath;}
     public Path	    getLogDirPath()	{return logDirPath;}
     public Path	    getLogFilePath()	{return logFilePath;}
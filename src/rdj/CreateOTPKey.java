@@ -25,18 +25,13 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.ByteBuffer;
-import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.security.SecureRandom;
-import java.util.EnumSet;
+import java.security.NoSuchAlgorithmException;
 import java.util.ResourceBundle;
-import java.util.Timer;
-import java.util.TimerTask;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -78,6 +73,8 @@ public class CreateOTPKey extends Application implements Initializable
     @FXML private TextField filenameTextField;
     @FXML private TextField filesizeTextField;
     @FXML private ChoiceBox<String> unitChoiceBox;
+    @FXML private ChoiceBox<String> rngChoiceBox;
+    @FXML private Label rngLabel;
     @FXML private Button increaseButton;
     @FXML private Button decreaseButton;
     @FXML private Button cancelButton;
@@ -90,19 +87,14 @@ public class CreateOTPKey extends Application implements Initializable
     @FXML private Label statusLabel1;
     @FXML private Label statusLabel2;
     public CreateOTPKey controller;
+    private volatile OTPKeyGenerator otpKeyGenerator; // While creating
     @FXML private Label complianceLabel;
     
     private Long filesizeNumber;
     private Long factor;
     private Long filesizeInBytes;
-    private int bufferSize = 1024 * 1024;
-    private TimerTask updateProgressTask;
-    private Timer updateProgressTaskTimer;
-    private long totalTranfered;
-    private long throughputClock;
-    private long lastThroughputClock;
-    private long realtimeBytesProcessed;
-    private double realtimeMiBPS;
+    private volatile long totalTranfered;
+    private volatile double realtimeMiBPS;
 
 //    public CreateOTPKey(GUIFX guifx)
 //    {
@@ -136,6 +128,8 @@ public class CreateOTPKey extends Application implements Initializable
 	unitChoiceBox.getItems().add("PiB");
 	unitChoiceBox.getItems().add("EiB");
 	unitChoiceBox.getSelectionModel().select(2);
+	rngChoiceBox.getItems().addAll(RandomSource.getAvailable()); // Fastest source: java -cp FinalCrypt.jar rdj.CLUI --benchmark-rng
+	rngChoiceBox.getSelectionModel().select(RandomSource.getAlgorithm());
 	
 //	FileName Listener
 	filenameTextField.textProperty().addListener((obs, oldText, newText) ->
@@ -291,8 +285,13 @@ public class CreateOTPKey extends Application implements Initializable
 	decreaseButton.setDisable(true);
 	untiLabel.setDisable(true);
 	unitChoiceBox.setDisable(true);
+	rngChoiceBox.setDisable(true);
+	rngLabel.setDisable(true);
 	createButton.setDisable(true);
 
+//	Select the RNG (only available algorithms are listed)
+	try { RandomSource.setAlgorithm(rngChoiceBox.getSelectionModel().getSelectedItem()); } catch (NoSuchAlgorithmException | IllegalArgumentException ex) { statusLabel1.setText("RNG: " + ex.getMessage()); }
+
 //	Compile key file path	
 	keyPath = Paths.get(currentDirPath.toAbsolutePath().toString(), filenameTextField.getText());
 	
@@ -317,103 +316,43 @@ public class CreateOTPKey extends Application implements Initializable
 	Thread createKeyThread;
 	createKeyThread = new Thread(() ->
 	{
-	    if ( filesizeInBytes < bufferSize) { bufferSize =  filesizeInBytes.intValue(); }
-
-	    boolean inputEnded = false;
-	    long writeKeyFileChannelPosition = 0L;
-	    long writeKeyFileChannelTransfered = 0L;
 	    totalTranfered = 0L;
-	    Long remainder = 0L;
-
-    //      Write the keyfile to 1st partition
-	    byte[]      randomBytes1 =	    new byte[bufferSize];
-	    byte[]      randomBytes2 =	    new byte[bufferSize];
-	    byte[]      randomBytes3 =	    new byte[bufferSize];
-	    ByteBuffer  randomBuffer1 =	    ByteBuffer.allocate(bufferSize); randomBuffer1.clear();
-	    ByteBuffer  randomBuffer2 =	    ByteBuffer.allocate(bufferSize); randomBuffer2.clear();
-	    ByteBuffer  randomBuffer3 =	    ByteBuffer.allocate(bufferSize); randomBuffer3.clear();
-
-	    throughputClock = 0L;
-	    lastThroughputClock = 0L;
-	    realtimeBytesProcessed = 0L;
 	    realtimeMiBPS = 0.0d;
-	    
-	    updateProgressTask = new TimerTask()
+
+//	    Engine progress goes to this dialog's progressBar, the throughput to the main window
+	    UI progressUI = new UI()
 	    {
-		@Override public void run()
+		@Override public void test(String message) { guifx.test(message); }
+		@Override public void log(String message, boolean status, boolean log, boolean logfile, boolean errfile, boolean print) { guifx.log(message, status, log, logfile, errfile, print); if ( errfile ) { Platform.runLater(() -> { statusLabel1.setText(message.trim()); }); } }
+		@Override public void processGraph(int value) {  }
+		@Override public void processProgress(int filesProgressPercent, int fileProgressPercent, long bytesTotalParam, long bytesProcessedParam, double bytesPerMiliSecondParam)
 		{
+		    totalTranfered = bytesProcessedParam; realtimeMiBPS = bytesPerMiliSecondParam;
 		    Platform.runLater(new Runnable(){ @Override public void run()
 		    {
-			throughputClock = System.nanoTime();
-//			realtimeMiBPS = (realtimeBytesProcessed * (1000000d / (throughputClock - lastThroughputClock)));
-			realtimeMiBPS = ((realtimeBytesProcessed * (1000000000d / (throughputClock - lastThroughputClock)))/(1024d*1024d)); // ui.test("FC BPS: " + realtimeMiBPS + "\r\n");
-			if ( realtimeMiBPS > FinalCrypt.io_Throughput_Ceiling ) { FinalCrypt.io_Throughput_Ceiling = realtimeMiBPS; }
-			lastThroughputClock = throughputClock; realtimeBytesProcessed = 0;
-			
 			progressBar.setProgress( (double)totalTranfered / filesizeInBytes); // percent needs to become factor in this gui
 			guifx.processProgress(		     0,			   0,		    0,			0, realtimeMiBPS );
 		    }});
 		}
-	    }; updateProgressTaskTimer = new java.util.Timer(); updateProgressTaskTimer.schedule(updateProgressTask, 0L, 200L);
-
-	    SecureRandom random = new SecureRandom();
+		@Override public void fileProgress() {  }
+		@Override public void processFinished(FCPathList openFCPathList, boolean open) {  }
+		@Override public void processStarted() {  }
+		@Override public void buildReady(FCPathList fcPathListParam, boolean validBuild) {  }
+	    };
 
-	    write1loop: while ( (totalTranfered < filesizeInBytes) && (! inputEnded ))
-	    {
-		remainder = (filesizeInBytes - totalTranfered);
-
-		if	    ( remainder >= bufferSize )				
-		{
-		    randomBytes1 =	    new byte[bufferSize];
-		    randomBytes2 =	    new byte[bufferSize];
-		    randomBytes3 =	    new byte[bufferSize];
-		    randomBuffer1 =	    ByteBuffer.allocate(bufferSize); randomBuffer1.clear();
-		    randomBuffer2 =	    ByteBuffer.allocate(bufferSize); randomBuffer2.clear();
-		    randomBuffer3 =	    ByteBuffer.allocate(bufferSize); randomBuffer3.clear();
-		}
-		else if (( remainder > 0 ) && ( remainder < bufferSize ))
-		{
-		    randomBytes1 =	    new byte[remainder.intValue()];
-		    randomBytes2 =	    new byte[remainder.intValue()];
-		    randomBytes3 =	    new byte[remainder.intValue()];
-		    randomBuffer1 =	    ByteBuffer.allocate(remainder.intValue()); randomBuffer1.clear();
-		    randomBuffer2 =	    ByteBuffer.allocate(remainder.intValue()); randomBuffer2.clear();
-		    randomBuffer3 =	    ByteBuffer.allocate(remainder.intValue()); randomBuffer3.clear();
-		}
-		else							{ inputEnded = true; }
-    //          Randomize raw key or write raw key straight to partition
-		random.nextBytes(randomBytes1); randomBuffer1.put(randomBytes1); randomBuffer1.flip();
-		random.nextBytes(randomBytes2); randomBuffer2.put(randomBytes2); randomBuffer2.flip();
-
-		randomBuffer3 = FinalCrypt.encryptBuffer(randomBuffer1, randomBuffer2, false); // Encrypt
-
-    //          Write Device
-		try (final SeekableByteChannel writeKeyFileChannel = Files.newByteChannel(keyPath, EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.SYNC)))
-		{
-		    writeKeyFileChannel.position(writeKeyFileChannelPosition);
-		    writeKeyFileChannelTransfered = writeKeyFileChannel.write(randomBuffer3); randomBuffer3.rewind(); realtimeBytesProcessed += writeKeyFileChannelTransfered;
-		    totalTranfered += writeKeyFileChannelTransfered; 
-//		    System.out.println("tot: " + filesizeInBytes + " trans: " + totalTranfered + " remain: " + remainder + " p: " + (double)totalTranfered / filesizeInBytes + "\r\n");
-
-		    writeKeyFileChannelPosition += writeKeyFileChannelTransfered;
-
-		    writeKeyFileChannel.close();
-		} catch (IOException ex) { statusLabel1.setText("Error: " + ex.getMessage()); inputEnded = true; break; }
-		randomBuffer1.clear(); randomBuffer2.clear(); randomBuffer3.clear();
-	    }
-	    writeKeyFileChannelPosition = 0;                
-	    writeKeyFileChannelTransfered = 0;                
-	    inputEnded = false;
+	    otpKeyGenerator = new OTPKeyGenerator(progressUI, keyPath, filesizeInBytes);
+	    boolean created = otpKeyGenerator.generate();
+	    otpKeyGenerator = null;
 
-	    updateProgressTaskTimer.cancel(); updateProgressTaskTimer.purge();
-	    realtimeMiBPS = 0d; realtimeBytesProcessed = 0;
+	    realtimeMiBPS = 0d;
 	    guifx.processProgress(		     0,			   0,		    0,			0, realtimeMiBPS );
-	    progressBar.setProgress( (double)totalTranfered / filesizeInBytes); // percent needs to become factor in this gui
 	    
 	    if (repeaterTimeline != null) { repeaterTimeline.stop(); }
 	    Platform.runLater(new Runnable(){ @Override public void run()
 	    {
-		statusLabel1.setText("Created OTP Key File" + " (" + Validate.getHumanSize(filesizeInBytes, 1) + ")");
+		progressBar.setProgress( (double)totalTranfered / filesizeInBytes); // percent needs to become factor in this gui
+		if ( created )	{ statusLabel1.setText("Created OTP Key File" + " (" + Validate.getHumanSize(filesizeInBytes, 1) + ")"); }
+		else		{ statusLabel1.setVisible(true); }
 		guifx.textLabelFadeMessage(guifx.SELECT_KEY, 64, false, false, true, false);
 	    }});
 
@@ -438,6 +377,7 @@ public class CreateOTPKey extends Application implements Initializable
     @FXML
     private void cancelButtonAction(ActionEvent event)
     {
+	OTPKeyGenerator generator = otpKeyGenerator; if ( generator != null ) { generator.stop(); } // Generator deletes the incomplete key file
 	Platform.runLater(new Runnable(){ @Override public void run()
 	{
 	    if (repeaterTimeline != null) { repeaterTimeline.stop(); statusLabel1.setText("Canceled"); } else { statusLabel1.setText("Closing"); }
@@ -20,48 +20,36 @@ package rdj;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.EnumSet;
-import java.util.Locale;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DeviceController
 {
     int bufferSize = 1024 * 1024 * 1;
-    static long deviceSize = 0;
     long keySize = 0;
-    static long bytesPerSector = 512;
+    static long bytesPerSector = DeviceSizeResolver.SECTOR_SIZE_DEFAULT; // Logical sector size of the current device (setBytesPerSector)
     static UI ui;
     private static boolean pausing;
     private static boolean stopPending;
-    private TimerTask updateProgressTask;
-    private Timer updateProgressTaskTimer;
-    
-//  DoubleTest vars
-    private static long lastpos = 0;
-    private static long currpos = 1;
-    private static long step = 1;
-    private static long above = 0;
-    private static long below = 1024;
-    private static long cycles = 0;
-    private static boolean finished = false;
-    private Calendar	startCalendar;
-    private long filesBytesTotal;
-    private long filesBytesProcessed;
-//    private long filesBytesProcessed;
-    private static double bytesPerMilliSecond;
-    private Calendar processProgressCalendar;
-    private long throughputClock;
-    private long lastThroughputClock;
-    private double realtimeBytesProcessed;
-    private double realtimeMiBPS;
+    private static boolean verifyWrites = false; // Read back & compare written partitions
+    private static final int MIRROR_CHUNKS = 4;
+    private static final long UPDATE_PROGRESS_PERIOD = 200L;
+    private ProgressPublisher.Session progressSession;
 
 	public DeviceController(UI ui)
     {
@@ -71,16 +59,22 @@ public class DeviceController
 //  Read byte[] from device
     synchronized public static byte[] readLBA(FCPath fcPath, long lba, long length)
     {        
-        long readInputDeviceChannelTransfered = 0;
-        ByteBuffer inputDeviceBuffer = ByteBuffer.allocate((int)length); inputDeviceBuffer.clear();
+        ByteBuffer inputDeviceBuffer = ByteBuffer.allocate((int)length); readLBA(fcPath, lba, inputDeviceBuffer);
+        return inputDeviceBuffer.array();
+    }
+    
+//  Read into the (GPT table) buffer itself: no intermediate copies
+    synchronized public static void readLBA(FCPath fcPath, long lba, ByteBuffer inputDeviceBuffer)
+    {        
+        inputDeviceBuffer.clear(); Object deviceEvent = FlightEvents.begin(FlightEvents.DEVICE_READ);
         try (final SeekableByteChannel readInputDeviceChannel = Files.newByteChannel(fcPath.path, EnumSet.of(StandardOpenOption.READ)))
         {
             readInputDeviceChannel.position(getLBAOffSet(bytesPerSector, fcPath.size, lba));
-            readInputDeviceChannelTransfered = readInputDeviceChannel.read(inputDeviceBuffer); inputDeviceBuffer.flip();
-            readInputDeviceChannel.close();
-//            ui.log("Read LBA " + lba + " Transfered: " + readInputDeviceChannelTransfered + "\r\n");
+            while ( ( inputDeviceBuffer.hasRemaining() ) && ( readInputDeviceChannel.read(inputDeviceBuffer) > 0 ) ) { }
+            FlightEvents.commit(deviceEvent, fcPath.path, "LBA", lba, inputDeviceBuffer.position());
+//            ui.log("Read LBA " + lba + " Transfered: " + inputDeviceBuffer.position() + "\r\n");
         } catch (IOException ex) { ui.log("Device().read(..) " + ex.getMessage(), true, true, true, true, false); }
-        return inputDeviceBuffer.array();
+        inputDeviceBuffer.clear();
     }
     
     synchronized public static byte[] readPos(FCPath fcPath, long pos, long length)
@@ -98,51 +92,52 @@ public class DeviceController
     }
     
 //  Write byte[] to device
-    synchronized public static void writeLBA(String desc, byte[] bytes, FCPath fcPath, long lba)
+    synchronized public static void writeLBA(String desc, byte[] bytes, FCPath fcPath, long lba) { writeLBA(desc, ByteBuffer.wrap(bytes), fcPath, lba); }
+
+//  Writes the whole buffer (position & limit of the callers buffer are left alone)
+    synchronized public static void writeLBA(String desc, ByteBuffer buffer, FCPath fcPath, long lba)
     {        
         long writeOutputDeviceChannelTransfered = 0;
-        ByteBuffer outputDeviceBuffer = null;
+        ByteBuffer outputDeviceBuffer = buffer.duplicate(); outputDeviceBuffer.clear();
         ui.log("Write " + desc + " Pos (" + getLBAOffSet(bytesPerSector, fcPath.size, lba) + ") ", true, true, true, false, false);
+        Object deviceEvent = FlightEvents.begin(FlightEvents.DEVICE_WRITE);
         try (final SeekableByteChannel writeOutputDeviceChannel = Files.newByteChannel(fcPath.path, EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.SYNC)))
         {
-            outputDeviceBuffer = ByteBuffer.allocate(bytes.length); outputDeviceBuffer.put(bytes); outputDeviceBuffer.flip(); // logBytes(outputDeviceBuffer.array());
-//            guifx.log("Buffer: " + outputDeviceBuffer.capacity());
             writeOutputDeviceChannel.position(getLBAOffSet(bytesPerSector, fcPath.size, lba));
-            writeOutputDeviceChannelTransfered = writeOutputDeviceChannel.write(outputDeviceBuffer);
+            while ( outputDeviceBuffer.hasRemaining() ) { writeOutputDeviceChannelTransfered += writeOutputDeviceChannel.write(outputDeviceBuffer); }
+            FlightEvents.commit(deviceEvent, fcPath.path, desc, lba, writeOutputDeviceChannelTransfered);
             ui.log("Transfered: " + writeOutputDeviceChannelTransfered + "\r\n", true, true, true, false, false);
-            writeOutputDeviceChannel.close();
         } catch (IOException ex) { ui.log("Error: Device.writeLBA(..): " + ex.getMessage() + "", true, true, true, true, false); }
     }
 
 //  Write Entry byte[] to device WARNING: writeOutputDeviceChannel.position(pos); causes exeption on OSX! Use writeLBA(..) above (from GPT_Entries) (hmm not anymore maybe)
 
-    synchronized public static void writePos(String desc, byte[] bytes, FCPath device, long pos)
+    synchronized public static void writePos(String desc, byte[] bytes, FCPath device, long pos) { writePos(desc, ByteBuffer.wrap(bytes), device, pos); }
+
+    synchronized public static void writePos(String desc, ByteBuffer buffer, FCPath device, long pos)
     {        
         long writeOutputDeviceChannelTransfered = 0;
-        ByteBuffer outputDeviceBuffer = null;
+        ByteBuffer outputDeviceBuffer = buffer.duplicate(); outputDeviceBuffer.clear();
         ui.log("Wrote " + desc + " Pos(" + pos + ") ", true, true, true, false, false);
         try (final SeekableByteChannel writeOutputDeviceChannel = Files.newByteChannel(device.path, EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.SYNC)))
         {
-            outputDeviceBuffer = ByteBuffer.allocate(bytes.length); outputDeviceBuffer.put(bytes); outputDeviceBuffer.flip(); // logBytes(outputDeviceBuffer.array());
-//            guifx.log("Buffer: " + outputDeviceBuffer.capacity());
             writeOutputDeviceChannel.position(pos);
-            writeOutputDeviceChannelTransfered = writeOutputDeviceChannel.write(outputDeviceBuffer);
+            while ( outputDeviceBuffer.hasRemaining() ) { writeOutputDeviceChannelTransfered += writeOutputDeviceChannel.write(outputDeviceBuffer); }
             ui.log("Transfered: " + writeOutputDeviceChannelTransfered + "", true, true, true, false, false);
-            writeOutputDeviceChannel.close();
         } catch (IOException ex) { ui.log("Error: Device.writePos(..): " + ex.getMessage() + "\r\n", true, true, true, true, false); }
     }
 
-//  Write KeyFile to partition
+//  Write KeyFile to partition 1 & 2
+//  Pipeline: this thread reads the key file (one channel) and randomizes it with one SecureRandom stream,
+//  two MirrorWriter threads write every buffer positionally to their own partition at the same time
     synchronized public void createKeyPartition(FCPath keyFCPath, FCPath targetFCPath, long firstLBA, long lastLBA)
     {
 	FinalCrypt.io_Throughput_Ceiling = FinalCrypt.IO_THROUGHPUT_CEILING_DEFAULT;
-	startCalendar = Calendar.getInstance(Locale.ROOT);
 	boolean encryptkey = true;
         if ( keyFCPath.size < bufferSize)   { bufferSize = (int)keyFCPath.size; if (FinalCrypt.verbose) ui.log("BufferSize is limited to keyfile size: " + GPT.getHumanSize(bufferSize, 1) + " \r\n", true, true, true, false, false); }
 //        else                            { log("BufferSize is set to: " + getHumanSize(bufferSize, 1) + " \r\n"); }
         Stats allDataStats = new Stats(); allDataStats.reset();        
         Stat readKeyFileStat1 = new Stat(); readKeyFileStat1.reset();
-        Stat readKeyFileStat2 = new Stat(); readKeyFileStat2.reset();
         Stat writeKeyFileStat1 = new Stat(); writeKeyFileStat1.reset();
         Stat writeKeyFileStat2 = new Stat(); writeKeyFileStat2.reset();
 
@@ -152,140 +147,87 @@ public class DeviceController
         ui.log(allDataStats.getStartSummary("Creating Key Device"), true, true, false, false, false);
         try { Thread.sleep(100); } catch (InterruptedException ex) {  }
         
-        boolean inputEnded = false;
-        long readKeyFileChannelPosition = 0;
-        long readKeyFileChannelTransfered = 0;
-        long writeOutputDeviceChannelPosition = 0;                
-        long writeOutputDeviceChannelTransfered = 0;
-        
-//      Write the keyfile to 1st partition
-        ByteBuffer  keyFileBuffer =      ByteBuffer.allocate(bufferSize); keyFileBuffer.clear();
-        byte[]      randomizedBytes =       new byte[bufferSize];
-        ByteBuffer  randomizedBuffer =      ByteBuffer.allocate(bufferSize); keyFileBuffer.clear();
-        ByteBuffer  outputDeviceBuffer =    ByteBuffer.allocate(bufferSize); outputDeviceBuffer.clear();
-	
-	throughputClock = 0;
-	lastThroughputClock = 0;
+	long partLength =	((lastLBA - firstLBA) + 1) * bytesPerSector; // Key + random gap up to the end of the partition
+	long partition1Pos =	getLBAOffSet(bytesPerSector, targetFCPath.size, firstLBA);
+	long partition2Pos =	getLBAOffSet(bytesPerSector, targetFCPath.size, lastLBA + 1);
 
-//      Setup the Progress TIMER & TASK
+//      Progress: sampled by the ProgressPublisher thread, the MirrorWriters count the written bytes
 
-        updateProgressTask = new TimerTask()
+        progressSession = ProgressPublisher.start(ui, "Creating Key Device", snapshot ->
 	{
-	    @Override public void run()
-	    {		
-		processProgressCalendar =   Calendar.getInstance(Locale.ROOT);
-		filesBytesTotal =	    allDataStats.getFilesBytesTotal();
-		filesBytesProcessed =	    allDataStats.getFilesBytesProcessed();
-		bytesPerMilliSecond =	    filesBytesProcessed / (processProgressCalendar.getTimeInMillis() - startCalendar.getTimeInMillis());
-
-		throughputClock = System.nanoTime();
-		realtimeMiBPS = ((realtimeBytesProcessed * (1000000000d / (throughputClock - lastThroughputClock)))/(1024d*1024d)); // ui.test("FC BPS: " + realtimeMiBPS + "\r\n");
-
-		if ( realtimeMiBPS > FinalCrypt.io_Throughput_Ceiling ) { FinalCrypt.io_Throughput_Ceiling = realtimeMiBPS; }
-		lastThroughputClock = throughputClock; realtimeBytesProcessed = 0;
-
-	        ui.processProgress
-		(
-		    (int) (
-			    (( readKeyFileStat1.getFileBytesProcessed() + writeKeyFileStat1.getFileBytesProcessed() + readKeyFileStat2.getFileBytesProcessed() + writeKeyFileStat2.getFileBytesProcessed() ) * 2)
-			    /   ( (allDataStats.getFileBytesTotal() * 3 ) / 100.0)),
-
-		    (int) (
-			    ( allDataStats.getFilesBytesProcessed() * 2) / ( (allDataStats.getFilesBytesTotal() * 3) / 100.0)
-			  ), filesBytesTotal, filesBytesProcessed, realtimeMiBPS
-		);
-
-	    }
-	}; updateProgressTaskTimer = new java.util.Timer(); updateProgressTaskTimer.schedule(updateProgressTask, 0L, 200L);
+	    snapshot.fileProgressPercent =  (int) ( (( readKeyFileStat1.getFileBytesProcessed() + writeKeyFileStat1.getFileBytesProcessed() + writeKeyFileStat2.getFileBytesProcessed() ) * 2) / ( (allDataStats.getFileBytesTotal() * 3 ) / 100.0) );
+	    snapshot.filesProgressPercent = (int) ( ( allDataStats.getFilesBytesProcessed() * 2) / ( (allDataStats.getFilesBytesTotal() * 3) / 100.0) );
+	    snapshot.bytesTotal =	    allDataStats.getFilesBytesTotal();
+	    snapshot.bytesProcessed =	    allDataStats.getFilesBytesProcessed();
+	}).subscribe(ProgressPublisher.uiListener(ui), UPDATE_PROGRESS_PERIOD);
 
         allDataStats.setAllDataStartNanoTime();
 
-        ui.log("Writing " + keyFCPath.path.toAbsolutePath() + " to partition 1 (LBA:"+ firstLBA + ":" + (getLBAOffSet(bytesPerSector, targetFCPath.size, firstLBA) + writeOutputDeviceChannelPosition) + ")", true, true, true, false, false);
+        ui.log("Writing " + keyFCPath.path.toAbsolutePath() + " to partition 1 (LBA:"+ firstLBA + ":" + partition1Pos + ") & 2 (LBA:" + (lastLBA + 1) + ":" + partition2Pos + ")", true, true, true, false, false);
 
-	readKeyFileStat1.reset();
-	writeKeyFileStat1.reset();
+//	Writers & their shared buffers (a buffer returns to freeChunkQueue once both partitions got it)
+	ArrayBlockingQueue<MirrorChunk> freeChunkQueue = new ArrayBlockingQueue<>(MIRROR_CHUNKS);
+	for (int chunk = 0; chunk < MIRROR_CHUNKS; chunk++) { freeChunkQueue.add(new MirrorChunk(bufferSize, encryptkey)); }
+	MirrorWriter[] mirrorWriters = new MirrorWriter[]
+	{
+	    new MirrorWriter("partition 1", targetFCPath.path, partition1Pos, freeChunkQueue, writeKeyFileStat1, allDataStats, 0),
+	    new MirrorWriter("partition 2", targetFCPath.path, partition2Pos, freeChunkQueue, writeKeyFileStat2, allDataStats, 0)
+	};
+	for (MirrorWriter mirrorWriter:mirrorWriters) { mirrorWriter.start(); }
 
-	filesBytesProcessed = 0;
-	write1loop: while ( ! inputEnded )
-        {
-            while (pausing)     { bytesPerMilliSecond = 0; try { Thread.sleep(100); } catch (InterruptedException ex) {  } }
-            if (stopPending)    { inputEnded = true; break write1loop; }
-
-            readKeyFileStat1.setFileStartEpoch();
-            try (final SeekableByteChannel readKeyFileChannel = Files.newByteChannel(keyFCPath.path, EnumSet.of(StandardOpenOption.READ)))
-            {
-                // Fill up keyFileBuffer
-                readKeyFileChannel.position(readKeyFileChannelPosition);
-                readKeyFileChannelTransfered = readKeyFileChannel.read(keyFileBuffer); readKeyFileChannelPosition += readKeyFileChannelTransfered;
-                if (( readKeyFileChannelTransfered < 1 ) || ( keyFileBuffer.limit() < bufferSize )) { inputEnded = true; }
-                keyFileBuffer.flip();
-                readKeyFileChannel.close(); readKeyFileStat1.setFileEndEpoch(); readKeyFileStat1.clock();
-                readKeyFileStat1.addFileBytesProcessed(readKeyFileChannelTransfered); allDataStats.addAllDataBytesProcessed("", readKeyFileChannelTransfered);
-            } catch (IOException ex) { ui.log("Files.newByteChannel(keyFilePath, EnumSet.of(StandardOpenOption.READ)) " + ex.getMessage() + "\r\n", true, true, true, true, false); }
-            
-//          Randomize raw key or write raw key straight to partition
-	    SecureRandom random = new SecureRandom();
-//	    if (encryptkey)	{ random.nextBytes(randomizedBytes); randomizedBuffer.put(randomizedBytes); randomizedBuffer.flip();outputDeviceBuffer = encryptBuffer(keyFileBuffer, randomizedBuffer); }
-	    if (encryptkey)	{ random.nextBytes(randomizedBytes); randomizedBuffer.put(randomizedBytes); randomizedBuffer.flip();outputDeviceBuffer = FinalCrypt.encryptBuffer(keyFileBuffer, randomizedBuffer, false); }
-	    else		{ outputDeviceBuffer.put(keyFileBuffer); outputDeviceBuffer.flip(); }
-            
-//          Write Device
-            writeKeyFileStat1.setFileStartEpoch();
-            try (final SeekableByteChannel writeOutputDeviceChannel = Files.newByteChannel(targetFCPath.path, EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.SYNC)))
-            {
-//              Write keyfile to partition 1
-                writeOutputDeviceChannel.position((getLBAOffSet(bytesPerSector, targetFCPath.size, firstLBA) + writeOutputDeviceChannelPosition));
-                writeOutputDeviceChannelTransfered = writeOutputDeviceChannel.write(outputDeviceBuffer); outputDeviceBuffer.rewind(); realtimeBytesProcessed += writeOutputDeviceChannelTransfered; filesBytesProcessed += writeOutputDeviceChannelTransfered;
-                writeKeyFileStat1.addFileBytesProcessed(writeOutputDeviceChannelTransfered); allDataStats.addAllDataBytesProcessed("", readKeyFileChannelTransfered);
-//                ui.log("writeOutputDeviceChannelTransfered 1 : " + writeOutputDeviceChannelTransfered + "\r\n");
-
-//              Write keyfile to partition 2
-                writeOutputDeviceChannel.position((getLBAOffSet(bytesPerSector, targetFCPath.size, lastLBA + 1) + writeOutputDeviceChannelPosition));
-                writeOutputDeviceChannelTransfered = writeOutputDeviceChannel.write(outputDeviceBuffer); outputDeviceBuffer.rewind(); realtimeBytesProcessed += writeOutputDeviceChannelTransfered; filesBytesProcessed += writeOutputDeviceChannelTransfered;
-                writeKeyFileStat1.addFileBytesProcessed(writeOutputDeviceChannelTransfered); allDataStats.addAllDataBytesProcessed("", readKeyFileChannelTransfered);
-//                ui.log("writeOutputDeviceChannelTransfered 1 : " + writeOutputDeviceChannelTransfered + "\r\n");
-
-                writeOutputDeviceChannelPosition += writeOutputDeviceChannelTransfered;
-
-                if ( inputEnded )
-                {
-                    long partLength = ((lastLBA - firstLBA) + 1) * bytesPerSector; long gap = partLength - keyFCPath.size;
-		    outputDeviceBuffer = ByteBuffer.allocate((int)gap); outputDeviceBuffer.clear(); 
-		    
-//		    Randomize or zero out gab at end of partition
-		    if (encryptkey)    { randomizedBytes = new byte[(int)gap]; random.nextBytes(randomizedBytes);outputDeviceBuffer.put(randomizedBytes); outputDeviceBuffer.flip(); }
-		    else	    { outputDeviceBuffer.put(GPT.getZeroBytes((int)gap)); outputDeviceBuffer.flip(); }
-                    
-//                  Fill in gap at end of partition 1
-                    writeOutputDeviceChannel.position((getLBAOffSet(bytesPerSector, targetFCPath.size, firstLBA) + writeOutputDeviceChannelPosition));
-                    writeOutputDeviceChannelTransfered = writeOutputDeviceChannel.write(outputDeviceBuffer); outputDeviceBuffer.rewind();
-                    writeKeyFileStat1.addFileBytesProcessed(writeOutputDeviceChannelTransfered); allDataStats.addAllDataBytesProcessed("", readKeyFileChannelTransfered);
-//                    ui.log("writeOutputDeviceChannelTransfered 1 : " + writeOutputDeviceChannelTransfered + "\r\n");                
-
-//                  Fill in gap at end of partition 2
-                    writeOutputDeviceChannel.position((getLBAOffSet(bytesPerSector, targetFCPath.size, lastLBA + 1) + writeOutputDeviceChannelPosition));
-                    writeOutputDeviceChannelTransfered = writeOutputDeviceChannel.write(outputDeviceBuffer); outputDeviceBuffer.rewind();
-                    writeKeyFileStat1.addFileBytesProcessed(writeOutputDeviceChannelTransfered); allDataStats.addAllDataBytesProcessed("", readKeyFileChannelTransfered);
-//                    ui.log("writeOutputDeviceChannelTransfered 1 : " + writeOutputDeviceChannelTransfered + "\r\n");                
-                }
-
-                writeOutputDeviceChannel.close(); writeKeyFileStat1.setFileEndEpoch(); writeKeyFileStat1.clock();
-            } catch (IOException ex) { ui.log(Arrays.toString(ex.getStackTrace()), true, true, false, false, false); }
-            keyFileBuffer.clear(); randomizedBuffer.clear(); outputDeviceBuffer.clear();
-        }
-        readKeyFileChannelPosition = 0;
-        readKeyFileChannelTransfered = 0;
-        writeOutputDeviceChannelPosition = 0;                
-        writeOutputDeviceChannelTransfered = 0;                
-        inputEnded = false;
+	MessageDigest writtenDigest = null; if ( verifyWrites ) { try { writtenDigest = MessageDigest.getInstance("SHA-256"); } catch (NoSuchAlgorithmException ex) { ui.log("Warning: SHA-256 unavailable, verify skipped\r\n", true, true, true, true, false); } }
+	SecureRandom random = RandomSource.getInstance(); // One stream, seeded once
+        long position = 0;
+
+	try (final FileChannel readKeyFileChannel = FileChannel.open(keyFCPath.path, StandardOpenOption.READ))
+	{
+	    write1loop: while ( position < partLength )
+	    {
+		while (pausing)     { try { Thread.sleep(100); } catch (InterruptedException ex) {  } }
+		if (stopPending)    { break write1loop; }
+		for (MirrorWriter mirrorWriter:mirrorWriters) { if ( mirrorWriter.failed ) { break write1loop; } }
+
+		MirrorChunk chunk; try { chunk = freeChunkQueue.take(); } catch (InterruptedException ex) { break write1loop; }
+		int length = (int)Math.min(bufferSize, partLength - position);
+		byte[] bytes = chunk.buffer.array(); Arrays.fill(bytes, 0, length, (byte)0);
+
+//		Fill up the chunk with key data (zeros beyond the key = random gap at the end of the partition)
+		readKeyFileStat1.setFileStartEpoch();
+		int keyLength = ( position < keyFCPath.size ) ? (int)Math.min(length, keyFCPath.size - position) : 0;
+		if ( keyLength > 0 )
+		{
+		    ByteBuffer keyFileBuffer = ByteBuffer.wrap(bytes, 0, keyLength);
+		    while ( keyFileBuffer.hasRemaining() ) { if ( readKeyFileChannel.read(keyFileBuffer, position + keyFileBuffer.position()) < 1 ) { break; } }
+		    readKeyFileStat1.addFileBytesProcessed(keyFileBuffer.position()); synchronized (allDataStats) { allDataStats.addAllDataBytesProcessed("", keyFileBuffer.position()); }
+		}
+		readKeyFileStat1.setFileEndEpoch(); readKeyFileStat1.clock();
+
+//		Randomize raw key or write raw key straight to partition
+		if (encryptkey)
+		{
+		    random.nextBytes(chunk.randomBytes);
+		    for (int index = 0; index < keyLength; index++) { byte randomByte = chunk.randomBytes[index]; if ( randomByte == 0 ) { randomByte = (byte)0xFF; } bytes[index] ^= randomByte; } // Like FinalCrypt.encryptByte (0 key bytes inverted)
+		    System.arraycopy(chunk.randomBytes, keyLength, bytes, keyLength, length - keyLength); // Gap: raw random bytes
+		}
+		if ( writtenDigest != null ) { writtenDigest.update(bytes, 0, length); }
+
+		chunk.set(0, position, length, mirrorWriters.length);
+		for (MirrorWriter mirrorWriter:mirrorWriters) { mirrorWriter.put(chunk); }
+		position += length;
+	    }
+	} catch (IOException ex) { ui.log("Error: createKeyPartition: " + keyFCPath.path + " " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+
+	boolean written = ( position >= partLength );
+	for (MirrorWriter mirrorWriter:mirrorWriters) { mirrorWriter.put(MirrorChunk.END); }
+	for (MirrorWriter mirrorWriter:mirrorWriters) { try { mirrorWriter.join(); } catch (InterruptedException ex) {  } written &= ! mirrorWriter.failed; }
 
 //      FILE STATUS        
         ui.log(" - Write: rd(" +  readKeyFileStat1.getFileBytesThroughPut() + ") -> ", true, true, true, false, false);
         ui.log("wr(" +           writeKeyFileStat1.getFileBytesThroughPut() + ") ", true, true, true, false, false);
-        ui.log(" - Write: rd(" +  readKeyFileStat2.getFileBytesThroughPut() + ") -> ", true, true, true, false, false);
         ui.log("wr(" +           writeKeyFileStat2.getFileBytesThroughPut() + ") ", true, true, true, false, false);
         ui.log(allDataStats.getAllDataBytesProgressPercentage() + "\r\n", true, true, true, false, false);
 
+	if ( ( written ) && ( writtenDigest != null ) ) { verifySHA256(new String[] { "partition 1", "partition 2" }, new Path[] { targetFCPath.path, targetFCPath.path }, new long[][] { { partition1Pos }, { partition2Pos } }, partLength, writtenDigest.digest()); }
 
         allDataStats.addFilesProcessed(1);
         allDataStats.setAllDataEndNanoTime(); allDataStats.clock();
@@ -293,177 +235,265 @@ public class DeviceController
 //        if ( stopPending ) { ui.status("\r\n", false); stopPending = false;  } // It breaks in the middle of encrypting, so the encryption summery needs to begin on a new line
         ui.log(allDataStats.getEndSummary("creating key device"), true, true, false, false, false);
 
-        updateProgressTaskTimer.cancel(); updateProgressTaskTimer.purge();
-//        updateProgressTimeline.stop();
+        progressSession.finish();
         ui.processFinished(new FCPathList(), false);
     }
 
-//  Write KeyFile to partition 1 & 2
-//    synchronized public void cloneKeyPartition(Path keyDeviceFilePath, Path targetDeviceFilePath, long firstLBA, long lastLBA)
-//    synchronized public void cloneKeyPartition(Device keyDevice, Device targetDevice, long firstLBA, long lastLBA)
-    synchronized public void cloneKeyPartition(FCPath keyFCPath, FCPath targetFCPath, long firstLBA, long lastLBA)
+//  Optional verify pass: every set of regions is read back (in parallel) and its SHA-256 compared with the SHA-256 of what was written
+    private boolean[] verifySHA256(String[] descs, Path[] paths, long[][] positions, long length, byte[] writtenDigestBytes)
     {
-	FinalCrypt.io_Throughput_Ceiling = FinalCrypt.IO_THROUGHPUT_CEILING_DEFAULT;
-	startCalendar = Calendar.getInstance(Locale.ROOT);
-//	       isValidFile(UI ui, Path path,      boolean readSize,     boolean isKey, boolean symlink, boolean report)
-	if ( ( isValidFile(   ui,keyFCPath.path,          false,keyFCPath.isKey,           false,           true) ) && ( isValidFile(ui, targetFCPath.path, targetFCPath.isKey, false, false, true) ) )
+	ui.log("Verifying (SHA-256) ", true, true, true, false, false);
+	ExecutorService executorService = Executors.newFixedThreadPool(Math.min(descs.length, Math.max(2, Runtime.getRuntime().availableProcessors())));
+	ArrayList<Future<byte[]>> futureList = new ArrayList<>();
+	for (int index = 0; index < descs.length; index++) { final int index2 = index; futureList.add(executorService.submit(() -> getSHA256(paths[index2], positions[index2], length))); } // for Lambda expression
+	executorService.shutdown();
+
+	boolean[] verified = new boolean[descs.length];
+	for (int index = 0; index < descs.length; index++)
+	{
+	    byte[] readDigestBytes = null; try { readDigestBytes = futureList.get(index).get(); } catch (InterruptedException | ExecutionException ex) { ui.log("Error: verify " + descs[index] + ": " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+	    verified[index] = MessageDigest.isEqual(writtenDigestBytes, readDigestBytes);
+	    if ( verified[index] ) { ui.log("- " + descs[index] + ": OK ", true, true, true, false, false); }
+	    else { ui.log("- " + descs[index] + ": MISMATCH ", true, true, true, true, false); }
+	}
+	ui.log("\r\n", true, true, true, false, false);
+	return verified;
+    }
+
+//  SHA-256 over length bytes at every position (in order)
+    private byte[] getSHA256(Path path, long[] positions, long length) throws IOException, NoSuchAlgorithmException
+    {
+	MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+	ByteBuffer byteBuffer = ByteBuffer.allocate((int)Math.max(1, Math.min(bufferSize, length)));
+	try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ))
 	{
-	    long targetDeviceSize2 = targetFCPath.size;
-	    long keyPartitionSize = getKeyPartitionSize(ui, keyFCPath);
-	    if ( keyPartitionSize < bufferSize)   { bufferSize = (int)keyPartitionSize; if (FinalCrypt.verbose) ui.log("BufferSize is limited to keyfile size: " + GPT.getHumanSize(bufferSize, 1) + " \r\n", true, true, true, false, false); }
-//	    long keySize = getKeyPartitionSize(ui, keyDevice);
-//	    if ( keyFCPath.size < bufferSize)   { bufferSize = (int)keySize; if (FinalCrypt.verbose) ui.log("BufferSize is limited to keyfile size: " + GPT.getHumanSize(bufferSize, 1) + " \r\n"); }
-	    if ( keyPartitionSize < bufferSize)   { bufferSize = (int)keyPartitionSize; if (FinalCrypt.verbose) ui.log("BufferSize is limited to keyfile size: " + GPT.getHumanSize(bufferSize, 1) + " \r\n", true, true, true, false, false); }
-//            else                            { log("BufferSize is set to: " + getHumanSize(bufferSize, 1) + " \r\n"); }
-	    Stats allDataStats = new Stats(); allDataStats.reset();        
-	    Stat readKeyFileStat1 = new Stat(); readKeyFileStat1.reset();
-	    Stat readKeyFileStat2 = new Stat(); readKeyFileStat2.reset();
-	    Stat writeKeyFileStat1 = new Stat(); writeKeyFileStat1.reset();
-	    Stat writeKeyFileStat2 = new Stat(); writeKeyFileStat2.reset();
-
-	    allDataStats.setFilesTotal(1);
-//	    allDataStats.setFileBytesTotal      (getKeyPartitionSize(ui, keyDevice) * 2);
-//	    allDataStats.setAllDataBytesTotal   (getKeyPartitionSize(ui, keyDevice) * 2);
-//	    allDataStats.setFileBytesTotal      (keyFCPath.size * 2);
-//	    allDataStats.setAllDataBytesTotal   (keyFCPath.size * 2);
-	    allDataStats.setFileBytesTotal      (keyPartitionSize * 2);
-	    allDataStats.setAllDataBytesTotal   (keyPartitionSize * 2);
-
-	    ui.log(allDataStats.getStartSummary("Cloning Key Device"), true, true, false, false, false);
-	    try { Thread.sleep(100); } catch (InterruptedException ex) {  }
-
-	    boolean inputEnded = false;
-	    long readKeyDeviceFileChannelPosition = 0;
-	    long readKeyDeviceFileChannelTransfered = 0;
-	    long readKeyDeviceFileChannelTransferedTotal = 0;
-	    long writeOutputDeviceChannelPosition = 0;                
-	    long writeOutputDeviceChannelTransfered = 0;
-
-    //      Write the keyPartitions to target partitions
-	    ByteBuffer  keyDeviceBuffer =      ByteBuffer.allocate(bufferSize); keyDeviceBuffer.clear();
-	    byte[]      randomizedBytes =       new byte[bufferSize];
-	    ByteBuffer  outputDeviceBuffer =      ByteBuffer.allocate(bufferSize); outputDeviceBuffer.clear();
-
-    //      Setup the Progress TIMER & TASK
-
-	    processProgressCalendar =	Calendar.getInstance(Locale.ROOT);
-	    filesBytesTotal =		allDataStats.getFilesBytesTotal();
-	    filesBytesProcessed =	allDataStats.getFilesBytesProcessed();
-	    bytesPerMilliSecond =	filesBytesProcessed / (processProgressCalendar.getTimeInMillis() - startCalendar.getTimeInMillis());
-
-
-	    throughputClock = System.nanoTime();
-	    realtimeMiBPS = ((realtimeBytesProcessed * (1000000000d / (throughputClock - lastThroughputClock)))/(1024d*1024d)); // ui.test("FC BPS: " + realtimeMiBPS + "\r\n");
-
-	    if ( realtimeMiBPS > FinalCrypt.io_Throughput_Ceiling ) { FinalCrypt.io_Throughput_Ceiling = realtimeMiBPS; }
-	    lastThroughputClock = throughputClock; realtimeBytesProcessed = 0;
-	    
-	    updateProgressTask = new TimerTask()
+	    for (long position:positions)
 	    {
-		@Override public void run()
-		{		
-		    processProgressCalendar =   Calendar.getInstance(Locale.ROOT);
-		    filesBytesTotal =		allDataStats.getFilesBytesTotal();
-		    filesBytesProcessed =	allDataStats.getFilesBytesProcessed();
-		    bytesPerMilliSecond =	filesBytesProcessed / (processProgressCalendar.getTimeInMillis() - startCalendar.getTimeInMillis());
-
-		    throughputClock = System.nanoTime();
-		    realtimeMiBPS = ((realtimeBytesProcessed * (1000000000d / (throughputClock - lastThroughputClock)))/(1024d*1024d)); // ui.test("FC BPS: " + realtimeMiBPS + "\r\n");
-
-		    if ( realtimeMiBPS > FinalCrypt.io_Throughput_Ceiling ) { FinalCrypt.io_Throughput_Ceiling = realtimeMiBPS; }
-		    lastThroughputClock = throughputClock; realtimeBytesProcessed = 0;
-
-		    ui.processProgress
-		    (
-			    (int) (
-				    (
-					    readKeyFileStat1.getFileBytesProcessed() +
-					    writeKeyFileStat1.getFileBytesProcessed() +
-					    readKeyFileStat2.getFileBytesProcessed() +
-					    writeKeyFileStat2.getFileBytesProcessed()
-				    )   /   ( (allDataStats.getFileBytesTotal() * 1 ) / 100.0)),
-
-			    (int) (
-				    ( 
-					    allDataStats.getFilesBytesProcessed() * 1) /
-					    ( (allDataStats.getFilesBytesTotal() * 1) / 100.0)
-				    ), filesBytesTotal, filesBytesProcessed, realtimeMiBPS // long bytesPerMiliSecond
-		    );
+		long done = 0;
+		while ( done < length )
+		{
+		    byteBuffer.clear(); byteBuffer.limit((int)Math.min(byteBuffer.capacity(), length - done));
+		    int read = fileChannel.read(byteBuffer, position + done); if ( read < 1 ) { throw new IOException("unexpected end of " + path + " at " + (position + done)); }
+		    messageDigest.update(byteBuffer.array(), 0, read); done += read;
 		}
-	    }; updateProgressTaskTimer = new java.util.Timer(); updateProgressTaskTimer.schedule(updateProgressTask, 0L, 200L);
-	    
-	    allDataStats.setAllDataStartNanoTime();
-
-	    ui.log("Cloning " + keyFCPath.path.toAbsolutePath() + " to " + targetFCPath.path.toAbsolutePath() + " partitions (LBA:"+ firstLBA + ":" + (getLBAOffSet(bytesPerSector, targetFCPath.size, firstLBA) + writeOutputDeviceChannelPosition) + ")", true, true, true, false, false);
-
-	    readKeyDeviceFileChannelPosition = DeviceController.getLBAOffSet(bytesPerSector, targetFCPath.size, firstLBA) + readKeyDeviceFileChannelPosition;
-	    
-	    readKeyFileStat1.reset();
-	    writeKeyFileStat1.reset();
-	    filesBytesProcessed = 0;
-	    
-	    write1loop: while ( ! inputEnded )
-	    {
-		while (pausing)     { bytesPerMilliSecond = 0; try { Thread.sleep(100); } catch (InterruptedException ex) {  } }
-		if (stopPending)    { inputEnded = true; bytesPerMilliSecond = 0d; break write1loop; }
+	    }
+	}
+	return messageDigest.digest();
+    }
 
-		readKeyFileStat1.setFileStartEpoch();
-		try (final SeekableByteChannel readKeyDeviceFileChannel = Files.newByteChannel(keyFCPath.path, EnumSet.of(StandardOpenOption.READ)))
-		{
-		    // Fill up keyDeviceBuffer
-		    readKeyDeviceFileChannel.position(readKeyDeviceFileChannelPosition);
-		    readKeyDeviceFileChannelTransfered = readKeyDeviceFileChannel.read(keyDeviceBuffer); keyDeviceBuffer.flip();
-		    readKeyDeviceFileChannelTransferedTotal += readKeyDeviceFileChannelTransfered; readKeyDeviceFileChannelPosition += readKeyDeviceFileChannelTransfered;
-		    if ( readKeyDeviceFileChannelTransferedTotal >= keyPartitionSize ) { inputEnded = true; keyDeviceBuffer.limit((int)readKeyDeviceFileChannelTransferedTotal - (int)keyPartitionSize); }
-		    readKeyDeviceFileChannel.close(); readKeyFileStat1.setFileEndEpoch(); readKeyFileStat1.clock();
-		    readKeyFileStat1.addFileBytesProcessed(readKeyDeviceFileChannelTransfered); allDataStats.addAllDataBytesProcessed("", readKeyDeviceFileChannelTransfered);
-		} catch (IOException ex) { ui.log("Error: Files.newByteChannel(keyFilePath, EnumSet.of(StandardOpenOption.READ)) " + ex.getMessage() + "\r\n", true, true, true, true, false); }
-
-		// For sone reason keyDeviceBuffer does not poor any data out into the writeOutputDeviceChannel, but does output data to GPT.logBytes
-		outputDeviceBuffer.put(keyDeviceBuffer.array()); outputDeviceBuffer.flip();
-
-    //          Write Device
-		writeKeyFileStat1.setFileStartEpoch();
-		try (final SeekableByteChannel writeOutputDeviceChannel = Files.newByteChannel(targetFCPath.path, EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.SYNC)))
+//  Buffer shared by the MirrorWriters
+    private static class MirrorChunk
+    {
+	private static final MirrorChunk END = new MirrorChunk(0, false);
+	private final ByteBuffer    buffer;
+	private final byte[]	    randomBytes;
+	private final AtomicInteger pending = new AtomicInteger(0);
+	private int		    partition;
+	private long		    position;
+	private int		    length;
+
+	private MirrorChunk(int size, boolean randomize) { buffer = ByteBuffer.allocate(size); randomBytes = randomize ? new byte[size] : null; }
+	private void set(int partition, long position, int length, int writers) { this.partition = partition; this.position = position; this.length = length; pending.set(writers); }
+    }
+
+//  Writes every chunk positionally at basePosition + chunk position on its own channel and hands the chunk back to the free queue after the last writer
+//  With readBackPartitions > 0 every chunk is read back right after writing and hashed per partition (inline checksum of the target stream)
+    private class MirrorWriter extends Thread
+    {
+	private final String				desc;
+	private final Path				path;
+	private final long				basePosition;
+	private final ArrayBlockingQueue<MirrorChunk>	chunkQueue = new ArrayBlockingQueue<>(MIRROR_CHUNKS + 1);
+	private final ArrayBlockingQueue<MirrorChunk>	freeChunkQueue;
+	private final Stat				stat;
+	private final Stats				allDataStats;
+	private final MessageDigest[]			readBackDigests; // null = no read back
+	private final long[]				readBackBytes;
+	private ByteBuffer				readBackBuffer;
+	private volatile boolean			failed = false;
+
+	private MirrorWriter(String desc, Path path, long basePosition, ArrayBlockingQueue<MirrorChunk> freeChunkQueue, Stat stat, Stats allDataStats, int readBackPartitions)
+	{
+	    super("MirrorWriter " + desc); setDaemon(true);
+	    this.desc = desc; this.path = path; this.basePosition = basePosition; this.freeChunkQueue = freeChunkQueue; this.stat = stat; this.allDataStats = allDataStats;
+	    readBackDigests = ( readBackPartitions > 0 ) ? new MessageDigest[readBackPartitions] : null; readBackBytes = new long[readBackPartitions];
+	    try { for (int partition = 0; partition < readBackPartitions; partition++) { readBackDigests[partition] = MessageDigest.getInstance("SHA-256"); } }
+	    catch (NoSuchAlgorithmException ex) { failed = true; ui.log("Error: write " + desc + " " + path + " SHA-256 unavailable\r\n", true, true, true, true, false); }
+	}
+
+	private byte[] getReadBackDigest(int partition)	{ return readBackDigests[partition].digest(); }
+	private long getReadBackBytes(int partition)	{ return readBackBytes[partition]; }
+
+	private void put(MirrorChunk chunk) { try { chunkQueue.put(chunk); } catch (InterruptedException ex) {  } }
+
+	@Override public void run()
+	{
+	    try (final FileChannel writeOutputDeviceChannel = ( readBackDigests != null ) ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE) : FileChannel.open(path, StandardOpenOption.WRITE))
+	    {
+		MirrorChunk chunk;
+		while ( ( chunk = chunkQueue.take() ) != MirrorChunk.END )
 		{
-    //              Write keyfile to partition 1
-		    writeOutputDeviceChannel.position((getLBAOffSet(bytesPerSector, targetFCPath.size, firstLBA) + writeOutputDeviceChannelPosition));
-		    writeOutputDeviceChannelTransfered = writeOutputDeviceChannel.write(outputDeviceBuffer); outputDeviceBuffer.rewind(); realtimeBytesProcessed += writeOutputDeviceChannelTransfered; filesBytesProcessed += writeOutputDeviceChannelTransfered;
-		    writeKeyFileStat1.addFileBytesProcessed(writeOutputDeviceChannelTransfered); allDataStats.addAllDataBytesProcessed("", readKeyDeviceFileChannelTransfered);
-
-		    writeOutputDeviceChannelPosition += writeOutputDeviceChannelTransfered;
-		    writeOutputDeviceChannel.close(); writeKeyFileStat1.setFileEndEpoch(); writeKeyFileStat1.clock();
-		} catch (IOException ex) { ui.log("Error: Files.newByteChannel(targetFCPath.path, EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.SYNC))" + ex.getMessage() + "\r\n", true, true, true, true, false); }
-		keyDeviceBuffer.clear();
+		    try
+		    {
+			if ( ! failed )
+			{
+			    stat.setFileStartEpoch(); long stageNanoTime = Metrics.now(); Object deviceEvent = FlightEvents.begin(FlightEvents.DEVICE_WRITE);
+			    ByteBuffer outputDeviceBuffer = chunk.buffer.duplicate(); outputDeviceBuffer.limit(chunk.length).position(0);
+			    while ( outputDeviceBuffer.hasRemaining() ) { writeOutputDeviceChannel.write(outputDeviceBuffer, basePosition + chunk.position + outputDeviceBuffer.position()); }
+			    Metrics.record(Metrics.DEST_WRITE, stageNanoTime, chunk.length); FlightEvents.commit(deviceEvent, path, desc, (basePosition + chunk.position) / bytesPerSector, chunk.length);
+			    stat.setFileEndEpoch(); stat.clock(); stat.addFileBytesProcessed(chunk.length);
+			    synchronized (allDataStats) { allDataStats.addAllDataBytesProcessed("", chunk.length); } progressSession.addBytes(chunk.length);
+			    if ( readBackDigests != null ) { readBack(writeOutputDeviceChannel, chunk); }
+			}
+		    }
+		    catch (IOException ex) { failed = true; Metrics.error(Metrics.DEST_WRITE, ex); ui.log("Error: write " + desc + " " + path + " " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+		    finally { if ( chunk.pending.decrementAndGet() == 0 ) { freeChunkQueue.add(chunk); } }
+		}
+		if ( ! failed ) { long stageNanoTime = Metrics.now(); writeOutputDeviceChannel.force(true); Metrics.record(Metrics.FSYNC, stageNanoTime, 0L); } // One sync at the end instead of a SYNC channel per buffer
 	    }
-	    readKeyDeviceFileChannelPosition = 0;
-	    readKeyDeviceFileChannelTransfered = 0;
-	    writeOutputDeviceChannelPosition = 0;                
-	    writeOutputDeviceChannelTransfered = 0;                
-	    inputEnded = false;
+	    catch (IOException ex) { failed = true; ui.log("Error: write " + desc + " " + path + " " + ex.getMessage() + "\r\n", true, true, true, true, false); drain(); }
+	    catch (InterruptedException ex) { failed = true; }
+	}
+
+	private void readBack(FileChannel fileChannel, MirrorChunk chunk) throws IOException
+	{
+	    if ( ( readBackBuffer == null ) || ( readBackBuffer.capacity() < chunk.length ) ) { readBackBuffer = ByteBuffer.allocate(chunk.buffer.capacity()); }
+	    readBackBuffer.clear(); readBackBuffer.limit(chunk.length);
+	    while ( readBackBuffer.hasRemaining() ) { if ( fileChannel.read(readBackBuffer, basePosition + chunk.position + readBackBuffer.position()) < 1 ) { throw new IOException("unexpected end at " + (basePosition + chunk.position + readBackBuffer.position())); } }
+	    readBackDigests[chunk.partition].update(readBackBuffer.array(), 0, chunk.length); readBackBytes[chunk.partition] += chunk.length;
+	}
+
+//	Keeps the reader going after a failed open: chunks are handed back unwritten
+	private void drain()
+	{
+	    try { MirrorChunk chunk; while ( ( chunk = chunkQueue.take() ) != MirrorChunk.END ) { if ( chunk.pending.decrementAndGet() == 0 ) { freeChunkQueue.add(chunk); } } } catch (InterruptedException ex) {  }
+	}
+    }
+
+//  Clone the key partitions to any number of target devices in one read pass
+//  Every buffer read from the key device goes to one MirrorWriter per target (own channel, positional writes)
+//  Source and target streams are hashed inline (per partition) and checked against the target GPT_Entry sizes, no extra pass needed
+//  A failing target is reported and left behind while the others carry on; returns the targets that were cloned (and verified)
+    synchronized public ArrayList<FCPath> cloneKeyPartitions(FCPath keyFCPath, long[] keyPartitionPositions, long partitionSize, ArrayList<FCPath> targetFCPathList, long[] targetPartitionPositions, long[] targetPartitionSizes)
+    {
+	FinalCrypt.io_Throughput_Ceiling = FinalCrypt.IO_THROUGHPUT_CEILING_DEFAULT;
+	ArrayList<FCPath> clonedFCPathList = new ArrayList<>();
+	if ( partitionSize < bufferSize)   { bufferSize = (int)partitionSize; if (FinalCrypt.verbose) ui.log("BufferSize is limited to keyfile size: " + GPT.getHumanSize(bufferSize, 1) + " \r\n", true, true, true, false, false); }
+
+	long sourceSize = partitionSize * keyPartitionPositions.length;
+	Stats allDataStats = new Stats(); allDataStats.reset();        
+	Stat readKeyFileStat = new Stat(); readKeyFileStat.reset();
+	Stat[] writeKeyFileStats = new Stat[targetFCPathList.size()]; for (int target = 0; target < writeKeyFileStats.length; target++) { writeKeyFileStats[target] = new Stat(); writeKeyFileStats[target].reset(); }
+
+	allDataStats.setFilesTotal(targetFCPathList.size());
+	allDataStats.setFileBytesTotal      (sourceSize * (1 + targetFCPathList.size())); // One read, a write per target
+	allDataStats.setAllDataBytesTotal   (sourceSize * (1 + targetFCPathList.size()));
+
+	ui.log(allDataStats.getStartSummary("Cloning Key Device"), true, true, false, false, false);
+	try { Thread.sleep(100); } catch (InterruptedException ex) {  }
+
+//      Progress: sampled by the ProgressPublisher thread (file progress = slowest target, status = every target)
+
+	progressSession = ProgressPublisher.start(ui, "Cloning Key Device", snapshot ->
+	{
+	    long slowestTargetBytes = sourceSize; for (Stat writeKeyFileStat:writeKeyFileStats) { slowestTargetBytes = Math.min(slowestTargetBytes, writeKeyFileStat.getFileBytesProcessed()); }
+	    snapshot.fileProgressPercent =  (int) ( allDataStats.getFilesBytesProcessed() / ( allDataStats.getFilesBytesTotal() / 100.0) );
+	    snapshot.filesProgressPercent = (int) ( slowestTargetBytes / ( sourceSize / 100.0) );
+	    snapshot.bytesTotal =	    allDataStats.getFilesBytesTotal();
+	    snapshot.bytesProcessed =	    allDataStats.getFilesBytesProcessed();
+	}).subscribe(ProgressPublisher.uiListener(ui), UPDATE_PROGRESS_PERIOD).subscribe(snapshot ->
+	{
+	    String targetProgress = "Cloning:";
+	    for (int target = 0; target < writeKeyFileStats.length; target++) { targetProgress += " " + targetFCPathList.get(target).path.getFileName() + " " + (int)(writeKeyFileStats[target].getFileBytesProcessed() / (sourceSize / 100.0)) + "%"; }
+	    ui.log(targetProgress, true, false, false, false, false);
+	}, UPDATE_PROGRESS_PERIOD);
+	
+	allDataStats.setAllDataStartNanoTime();
+
+	ui.log("Cloning " + keyFCPath.path.toAbsolutePath() + " partitions (" + GPT.getHumanSize(partitionSize, 1) + ") to " + targetFCPathList.size() + " target(s)\r\n", true, true, true, false, false);
 
-    //      FILE STATUS        
-	    ui.log(" - Write: rd(" +  readKeyFileStat1.getFileBytesThroughPut() + ") -> ", true, true, true, false, false);
-	    ui.log("wr(" +           writeKeyFileStat1.getFileBytesThroughPut() + ") ", true, true, true, false, false);
-	    ui.log(" - Write: rd(" +  readKeyFileStat2.getFileBytesThroughPut() + ") -> ", true, true, true, false, false);
-	    ui.log("wr(" +           writeKeyFileStat2.getFileBytesThroughPut() + ") ", true, true, true, false, false);
-	    ui.log(allDataStats.getAllDataBytesProgressPercentage(), true, true, true, false, false);
+//	Writers & their shared buffers (a buffer returns to freeChunkQueue once every target got it)
+	ArrayBlockingQueue<MirrorChunk> freeChunkQueue = new ArrayBlockingQueue<>(MIRROR_CHUNKS);
+	for (int chunk = 0; chunk < MIRROR_CHUNKS; chunk++) { freeChunkQueue.add(new MirrorChunk(bufferSize, false)); }
+	MirrorWriter[] mirrorWriters = new MirrorWriter[targetFCPathList.size()];
+	for (int target = 0; target < mirrorWriters.length; target++) { mirrorWriters[target] = new MirrorWriter("target", targetFCPathList.get(target).path, 0L, freeChunkQueue, writeKeyFileStats[target], allDataStats, keyPartitionPositions.length); mirrorWriters[target].start(); }
 
+	MessageDigest readDigest = null; if ( verifyWrites ) { try { readDigest = MessageDigest.getInstance("SHA-256"); } catch (NoSuchAlgorithmException ex) { ui.log("Warning: SHA-256 unavailable, verify skipped\r\n", true, true, true, true, false); } }
+	MessageDigest[] sourceDigests = new MessageDigest[keyPartitionPositions.length]; // Inline checksum of the source stream per partition
+	try { for (int partition = 0; partition < sourceDigests.length; partition++) { sourceDigests[partition] = MessageDigest.getInstance("SHA-256"); } } catch (NoSuchAlgorithmException ex) { stopPending = true; ui.log("Error: SHA-256 unavailable\r\n", true, true, true, true, false); }
+	long bytesRead = 0;
 
-	    allDataStats.addFilesProcessed(1);
-	    allDataStats.setAllDataEndNanoTime(); allDataStats.clock();
+	try (final FileChannel readKeyDeviceChannel = FileChannel.open(keyFCPath.path, StandardOpenOption.READ))
+	{
+	    read1loop: for (int partition = 0; partition < keyPartitionPositions.length; partition++)
+	    {
+		long position = 0;
+		while ( position < partitionSize )
+		{
+		    while (pausing)     { try { Thread.sleep(100); } catch (InterruptedException ex) {  } }
+		    if (stopPending)    { break read1loop; }
+		    boolean allFailed = true; for (MirrorWriter mirrorWriter:mirrorWriters) { allFailed &= mirrorWriter.failed; } if ( allFailed ) { break read1loop; }
+
+		    MirrorChunk chunk; try { chunk = freeChunkQueue.take(); } catch (InterruptedException ex) { break read1loop; }
+		    int length = (int)Math.min(bufferSize, partitionSize - position);
+
+//		    Fill up the chunk with the key partition
+		    readKeyFileStat.setFileStartEpoch(); Object deviceEvent = FlightEvents.begin(FlightEvents.DEVICE_READ);
+		    ByteBuffer keyDeviceBuffer = chunk.buffer; keyDeviceBuffer.clear(); keyDeviceBuffer.limit(length);
+		    while ( keyDeviceBuffer.hasRemaining() ) { if ( readKeyDeviceChannel.read(keyDeviceBuffer, keyPartitionPositions[partition] + position + keyDeviceBuffer.position()) < 1 ) { throw new IOException("unexpected end of key device at " + (keyPartitionPositions[partition] + position + keyDeviceBuffer.position())); } }
+		    if ( deviceEvent != null ) { FlightEvents.commit(deviceEvent, keyFCPath.path, "partition " + (partition + 1), (keyPartitionPositions[partition] + position) / bytesPerSector, length); }
+		    readKeyFileStat.setFileEndEpoch(); readKeyFileStat.clock();
+		    readKeyFileStat.addFileBytesProcessed(length); synchronized (allDataStats) { allDataStats.addAllDataBytesProcessed("", length); }
+		    if ( readDigest != null ) { readDigest.update(keyDeviceBuffer.array(), 0, length); }
+		    sourceDigests[partition].update(keyDeviceBuffer.array(), 0, length);
+
+		    chunk.set(partition, targetPartitionPositions[partition] + position, length, mirrorWriters.length);
+		    for (MirrorWriter mirrorWriter:mirrorWriters) { mirrorWriter.put(chunk); }
+		    position += length; bytesRead += length;
+		}
+	    }
+	} catch (IOException ex) { ui.log("Error: cloneKeyPartitions: " + keyFCPath.path + " " + ex.getMessage() + "\r\n", true, true, true, true, false); }
 
-    //        if ( stopPending ) { ui.status("\r\n", false); stopPending = false;  } // It breaks in the middle of encrypting, so the encryption summery needs to begin on a new line
-	    ui.log(allDataStats.getEndSummary("cloning key device"), true, true, false, false, false);
+	for (MirrorWriter mirrorWriter:mirrorWriters) { mirrorWriter.put(MirrorChunk.END); }
+	for (MirrorWriter mirrorWriter:mirrorWriters) { try { mirrorWriter.join(); } catch (InterruptedException ex) {  } }
 
-	    updateProgressTaskTimer.cancel(); updateProgressTaskTimer.purge();
-    //        updateProgressTimeline.stop();
-//	    ui.processFinished(new FCPathList(), false);
+//      FILE STATUS (per target)
+	ui.log(" - Read: rd(" + readKeyFileStat.getFileBytesThroughPut() + ") " + allDataStats.getAllDataBytesProgressPercentage() + "\r\n", true, true, true, false, false);
+	byte[][] sourceDigestBytes = new byte[sourceDigests.length][]; for (int partition = 0; partition < sourceDigests.length; partition++) { sourceDigestBytes[partition] = sourceDigests[partition].digest(); }
+	ArrayList<Integer> writtenTargetList = new ArrayList<>();
+	for (int target = 0; target < mirrorWriters.length; target++)
+	{
+	    boolean written = ( bytesRead == sourceSize ) && ( ! mirrorWriters[target].failed );
+	    String partitionStatus = "";
+	    for (int partition = 0; ( written ) && ( partition < sourceDigests.length ); partition++) // Read back checksum must match the source and cover the whole key partition within the target partition
+	    {
+		long readBackBytes = mirrorWriters[target].getReadBackBytes(partition);
+		boolean match = ( readBackBytes == partitionSize ) && ( partitionSize <= targetPartitionSizes[partition] ) && ( MessageDigest.isEqual(sourceDigestBytes[partition], mirrorWriters[target].getReadBackDigest(partition)) );
+		partitionStatus += " partition " + (partition + 1) + ": " + GPT.getHumanSize(readBackBytes, 1) + " / " + GPT.getHumanSize(targetPartitionSizes[partition], 1) + ( match ? " checksum OK" : " checksum MISMATCH" );
+		written &= match;
+	    }
+	    ui.log(" - " + targetFCPathList.get(target).path + ": wr(" + writeKeyFileStats[target].getFileBytesThroughPut() + ")" + partitionStatus + ( written ? "" : " FAILED" ) + "\r\n", true, true, true, ! written, false);
+	    if ( written ) { writtenTargetList.add(target); }
 	}
-	else
+
+	if ( ( readDigest != null ) && ( writtenTargetList.size() > 0 ) )
 	{
-	    ui.log("Warning: Invalid key or target. Cloning aborted.\r\n", true, true, true, true, false);
+	    String[] descs = new String[writtenTargetList.size()]; Path[] paths = new Path[descs.length]; long[][] positions = new long[descs.length][];
+	    for (int index = 0; index < descs.length; index++) { Path path = targetFCPathList.get(writtenTargetList.get(index)).path; descs[index] = path.toString(); paths[index] = path; positions[index] = targetPartitionPositions; }
+	    boolean[] verified = verifySHA256(descs, paths, positions, partitionSize, readDigest.digest());
+	    for (int index = 0; index < descs.length; index++) { if ( verified[index] ) { clonedFCPathList.add(targetFCPathList.get(writtenTargetList.get(index))); } }
 	}
+	else { for (int target:writtenTargetList) { clonedFCPathList.add(targetFCPathList.get(target)); } }
+
+	allDataStats.addFilesProcessed(clonedFCPathList.size());
+	allDataStats.setAllDataEndNanoTime(); allDataStats.clock();
+
+//        if ( stopPending ) { ui.status("\r\n", false); stopPending = false;  } // It breaks in the middle of encrypting, so the encryption summery needs to begin on a new line
+	ui.log(allDataStats.getEndSummary("cloning key device"), true, true, false, false, false);
+
+	progressSession.finish();
+	ui.processFinished(new FCPathList(), false);
+	return clonedFCPathList;
     }
 
 //    public static long getKeyPartitionSize(UI ui, Path keyDeviceFilePath)
@@ -476,94 +506,25 @@ public class DeviceController
         return partitionSize;
     }
 
-//  Wrapper method
-    synchronized public static long getDeviceSize(UI ui, Path path, boolean isKey)
+//  GPT layout follows the logical sector size of the device (512 or 4096 bytes)
+    public static void setBytesPerSector(UI ui, FCPath fcPath)
     {
-	long size = getDeviceSize2(ui, path, isKey, true); return size; // Customized method (platform independent)
+	long logicalBlockSize = DeviceSizeResolver.getLogicalBlockSize(ui, fcPath.path);
+	if ( logicalBlockSize != bytesPerSector ) { ui.log("Sector size: " + fcPath.path + " " + logicalBlockSize + " bytes\r\n", true, true, true, false, false); }
+	bytesPerSector = logicalBlockSize;
     }
-
-//  Get size of device NOT USED!
-    synchronized public static long getDeviceSize1(UI ui, Path path)
-    {
-        long deviceSize = 0;
-        try (final SeekableByteChannel deviceChannel = Files.newByteChannel(path, EnumSet.of(StandardOpenOption.READ))) { deviceSize = deviceChannel.size(); deviceChannel.close(); } catch (IOException ex) { ui.log(ex.getMessage(), true, true, false, false, false); }
-        return deviceSize;
-    }
-
-    synchronized public static long getDeviceSize2(UI ui, Path path, boolean isKey, boolean firstcall) // OS Independent half or dubbel guess size test (Files.size(..) doesn't work on Apple OSX)
+    
+//  Sectors occupied by 128 partition entries of 128 bytes (32 with 512 byte sectors)
+    public static long getEntriesLBAs() { return ((128L * 128L) + bytesPerSector - 1L) / bytesPerSector; }
+    
+//  Wrapper method
+    public static long getDeviceSize(UI ui, Path path, boolean isKey)
     {
-	boolean verbose = false;
-//	deviceSize = 0;
-	
-	if (firstcall)
-	{
-			lastpos = 0;
-			currpos = 1;
-			step = 1;
-			above = 0;
-			below = 1024;
-			cycles = 0;
-			finished = false;
-	}
 //	    isValidFile(UI ui, Path path, boolean readSize, boolean isKey, boolean symlink, boolean report)
-	if (isValidFile(   ui,      path,            false,         isKey,           false,           true ))
-	{
-	    while (! finished)
-	    {
-		try
-		{
-		    deviceSize = guessDeviceSize(ui, path, verbose);
-		}
-		catch (IOException ex)
-		{
-		}
-		finally
-		{
-		    lastpos = Math.abs(lastpos);
-		    currpos = Math.abs(currpos);
-		    step = Math.abs(step);
-
-		    below = currpos;
-		    if (step < 0) {step = 1;}
-		    currpos = above; step = 1;
-		    lastpos = currpos;
-//		    getDeviceSize2(ui, path, isKey, true)
-		    getDeviceSize2(ui,path, isKey, false);
-		}
-	    }
-	}
-	else
-	{
-	    return deviceSize; 
-	}
-	return deviceSize;
+	if (isValidFile(   ui,      path,            false,         isKey,           false,           true )) { return DeviceSizeResolver.getSize(ui, path); } // Cached sysfs / channel size (platform independent probe fallback)
+	return 0L;
     }
     
-    synchronized private static long guessDeviceSize(UI ui, Path path, boolean verbose) throws IOException
-    {
-        if (verbose) ui.log(String.format("%-20s %-20s %-20s %-20s %-20s %-20s \r\n", "LastPoss     ", "CurrPoss     ", "Step    ", "Above     ", "Below    ", "Cycles     "), true, true, true, false, false);
-        
-        label: while (! finished)
-        {
-            if (verbose) ui.log(String.format("%-20d %-20d %-20d %-20d %-20d %-20d \r\n", lastpos, currpos, step, above, below, cycles), true, true, true, false, false);
-            
-            final SeekableByteChannel deviceChannel = Files.newByteChannel(path, EnumSet.of(StandardOpenOption.READ));
-            deviceChannel.position(currpos);
-            ByteBuffer bb = ByteBuffer.allocate(1); bb.clear();
-            int transfered = 0; transfered = deviceChannel.read(bb);
-            if ( transfered < 1)
-            {
-                if ( (lastpos == below ) && (currpos == below ) && (above == (below - 1) ) ) { finished = true; }
-                below = currpos; currpos -= (step / 2); step = 1;
-            }
-            else        { above = currpos; currpos += step; step += step;}
-            deviceChannel.close();
-            lastpos = currpos;
-            cycles++;
-        } 
-        return below;
-    }    
-
     private void halveTest(UI ui)
     {
         long deviceSize = 0;
@@ -639,7 +600,8 @@ public class DeviceController
 
     public static boolean getPausing()             { return pausing; }
     public static boolean getStopPending()         { return stopPending; }
-    public static void setPausing(boolean val)     { pausing = val; if (pausing) { bytesPerMilliSecond = 0d; } } // bytesPerMilliSecond
+    public static void setPausing(boolean val)     { pausing = val; }
     public static void setStopPending(boolean val) { stopPending = val; }
+    public static void setVerifyWrites(boolean val) { verifyWrites = val; }
 
 }
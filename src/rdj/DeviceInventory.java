@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+//  Block device inventory from /sys/class/block (Linux), built once per session and rebuilt on demand (refresh) or when an unknown /dev entry is asked for
+//  Covers every kernel block device (sd, hd, nvme, mmcblk, vd, xvd, dm, md, loop, ..) instead of guessing from device names
+//  Disks holding a mounted filesystem or active swap (directly, via a partition or via dm / md holders) are marked inUse
+//  Only those holding the system (SYSTEM_MOUNTS or active swap) are marked system, an auto mounted USB stick is inUse but not system
+
+public class DeviceInventory
+{
+    private static final Path			SYS_CLASS_BLOCK =   Paths.get("/sys/class/block");
+    private static final Path			DEV =		    Paths.get("/dev");
+    private static final List<String>		SYSTEM_MOUNTS =	    Arrays.asList("/", "/boot", "/boot/efi", "/efi", "/usr", "/var");
+    private static volatile Map<String, BlockDevice> blockDeviceMap = null; // name => BlockDevice
+
+    private DeviceInventory() {  }
+
+    public static boolean isAvailable() { return Files.isDirectory(SYS_CLASS_BLOCK); }
+
+    public static Collection<BlockDevice> getBlockDevices() { return getBlockDeviceMap().values(); }
+
+//  null when path is not a (known) block device
+    public static BlockDevice get(Path path)
+    {
+	String name = getName(path); if ( name == null ) { return null; }
+	BlockDevice blockDevice = getBlockDeviceMap().get(name);
+	if ( ( blockDevice == null ) && ( Files.isDirectory(SYS_CLASS_BLOCK.resolve(name)) ) ) { refresh(); blockDevice = getBlockDeviceMap().get(name); } // Plugged in after the last scan
+	return blockDevice;
+    }
+
+    synchronized public static void refresh() { blockDeviceMap = scan(); DeviceSizeResolver.clear(); }
+
+    private static Map<String, BlockDevice> getBlockDeviceMap()
+    {
+	Map<String, BlockDevice> map = blockDeviceMap;
+	if ( map == null ) { synchronized (DeviceInventory.class) { if ( blockDeviceMap == null ) { blockDeviceMap = scan(); } map = blockDeviceMap; } }
+	return map;
+    }
+
+//  "/dev/disk/by-id/usb-..", "/dev/mapper/vg-root" & "/dev/cciss/c0d0" => "sdb", "dm-0" & "cciss!c0d0" (sysfs naming)
+    private static String getName(Path path)
+    {
+	Path devicePath; try { devicePath = path.toRealPath(); } catch (IOException ex) { devicePath = path.toAbsolutePath().normalize(); }
+	if ( ( ! devicePath.startsWith(DEV) ) || ( devicePath.equals(DEV) ) ) { return null; }
+	return DEV.relativize(devicePath).toString().replace('/', '!');
+    }
+
+    private static Map<String, BlockDevice> scan()
+    {
+	Map<String, BlockDevice> map = new HashMap<>();
+	if ( ! isAvailable() ) { return Collections.unmodifiableMap(map); }
+
+	HashMap<String, Path> sysPathMap = new HashMap<>();
+	try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(SYS_CLASS_BLOCK)) { for (Path sysPath:directoryStream) { sysPathMap.put(sysPath.getFileName().toString(), sysPath); } }
+	catch (IOException ex) { return Collections.unmodifiableMap(map); }
+
+	HashSet<String> inUseSet = new HashSet<>(); HashSet<String> systemSet = new HashSet<>();
+	for (String name:getActiveDeviceNames(false)) { markInUse(name, sysPathMap, inUseSet); }
+	for (String name:getActiveDeviceNames(true)) { markInUse(name, sysPathMap, systemSet); }
+
+	for (Map.Entry<String, Path> entry:sysPathMap.entrySet())
+	{
+	    String name = entry.getKey(); Path sysPath = entry.getValue();
+	    boolean isPartition = Files.exists(sysPath.resolve("partition"));
+	    String diskName = isPartition ? getDiskName(sysPath, name) : name;
+	    Path diskSysPath = sysPathMap.get(diskName); if ( diskSysPath == null ) { diskSysPath = sysPath; }
+
+	    long logicalBlockSize = readSysLong(diskSysPath.resolve("queue/logical_block_size")); if ( logicalBlockSize <= 0 ) { logicalBlockSize = DeviceSizeResolver.SECTOR_SIZE_DEFAULT; }
+	    long sectors = readSysLong(sysPath.resolve("size")); // Always in 512 byte units, whatever the logical block size
+	    map.put(name, new BlockDevice
+	    (
+		name, DEV.resolve(name.replace('!', '/')), diskName, isPartition,
+		readSysLong(diskSysPath.resolve("removable")) == 1,
+		readSysLong(sysPath.resolve("ro")) == 1,
+		logicalBlockSize, ( sectors > 0 ) ? sectors * 512L : 0L,
+		( inUseSet.contains(diskName) ) || ( inUseSet.contains(name) ),
+		( systemSet.contains(diskName) ) || ( systemSet.contains(name) )
+	    ));
+	}
+	return Collections.unmodifiableMap(map);
+    }
+
+//  /sys/class/block/sdb1 -> ../../devices/../block/sdb/sdb1 => "sdb"
+    private static String getDiskName(Path sysPath, String name)
+    {
+	try { Path parent = sysPath.toRealPath().getParent(); if ( parent != null ) { return parent.getFileName().toString(); } } catch (IOException ex) { }
+	return name;
+    }
+
+//  Marks the device, its whole disk and everything it is built on (slaves: dm, md, ..) in the given set
+    private static void markInUse(String name, HashMap<String, Path> sysPathMap, HashSet<String> markSet)
+    {
+	Path sysPath = sysPathMap.get(name); if ( ( sysPath == null ) || ( ! markSet.add(name) ) ) { return; }
+	if ( Files.exists(sysPath.resolve("partition")) ) { markInUse(getDiskName(sysPath, name), sysPathMap, markSet); }
+	try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(sysPath.resolve("slaves"))) { for (Path slavePath:directoryStream) { markInUse(slavePath.getFileName().toString(), sysPathMap, markSet); } }
+	catch (IOException ex) { }
+    }
+
+//  Mounted filesystems & active swap, system: only SYSTEM_MOUNTS & active swap
+    private static List<String> getActiveDeviceNames(boolean system)
+    {
+	List<String> nameList = new ArrayList<>();
+	for (String procFile:new String[] { "/proc/mounts", "/proc/swaps" })
+	{
+	    try
+	    {
+		for (String line:Files.readAllLines(Paths.get(procFile), StandardCharsets.UTF_8))
+		{
+		    String[] fields = line.trim().split("\\s+"); String source = fields[0];
+		    if ( ( system ) && ( procFile.equals("/proc/mounts") ) && ( ( fields.length < 2 ) || ( ! SYSTEM_MOUNTS.contains(fields[1].replace("\\040", " ")) ) ) ) { continue; }
+		    if ( source.startsWith("/dev/") ) { String name = getName(Paths.get(source.replace("\\040", " "))); if ( name != null ) { nameList.add(name); } }
+		}
+	    }
+	    catch (IOException ex) { }
+	}
+	return nameList;
+    }
+
+    private static long readSysLong(Path path)
+    {
+	try { return Long.parseLong(new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim()); } catch (IOException | NumberFormatException ex) { return -1L; }
+    }
+
+    public static class BlockDevice
+    {
+	public final String	name;		    // sysfs name e.g. "sdb1", "nvme0n1p1", "dm-0"
+	public final Path	path;		    // /dev/..
+	public final String	diskName;	    // Whole disk this partition belongs to (own name for a whole disk)
+	public final boolean	isPartition;
+	public final boolean	removable;
+	public final boolean	readOnly;
+	public final long	logicalBlockSize;
+	public final long	size;
+	public final boolean	inUse;		    // Mounted / swap on this disk or its partitions & holders
+	public final boolean	system;		    // Holds a SYSTEM_MOUNTS filesystem or active swap
+
+	private BlockDevice(String name, Path path, String diskName, boolean isPartition, boolean removable, boolean readOnly, long logicalBlockSize, long size, boolean inUse, boolean system)
+	{
+	    this.name = name; this.path = path; this.diskName = diskName; this.isPartition = isPartition; this.removable = removable; this.readOnly = readOnly; this.logicalBlockSize = logicalBlockSize; this.size = size; this.inUse = inUse; this.system = system;
+	}
+
+	@Override public String toString()
+	{
+	    return String.format("%-16s %-10s %-12s %6d %10s %s%s%s", path, isPartition ? "partition" : "disk", diskName, logicalBlockSize, Validate.getHumanSize(size, 1), removable ? "removable " : "", readOnly ? "readonly " : "", system ? "system" : inUse ? "in use" : "");
+	}
+    }
+}
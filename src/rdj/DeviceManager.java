@@ -18,6 +18,9 @@
  */
 package rdj;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
 public class DeviceManager extends Thread
 {
     private final UI ui;
@@ -30,35 +33,68 @@ public class DeviceManager extends Thread
 	if ( Validate.isValidFile(   ui,            "", targetFCPath.path, targetFCPath.isKey,	    true,  	    1L,           false,             true,           true) )
 	{
 	    ui.log("Creating Key Device: " + targetFCPath.path.toString() + "\r\n", true, true, false, false, false);
+	    DeviceController.setBytesPerSector(ui, targetFCPath);
 	    GPT gpt = new GPT(ui);
 //	    gpt.create(GPT.getKeyFileSize(ui, keyFilePath), targetDevice);
 	    gpt.create(keyFCPath.size, targetFCPath);
 	    gpt.write(targetFCPath);
 	    gpt.createKeyPartitions(keyFCPath, targetFCPath);
 	    gpt.print();
+	    DeviceInventory.refresh(); // New partitions
 	    try { Thread.sleep(250); } catch (InterruptedException ex) {  }
 	}
     }
 
-    public void cloneKeyDevice(FCPath keyFCPath, FCPath targetFCPath)
+//  One read pass of the key device (per target sector size) cloned to every target at once
+    public void cloneKeyDevice(FCPath keyFCPath, ArrayList<FCPath> targetFCPathList)
     {
-//		           isValidFile(UI ui, String caller,  Path targetSourcePath, boolean isKey,     boolean device, long minSize, boolean symlink, boolean writable, boolean report)
-	if (
-		( Validate.isValidFile(   ui,            "",	  keyFCPath.path, keyFCPath.isKey,	     true,	     1L,	   false,	     false,	     true) ) &&
-		( Validate.isValidFile(   ui,            "",	  targetFCPath.path, targetFCPath.isKey,          true,	     1L,	   false,	      true,	     true) )
-	    )
+//		             isValidFile(UI ui, String caller,  Path targetSourcePath, boolean isKey,     boolean device, long minSize, boolean symlink, boolean writable, boolean report)
+	if ( ! Validate.isValidFile(   ui,            "",	  keyFCPath.path, keyFCPath.isKey,	     true,	     1L,	   false,	     false,	     true) ) { return; }
+
+//	Key partitions in the key device's own sector size
+	DeviceController.setBytesPerSector(ui, keyFCPath);
+	GPT keyGPT = new GPT(ui);
+	keyGPT.read(keyFCPath);
+	if ( ! keyGPT.gpt_Entries1.hasKeyPartitions() ) { ui.log("Warning: No key partitions found on: " + keyFCPath.path + " Cloning aborted.\r\n", true, true, true, true, false); return; }
+	long[] keyPartitionPositions =	keyGPT.gpt_Entries1.getKeyPartitionPositions();
+	long keyPartitionSize =		keyGPT.gpt_Entries1.getKeyPartitionSize();
+
+//	Targets grouped by sector size (the GPT layout follows it)
+	LinkedHashMap<Long, ArrayList<FCPath>> sectorSizeMap = new LinkedHashMap<>();
+	for (FCPath targetFCPath:targetFCPathList)
 	{
-	    ui.log("Cloning Key Device: " + keyFCPath.path.toString() + " to " + targetFCPath.path.toString() + "\r\n", true, true, false, false, false);
-	    GPT gpt = new GPT(ui);
-	    
-//	    Either read (clone diskGUIDs & partitionGUIDs) or create (new diskGUIDs & partitionGUIDs)
-//            gpt.read(keyDeviceFilePath); // Copies currentLBA and backupLBA which causes invalid headers on a different size USB Stick
-	    gpt.create(DeviceController.getKeyPartitionSize(ui, keyFCPath), targetFCPath);
-	    gpt.write(targetFCPath);
-	    gpt.cloneKeypartitions(keyFCPath, targetFCPath);
-	    gpt.print();
-	    try { Thread.sleep(250); } catch (InterruptedException ex) {  }
+	    if ( targetFCPath.path.equals(keyFCPath.path) ) { continue; }
+//		       isValidFile(UI ui, String caller,  Path targetSourcePath, boolean isKey,     boolean device, long minSize, boolean symlink, boolean writable, boolean report)
+	    if ( Validate.isValidFile(   ui,            "",	  targetFCPath.path, targetFCPath.isKey,          true,	     1L,	   false,	      true,	     true) )
+	    {
+		long sectorSize = DeviceSizeResolver.getLogicalBlockSize(ui, targetFCPath.path);
+		if ( ! sectorSizeMap.containsKey(sectorSize) ) { sectorSizeMap.put(sectorSize, new ArrayList<>()); }
+		sectorSizeMap.get(sectorSize).add(targetFCPath);
+	    }
+	}
+
+	ArrayList<FCPath> clonedFCPathList = new ArrayList<>(); int targets = 0;
+	for (ArrayList<FCPath> sectorSizeFCPathList:sectorSizeMap.values())
+	{
+	    targets += sectorSizeFCPathList.size();
+	    DeviceController.setBytesPerSector(ui, sectorSizeFCPathList.get(0));
+	    ArrayList<GPT> gptList = new ArrayList<>();
+	    for (FCPath targetFCPath:sectorSizeFCPathList)
+	    {
+		ui.log("Cloning Key Device: " + keyFCPath.path.toString() + " to " + targetFCPath.path.toString() + "\r\n", true, true, false, false, false);
+		GPT gpt = new GPT(ui);
+//		Either read (clone diskGUIDs & partitionGUIDs) or create (new diskGUIDs & partitionGUIDs)
+//		gpt.read(keyDeviceFilePath); // Copies currentLBA and backupLBA which causes invalid headers on a different size USB Stick
+		gpt.create(keyPartitionSize, targetFCPath);
+		gpt.write(targetFCPath);
+		gptList.add(gpt);
+	    }
+	    clonedFCPathList.addAll(gptList.get(0).cloneKeypartitions(keyFCPath, keyPartitionPositions, keyPartitionSize, sectorSizeFCPathList));
+	    for (GPT gpt:gptList) { gpt.print(); }
 	}
+	DeviceInventory.refresh(); // New partitions
+	ui.log("Cloned Key Device: " + keyFCPath.path.toString() + " to " + clonedFCPathList.size() + " of " + targets + " target(s)\r\n", true, true, true, clonedFCPathList.size() < targets, false);
+	try { Thread.sleep(250); } catch (InterruptedException ex) {  }
     }
 
 //  Used by --gpt option
@@ -68,6 +104,7 @@ public class DeviceManager extends Thread
 	if ( Validate.isValidFile(   ui,            "", fcPath.path,		fcPath.isKey,	  true,		  1L,		false,		  false,	   true) )
 	{
 //	    ui.status("Printing GUID Partition Table: " + keyDevice.getPath().toString() + "\r\n", true);
+	    DeviceController.setBytesPerSector(ui, fcPath);
 	    GPT gpt = new GPT(ui);
 	    gpt.read(fcPath);
 	    gpt.print();
@@ -80,10 +117,12 @@ public class DeviceManager extends Thread
 	if ( Validate.isValidFile(   ui,	    "",		   fcPath.path,	 fcPath.isKey,	    true,	    1L,		  false,	     true,	    true) )
 	{
 //	    ui.status("Deleting GUID Partition Table: " + targetDevice.getPath().toString() + "\r\n", true);
+	    DeviceController.setBytesPerSector(ui, fcPath);
 	    GPT gpt = new GPT(ui);
 	    gpt.write(fcPath);
 	    gpt.read(fcPath);
 	    gpt.print();
+	    DeviceInventory.refresh(); // Partitions gone
 	}
     }
 }
\ No newline at end of file
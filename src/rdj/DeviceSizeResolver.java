@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+//  Thread safe device size resolver, cached per device for the session
+//  1. Linux:	DeviceInventory (/sys/class/block size & logical block size)
+//  2.		FileChannel.size()
+//  3.		Single channel probe: exponential positional 1 byte reads, then bisection (Apple OSX reports 0 for devices)
+
+public class DeviceSizeResolver
+{
+    public static final long			SECTOR_SIZE_DEFAULT =	512L;
+    private static final ConcurrentHashMap<Path, long[]> sizeCache =	new ConcurrentHashMap<>(); // { size, logical block size }
+
+    private DeviceSizeResolver() {  }
+
+    public static long getSize(UI ui, Path path)		{ return resolve(ui, path)[0]; }
+    public static long getLogicalBlockSize(UI ui, Path path)	{ return resolve(ui, path)[1]; }
+    public static void clear()					{ sizeCache.clear(); } // e.g. after (re)plugging devices
+
+    private static long[] resolve(UI ui, Path path)
+    {
+	Path devicePath; try { devicePath = path.toRealPath(); } catch (IOException ex) { devicePath = path.toAbsolutePath(); } // /dev/disk/by-id/.. symlinks share one entry
+	long[] cached = sizeCache.get(devicePath); if ( cached != null ) { return cached; }
+
+	long[] sizes = { 0L, SECTOR_SIZE_DEFAULT };
+	DeviceInventory.BlockDevice blockDevice = DeviceInventory.get(devicePath);
+	if ( blockDevice != null ) { sizes[0] = blockDevice.size; sizes[1] = blockDevice.logicalBlockSize; }
+	if ( sizes[0] <= 0 ) { sizes[0] = getChannelSize(ui, devicePath); }
+
+	if ( sizes[0] > 0 ) { sizeCache.put(devicePath, sizes); } // Don't cache failures (e.g. permissions)
+	return sizes;
+    }
+
+    private static long getChannelSize(UI ui, Path path)
+    {
+	try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ))
+	{
+	    long size = fileChannel.size(); if ( size > 0 ) { return size; }
+	    return probeSize(fileChannel);
+	}
+	catch (IOException ex) { ui.log("Warning: DeviceSizeResolver: " + path + " " + ex.getMessage() + "\r\n", true, true, true, false, false); return 0L; }
+    }
+
+//  Smallest position that can't be read = size; one channel, positional reads only
+    private static long probeSize(FileChannel fileChannel) throws IOException
+    {
+	ByteBuffer byteBuffer = ByteBuffer.allocate(1);
+	long above = -1L; long below = SECTOR_SIZE_DEFAULT;
+	while ( readable(fileChannel, byteBuffer, below - 1) ) { above = below - 1; below *= 2; if ( below <= 0 ) { return Long.MAX_VALUE; } }
+	while ( below - above > 1 )
+	{
+	    long middle = above + ((below - above) / 2);
+	    if ( readable(fileChannel, byteBuffer, middle) ) { above = middle; } else { below = middle; }
+	}
+	return above + 1;
+    }
+
+    private static boolean readable(FileChannel fileChannel, ByteBuffer byteBuffer, long position) throws IOException
+    {
+	byteBuffer.clear();
+	try { return fileChannel.read(byteBuffer, position) > 0; } catch (IOException ex) { return false; } // Some devices throw beyond the end
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+//  Batchfile (-b) ingestion: reads one line at a time, drops duplicates and validates & classifies the paths on a bounded thread pool
+//  Every valid file is handed to fcPathConsumer (from the pool threads) e.g. FCPathQueue.publish, so the batchfile is never held in memory
+//  Duplicates are detected within the last DEDUPE_WINDOW distinct paths (bounded memory), a repeat further apart finds its file already processed (invalid)
+
+public class FCBatchReader
+{
+    private static final int	QUEUE_CAPACITY =    4096;
+    private static final int	DEDUPE_WINDOW =	    65536;	// Most recently seen paths remembered for duplicate detection
+
+    private final UI		ui;
+    private final Path		batchFilePath;
+    private final Path		keyPath;	    // null when not classifying against a key
+    private final FCPathPattern	fcPathPattern;
+    private final boolean	symlink;
+    private final boolean	disabledMAC;
+
+    private final AtomicLong	lines =		    new AtomicLong(0L);
+    private final AtomicLong	validLines =	    new AtomicLong(0L);
+    private final AtomicLong	invalidLines =	    new AtomicLong(0L);
+    private final AtomicLong	duplicateLines =    new AtomicLong(0L);
+    private final AtomicLong	filteredLines =	    new AtomicLong(0L);
+    private volatile boolean	stopped =	    false;
+
+    public FCBatchReader(UI ui, Path batchFilePath, Path keyPath, FCPathPattern fcPathPattern, boolean symlink, boolean disabledMAC)
+    {
+	this.ui = ui;
+	this.batchFilePath = batchFilePath;
+	this.keyPath = keyPath;
+	this.fcPathPattern = fcPathPattern;
+	this.symlink = symlink;
+	this.disabledMAC = disabledMAC;
+    }
+
+    public long getLines()	    { return lines.get(); }
+    public long getValidLines()	    { return validLines.get(); }
+    public long getInvalidLines()   { return invalidLines.get(); }
+    public long getDuplicateLines() { return duplicateLines.get(); }
+    public long getFilteredLines()  { return filteredLines.get(); }
+    public void stop()		    { stopped = true; } // e.g. the encryptor stopped consuming
+
+//  Returns true when at least one valid file was found
+    public boolean read(Consumer<FCPath> fcPathConsumer)    { return read(null, fcPathConsumer); }
+    public boolean readPaths(Consumer<Path> pathConsumer)   { return read(pathConsumer, null); } // Validation only, no classification
+
+    private boolean read(Consumer<Path> pathConsumer, Consumer<FCPath> fcPathConsumer)
+    {
+	int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+	ExecutorService executorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy()); // Full queue: reader validates itself (back pressure)
+	Path rootPath = batchFilePath.toAbsolutePath().getParent(); // Path patterns (-w 'src/**') are relative to the batchfile's dir
+	Set<String> seenSet = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>(DEDUPE_WINDOW * 2, 0.75f, true) { @Override protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) { return size() > DEDUPE_WINDOW; } }); // LRU
+
+	try (BufferedReader bufferedReader = Files.newBufferedReader(batchFilePath, StandardCharsets.UTF_8))
+	{
+	    String line; long lineNumber = 0;
+	    while ( ( ( line = bufferedReader.readLine() ) != null ) && ( ! stopped ) )
+	    {
+		lineNumber++; lines.incrementAndGet();
+		if ( line.trim().isEmpty() ) { continue; }
+
+		final Path path; final long lineNumber2 = lineNumber; final String line2 = line; // for Lambda expression
+		try { path = Paths.get(line); }
+		catch (InvalidPathException ex) { invalid(lineNumber, line, "[invalid path] "); continue; }
+
+		if ( ! seenSet.add(path.toAbsolutePath().normalize().toString()) ) { duplicateLines.incrementAndGet(); ui.log("Warning: " + batchFilePath.getFileName() + " line " + lineNumber + ": " + line + ": [duplicate] skipping\r\n", true, true, true, false, false); continue; }
+
+		executorService.execute(() ->
+		{
+		    if ( stopped ) { return; }
+//				  isValidFile(UI ui, String caller, Path path, boolean isKey, boolean device, long minSize, boolean symlink, boolean writable, boolean report)
+		    if ( ! Validate.isValidFile(ui,		"",	 path,		false,		false,		0L,	     symlink,		  true,		  false) ) { invalid(lineNumber2, line2, "[not a valid file] "); return; }
+		    if ( ! fcPathPattern.matches(path.toAbsolutePath(), rootPath) ) { filteredLines.incrementAndGet(); return; }
+		    if ( pathConsumer != null ) { validLines.incrementAndGet(); pathConsumer.accept(path); return; }
+//				   getFCPath(UI ui, String caller, Path path, boolean isKey, Path keyPath, boolean disabledMAC, boolean report)
+		    FCPath fcPath = Validate.getFCPath(ui,	     "",      path,	    false,	keyPath,	 disabledMAC,		true);
+		    validLines.incrementAndGet(); fcPathConsumer.accept(fcPath);
+		});
+	    }
+	}
+	catch (IOException ex) { ui.log("Error: FCBatchReader: " + batchFilePath + " " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+	finally
+	{
+	    executorService.shutdown();
+	    try { executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS); } catch (InterruptedException ex) { executorService.shutdownNow(); }
+	}
+
+	ui.log("Batchfile: " + batchFilePath + " lines: " + lines.get() + " valid: " + validLines.get() + " invalid: " + invalidLines.get() + " duplicate: " + duplicateLines.get() + " filtered: " + filteredLines.get() + "\r\n", true, true, true, false, false);
+	return validLines.get() > 0;
+    }
+
+    private void invalid(long lineNumber, String line, String conditions)
+    {
+	invalidLines.incrementAndGet();
+	ui.log("Warning: " + batchFilePath.getFileName() + " line " + lineNumber + ": " + line + ": " + conditions + "\r\n", true, true, true, false, false);
+    }
+}
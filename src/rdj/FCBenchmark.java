@@ -0,0 +1,362 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+//  --benchmark: end to end encrypt & decrypt of a reproducible synthetic dataset through the real FinalCrypt.encryptSelection
+//  Dataset: files spread over directories of DIR_FILES, log uniform sizes between minSize and maxSize (many small, few large files)
+//  and a key, all from a fixed seed, so every installation measures the same bytes
+//  Reports MiB/s, files/s, p50 / p99 per file latency (RunReport) and peak heap per phase, then verifies the round trip with the
+//  SHA-256 (FinalCrypt.HASH_ALGORITHM_NAME) of every file. Console output of the runs is left out, errors still get through
+//  --benchmark-scan: classification only, Validate.buildSelection over a deep & wide tree (SCAN_FANOUT subdirectories per directory)
+//  of plain text, MAC (own key), foreign key MAC files and symlinks. Reports files/s, read / write syscalls per file (/proc/self/io)
+//  and the heap held by the resulting FCPathList
+
+public class FCBenchmark
+{
+    public static final int	FILES_DEFAULT =	    1000;
+    public static final long	MIN_SIZE_DEFAULT =  1024L;
+    public static final long	MAX_SIZE_DEFAULT =  4L * 1024L * 1024L;
+    public static final long	SEED =		    20170101L;
+    private static final int	DIR_FILES =	    100;
+    public static final int	SCAN_FILES_DEFAULT =	    20000;
+    public static final long	SCAN_MIN_SIZE_DEFAULT =	    256L;
+    public static final long	SCAN_MAX_SIZE_DEFAULT =	    16L * 1024L;
+    private static final int	SCAN_FANOUT =		    4;
+    private static final int	SCAN_DIR_FILES =	    25;
+
+    private final UI		ui;
+    private final UI		quietUI;
+    private final int		files;
+    private final long		minSize;
+    private final long		maxSize;
+    private final int		bufferSize;
+    private final String	pwd;
+    private final LinkedHashMap<Path, String> hashMap = new LinkedHashMap<>(); // Plain file > SHA-256
+    private final LinkedHashMap<String, Double> resultMap = new LinkedHashMap<>(); // e.g. encrypt.mib_per_second (perf regression test)
+
+    public FCBenchmark(UI ui, int files, long minSize, long maxSize, int bufferSize, String pwd)
+    {
+	this.ui = ui;
+	this.quietUI = new QuietUI(ui);
+	this.files = files;
+	this.minSize = Math.max(1L, Math.min(minSize, maxSize));
+	this.maxSize = Math.max(minSize, maxSize);
+	this.bufferSize = bufferSize;
+	this.pwd = pwd;
+    }
+
+    public Map<String, Double> getResults() { return resultMap; }
+
+//  "min-max" in bytes, with an optional K, M or G (KiB, MiB, GiB) suffix e.g. 1K-4M, null when invalid
+    public static long[] parseSizes(String sizes)
+    {
+	String[] minMax = sizes.split("-"); if ( minMax.length != 2 ) { return null; }
+	long minSize = parseSize(minMax[0]); long maxSize = parseSize(minMax[1]);
+	if ( ( minSize < 1 ) || ( maxSize < minSize ) ) { return null; }
+	return new long[] { minSize, maxSize };
+    }
+
+    private static long parseSize(String size)
+    {
+	size = size.trim().toUpperCase(); long factor = 1L;
+	if	( size.endsWith("K") ) { factor = 1024L; }
+	else if ( size.endsWith("M") ) { factor = 1024L * 1024L; }
+	else if ( size.endsWith("G") ) { factor = 1024L * 1024L * 1024L; }
+	if ( factor > 1L ) { size = size.substring(0, size.length() - 1); }
+	try { return Long.parseLong(size) * factor; } catch (NumberFormatException ex) { return -1L; }
+    }
+
+//  Runs in a new temporary directory under parentPath (null = java.io.tmpdir), which is deleted afterwards unless the round trip failed
+    public boolean run(Path parentPath)
+    {
+	Path benchmarkPath;
+	try { benchmarkPath = ( parentPath != null ) ? Files.createTempDirectory(parentPath, "finalcrypt_benchmark_") : Files.createTempDirectory("finalcrypt_benchmark_"); }
+	catch (IOException ex) { ui.log("Error: Benchmark: " + ex.getMessage() + "\r\n", true, true, true, true, false); return false; }
+
+	Path dataPath = benchmarkPath.resolve("data"); Path keyPath = benchmarkPath.resolve("benchmark.key");
+	ui.log("Benchmark: generating " + files + " files (" + Validate.getHumanSize(minSize, 1) + " - " + Validate.getHumanSize(maxSize, 1) + " log uniform, seed " + SEED + ") in " + benchmarkPath + "\r\n", false, true, true, false, false);
+	long dataBytes;
+	try { dataBytes = generate(dataPath, keyPath); }
+	catch (IOException ex) { ui.log("Error: Benchmark: generating: " + ex.getMessage() + "\r\n", true, true, true, true, false); delete(benchmarkPath); return false; }
+	ui.log("Benchmark: " + files + " files " + Validate.getHumanSize(dataBytes, 1) + ", buffer " + Validate.getHumanSize(bufferSize, 1) + ( ( pwd.length() > 0 ) ? ", password" : "" ) + "\r\n\r\n", false, true, true, false, false);
+
+	ui.log(String.format("%-10s%8s%14s%10s%10s%10s%10s%10s%12s\r\n", "Phase", "Files", "Bytes", "Seconds", "MiB/s", "Files/s", "p50 ms", "p99 ms", "Peak Heap"), false, true, true, false, false);
+	FinalCrypt finalCrypt = new FinalCrypt(quietUI); finalCrypt.setBufferSize(bufferSize);
+	FCPath keyFCPath = Validate.getFCPath(quietUI, "", keyPath, true, keyPath, false, false);
+	boolean encrypted = phase("Encrypt", finalCrypt, dataPath, keyFCPath, true);
+	boolean decrypted = ( encrypted ) && ( phase("Decrypt", finalCrypt, dataPath, keyFCPath, false) );
+
+	long verified = ( decrypted ) ? verify() : 0L;
+	boolean ok = ( verified == files );
+	ui.log("\r\nRound trip: " + verified + " / " + files + " files verified (" + FinalCrypt.HASH_ALGORITHM_NAME + ") " + ( ( ok ) ? "OK" : "FAILED" ) + "\r\n", false, true, true, ! ok, false);
+	if ( ok ) { delete(benchmarkPath); } else { ui.log("Benchmark: dataset kept in: " + benchmarkPath + "\r\n", false, true, true, true, false); }
+	return ok;
+    }
+
+//  Reproducible: all sizes and bytes come from SEED, the plain file hashes are kept for the verification
+    private long generate(Path dataPath, Path keyPath) throws IOException
+    {
+	SplittableRandom random = new SplittableRandom(SEED);
+	byte[] bytes = new byte[1024 * 1024];
+	writeRandomFile(keyPath, null, Math.max(maxSize, bufferSize) + FCPath.MAC_SIZE, random, bytes, null);
+
+	MessageDigest messageDigest; try { messageDigest = MessageDigest.getInstance(FinalCrypt.HASH_ALGORITHM_NAME); } catch (NoSuchAlgorithmException ex) { throw new IOException(ex.getMessage()); }
+	double logMinSize = Math.log(minSize); double logMaxSize = Math.log(maxSize); long dataBytes = 0L;
+	for (int file = 0; file < files; file++)
+	{
+	    Path dirPath = dataPath.resolve(String.format("d%04d", file / DIR_FILES)); if ( file % DIR_FILES == 0 ) { Files.createDirectories(dirPath); }
+	    long size = Math.min(maxSize, Math.round(Math.exp(logMinSize + ( random.nextDouble() * ( logMaxSize - logMinSize ) ))));
+	    Path filePath = dirPath.resolve(String.format("f%06d.dat", file));
+	    messageDigest.reset(); writeRandomFile(filePath, null, size, random, bytes, messageDigest);
+	    hashMap.put(filePath, FinalCrypt.getHexString(messageDigest.digest(), 2)); dataBytes += size;
+	}
+	return dataBytes;
+    }
+
+//  header (e.g. a MAC token) + size random bytes
+    private static void writeRandomFile(Path path, byte[] header, long size, SplittableRandom random, byte[] bytes, MessageDigest messageDigest) throws IOException
+    {
+	try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+	{
+	    if ( header != null ) { ByteBuffer headerBuffer = ByteBuffer.wrap(header); while ( headerBuffer.hasRemaining() ) { fileChannel.write(headerBuffer); } }
+	    for (long written = 0; written < size;)
+	    {
+		int length = (int)Math.min(bytes.length, size - written);
+		for (int index = 0; index < length; index += 8) { long value = random.nextLong(); for (int shift = 0; ( shift < 8 ) && ( index + shift < length ); shift++) { bytes[index + shift] = (byte)(value >>> ( shift * 8 )); } }
+		if ( messageDigest != null ) { messageDigest.update(bytes, 0, length); }
+		ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, 0, length); while ( byteBuffer.hasRemaining() ) { fileChannel.write(byteBuffer); }
+		written += length;
+	    }
+	}
+    }
+
+//  One encryptSelection over the whole dataset, false when not every file got selected
+    private boolean phase(String name, FinalCrypt finalCrypt, Path dataPath, FCPath keyFCPath, boolean encryptmode)
+    {
+	ArrayList<Path> pathList = new ArrayList<>(); pathList.add(dataPath);
+	FCPathList targetFCPathList = new FCPathList();
+//	       buildSelection(UI ui, ArrayList<Path> pathList, FCPath keyFCPath, FCPathList targetFCPathList, boolean symlink, FCPathPattern fcPathPattern, boolean disabledMAC, boolean status)
+	Validate.buildSelection(quietUI,	      pathList,	       keyFCPath,	     targetFCPathList,		  false,	new FCPathPattern(),		   false,	  false);
+	FCPathList selectedFCPathList = ( encryptmode ) ? CLUI.filter(targetFCPathList, (FCPath fcPath) -> fcPath.isEncryptable) : CLUI.filter(targetFCPathList, (FCPath fcPath) -> fcPath.isDecryptable);
+	if ( selectedFCPathList.size() != files ) { ui.log("Error: Benchmark: " + name + ": " + selectedFCPathList.size() + " / " + files + " files selectable\r\n", true, true, true, true, false); return false; }
+
+	System.gc(); resetPeakHeap();
+	finalCrypt.encryptSelection(targetFCPathList, selectedFCPathList, keyFCPath, encryptmode, pwd, false);
+	long peakHeap = getPeakHeap();
+
+	RunReport runReport = finalCrypt.getRunReport(); double seconds = Math.max(runReport.getRunNanos() / 1000000000.0, 0.000001);
+	resultMap.put(name.toLowerCase() + ".mib_per_second", ( runReport.getBytes() / ( 1024.0 * 1024.0 ) ) / seconds); resultMap.put(name.toLowerCase() + ".files_per_second", runReport.getFiles() / seconds);
+	ui.log(String.format("%-10s%8d%14d%10.3f%10.1f%10.0f%10.3f%10.3f%12s\r\n", name, runReport.getFiles(), runReport.getBytes(), seconds, ( runReport.getBytes() / ( 1024.0 * 1024.0 ) ) / seconds, runReport.getFiles() / seconds,
+	    runReport.getFileNanosPercentile(50.0) / 1000000.0, runReport.getFileNanosPercentile(99.0) / 1000000.0, Validate.getHumanSize(peakHeap, 1)), false, true, true, false, false);
+	return runReport.getFiles() == files;
+    }
+
+//  Number of plain files back with their original hash
+    private long verify()
+    {
+	long verified = 0L; byte[] bytes = new byte[1024 * 1024];
+	for (Map.Entry<Path, String> entry:hashMap.entrySet())
+	{
+	    try (InputStream inputStream = Files.newInputStream(entry.getKey()))
+	    {
+		MessageDigest messageDigest = MessageDigest.getInstance(FinalCrypt.HASH_ALGORITHM_NAME);
+		int read; while ( ( read = inputStream.read(bytes) ) != -1 ) { messageDigest.update(bytes, 0, read); }
+		if ( FinalCrypt.getHexString(messageDigest.digest(), 2).equals(entry.getValue()) ) { verified++; }
+		else { ui.log("Error: Benchmark: " + FinalCrypt.HASH_ALGORITHM_NAME + " mismatch: " + entry.getKey() + "\r\n", true, true, true, true, false); }
+	    }
+	    catch (IOException | NoSuchAlgorithmException ex) { ui.log("Error: Benchmark: " + entry.getKey() + " " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+	}
+	return verified;
+    }
+
+//  Runs in a new temporary directory under parentPath (null = java.io.tmpdir), which is always deleted afterwards
+    public boolean runScan(Path parentPath)
+    {
+	Path benchmarkPath;
+	try { benchmarkPath = ( parentPath != null ) ? Files.createTempDirectory(parentPath, "finalcrypt_benchmark_scan_") : Files.createTempDirectory("finalcrypt_benchmark_scan_"); }
+	catch (IOException ex) { ui.log("Error: Benchmark Scan: " + ex.getMessage() + "\r\n", true, true, true, true, false); return false; }
+
+	Path dataPath = benchmarkPath.resolve("data"); Path keyPath = benchmarkPath.resolve("benchmark.key");
+	long[] kinds; // plain, MAC, foreign key MAC, symlink
+	try { kinds = generateTree(dataPath, keyPath, benchmarkPath.resolve("foreign.key")); }
+	catch (IOException ex) { ui.log("Error: Benchmark Scan: generating: " + ex.getMessage() + "\r\n", true, true, true, true, false); delete(benchmarkPath); return false; }
+
+	ArrayList<Path> pathList = new ArrayList<>(); pathList.add(dataPath);
+	FCPath keyFCPath = Validate.getFCPath(quietUI, "", keyPath, true, keyPath, false, false);
+	ArrayList<Path> filePathList = new ArrayList<>(); long referenceStartNanoTime = System.nanoTime();
+	try { referenceWalk(dataPath, filePathList); } catch (IOException ex) { ui.log("Error: Benchmark Scan: reference walk: " + ex.getMessage() + "\r\n", true, true, true, true, false); delete(benchmarkPath); return false; }
+	long referenceWalkNanos = System.nanoTime() - referenceStartNanoTime;
+	referenceStartNanoTime = System.nanoTime(); for (Path filePath:filePathList) { referenceRead(filePath); }
+	long referenceReadNanos = System.nanoTime() - referenceStartNanoTime;
+	long heapBefore = getUsedHeap(); long syscallsBefore = getSyscalls(); boolean syscalls = ( syscallsBefore >= 0 );
+	long startNanoTime = System.nanoTime();
+	FCPathList targetFCPathList = new FCPathList();
+//	       buildSelection(UI ui, ArrayList<Path> pathList, FCPath keyFCPath, FCPathList targetFCPathList, boolean symlink, FCPathPattern fcPathPattern, boolean disabledMAC, boolean status)
+	Validate.buildSelection(quietUI,	      pathList,	       keyFCPath,	     targetFCPathList,		  false,	new FCPathPattern(),		   false,	  false);
+	long buildNanos = System.nanoTime() - startNanoTime; long buildSyscalls = getSyscalls() - syscallsBefore;
+	long heapUsed = getUsedHeap() - heapBefore; // targetFCPathList is still referenced
+
+	syscallsBefore = getSyscalls(); startNanoTime = System.nanoTime();
+	for (Object fcPath:targetFCPathList) { Validate.getFCPath(quietUI, "", ((FCPath) fcPath).path, false, keyPath, false, false); } // Classification without the walk
+	long classifyNanos = System.nanoTime() - startNanoTime; long classifySyscalls = getSyscalls() - syscallsBefore;
+
+	ui.log(String.format("\r\n%-18s%10s%10s%10s%16s\r\n", "Phase", "Files", "Seconds", "Files/s", "Syscalls/file"), false, true, true, false, false);
+	logScanPhase("buildSelection", "scan", buildNanos, ( syscalls ) ? buildSyscalls : -1L);
+	logScanPhase("getFCPath only", "classify", classifyNanos, ( syscalls ) ? classifySyscalls : -1L);
+	logScanPhase("JDK walk & read", "scan.reference", referenceWalkNanos, -1L);
+	logScanPhase("JDK read only", "classify.reference", referenceReadNanos, -1L);
+	ui.log("\r\nClassified: " + targetFCPathList.encryptableFiles + " encryptable, " + targetFCPathList.decryptableFiles + " decryptable, " + targetFCPathList.unDecryptableFiles + " undecryptable (foreign key), " + targetFCPathList.symlinkFiles + " symlinks\r\n", false, true, true, false, false);
+	ui.log("FCPathList: " + targetFCPathList.size() + " entries " + Validate.getHumanSize(Math.max(0L, heapUsed), 1) + " heap (" + ( Math.max(0L, heapUsed) / Math.max(1, targetFCPathList.size()) ) + " bytes per entry)\r\n", false, true, true, false, false);
+	if ( ! syscalls ) { ui.log("Syscalls: /proc/self/io not available on this system\r\n", false, true, true, false, false); }
+
+	boolean ok = ( targetFCPathList.encryptableFiles == kinds[0] ) && ( targetFCPathList.decryptableFiles == kinds[1] ) && ( targetFCPathList.unDecryptableFiles >= kinds[2] );
+	if ( ! ok ) { ui.log("Error: Benchmark Scan: classification doesn't match the generated tree: " + kinds[0] + " plain, " + kinds[1] + " MAC, " + kinds[2] + " foreign key, " + kinds[3] + " symlinks\r\n", true, true, true, true, false); }
+	delete(benchmarkPath);
+	return ok;
+    }
+
+//  Directory i lives under directory (i - 1) / SCAN_FANOUT (a heap layout), files are spread evenly: every 10 files 4 plain, 4 MAC, 1 foreign key & 1 symlink
+    private long[] generateTree(Path dataPath, Path keyPath, Path foreignKeyPath) throws IOException
+    {
+	SplittableRandom random = new SplittableRandom(SEED);
+	byte[] bytes = new byte[(int)Math.min(1024L * 1024L, Math.max(maxSize, 65536L))];
+	writeRandomFile(keyPath, null, 65536L, random, bytes, null); writeRandomFile(foreignKeyPath, null, 65536L, random, bytes, null);
+	FinalCrypt finalCrypt = new FinalCrypt(quietUI);
+	byte[] macHeader = finalCrypt.createTargetDestinMessageAuthenticationCode(keyPath).array();
+	byte[] foreignMACHeader = finalCrypt.createTargetDestinMessageAuthenticationCode(foreignKeyPath).array();
+
+	int dirs = Math.max(1, ( files + SCAN_DIR_FILES - 1 ) / SCAN_DIR_FILES); Path[] dirPaths = new Path[dirs]; int depth = 0;
+	dirPaths[0] = dataPath; Files.createDirectories(dataPath);
+	for (int dir = 1; dir < dirs; dir++) { dirPaths[dir] = dirPaths[( dir - 1 ) / SCAN_FANOUT].resolve("s" + ( ( dir - 1 ) % SCAN_FANOUT )); Files.createDirectory(dirPaths[dir]); depth = Math.max(depth, dirPaths[dir].getNameCount() - dataPath.getNameCount()); }
+	ui.log("Benchmark Scan: generating " + files + " files in " + dirs + " directories (fanout " + SCAN_FANOUT + ", depth " + depth + ", " + Validate.getHumanSize(minSize, 1) + " - " + Validate.getHumanSize(maxSize, 1) + ", seed " + SEED + ") in " + dataPath.getParent() + "\r\n", false, true, true, false, false);
+
+	long[] kinds = new long[4]; double logMinSize = Math.log(minSize); double logMaxSize = Math.log(maxSize); Path plainPath = null;
+	for (int file = 0; file < files; file++)
+	{
+	    Path filePath = dirPaths[file % dirs].resolve(String.format("f%07d", file));
+	    long size = Math.min(maxSize, Math.round(Math.exp(logMinSize + ( random.nextDouble() * ( logMaxSize - logMinSize ) ))));
+	    int kind = file % 10;
+	    if ( ( kind == 9 ) && ( plainPath != null ) )
+	    {
+		try { Files.createSymbolicLink(filePath, plainPath); kinds[3]++; continue; } catch (IOException | UnsupportedOperationException ex) { kind = 0; } // No symlinks here: plain instead
+	    }
+	    if	    ( kind < 4 )    { writeRandomFile(filePath, null, size, random, bytes, null); kinds[0]++; plainPath = filePath; }
+	    else if ( kind < 8 )    { writeRandomFile(filePath.resolveSibling(filePath.getFileName() + ".bit"), macHeader, size, random, bytes, null); kinds[1]++; }
+	    else		    { writeRandomFile(filePath.resolveSibling(filePath.getFileName() + ".bit"), foreignMACHeader, size, random, bytes, null); kinds[2]++; }
+	}
+	return kinds;
+    }
+
+//  Same tree, plain JDK: walk with attributes & read every file's MAC header sized start (what the scan can't avoid), the references for scan / classify
+    private static void referenceWalk(Path dataPath, ArrayList<Path> filePathList) throws IOException
+    {
+	Files.walkFileTree(dataPath, new SimpleFileVisitor<Path>()
+	{
+	    @Override public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) { if ( attrs.isRegularFile() ) { referenceRead(path); } filePathList.add(path); return FileVisitResult.CONTINUE; }
+	});
+    }
+
+    private static void referenceRead(Path path)
+    {
+	try
+	{
+	    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+	    if ( attributes.isRegularFile() ) { try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) { fileChannel.read(ByteBuffer.allocate(FCPath.MAC_SIZE)); } }
+	}
+	catch (IOException ex) { } // Symlink targets etc: the same work was done
+    }
+
+    private void logScanPhase(String name, String resultName, long nanos, long syscalls) // syscalls -1 = unknown
+    {
+	double seconds = Math.max(nanos / 1000000000.0, 0.000001); resultMap.put(resultName + ".files_per_second", files / seconds);
+	ui.log(String.format("%-18s%10d%10.3f%10.0f%16s\r\n", name, files, seconds, files / seconds, ( syscalls >= 0 ) ? String.format("%.2f", (double)syscalls / files) : "n/a"), false, true, true, false, false);
+    }
+
+//  read & write family syscalls of this process so far (syscr + syscw), -1 without /proc/self/io (not Linux, not permitted). stat & open are not counted
+    private static long getSyscalls()
+    {
+	try
+	{
+	    long syscalls = 0L;
+	    for (String line:Files.readAllLines(Paths.get("/proc/self/io"))) { if ( ( line.startsWith("syscr:") ) || ( line.startsWith("syscw:") ) ) { syscalls += Long.parseLong(line.substring(6).trim()); } }
+	    return syscalls;
+	}
+	catch (IOException | NumberFormatException | SecurityException ex) { return -1L; }
+    }
+
+    private static long getUsedHeap() { System.gc(); System.gc(); return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(); }
+
+//  Peak heap: sum of the heap pool peaks since the reset (the pools peak at different moments, so an upper bound)
+    private static void resetPeakHeap() { for (MemoryPoolMXBean memoryPoolMXBean:ManagementFactory.getMemoryPoolMXBeans()) { if ( memoryPoolMXBean.getType() == MemoryType.HEAP ) { memoryPoolMXBean.resetPeakUsage(); } } }
+    private static long getPeakHeap()
+    {
+	long peakHeap = 0L;
+	for (MemoryPoolMXBean memoryPoolMXBean:ManagementFactory.getMemoryPoolMXBeans()) { if ( memoryPoolMXBean.getType() == MemoryType.HEAP ) { peakHeap += memoryPoolMXBean.getPeakUsage().getUsed(); } }
+	return peakHeap;
+    }
+
+    private void delete(Path path)
+    {
+	try (Stream<Path> pathStream = Files.walk(path))
+	{
+	    pathStream.sorted(Comparator.reverseOrder()).forEach(deletePath -> { try { Files.delete(deletePath); } catch (IOException ex) { ui.log("Warning: Benchmark: " + deletePath + " " + ex.getMessage() + "\r\n", true, true, true, false, false); } });
+	}
+	catch (IOException ex) { ui.log("Warning: Benchmark: " + path + " " + ex.getMessage() + "\r\n", true, true, true, false, false); }
+    }
+
+//  Drops the per file console output of the runs (still produced, so still measured), passes errors on
+    private static class QuietUI implements UI
+    {
+	private final UI ui;
+
+	private QuietUI(UI ui) { this.ui = ui; }
+
+	@Override public void test(String message) { }
+	@Override public void log(String message, boolean status, boolean log, boolean logfile, boolean errfile, boolean print) { if ( errfile ) { ui.log(message, status, log, logfile, errfile, print); } }
+	@Override public void processGraph(int value) { }
+	@Override public void processProgress(int filesProgressPercent, int fileProgressPercent, long bytesTotalParam, long bytesProcessedParam, double bytesPerMiliSecondParam) { }
+	@Override public void fileProgress() { }
+	@Override public void processFinished(FCPathList openFCPathList, boolean open) { }
+	@Override public void processStarted() { }
+	@Override public void buildReady(FCPathList fcPathListParam, boolean validBuild) { }
+    }
+}
@@ -176,7 +176,7 @@ public class FCPathList<E> extends ArrayList<E>
     }
     
 //    public void updateStats() { clearStats(); for(FCPath fcPath:fcPathList) { addStat(fcPath); } }
-    public void updateStats() { clearStats(); for(E e:this) { addStat((FCPath) e); } }
+    public void updateStats() { ArrayList<E> elements = new ArrayList<>(this); clearStats(); for(E e:elements) { super.add(e); addStat((FCPath) e); } } // clearStats() also clears the list
 
     public String getStats()
     {
@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+//  Keeps an already scanned FCPathList up to date through a WatchService instead of rescanning the whole selection
+//  WatchService thread: collects changed paths & classifies them (Validate.getFCPath I/O)
+//  applyExecutor (GUIFX: Platform::runLater): applies the changes to the FCPathList through addStat / removeStat / updateStat
+
+public class FCPathListWatcher extends Thread
+{
+    private static final long	    POLL_MS_TIMEOUT =	    250L;
+
+    private final UI		    ui;
+    private final FCPathList	    targetFCPathList;
+    private final ArrayList<Path>   rootPathList;
+    private final FCPath	    keyFCPath;
+    private final String	    pattern;
+    private final boolean	    negatePattern;
+    private final boolean	    symlink;
+    private final boolean	    disabledMAC;
+    private final FCPathPattern	    fcPathPattern;
+    private final Executor	    applyExecutor;
+    private final Runnable	    changedAction;	// e.g. updateDashboard & checkModeReady
+    private final Runnable	    overflowAction;	// Full rescan
+
+    private WatchService	    watchService;
+    private final HashMap<WatchKey, Path>   watchKeyMap =	    new HashMap<>();
+    private final HashMap<Path, FCPath>	    fcPathMap =		    new HashMap<>();	// Only touched by applyExecutor
+    private final HashMap<Path, Integer>    indexMap =		    new HashMap<>();	// Position in targetFCPathList of every fcPathMap entry, kept by add() & reindex() (applyExecutor)
+    private final HashSet<Path>		    rootFileSet =	    new HashSet<>();	// Selected files (not dirs) are watched through their parent dir
+    private final ArrayList<Path>	    rootDirList =	    new ArrayList<>();
+    private final LinkedHashSet<Path>	    pendingPathSet =	    new LinkedHashSet<>();
+    private volatile boolean		    running =		    true;
+    private volatile boolean		    suspended =		    false;
+    private volatile boolean		    recountPending =	    false;
+
+    public FCPathListWatcher(UI ui, ArrayList<Path> rootPathList, FCPath keyFCPath, FCPathList targetFCPathList, boolean symlink, String pattern, boolean negatePattern, boolean disabledMAC, Executor applyExecutor, Runnable changedAction, Runnable overflowAction)
+    {
+	this.ui = ui;
+	this.rootPathList = new ArrayList<>(rootPathList);
+	this.keyFCPath = keyFCPath;
+	this.targetFCPathList = targetFCPathList;
+	this.symlink = symlink;
+	this.pattern = pattern;
+	this.negatePattern = negatePattern;
+	this.disabledMAC = disabledMAC;
+	this.fcPathPattern = FCPathPattern.compile(pattern, negatePattern);
+	this.applyExecutor = applyExecutor;
+	this.changedAction = changedAction;
+	this.overflowAction = overflowAction;
+	setName("targetFCPathListWatcher"); setDaemon(true);
+	applyExecutor.execute(() -> { for (Object object:targetFCPathList) { FCPath fcPath = (FCPath) object; fcPathMap.put(fcPath.path, fcPath); } reindex(); });
+    }
+
+    public FCPathList getFCPathList() { return targetFCPathList; }
+
+//  Same selection, same key, same filter and all selected roots still exist
+    public boolean isWatching(ArrayList<Path> rootPathList, FCPath keyFCPath, String pattern, boolean negatePattern, boolean disabledMAC)
+    {
+	if ( ( ! running ) || ( ! this.rootPathList.equals(rootPathList) ) ) { return false; }
+	if ( ( keyFCPath == null ) || ( this.keyFCPath.path.compareTo(keyFCPath.path) != 0 ) ) { return false; }
+	if ( ( ! this.pattern.equals(pattern) ) || ( this.negatePattern != negatePattern ) || ( this.disabledMAC != disabledMAC ) ) { return false; }
+	for (Path rootPath:rootPathList) { if ( ! Files.exists(rootPath) ) { return false; } }
+	return true;
+    }
+
+//  FinalCrypt.encryptSelection updates the FCPathList stats without replacing its elements, so suspend while a process runs
+    public void suspendWatching()   { suspended = true; }
+    public void resumeWatching()    { recountPending = true; suspended = false; if ( ! running ) { applyExecutor.execute(changedAction); } }
+
+    public void close()		    { running = false; if ( watchService != null ) { try { watchService.close(); } catch (IOException ex) { } } }
+
+    @Override public void run()
+    {
+	try { watchService = FileSystems.getDefault().newWatchService(); }
+	catch (IOException ex) { ui.log("Error: FCPathListWatcher: newWatchService() " + ex.getMessage() + "\r\n", true, true, true, true, false); running = false; return; }
+
+	for (Path rootPath:rootPathList)
+	{
+	    if ( Files.isDirectory(rootPath) )	{ rootDirList.add(rootPath.toAbsolutePath()); walkTree(rootPath, null); } // Already scanned, only register
+	    else if ( rootPath.toAbsolutePath().getParent() != null ) { rootFileSet.add(rootPath.toAbsolutePath()); register(rootPath.toAbsolutePath().getParent()); }
+	}
+
+	while (running)
+	{
+	    WatchKey watchKey;
+	    try { watchKey = watchService.poll(POLL_MS_TIMEOUT, TimeUnit.MILLISECONDS); }
+	    catch (InterruptedException | ClosedWatchServiceException ex) { break; }
+
+	    while ( watchKey != null ) // Drain everything that is available into one batch
+	    {
+		Path dirPath = watchKeyMap.get(watchKey);
+		for (WatchEvent<?> watchEvent:watchKey.pollEvents())
+		{
+		    if ( watchEvent.kind() == StandardWatchEventKinds.OVERFLOW ) { running = false; applyExecutor.execute(overflowAction); break; }
+		    if ( dirPath != null ) { pendingPathSet.add(dirPath.resolve((Path) watchEvent.context())); }
+		}
+		if ( ! watchKey.reset() ) { watchKeyMap.remove(watchKey); }
+		if ( ! running ) { break; }
+		watchKey = watchService.poll();
+	    }
+
+	    if ( ( running ) && ( ! suspended ) && ( ( pendingPathSet.size() > 0 ) || ( recountPending ) ) ) { applyBatch(); }
+	}
+	try { watchService.close(); } catch (IOException ex) { }
+    }
+
+    private void applyBatch()
+    {
+	boolean recount = recountPending; recountPending = false;
+	ArrayList<Path> removedPathList = new ArrayList<>();
+	ArrayList<FCPath> changedFCPathList = new ArrayList<>();
+
+	for (Path path:pendingPathSet)
+	{
+	    if ( Files.isDirectory(path) )
+	    {
+		if ( ( isInRootDir(path) ) && ( ! isPruned(path) ) ) { walkTree(path, changedFCPathList); } // New or renamed directory
+	    }
+	    else if ( Files.exists(path, LinkOption.NOFOLLOW_LINKS) )
+	    {
+		if ( isSelected(path) ) { changedFCPathList.add(Validate.getFCPath(ui, "", path, false, keyFCPath.path, disabledMAC, false)); }
+	    }
+	    else { removedPathList.add(path); }
+	}
+	pendingPathSet.clear();
+
+	applyExecutor.execute(() ->
+	{
+	    if ( recount ) { targetFCPathList.updateStats(); } // Corrects the stats updated by FinalCrypt.encryptSelection
+	    if ( removedPathList.size() > 0 )
+	    {
+		Set<FCPath> removedFCPathSet = Collections.newSetFromMap(new IdentityHashMap<FCPath, Boolean>());
+		for (Path removedPath:removedPathList) { remove(removedPath, removedFCPathSet); }
+		if ( removedFCPathSet.size() > 0 ) { targetFCPathList.removeIf(object -> removedFCPathSet.contains(object)); reindex(); } // One pass instead of one remove(Object) per path
+	    }
+	    for (FCPath newFCPath:changedFCPathList)
+	    {
+		FCPath oldFCPath = fcPathMap.get(newFCPath.path);
+		if ( oldFCPath == null )    { add(newFCPath); } // add() -> addStat()
+		else
+		{
+		    targetFCPathList.updateStat(oldFCPath, newFCPath);
+		    targetFCPathList.set(indexMap.get(newFCPath.path), newFCPath); // Same path, same position
+		}
+		fcPathMap.put(newFCPath.path, newFCPath);
+	    }
+	    changedAction.run();
+	});
+    }
+
+    private void add(FCPath fcPath) { targetFCPathList.add(fcPath); indexMap.put(fcPath.path, targetFCPathList.size() - 1); }
+
+    private void reindex() { indexMap.clear(); for (int index = 0; index < targetFCPathList.size(); index++) { indexMap.put(((FCPath) targetFCPathList.get(index)).path, index); } }
+
+    private void remove(Path removedPath, Set<FCPath> removedFCPathSet) // Removed file or removed directory (subtree), the caller removes removedFCPathSet from the list
+    {
+	FCPath oldFCPath = fcPathMap.remove(removedPath);
+	if ( oldFCPath != null ) { removedFCPathSet.add(oldFCPath); targetFCPathList.removeStat(oldFCPath); return; }
+
+	for (Iterator<Map.Entry<Path, FCPath>> it = fcPathMap.entrySet().iterator(); it.hasNext();)
+	{
+	    Map.Entry<Path, FCPath> entry = it.next();
+	    if ( entry.getKey().startsWith(removedPath) ) { removedFCPathSet.add(entry.getValue()); targetFCPathList.removeStat(entry.getValue()); it.remove(); }
+	}
+    }
+
+    private boolean isInRootDir(Path path) { return getRootDir(path) != null; }
+    private Path getRootDir(Path path) { for (Path rootDirPath:rootDirList) { if ( path.toAbsolutePath().startsWith(rootDirPath) ) { return rootDirPath; } } return null; }
+
+    private boolean isSelected(Path path)
+    {
+	if ( rootFileSet.contains(path.toAbsolutePath()) ) { return fcPathPattern.matches(path.toAbsolutePath(), path.toAbsolutePath()); }
+	Path rootDirPath = getRootDir(path); if ( rootDirPath == null ) { return false; } // Sibling of a selected file
+	return fcPathPattern.matches(path.toAbsolutePath(), rootDirPath); // Same filter as MySimpleFCFileVisitor
+    }
+
+    private boolean isPruned(Path dirPath) { Path rootDirPath = getRootDir(dirPath); return ( rootDirPath != null ) && ( fcPathPattern.prune(dirPath.toAbsolutePath(), rootDirPath) ); }
+
+    private void register(Path dirPath)
+    {
+	try { watchKeyMap.put(dirPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dirPath); }
+	catch (IOException ex) { ui.log("Warning: FCPathListWatcher: can't watch dir: " + dirPath.toString() + " " + ex.getMessage() + "\r\n", false, false, true, false, false); }
+    }
+
+//  One walk registers every (new) directory and, with an fcPathList, classifies its selected files
+    private void walkTree(Path rootDirPath, ArrayList<FCPath> fcPathList)
+    {
+	try
+	{
+	    Files.walkFileTree(rootDirPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+	    {
+		@Override public FileVisitResult preVisitDirectory(Path dirPath, BasicFileAttributes attrs)
+		{
+		    if ( ( ! running ) || ( isPruned(dirPath) ) || ( ! Validate.isValidDir(ui, dirPath, symlink, false) ) ) { return FileVisitResult.SKIP_SUBTREE; }
+		    register(dirPath); return FileVisitResult.CONTINUE;
+		}
+		@Override public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) { if ( ( fcPathList != null ) && ( isSelected(path) ) ) { fcPathList.add(Validate.getFCPath(ui, "", path, false, keyFCPath.path, disabledMAC, false)); } return FileVisitResult.CONTINUE; }
+		@Override public FileVisitResult visitFileFailed(Path path, IOException exc) { return FileVisitResult.CONTINUE; }
+	    });
+	} catch (IOException ex) { ui.log("Warning: FCPathListWatcher: " + ex.getMessage() + "\r\n", false, false, true, false, false); }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+
+//  Compiled -w / -W / -r filters: any number of include and exclude patterns, compiled once per scan
+//
+//  "glob:*.bit"		    File name pattern (no '/'): matched against the file name (as before)
+//  "glob:src/main/**"		    Path pattern: matched against the path relative to the selected dir
+//  "glob:/home/user/**"	    Absolute path pattern: matched against the absolute path
+//  "regex:^.*\.bit$"		    Regex (-r): always matched against the file name only (as before), even when containing a '/'
+//  "path-regex:^src/.*\.java$"    Path regex (-R): matched against the relative path (absolute when starting with "^/") like a path glob
+//
+//  A file is selected when it matches any include (or there are none) and no exclude
+//  Exclude path globs without a leading "/" or "**/" match at any depth (gitignore like): "node_modules/**" skips every node_modules dir
+//  Directories are pruned (SKIP_SUBTREE) when an exclude covers them or no include path pattern (glob or path-regex prefix) can match below them
+
+public class FCPathPattern
+{
+    public static final String	DEFAULT =	"glob:*";
+    public static final String	PATH_REGEX =	"path-regex:"; // -R
+    private static final String	REGEX_META =	".[]{}()*+?^$|\\";
+    private static final String	GLOB_META =	"*?[{\\";
+
+    private final ArrayList<Entry>  includeList =   new ArrayList<>();
+    private final ArrayList<Entry>  excludeList =   new ArrayList<>();
+    private boolean		    includePrunable = true; // False as soon as one include is a file name pattern
+
+    public FCPathPattern() {  }
+
+//  Legacy single pattern: -w / -r (include) or -W (negatePattern = exclude)
+    public static FCPathPattern compile(String pattern, boolean negatePattern)
+    {
+	FCPathPattern fcPathPattern = new FCPathPattern();
+	if ( negatePattern )	{ fcPathPattern.addExclude(pattern); }
+	else			{ fcPathPattern.addInclude(pattern); }
+	return fcPathPattern;
+    }
+
+    public FCPathPattern addInclude(String pattern) { Entry entry = new Entry(pattern, false); includeList.add(entry); if ( entry.prefix == null ) { includePrunable = false; } return this; }
+    public FCPathPattern addExclude(String pattern) { excludeList.add(new Entry(pattern, true)); return this; }
+
+    public boolean isEmpty() { return ( includeList.isEmpty() ) && ( excludeList.isEmpty() ); }
+
+//  rootPath is the user selected item being walked (may be null)
+    public boolean matches(Path path, Path rootPath)
+    {
+	if ( path.getFileName() == null ) { return false; }
+	for (Entry entry:excludeList) { if ( entry.matches(path, rootPath) ) { return false; } }
+	if ( includeList.isEmpty() ) { return true; }
+	for (Entry entry:includeList) { if ( entry.matches(path, rootPath) ) { return true; } }
+	return false;
+    }
+
+//  True when nothing below dirPath can ever be selected
+    public boolean prune(Path dirPath, Path rootPath)
+    {
+	if ( ( rootPath == null ) || ( dirPath.equals(rootPath) ) ) { return false; } // Never prune the selected item itself
+
+	for (Entry entry:excludeList) { if ( entry.coversDir(dirPath, rootPath) ) { return true; } }
+
+	if ( ( ! includePrunable ) || ( includeList.isEmpty() ) ) { return false; }
+	for (Entry entry:includeList) { if ( entry.mayMatchBelow(dirPath, rootPath) ) { return false; } }
+	return true;
+    }
+
+    @Override public String toString()
+    {
+	String returnString = "";
+	for (Entry entry:includeList) { returnString += "+" + entry.pattern + " "; }
+	for (Entry entry:excludeList) { returnString += "-" + entry.pattern + " "; }
+	return returnString.trim();
+    }
+
+    private static String getRelativeString(Path path, Path rootPath)
+    {
+	if ( ( rootPath != null ) && ( path.startsWith(rootPath) ) && ( ! path.equals(rootPath) ) ) { return rootPath.relativize(path).toString().replace('\\', '/'); }
+	return path.getFileName().toString();
+    }
+
+    private static class Entry
+    {
+	private final String		pattern;
+	private final boolean		isRegex;
+	private final boolean		isPathPattern;	// Glob containing a '/' or path-regex
+	private final boolean		isAbsolute;	// Starting with a '/' (after an optional path-regex '^')
+	private final ArrayList<PathMatcher> pathMatcherList = new ArrayList<>(); // Any one matching
+	private final ArrayList<PathMatcher> dirMatcherList = new ArrayList<>(); // Exclude: "dir/**" or "dir/.*" => matches "dir"
+	private final String		prefix;		// Include: literal leading directories, null when unknown
+
+	private Entry(String pattern, boolean exclude)
+	{
+	    if ( ( ! pattern.startsWith("glob:") ) && ( ! pattern.startsWith("regex:") ) && ( ! pattern.startsWith(PATH_REGEX) ) ) { pattern = "glob:" + pattern; }
+	    this.pattern = pattern;
+	    boolean isPathRegex = pattern.startsWith(PATH_REGEX);
+	    isRegex = ( isPathRegex ) || ( pattern.startsWith("regex:") );
+	    String body = pattern.substring(pattern.indexOf(':') + 1);
+	    isPathPattern = ( isPathRegex ) || ( ( ! isRegex ) && ( body.contains("/") ) );
+	    isAbsolute = ( isPathPattern ) && ( ( body.startsWith("/") ) || ( body.startsWith("^/") ) );
+	    String syntax = ( isRegex ) ? "regex:" : "glob:";
+	    boolean anyDepth = ( exclude ) && ( isPathPattern ) && ( ! isRegex ) && ( ! isAbsolute ) && ( ! body.startsWith("**/") ); // gitignore like: "node_modules/**" at any depth
+
+	    pathMatcherList.add(FileSystems.getDefault().getPathMatcher(syntax + body));
+	    if ( anyDepth ) { pathMatcherList.add(FileSystems.getDefault().getPathMatcher(syntax + "**/" + body)); }
+
+	    if ( ( exclude ) && ( isPathPattern ) )
+	    {
+		String dirBody = null;
+		if	( ( ! isRegex ) && ( body.endsWith("/**") ) )	{ dirBody = body.substring(0, body.length() - 3); }
+		else if ( ( isRegex ) && ( body.endsWith("/.*") ) )	{ dirBody = body.substring(0, body.length() - 3); }
+		else if ( ( isRegex ) && ( body.endsWith("/.*$") ) )	{ dirBody = body.substring(0, body.length() - 4) + "$"; }
+		if ( ( dirBody != null ) && ( dirBody.length() > 0 ) )
+		{
+		    dirMatcherList.add(FileSystems.getDefault().getPathMatcher(syntax + dirBody));
+		    if ( anyDepth ) { dirMatcherList.add(FileSystems.getDefault().getPathMatcher(syntax + "**/" + dirBody)); }
+		    if ( ( ! isRegex ) && ( dirBody.startsWith("**/") ) ) { dirMatcherList.add(FileSystems.getDefault().getPathMatcher(syntax + dirBody.substring(3))); } // Also top level
+		}
+	    }
+
+	    if ( ( exclude ) || ( ! isPathPattern ) )	{ prefix = null; }
+	    else if ( isRegex )				{ prefix = getRegexPrefix(body); }
+	    else					{ prefix = getGlobPrefix(body); }
+	}
+
+	private Path getTarget(Path path, Path rootPath)
+	{
+	    if	    ( isAbsolute )	{ return path.toAbsolutePath(); }
+	    else if ( isPathPattern )	{ return path.getFileSystem().getPath(getRelativeString(path, rootPath)); }
+	    else			{ return path.getFileName(); }
+	}
+
+	private boolean matches(Path path, Path rootPath)
+	{
+	    Path target = getTarget(path, rootPath);
+	    for (PathMatcher pathMatcher:pathMatcherList) { if ( pathMatcher.matches(target) ) { return true; } }
+	    return false;
+	}
+
+	private boolean coversDir(Path dirPath, Path rootPath)
+	{
+	    if ( dirMatcherList.isEmpty() ) { return false; }
+	    Path target = getTarget(dirPath, rootPath);
+	    for (PathMatcher dirMatcher:dirMatcherList) { if ( dirMatcher.matches(target) ) { return true; } }
+	    return false;
+	}
+
+	private boolean mayMatchBelow(Path dirPath, Path rootPath)
+	{
+	    String dirString = getTarget(dirPath, rootPath).toString().replace('\\', '/') + "/";
+	    return ( prefix.startsWith(dirString) ) || ( dirString.startsWith(prefix) );
+	}
+
+//	"src/main/**/*.java" => "src/main/"
+	private static String getGlobPrefix(String body)
+	{
+	    int index = 0; while ( ( index < body.length() ) && ( GLOB_META.indexOf(body.charAt(index)) == -1 ) ) { index++; }
+	    return body.substring(0, body.lastIndexOf('/', index - 1) + 1);
+	}
+
+//	"^src/main/.*\.java$" => "src/main/" ; null with alternation as a '|' may start anywhere
+	private static String getRegexPrefix(String body)
+	{
+	    if ( body.contains("|") ) { return null; }
+	    if ( body.startsWith("^") ) { body = body.substring(1); }
+	    String literal = "";
+	    for (int index = 0; index < body.length(); index++)
+	    {
+		char c = body.charAt(index);
+		if	( ( c == '\\' ) && ( index + 1 < body.length() ) && ( ! Character.isLetterOrDigit(body.charAt(index + 1)) ) ) { literal += body.charAt(index + 1); index++; }
+		else if ( REGEX_META.indexOf(c) == -1 ) { literal += c; }
+		else
+		{
+		    if ( ( ( c == '?' ) || ( c == '*' ) || ( c == '{' ) ) && ( literal.length() > 0 ) ) { literal = literal.substring(0, literal.length() - 1); } // Quantifier makes the previous char optional
+		    break;
+		}
+	    }
+	    return literal.substring(0, literal.lastIndexOf('/') + 1);
+	}
+    }
+}
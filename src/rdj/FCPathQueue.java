@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//  Streaming Selection: MySimpleFCFileVisitor (producer) -> FCPathQueue -> FinalCrypt.encryptSelection (consumer)
+//  The queue is bounded so a fast scan can never run ahead of the encryptor by more than CAPACITY_DEFAULT paths
+
+public class FCPathQueue
+{
+    public static final int	CAPACITY_DEFAULT =	1024;
+    private static final long	OFFER_MS_TIMEOUT =	100L;
+    private static final FCPath	END_OF_SCAN =		new FCPath((Path) null); // Poison pill
+
+    private final ArrayBlockingQueue<FCPath> queue;
+    private final AtomicLong	publishedFiles =	new AtomicLong(0L);
+    private final AtomicLong	publishedFilesSize =	new AtomicLong(0L);
+    private final AtomicInteger	producers =		new AtomicInteger(1);
+    private volatile boolean	scanEnded =		false;
+    private volatile boolean	stopped =		false;
+
+    public FCPathQueue()			{ this(CAPACITY_DEFAULT); }
+    public FCPathQueue(int capacity)		{ queue = new ArrayBlockingQueue<>(capacity); }
+
+    public long getPublishedFiles()		{ return publishedFiles.get(); }
+    public long getPublishedFilesSize()		{ return publishedFilesSize.get(); }
+    public boolean isScanEnded()		{ return scanEnded; }
+    public boolean isStopped()			{ return stopped; }
+
+//  Producer side (scanning thread)
+    public void publish(FCPath fcPath, boolean encryptmode)
+    {
+	if ( (encryptmode) && ( ! fcPath.isEncryptable) )	{ return; }
+	if ( ( ! encryptmode) && ( ! fcPath.isDecryptable) )	{ return; }
+
+	try
+	{
+	    while ( ! stopped ) // Blocks while the consumer is busy (back pressure)
+	    {
+		if ( queue.offer(fcPath, OFFER_MS_TIMEOUT, TimeUnit.MILLISECONDS) ) { publishedFiles.incrementAndGet(); publishedFilesSize.addAndGet(fcPath.size); return; } // Only counts what the consumer can get
+	    }
+	}
+	catch (InterruptedException ex) { stopped = true; }
+    }
+
+    public void addProducer()			{ producers.incrementAndGet(); } // e.g. -t walk & -b batchfile feeding the same queue
+
+    public void setScanEnded() // Ends the scan when the last producer ends
+    {
+	if ( producers.decrementAndGet() > 0 ) { return; }
+	scanEnded = true;
+	try { while ( ( ! stopped ) && ( ! queue.offer(END_OF_SCAN, OFFER_MS_TIMEOUT, TimeUnit.MILLISECONDS) ) ) { } } catch (InterruptedException ex) { stopped = true; }
+    }
+
+//  Consumer side (encrypting thread)
+    public void stop() { stopped = true; queue.clear(); } // Also terminates a still running scan (MySimpleFCFileVisitor checks isStopped)
+
+//  Every consumed FCPath gets counted in consumedFCPathList and only kept when keepItems (e.g. to open them after processFinished)
+    public Iterator<FCPath> consumer(FCPathList consumedFCPathList, boolean keepItems)
+    {
+	return new Iterator<FCPath>()
+	{
+	    private FCPath nextFCPath = null;
+
+	    @Override public boolean hasNext()
+	    {
+		while ( ( nextFCPath == null ) && ( ! stopped ) )
+		{
+		    try { nextFCPath = queue.poll(OFFER_MS_TIMEOUT, TimeUnit.MILLISECONDS); } catch (InterruptedException ex) { stopped = true; }
+		}
+		if ( nextFCPath == END_OF_SCAN ) { nextFCPath = null; stopped = true; }
+		return nextFCPath != null;
+	    }
+
+	    @Override public FCPath next()
+	    {
+		if ( ! hasNext() ) { throw new NoSuchElementException(); }
+		FCPath fcPath = nextFCPath; nextFCPath = null;
+		if ( keepItems ) { consumedFCPathList.add(fcPath); } else { consumedFCPathList.addStat(fcPath); } // Multi-million line batchfiles
+		return fcPath;
+	    }
+	};
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+//  Parallel recursive delete (FinalCrypt.deleteSelection)
+//  Every directory is a fork/join task: its files are deleted concurrently (in batches), its subdirectories are forked
+//  and the directory itself is removed bottom-up once all children are gone
+//  Symlink safe: links are never followed, a link (to a file or a dir) is deleted as a link and its target is left alone
+
+public class FCTreeDeleter
+{
+    private static final int	BATCH_SIZE =	    256;  // Files per task in large directories
+    private static final int	THREADS_MAX =	    16;   // Deleting is metadata I/O bound: more threads than cores pays off
+    private static final int	FAILURES_LISTED =   20;
+    private static final long	PROGRESS_PERIOD =   200L;
+
+    private final UI		ui;
+    private final FCPathPattern	fcPathPattern;
+    private final boolean	verbose;
+
+    private final AtomicLong	files =		    new AtomicLong(0L);
+    private final AtomicLong	dirs =		    new AtomicLong(0L);
+    private final AtomicLong	links =		    new AtomicLong(0L);
+    private final AtomicLong	skipped =	    new AtomicLong(0L); // Not matching the pattern
+    private final AtomicLong	failed =	    new AtomicLong(0L);
+    private final ConcurrentLinkedQueue<String> failureQueue = new ConcurrentLinkedQueue<>();
+
+    public FCTreeDeleter(UI ui, FCPathPattern fcPathPattern, boolean verbose)
+    {
+	this.ui = ui;
+	this.fcPathPattern = fcPathPattern;
+	this.verbose = verbose;
+    }
+
+    public long getDeleted()	{ return files.get() + dirs.get() + links.get(); }
+    public long getFailed()	{ return failed.get(); }
+
+//  Returns true when nothing failed
+    public boolean delete(ArrayList<Path> rootPathList)
+    {
+	int threads = Math.min(THREADS_MAX, Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+	ForkJoinPool forkJoinPool = new ForkJoinPool(threads);
+	long startNanoTime = System.nanoTime();
+	ProgressPublisher.Session progressSession = ProgressPublisher.start(ui, "Deleting", snapshot -> { snapshot.bytesProcessed = getDeleted(); }).subscribe(snapshot ->
+	{
+	    ui.log("Deleting: " + files.get() + " files " + dirs.get() + " dirs " + links.get() + " links" + (( failed.get() > 0 ) ? " " + failed.get() + " failed" : ""), true, false, false, false, false);
+	}, PROGRESS_PERIOD);
+
+	try
+	{
+	    for (Path rootPath:rootPathList)
+	    {
+		BasicFileAttributes attrs; try { attrs = Files.readAttributes(rootPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS); } catch (IOException ex) { fail(rootPath, ex); continue; }
+		if ( attrs.isDirectory() )  { forkJoinPool.invoke(new DirTask(rootPath, rootPath)); }
+		else			    { deleteEntry(rootPath, rootPath, attrs); }
+	    }
+	}
+	finally { forkJoinPool.shutdown(); progressSession.finish(); }
+
+	report(System.nanoTime() - startNanoTime);
+	return failed.get() == 0;
+    }
+
+//  Non directories: files, links (never followed) & specials; true when deleted
+    private boolean deleteEntry(Path path, Path rootPath, BasicFileAttributes attrs)
+    {
+	if ( ! fcPathPattern.matches(path, rootPath) ) { skipped.incrementAndGet(); return false; }
+	try { Files.delete(path); } catch (NoSuchFileException ex) { return true; } catch (IOException ex) { fail(path, ex); return false; }
+	if ( attrs.isSymbolicLink() ) { links.incrementAndGet(); } else { files.incrementAndGet(); }
+	if ( verbose ) { ui.log("Deleted: " + path + "\r\n", true, true, true, false, false); }
+	return true;
+    }
+
+    private void fail(Path path, IOException ex)
+    {
+	failed.incrementAndGet();
+	String failure = path + " due to: " + ex.getClass().getSimpleName() + " " + ex.getMessage();
+	if ( failureQueue.size() < FAILURES_LISTED ) { failureQueue.add(failure); }
+	ui.log("Error: Delete: " + failure + "\r\n", true, true, true, true, false);
+    }
+
+    private void report(long elapsedNanos)
+    {
+	double seconds = Math.max(elapsedNanos / 1000000000.0, 0.001);
+	String returnString = "\r\n";
+	returnString += "Delete Results:\r\n\r\n";
+	returnString += String.format("%-10s", "Deleted:")	+ files.get() + " files, " + dirs.get() + " dirs, " + links.get() + " links in " + String.format("%.1f", seconds) + " seconds (" + String.format("%.0f", getDeleted() / seconds) + " items/s)\r\n";
+	returnString += String.format("%-10s", "Skipped:")	+ skipped.get() + " (not matching the filter)\r\n";
+	returnString += String.format("%-10s", "Failed:")	+ failed.get() + "\r\n";
+	for (String failure:failureQueue) { returnString += "          " + failure + "\r\n"; }
+	if ( failed.get() > failureQueue.size() ) { returnString += "          ... and " + (failed.get() - failureQueue.size()) + " more (see the error log)\r\n"; }
+	ui.log(returnString + "\r\n", true, true, true, failed.get() > 0, false);
+    }
+
+//  Deletes the whole directory bottom-up (true when it is gone)
+    @SuppressWarnings("serial") // Never serialized (ForkJoinTask is Serializable)
+    private class DirTask extends RecursiveTask<Boolean>
+    {
+	private final Path dirPath;
+	private final Path rootPath;
+
+	private DirTask(Path dirPath, Path rootPath) { this.dirPath = dirPath; this.rootPath = rootPath; }
+
+	@Override protected Boolean compute()
+	{
+	    boolean empty = true; // False as soon as a child stays (skipped or failed)
+	    ArrayList<RecursiveTask<Boolean>> taskList = new ArrayList<>();
+	    ArrayList<Path> batchPathList = new ArrayList<>(); ArrayList<BasicFileAttributes> batchAttrsList = new ArrayList<>();
+	    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dirPath))
+	    {
+		for (Path path:directoryStream)
+		{
+		    BasicFileAttributes attrs; try { attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS); } catch (NoSuchFileException ex) { continue; } catch (IOException ex) { fail(path, ex); empty = false; continue; }
+		    if ( attrs.isDirectory() )
+		    {
+			if ( fcPathPattern.prune(path, rootPath) ) { skipped.incrementAndGet(); empty = false; continue; } // Excluded subtree stays
+			DirTask dirTask = new DirTask(path, rootPath); dirTask.fork(); taskList.add(dirTask);
+		    }
+		    else
+		    {
+			batchPathList.add(path); batchAttrsList.add(attrs);
+			if ( batchPathList.size() == BATCH_SIZE ) { FileBatchTask fileBatchTask = new FileBatchTask(rootPath, batchPathList, batchAttrsList); fileBatchTask.fork(); taskList.add(fileBatchTask); batchPathList = new ArrayList<>(); batchAttrsList = new ArrayList<>(); }
+		    }
+		}
+	    }
+	    catch (IOException ex) { fail(dirPath, ex); return false; }
+
+	    empty &= new FileBatchTask(rootPath, batchPathList, batchAttrsList).compute(); // Last (partial) batch on this thread
+	    for (RecursiveTask<Boolean> task:taskList) { empty &= task.join(); }
+	    if ( ! empty ) { return false; }
+
+	    try { Files.delete(dirPath); } catch (NoSuchFileException ex) { return true; } catch (IOException ex) { fail(dirPath, ex); return false; }
+	    dirs.incrementAndGet();
+	    return true;
+	}
+    }
+
+//  A batch of non directory entries of one directory (true when all are gone)
+    @SuppressWarnings("serial")
+    private class FileBatchTask extends RecursiveTask<Boolean>
+    {
+	private final Path				rootPath;
+	private final ArrayList<Path>			pathList;
+	private final ArrayList<BasicFileAttributes>	attrsList;
+
+	private FileBatchTask(Path rootPath, ArrayList<Path> pathList, ArrayList<BasicFileAttributes> attrsList) { this.rootPath = rootPath; this.pathList = pathList; this.attrsList = attrsList; }
+
+	@Override protected Boolean compute()
+	{
+	    boolean deleted = true;
+	    for (int index = 0; index < pathList.size(); index++) { deleted &= deleteEntry(pathList.get(index), rootPath, attrsList.get(index)); }
+	    return deleted;
+	}
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//  --verify-tree: read only audit of encrypted trees
+//  Reads only the MAC header (FCPath.MAC_SIZE bytes) of every file on a bounded thread pool, optionally throttled to a maximum of files per second
+//  Decryptable:	MAC token authenticates with the key (and password)
+//  Foreign key:	MAC token present but doesn't authenticate (other key / password)
+//  Legacy:		.bit file without MAC token (old format, key can't be checked)
+//  Corrupt:		MAC token present but the header or file is truncated
+
+public class FCTreeVerifier
+{
+    private static final int	QUEUE_CAPACITY =    1024;
+    private static final int	THREADS_MAX =	    8;
+
+    private final UI		ui;
+    private final FCPath	keyFCPath;
+    private final FCPathPattern	fcPathPattern;
+    private final boolean	symlink;
+    private final boolean	verbose;
+    private final long		throttleIntervalNanos; // 0 = unthrottled
+    private long		nextReadNanoTime =  0L;
+    private byte[]		keyHeader;
+
+    private final AtomicLong	files =		    new AtomicLong(0L);
+    private final AtomicLong	decryptable =	    new AtomicLong(0L);
+    private final AtomicLong	foreignKey =	    new AtomicLong(0L);
+    private final AtomicLong	legacy =	    new AtomicLong(0L);
+    private final AtomicLong	corrupt =	    new AtomicLong(0L);
+    private final AtomicLong	unreadable =	    new AtomicLong(0L);
+    private final AtomicLong	plain =		    new AtomicLong(0L);
+
+    public FCTreeVerifier(UI ui, FCPath keyFCPath, FCPathPattern fcPathPattern, boolean symlink, boolean verbose, long maxFilesPerSecond)
+    {
+	this.ui = ui;
+	this.keyFCPath = keyFCPath;
+	this.fcPathPattern = fcPathPattern;
+	this.symlink = symlink;
+	this.verbose = verbose;
+	if ( maxFilesPerSecond > 0 ) { throttleIntervalNanos = 1000000000L / maxFilesPerSecond; } else { throttleIntervalNanos = 0L; }
+    }
+
+    public long getDecryptable()    { return decryptable.get(); }
+    public long getForeignKey()	    { return foreignKey.get(); }
+    public long getLegacy()	    { return legacy.get(); }
+    public long getCorrupt()	    { return corrupt.get(); }
+
+    public void verify(ArrayList<Path> rootPathList)
+    {
+	keyHeader = readHeader(keyFCPath.path, FCPath.MAC_SIZE / 2); // Read once instead of per target
+	if ( ( keyHeader == null ) || ( keyHeader.length < FCPath.MAC_SIZE / 2 ) ) { ui.log("Error: Verify Tree: key: " + keyFCPath.path + " smaller than " + (FCPath.MAC_SIZE / 2) + " bytes\r\n", true, true, true, true, false); return; }
+
+	int threads = Math.min(THREADS_MAX, Math.max(2, Runtime.getRuntime().availableProcessors()));
+	ExecutorService executorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy());
+	long startNanoTime = System.nanoTime();
+	ui.log("Verify Tree: header only, read only (" + threads + " threads" + (( throttleIntervalNanos > 0 ) ? ", max " + (1000000000L / throttleIntervalNanos) + " files/s" : "") + ")\r\n", false, true, true, false, false);
+
+	EnumSet<FileVisitOption> options = EnumSet.noneOf(FileVisitOption.class); if ( symlink ) { options.add(FileVisitOption.FOLLOW_LINKS); }
+	for (Path rootPath:rootPathList)
+	{
+	    try
+	    {
+		Files.walkFileTree(rootPath, options, Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+		{
+		    @Override public FileVisitResult preVisitDirectory(Path dirPath, BasicFileAttributes attrs)
+		    {
+			if ( ( fcPathPattern.prune(dirPath, rootPath) ) || ( ! Files.isReadable(dirPath) ) ) { return FileVisitResult.SKIP_SUBTREE; } else { return FileVisitResult.CONTINUE; }
+		    }
+		    @Override public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
+		    {
+			if ( ( ! attrs.isRegularFile() ) || ( path.toAbsolutePath().normalize().equals(keyFCPath.path.toAbsolutePath().normalize()) ) || ( ! fcPathPattern.matches(path, rootPath) ) ) { return FileVisitResult.CONTINUE; }
+			final long size = attrs.size(); executorService.execute(() -> verifyFile(path, size));
+			return FileVisitResult.CONTINUE;
+		    }
+		    @Override public FileVisitResult visitFileFailed(Path path, IOException exc) { unreadable.incrementAndGet(); ui.log("Warning: Verify Tree: unreadable: " + path + " " + exc.getMessage() + "\r\n", true, true, true, false, false); return FileVisitResult.CONTINUE; }
+		});
+	    } catch (IOException ex) { ui.log("Error: Verify Tree: " + rootPath + " " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+	}
+
+	executorService.shutdown();
+	try { executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS); } catch (InterruptedException ex) { executorService.shutdownNow(); }
+	report(System.nanoTime() - startNanoTime);
+    }
+
+    private void verifyFile(Path path, long size)
+    {
+	throttle();
+	files.incrementAndGet();
+	byte[] header = readHeader(path, FCPath.MAC_SIZE);
+	if ( header == null ) { unreadable.incrementAndGet(); return; }
+
+	if ( Validate.headerHasMAC(header) )
+	{
+	    if	    ( ( header.length < FCPath.MAC_SIZE ) || ( size <= FCPath.MAC_SIZE ) )	    { corrupt.incrementAndGet();	ui.log("Warning: Verify Tree: corrupt (truncated): " + path + "\r\n", true, true, true, false, false); }
+	    else if ( Validate.headerHasAuthenticatedMACToken(header, keyHeader) )		    { decryptable.incrementAndGet();	if ( verbose ) { ui.log("Info: Verify Tree: decryptable: " + path + "\r\n", true, true, true, false, false); } }
+	    else										    { foreignKey.incrementAndGet();	ui.log("Warning: Verify Tree: foreign key: " + path + "\r\n", true, true, true, false, false); }
+	}
+	else if ( path.getFileName().toString().endsWith(".bit") )				    { legacy.incrementAndGet();		if ( verbose ) { ui.log("Info: Verify Tree: legacy (no MAC): " + path + "\r\n", true, true, true, false, false); } }
+	else											    { plain.incrementAndGet(); }
+    }
+
+//  Header only read: at most length bytes, null when unreadable
+    private byte[] readHeader(Path path, int length)
+    {
+	ByteBuffer headerBuffer = ByteBuffer.allocate(length);
+	try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ))
+	{
+	    while ( ( headerBuffer.hasRemaining() ) && ( fileChannel.read(headerBuffer) > 0 ) ) { }
+	}
+	catch (IOException ex) { ui.log("Warning: Verify Tree: unreadable: " + path + " " + ex.getMessage() + "\r\n", true, true, true, false, false); return null; }
+	byte[] header = new byte[headerBuffer.position()]; headerBuffer.flip(); headerBuffer.get(header);
+	return header;
+    }
+
+    private void throttle()
+    {
+	if ( throttleIntervalNanos == 0 ) { return; }
+	long waitNanos;
+	synchronized (this)
+	{
+	    long now = System.nanoTime(); if ( nextReadNanoTime < now ) { nextReadNanoTime = now; }
+	    waitNanos = nextReadNanoTime - now; nextReadNanoTime += throttleIntervalNanos;
+	}
+	if ( waitNanos > 0 ) { try { TimeUnit.NANOSECONDS.sleep(waitNanos); } catch (InterruptedException ex) { } }
+    }
+
+    private void report(long elapsedNanos)
+    {
+	double seconds = Math.max(elapsedNanos / 1000000000.0, 0.001);
+	String returnString = "\r\n";
+	returnString += "Verify Tree Results:\r\n\r\n";
+	returnString += String.format("%-14s", "Files:")	    + files.get() + " headers read in " + String.format("%.1f", seconds) + " seconds (" + String.format("%.0f", files.get() / seconds) + " files/s)\r\n";
+	returnString += String.format("%-14s", "Decryptable:")  + decryptable.get() + "\r\n";
+	returnString += String.format("%-14s", "Foreign key:")  + foreignKey.get() + " (MAC token doesn't authenticate with this key / password)\r\n";
+	returnString += String.format("%-14s", "Legacy:")	    + legacy.get() + " (.bit without MAC token, key can't be checked)\r\n";
+	returnString += String.format("%-14s", "Corrupt:")	    + corrupt.get() + " (MAC token present, header or file truncated)\r\n";
+	returnString += String.format("%-14s", "Unreadable:")   + unreadable.get() + "\r\n";
+	returnString += String.format("%-14s", "Plain:")	    + plain.get() + " (not encrypted)\r\n";
+	ui.log(returnString + "\r\n", false, true, true, false, false);
+    }
+}
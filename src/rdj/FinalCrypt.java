@@ -23,7 +23,6 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
-import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -34,11 +33,8 @@ import java.nio.file.attribute.PosixFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.EnumSet;
 import java.util.Iterator;
-import java.util.Locale;
-import java.util.TimerTask;
 
 public class FinalCrypt extends Thread
 {
@@ -56,8 +52,7 @@ public class FinalCrypt extends Thread
 //    private int printAddressByteCounter = 0;
     private final UI ui;
     
-    private TimerTask updateProgressTimerTask;
-    private java.util.Timer updateProgressTaskTimer;
+    private ProgressPublisher.Session progressSession;
 
     private boolean stopPending = false;
     private static boolean pausing = false;
@@ -67,10 +62,7 @@ public class FinalCrypt extends Thread
 //											     1	       2         3         4         5         6         7
 //										    1234567890123456789012345678901234567890123456789012345678901234567890
     public static final String FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE = "FinalCrypt - File Encryption Program - Plain Text Authentication Token"; // NEVER EVER CHANGE!!!!!!!!!!!
-    private Calendar	startCalendar;
-    private Calendar	processProgressCalendar;
-    private static double   filesBytesPerMilliSecond = 0;
-    private final long UPDATE_PROGRESS_TIMERTASK_PERIOD = 100L;
+    private final long UPDATE_PROGRESS_PERIOD = 100L;
 //											❌ ❎ 🚫 ⊝ ⊖⭕⛔ ⨷ 🆘 ☝ ☹ 💣 🔐 🔏 📄 XOR ⊕ XOR ⊻ 🔀 ☒ ✓ ✔ ■ ▣ Ⅱ Ⅱ  🔓->🔒->🔓 ⎘ ✔ ⚛
 //											🡔 🡕 🡖 🡗 | 🡤 🡥 🡦 🡧 | 🡬 🡭 🡮 🡯 | 🡴 🡵 🡶 🡷 | 🡼 🡽 🡾 🡿 | 🢄 🢅 🢆 🢇 | ⬈ ⬉ ⬊ ⬋ | ⇖ ⇗ ⇘ ⇙ | ↖ ↗ ↘ ↙
     public static final String UTF8_ENCRYPT_SYMBOL =		    "🔒";
@@ -113,13 +105,10 @@ public class FinalCrypt extends Thread
 
     public static final double IO_THROUGHPUT_CEILING_DEFAULT =	    10d; // (MiB/S) Dynamic 100% ceiling
     public static double io_Throughput_Ceiling =		    IO_THROUGHPUT_CEILING_DEFAULT;
-    private static double realtimeMiBPS;
 
     private long lastBytesProcessed2;
-    private long throughputClock = 0L;
-    private long lastThroughputClock = 0L;
-    private long realtimeBytesProcessed;
     private long totalBytesProcessed;
+    private RunReport runReport; // Of the last encryptSelection
 
     public FinalCrypt(UI ui)
     {   
@@ -132,6 +121,7 @@ public class FinalCrypt extends Thread
     }
         
     public int getBufferSize()                                              { return bufferSize; }
+    public RunReport getRunReport()                                         { return runReport; }
     
 //    public boolean getDebug()                                               { return debug; }
     public boolean getVerbose()                                             { return verbose; }
@@ -175,13 +165,40 @@ public class FinalCrypt extends Thread
 	    , String pwdParam
 	    , boolean open // Opens targets after finishing
     )// throws InterruptedException
+    {
+	encryptSelection(targetSourceFCPathList, filteredTargetSourceFCPathList, null, keySourceFCPath, encryptmode, pwdParam, open);
+    }
+
+//  Streaming Selection: consumes encryptables / decryptables from streamQueue while Validate.buildSelection is still scanning
+    public void encryptSelection
+    (
+	    FCPathList targetSourceFCPathList
+	    , FCPathQueue streamQueue // Filled by Validate.buildSelection(.., streamQueue, encryptmode)
+	    , FCPath keySourceFCPath
+	    , boolean encryptmode
+	    , String pwdParam
+	    , boolean open // Opens targets after finishing
+    )
+    {
+	FCPathList consumedFCPathList = new FCPathList();
+	encryptSelection(targetSourceFCPathList, consumedFCPathList, streamQueue, keySourceFCPath, encryptmode, pwdParam, open);
+    }
+
+    private void encryptSelection
+    (
+	    FCPathList targetSourceFCPathList
+	    , FCPathList filteredTargetSourceFCPathList // encryptableList / decryptableList (streaming: gets filled while consuming)
+	    , FCPathQueue streamQueue // null = no streaming
+	    , FCPath keySourceFCPath
+	    , boolean encryptmode
+	    , String pwdParam
+	    , boolean open // Opens targets after finishing
+    )
     {
 	io_Throughput_Ceiling = IO_THROUGHPUT_CEILING_DEFAULT;
 	
 	if (pwdParam.length() > 0) { pwd = pwdParam; } else { pwd = ""; }
 
-	startCalendar = Calendar.getInstance(Locale.ROOT);
-
 	if ( keySourceFCPath.size < bufferSize ) { setBufferSize((int)keySourceFCPath.size); }
 	
         Stats allDataStats = new Stats(); allDataStats.reset();
@@ -199,6 +216,7 @@ public class FinalCrypt extends Thread
         // Get TOTALS
         allDataStats.setFilesTotal(filteredTargetSourceFCPathList.encryptableFiles + filteredTargetSourceFCPathList.decryptableFiles);
         allDataStats.setAllDataBytesTotal(filteredTargetSourceFCPathList.encryptableFilesSize + filteredTargetSourceFCPathList.decryptableFilesSize);
+	if ( streamQueue != null ) { updateStreamTotals(allDataStats, streamQueue); }
 	String modeDesc = "";
 	if (encryptmode)
 	{
@@ -211,46 +229,29 @@ public class FinalCrypt extends Thread
 	ui.log(allDataStats.getStartSummary(modeDesc), true, true, true, false, false);
         try { Thread.sleep(100); } catch (InterruptedException ex) {  }
         
-//      Setup the Progress TIMER & TASK
-        updateProgressTimerTask = new TimerTask()
+//      Progress: sampled by the ProgressPublisher thread, written bytes are counted on the hot path
+        progressSession = ProgressPublisher.start(ui, modeDesc, snapshot ->
 	{
-	    private long filesBytesTotal;
+	    if ( streamQueue != null ) { updateStreamTotals(allDataStats, streamQueue); }
+	    long fileBytesProcessed =	    (readTargetSourceStat.getFileBytesProcessed() + wrteTargetSourceStat.getFileBytesProcessed());
+	    double fileBytesPercent =	    ((readTargetSourceStat.getFileBytesTotal()) / 100.0); //  1000 / 100 = (long)10     10 > 0.1 (10*0.01)
+	    snapshot.fileProgressPercent =  (int)(fileBytesProcessed / fileBytesPercent); // 600 / 10 = 60 - 600 * (10*0.01)
 
-    //	private long fileBytesProcessed;
-
-	    @Override public void run()
-	    {
-		long fileBytesProcessed =	(readTargetSourceStat.getFileBytesProcessed() + wrteTargetSourceStat.getFileBytesProcessed());
-		double fileBytesPercent =	((readTargetSourceStat.getFileBytesTotal()) / 100.0); //  1000 / 100 = (long)10     10 > 0.1 (10*0.01)
-		int fileBytesPercentage =	(int)(fileBytesProcessed / fileBytesPercent); // 600 / 10 = 60 - 600 * (10*0.01)
-
-		long filesBytesProcessed =	(allDataStats.getFilesBytesProcessed());
-		double filesBytesPercent =	((allDataStats.getFilesBytesTotal() ) / 100.0);
-		int filesBytesPercentage =	(int)(filesBytesProcessed / filesBytesPercent);
-
-		processProgressCalendar =	Calendar.getInstance(Locale.ROOT);
-		filesBytesTotal =		allDataStats.getFilesBytesTotal();
-		fileBytesProcessed =	allDataStats.getFileBytesProcessed();
-		filesBytesPerMilliSecond =	filesBytesProcessed / (processProgressCalendar.getTimeInMillis() - startCalendar.getTimeInMillis());
-
-    //	    System Monitor
-		throughputClock = System.nanoTime();
-		realtimeMiBPS = ((realtimeBytesProcessed * (1000000000d / (throughputClock - lastThroughputClock)))/(1024d*1024d)); // ui.test("FC BPS: " + realtimeMiBPS + "\r\n");
-		if ( realtimeMiBPS > io_Throughput_Ceiling ) { io_Throughput_Ceiling = realtimeMiBPS; }
-		lastThroughputClock = throughputClock; realtimeBytesProcessed = 0; // allDataStats.getFilesBytesProcessed()
-		ui.processProgress( fileBytesPercentage, filesBytesPercentage, filesBytesTotal, allDataStats.getFilesBytesProcessed(), realtimeMiBPS );
-
-	    }
-	}; updateProgressTaskTimer = new java.util.Timer(); updateProgressTaskTimer.schedule(updateProgressTimerTask, 100L, UPDATE_PROGRESS_TIMERTASK_PERIOD);
+	    snapshot.bytesProcessed =	    allDataStats.getFilesBytesProcessed();
+	    snapshot.bytesTotal =	    allDataStats.getFilesBytesTotal();
+	    snapshot.filesProgressPercent = (int)(snapshot.bytesProcessed / (snapshot.bytesTotal / 100.0));
+	}).subscribe(ProgressPublisher.uiListener(ui), UPDATE_PROGRESS_PERIOD);
 
 
 //      Start Files Encryption Clock
-        allDataStats.setAllDataStartNanoTime();
+        allDataStats.setAllDataStartNanoTime(); runReport = new RunReport(modeDesc, bufferSize);
         
         // Encrypt Files loop
 	
-	encryptTargetloop: for (Iterator it = filteredTargetSourceFCPathList.iterator(); it.hasNext();)
+	Iterator selectionIterator; if ( streamQueue == null ) { selectionIterator = filteredTargetSourceFCPathList.iterator(); } else { selectionIterator = streamQueue.consumer(filteredTargetSourceFCPathList, open); }
+	encryptTargetloop: for (Iterator it = selectionIterator; it.hasNext();)
 	{
+	    if ( streamQueue != null ) { updateStreamTotals(allDataStats, streamQueue); }
 	    pwdPos = 0;
 	    totalBytesProcessed = 0;
 	    MessageDigest srcMessageDigest = null; try { srcMessageDigest = MessageDigest.getInstance(FinalCrypt.HASH_ALGORITHM_NAME); } catch (NoSuchAlgorithmException ex) { ui.log("Error: NoSuchAlgorithmException: MessageDigest.getInstance(\"SHA-2\")\r\n", false, true, true, true, false);}
@@ -294,6 +295,9 @@ public class FinalCrypt extends Thread
 //		End of enxtension codeblock ===================================================================================================================================================================
 
 //		At the start of the encryption process
+		String flightMode = ( disabledMAC ) ? "xor" : ( encryptmode ) ? "encrypt" : "decrypt";
+		Object fileEvent = FlightEvents.begin(FlightEvents.FILE_FINISHED); long digestNanos = 0L; long fileNanoTime = System.nanoTime();
+		FlightEvents.commit(FlightEvents.begin(FlightEvents.FILE_STARTED), newTargetSourceFCPath.path, flightMode, newTargetSourceFCPath.size, 0L);
 		try { Files.deleteIfExists(targetDestinPath); } catch (IOException ex) { ui.log("Error: Files.deleteIfExists(targetDestinPath): " + ex.getMessage() + "\r\n", true, true, true, true, false); }
 
 		// Prints printByte Header ones
@@ -412,6 +416,7 @@ public class FinalCrypt extends Thread
 		wrteTargetSourceStat.setFileBytesProcessed(0);	    wrteTargetSourceStat.setFileBytesTotal(newTargetSourceFCPath.size);
 
 		// Open and close files after every bufferrun. Interrupted file I/O works much faster than uninterrupted I/O encryption
+		long cryptNanoTime = System.nanoTime();
 		while (( ! targetSourceEnded ) && ( ! dry ))
 		{
 //                  Delete broken outputFile and keep original
@@ -423,12 +428,12 @@ public class FinalCrypt extends Thread
 			if ( deleted ) { ui.log(UTF8_STOP_SYMBOL + " " + UTF8_DELETE_SYMBOL + UTF8_FINISHED_SYMBOL + " ", false, true, true, false, false); } else { ui.log(UTF8_STOP_SYMBOL + " " + UTF8_DELETE_SYMBOL + " ", false, true, true, false, false); }
 			targetSourceEnded = true;
 			ui.log("\r\n", true, true, true, false, false);
-			filesBytesPerMilliSecond = 0d;
 			break encryptTargetloop;
 		    }
 
 		    //open targetSourcePath
 		    readTargetSourceStat.setFileStartEpoch(); // allFilesStats.setFilesStartNanoTime();
+		    long stageNanoTime = Metrics.now(); Object ioEvent = FlightEvents.begin(FlightEvents.BUFFER_READ);
 		    try (final SeekableByteChannel readTargetSourceChannel = Files.newByteChannel(newTargetSourceFCPath.path, EnumSet.of(StandardOpenOption.READ)))
 		    {
 			// Fill up inputFileBuffer
@@ -436,17 +441,19 @@ public class FinalCrypt extends Thread
 			readTargetSourceChannelTransfered = readTargetSourceChannel.read(targetSourceBuffer); targetSourceBuffer.flip(); readTargetSourceChannelPosition += readTargetSourceChannelTransfered;
 			if (( readTargetSourceChannelTransfered == -1 ) || ( targetSourceBuffer.limit() < readTargetSourceBufferSize )) { targetSourceEnded = true; } // Buffer.limit = remainder from current position to end
 			readTargetSourceChannel.close();
-			srcMessageDigest.update(targetSourceBuffer); // Build up checksum
+			Metrics.record(Metrics.TARGET_READ, stageNanoTime, readTargetSourceChannelTransfered); FlightEvents.commit(ioEvent, newTargetSourceFCPath.path, "target", readTargetSourceChannelPosition - readTargetSourceChannelTransfered, readTargetSourceChannelTransfered);
+			stageNanoTime = System.nanoTime(); srcMessageDigest.update(targetSourceBuffer); digestNanos += System.nanoTime() - stageNanoTime; Metrics.record(Metrics.DIGEST, stageNanoTime, targetSourceBuffer.limit()); // Build up checksum
 			    
 			readTargetSourceStat.setFileEndEpoch(); readTargetSourceStat.clock();
 			readTargetSourceStat.addFileBytesProcessed(readTargetSourceChannelTransfered / 2);
 //			allDataStats.addAllDataBytesProcessed("rd src", readTargetSourceChannelTransfered / 2);
-		    } catch (IOException ex) { ui.log("Error: readTargetSourceChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
+		    } catch (IOException ex) { Metrics.error(Metrics.TARGET_READ, ex); ui.log("Error: readTargetSourceChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
 //                            ui.log("readTargetSourceChannelTransfered: " + readTargetSourceChannelTransfered + " targetSourceBuffer.limit(): " + Integer.toString(targetSourceBuffer.limit()) + "\r\n");
 
 		    if ( readTargetSourceChannelTransfered != -1 )
 		    {
 //                                readKeySourceStat.setFileStartEpoch();
+			stageNanoTime = Metrics.now(); ioEvent = FlightEvents.begin(FlightEvents.BUFFER_READ); long keyPosition = readKeySourceChannelPosition;
 			try (final SeekableByteChannel readKeySourceChannel = Files.newByteChannel(keySourceFCPath.path, EnumSet.of(StandardOpenOption.READ,StandardOpenOption.SYNC)))
 			{
 			    // Fill up keyFileBuffer
@@ -455,9 +462,10 @@ public class FinalCrypt extends Thread
 			    if ( readKeySourceChannelTransfered < readKeySourceBufferSize ) { readKeySourceChannelPosition = 0; readKeySourceChannel.position(0); readKeySourceChannelTransfered += readKeySourceChannel.read(keySourceBuffer); readKeySourceChannelPosition += readKeySourceChannelTransfered;}
 			    keySourceBuffer.flip();
 			    readKeySourceChannel.close();
+			    Metrics.record(Metrics.KEY_READ, stageNanoTime, readKeySourceChannelTransfered); FlightEvents.commit(ioEvent, keySourceFCPath.path, "key", keyPosition, readKeySourceChannelTransfered);
 //				    readKeySourceStat.setFileEndEpoch(); readKeySourceStat.clock();
 //                                    readKeySourceStat.addFileBytesProcessed(readKeySourceChannelTransfered);
-			} catch (IOException ex) { ui.log("Error: readKeySourceChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
+			} catch (IOException ex) { Metrics.error(Metrics.KEY_READ, ex); ui.log("Error: readKeySourceChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
 //                                ui.log("readKeyFileChannelTransfered: " + readKeySourceChannelTransfered + " keySourceBuffer.limit(): " + Integer.toString(keySourceBuffer.limit()) + "\r\n");
 
 			// Open outputFile for writing
@@ -465,20 +473,23 @@ public class FinalCrypt extends Thread
 			try (final SeekableByteChannel writeTargetDestinChannel = Files.newByteChannel(targetDestinPath, EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC)))
 			{
 			    // Encrypt inputBuffer and fill up outputBuffer
-			    targetDestinBuffer = encryptBuffer(targetSourceBuffer, keySourceBuffer, true); // last boolean = PrintEnabled
-			    writeTargetDestChannelTransfered = writeTargetDestinChannel.write(targetDestinBuffer); targetDestinBuffer.flip();
-			    writeTargetDestChannelPosition += writeTargetDestChannelTransfered; realtimeBytesProcessed += writeTargetDestChannelTransfered; totalBytesProcessed += writeTargetDestChannelTransfered;
+			    stageNanoTime = Metrics.now(); targetDestinBuffer = encryptBuffer(targetSourceBuffer, keySourceBuffer, true); Metrics.record(Metrics.XOR, stageNanoTime, targetDestinBuffer.limit()); // last boolean = PrintEnabled
+			    stageNanoTime = Metrics.now(); ioEvent = FlightEvents.begin(FlightEvents.BUFFER_WRITTEN);
+			    writeTargetDestChannelTransfered = writeTargetDestinChannel.write(targetDestinBuffer); targetDestinBuffer.flip(); Metrics.record(Metrics.DEST_WRITE, stageNanoTime, writeTargetDestChannelTransfered); // Includes the SYNC
+			    FlightEvents.commit(ioEvent, targetDestinPath, "destination", writeTargetDestChannelPosition, writeTargetDestChannelTransfered);
+			    writeTargetDestChannelPosition += writeTargetDestChannelTransfered; progressSession.addBytes(writeTargetDestChannelTransfered); totalBytesProcessed += writeTargetDestChannelTransfered;
 			    if (txt) { logByteBuffer("DB", targetSourceBuffer); logByteBuffer("CB", keySourceBuffer); logByteBuffer("OB", targetDestinBuffer); }
 			    writeTargetDestinChannel.close();
-			    dstMessageDigest.update(targetDestinBuffer); // Build up checksum
+			    stageNanoTime = System.nanoTime(); dstMessageDigest.update(targetDestinBuffer); digestNanos += System.nanoTime() - stageNanoTime; Metrics.record(Metrics.DIGEST, stageNanoTime, targetDestinBuffer.limit()); // Build up checksum
 //				    wrteTargetDestinStat.setFileEndEpoch(); wrteTargetDestinStat.clock();
 //                                    wrteTargetDestinStat.addFileBytesProcessed(writeTargetDestChannelTransfered);
 			    allDataStats.addAllDataBytesProcessed("wr dst", writeTargetDestChannelTransfered / 2);
-			} catch (IOException ex) { ui.log("Error: writeTargetDestinChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
+			} catch (IOException ex) { Metrics.error(Metrics.DEST_WRITE, ex); ui.log("Error: writeTargetDestinChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
 //                            ui.log("writeTargetDestChannelTransfered: " + writeTargetDestChannelTransfered + " targetDestinBuffer.limit(): " + Integer.toString(targetDestinBuffer.limit()) + "\r\n");
 		    }
 		    targetDestinBuffer.clear(); targetSourceBuffer.clear(); keySourceBuffer.clear();		    
 		} // targetSourceEnded
+		long cryptNanos = System.nanoTime() - cryptNanoTime;
 
 //    ==================================================================================================================================================================
 //                      Copy inputFilePath attributes to outputFilePath
@@ -506,8 +517,10 @@ public class FinalCrypt extends Thread
 “acl:owner”	UserPrincipal
 */
 
+		long attributeNanoTime = System.nanoTime();
 		if ( ! dry)
 		{
+		    long stageNanoTime = Metrics.now();
 		    attributeViewloop: for (String view:newTargetSourceFCPath.path.getFileSystem().supportedFileAttributeViews()) // acl basic owner user dos
 		    {
 //                            ui.println(view);
@@ -558,7 +571,9 @@ public class FinalCrypt extends Thread
 			    }   catch (IOException ex) { ui.log("Error: posixAttributes = Files.readAttributes(..): " + ex.getMessage() + "\r\n", false, false, true, true, false); }
 			}
 		    } // End attributeViewloop // End attributeViewloop
+		    Metrics.record(Metrics.ATTRIBUTE_COPY, stageNanoTime, 0L);
 		} // End ! dry
+		long attributeNanos = System.nanoTime() - attributeNanoTime;
 
 //    ==================================================================================================================================================================
 
@@ -569,7 +584,7 @@ public class FinalCrypt extends Thread
 		ui.log(UTF8_CLONE_SYMBOL + " \"" + newTargetSourceFCPath.path.toAbsolutePath() + "\" ", true, false, false, false, false); // 🌊🗑
 		ui.log(UTF8_FINISHED_SYMBOL + " " + UTF8_CLONE_SYMBOL, false, true, true, false, false);
 
-		long targetDestinSize = 0; double targetDiffFactor = 1;
+		long targetDestinSize = 0; double targetDiffFactor = 1; long shredNanoTime = System.nanoTime();
 
 		if ( ! dry)
 		{
@@ -619,28 +634,32 @@ public class FinalCrypt extends Thread
 
 			//read outputFile
 //                            readTargetDestinStat.setFileStartEpoch();
+			long stageNanoTime = Metrics.now(); Object ioEvent = FlightEvents.begin(FlightEvents.BUFFER_READ);
 			try (final SeekableByteChannel readTargetDestinChannel = Files.newByteChannel(targetDestinPath, EnumSet.of(StandardOpenOption.READ)))
 			{
 			    readTargetDestinChannel.position(readTargetDestChannelPosition);
 			    readTargetDestChannelTransfered = readTargetDestinChannel.read(targetDestinBuffer); targetDestinBuffer.flip(); readTargetDestChannelPosition += readTargetDestChannelTransfered;
 			    if (( readTargetDestChannelTransfered < 1 )) { targetDestinEnded = true; }
 			    readTargetDestinChannel.close();
-			} catch (IOException ex) { ui.log("\r\nError: readTargetDestinChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
+			    Metrics.record(Metrics.SHRED_READ, stageNanoTime, readTargetDestChannelTransfered); FlightEvents.commit(ioEvent, targetDestinPath, "shred", readTargetDestChannelPosition - readTargetDestChannelTransfered, readTargetDestChannelTransfered);
+			} catch (IOException ex) { Metrics.error(Metrics.SHRED_READ, ex); ui.log("\r\nError: readTargetDestinChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
 //                            ui.log("readTargetDestChannelTransfered: " + readTargetDestChannelTransfered + " targetDestinBuffer.limit(): " + Integer.toString( targetDestinBuffer.limit()) + "\r\n");
 
 			//shred inputFile
 //                            if ( readTargetDestChannelTransfered < 1 )
 			if ( targetDestinBuffer.limit() > 0 )
 			{
-			    wrteTargetSourceStat.setFileStartEpoch();
+			    wrteTargetSourceStat.setFileStartEpoch(); stageNanoTime = Metrics.now(); ioEvent = FlightEvents.begin(FlightEvents.BUFFER_WRITTEN);
 			    try (final SeekableByteChannel writeTargetSourceChannel = Files.newByteChannel(newTargetSourceFCPath.path, EnumSet.of(StandardOpenOption.WRITE,StandardOpenOption.SYNC)))
 			    {
 				// Fill up inputFileBuffer
 				writeTargetSourceChannel.position(writeTargetSourceChannelPosition);
 				writeTargetSourceChannelTransfered = writeTargetSourceChannel.write(targetDestinBuffer); targetSourceBuffer.flip();
-				writeTargetSourceChannelPosition += writeTargetSourceChannelTransfered; realtimeBytesProcessed += writeTargetSourceChannelTransfered; totalBytesProcessed += writeTargetSourceChannelTransfered;
+				writeTargetSourceChannelPosition += writeTargetSourceChannelTransfered; progressSession.addBytes(writeTargetSourceChannelTransfered); totalBytesProcessed += writeTargetSourceChannelTransfered;
 				if (( writeTargetSourceChannelTransfered < 1 )) { targetSourceEnded = true; }
 				writeTargetSourceChannel.close();
+				Metrics.record(Metrics.SHRED_WRITE, stageNanoTime, writeTargetSourceChannelTransfered); // Includes the SYNC
+				FlightEvents.commit(ioEvent, newTargetSourceFCPath.path, "shred", writeTargetSourceChannelPosition - writeTargetSourceChannelTransfered, writeTargetSourceChannelTransfered);
 				wrteTargetSourceStat.setFileEndEpoch(); wrteTargetSourceStat.clock();
 				wrteTargetSourceStat.addFileBytesProcessed(writeTargetSourceChannelTransfered / 2);
 				allDataStats.addAllDataBytesProcessed("wr src", writeTargetSourceChannelTransfered / 2);
@@ -648,7 +667,7 @@ public class FinalCrypt extends Thread
 //				    { allDataStats.addAllDataBytesProcessed("wr src", writeTargetSourceChannelTransfered * Math.abs((long)targetDiffFactor)); } else
 //				    { allDataStats.addAllDataBytesProcessed("wr src", writeTargetSourceChannelTransfered / Math.abs((long)targetDiffFactor)); }
 
-			    } catch (IOException ex) { ui.log("\r\nError: writeTargetSourceChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
+			    } catch (IOException ex) { Metrics.error(Metrics.SHRED_WRITE, ex); ui.log("\r\nError: writeTargetSourceChannel = Files.newByteChannel(..) " + ex.getMessage() + "\r\n", true, true, true, true, false); continue encryptTargetloop; }
 //                                ui.log("writeTargetSourceChannelTransfered: " + writeTargetSourceChannelTransfered + " targetDestinBuffer.limit(): " + Integer.toString(targetDestinBuffer.limit()) + "\r\n");
 			}
 			targetDestinBuffer.clear(); targetSourceBuffer.clear(); keySourceBuffer.clear();
@@ -671,6 +690,7 @@ public class FinalCrypt extends Thread
 			fileStatusLine = "wr(" +           wrteTargetSourceStat.getFileBytesThroughPut() + ") ";
 		    }
 		} // End ! dry
+		long shredNanos = System.nanoTime() - shredNanoTime;
 
 
 //		if ( print ) { ui.log(" ----------------------------------------------------------------------\r\n"); } // Tail after printheader
@@ -699,7 +719,7 @@ public class FinalCrypt extends Thread
 		byte[] dstHashBytes = dstMessageDigest.digest();
 		String dstHashString = getHexString(dstHashBytes,2); // print checksum
 		
-		fileStatusLine = allDataStats.getAllDataBytesProgressPercentage();
+		fileStatusLine = allDataStats.getAllDataBytesProgressPercentage(); if ( streamQueue != null ) { fileStatusLine += " " + allDataStats.getAllDataBytesETA(); }
 		if (! dry)
 		{
 		    ui.log(HASH_ALGORITHM_NAME + ": \"" + srcHashString + "\"->\"" + dstHashString + "\" " + fileStatusLine + "\r\n", true, true, true, false, false);		    
@@ -715,7 +735,9 @@ public class FinalCrypt extends Thread
 		    ui.log(printString + "\r\n", true, true, true, false, false);
 		}
 
-		allDataStats.addFilesProcessed(1);
+		FlightEvents.commit(fileEvent, newTargetSourceFCPath.path, flightMode, newTargetSourceFCPath.size, digestNanos);
+		runReport.addFile(newTargetSourceFCPath.path, newTargetSourceFCPath.size, System.nanoTime() - fileNanoTime, cryptNanos, shredNanos, attributeNanos);
+		allDataStats.addFilesProcessed(1); Metrics.fileProcessed();
 	    } // else { ui.error(targetSourcePath.toAbsolutePath() + " ignoring:   " + keySourcePath.toAbsolutePath() + " (is key!)\r\n"); }
 	    
 	    
@@ -727,22 +749,30 @@ public class FinalCrypt extends Thread
 //					     getFCPath(UI ui, String caller,	    Path path, boolean isKey,		 Path keyPath, boolean disabledMAC, boolean report)
 	    newTargetSourceFCPath = Validate.getFCPath(ui,            "", targetDestinPath,		  false, keySourceFCPath.path,		disabledMAC,	   verbose);
 	    if ( newTargetSourceFCPath.isEncrypted ) { newTargetSourceFCPath.isNewEncrypted = true; } else { newTargetSourceFCPath.isNewDecrypted = true; }
-	    targetSourceFCPathList.updateStat(oldTargetSourceFCPath, newTargetSourceFCPath); ui.fileProgress();
+	    synchronized (targetSourceFCPathList) { targetSourceFCPathList.updateStat(oldTargetSourceFCPath, newTargetSourceFCPath); } ui.fileProgress(); // Streaming: shared with scanning thread
         } // End Encrypt Files Loop // End Encrypt Files Loop // End Encrypt Files Loop // End Encrypt Files Loop // End Encrypt Files Loop // End Encrypt Files Loop // End Encrypt Files Loop // End Encrypt Files Loop
 	
-	filesBytesPerMilliSecond = 0.0;
+	if ( streamQueue != null ) { streamQueue.stop(); updateStreamTotals(allDataStats, streamQueue); } // Also terminates a still running scan after stop
         allDataStats.setAllDataEndNanoTime(); allDataStats.clock();
         if ( stopPending ) { ui.log("\r\n", true, false, false, false, false); stopPending = false;  } // It breaks in the middle of encrypting, so the encryption summery needs to begin on a new line
 
 //      Print the stats
         ui.log(allDataStats.getEndSummary(modeDesc), true, true, true, false, false);
+	runReport.finish(); Path reportPath = runReport.write(ui, Configuration.getDefaultDataDirPath().resolve("log"));
+	if ( reportPath != null ) { ui.log("Report: " + reportPath + "\r\n", true, true, true, false, false); }
 
-        updateProgressTaskTimer.cancel(); updateProgressTaskTimer.purge();
-//        updateProgressTimeline.stop();
+        progressSession.finish();
 	processRunning = false;
 	ui.processFinished(filteredTargetSourceFCPathList, open);
     }
     
+    private static void updateStreamTotals(Stats allDataStats, FCPathQueue streamQueue)
+    {
+	allDataStats.setFilesTotal(streamQueue.getPublishedFiles());
+	allDataStats.setAllDataBytesTotal(streamQueue.getPublishedFilesSize());
+	allDataStats.setProvisional( ! streamQueue.isScanEnded());
+    }
+    
     synchronized public static String getHexString(byte[] bytes, int digits) { String returnString = ""; for (byte mybyte:bytes) { returnString += getHexString(mybyte, digits); } return returnString; }
     synchronized public static String getHexString(byte value, int digits) { return String.format("%0" + Integer.toString(digits) + "X", (value & 0xFF)).replaceAll("[^A-Za-z0-9]",""); }
 
@@ -750,7 +780,7 @@ public class FinalCrypt extends Thread
     {
         ByteBuffer targetDestinBuffer = ByteBuffer.allocate(keySourceBuffer.capacity()); targetDestinBuffer.clear();
 	
-        while (pausing)     { realtimeMiBPS = 0; try { Thread.sleep(100); } catch (InterruptedException ex) {  } }
+        while (pausing)     { try { Thread.sleep(100); } catch (InterruptedException ex) {  } }
         byte targetDestinByte;
 	for (int targetSourceBufferCount = 0; targetSourceBufferCount < targetSourceBuffer.limit(); targetSourceBufferCount++)
         {
@@ -764,6 +794,23 @@ public class FinalCrypt extends Thread
 	return targetDestinBuffer;
     }
     
+//  Thread safe encryptBuffer for MAC Token checks: applies the password from its first char without touching the shared pwdPos of a running encryption
+    public static ByteBuffer encryptMACBuffer(ByteBuffer targetSourceBuffer, ByteBuffer keySourceBuffer)
+    {
+        ByteBuffer targetDestinBuffer = ByteBuffer.allocate(keySourceBuffer.capacity()); targetDestinBuffer.clear();
+	String pwdLocal = pwd; int pwdPosLocal = 0;
+	for (int targetSourceBufferCount = 0; targetSourceBufferCount < targetSourceBuffer.limit(); targetSourceBufferCount++)
+        {
+	    byte keySourceByte = keySourceBuffer.get(targetSourceBufferCount);
+	    if (keySourceByte == 0) { keySourceByte = (byte)(~keySourceByte & 0xFF); } // Same as encryptByte
+	    byte targetDestinByte = (byte)(targetSourceBuffer.get(targetSourceBufferCount) ^ keySourceByte);
+	    if ( pwdLocal.length() > 0 ) { targetDestinByte = (byte)(targetDestinByte ^ (byte)pwdLocal.charAt(pwdPosLocal)); pwdPosLocal++; if ( pwdPosLocal == pwdLocal.length() ) { pwdPosLocal = 0; } }
+	    targetDestinBuffer.put(targetDestinByte);
+	}
+        targetDestinBuffer.flip();
+	return targetDestinBuffer;
+    }
+
     public static byte encryptByte(final byte targetSourceByte, byte keySourceByte)
     {
 	byte returnByte; // Final result to return
@@ -811,7 +858,7 @@ public class FinalCrypt extends Thread
         return targetDestinEncryptedByte;
     }
 
-    private ByteBuffer createTargetDestinMessageAuthenticationCode(Path keySourcePath) // Tested
+    ByteBuffer createTargetDestinMessageAuthenticationCode(Path keySourcePath) // Tested (package private for bench/)
     {
         ByteBuffer plainTextMACBuffer = ByteBuffer.allocate(FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length()); plainTextMACBuffer.clear();
         ByteBuffer keyBitMACBuffer = ByteBuffer.allocate(FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length()); keyBitMACBuffer.clear();
@@ -846,16 +893,11 @@ public class FinalCrypt extends Thread
     }
     
 //  Recursive Deletion of PathList
-    public void deleteSelection(ArrayList<Path> targetSourcePathList, boolean delete, boolean returnpathlist, String pattern, boolean negatePattern)
+//  Parallel, bottom-up & symlink safe (links are deleted, never followed)
+    public boolean deleteSelection(ArrayList<Path> targetSourcePathList, boolean delete, boolean returnpathlist, String pattern, boolean negatePattern)
     {
-        EnumSet opts = EnumSet.of(FileVisitOption.FOLLOW_LINKS); //follow links
-//							  MySimpleFileVisitor(UI ui, boolean verbose, boolean delete, long minSize, boolean symlink, boolean writable, boolean returnpathlist, ArrayList<FCPath>(),    String pattern, boolean negatePattern)
-//							  MySimpleFCFileVisitor(UI ui, boolean verbose, boolean delete, boolean symlink, boolean setFCPathlist,    Path keyPath, ArrayList<FCPath> targetFCPathList, String pattern, boolean negatePattern, boolean disabledMAC)
-        MySimpleFCFileVisitor mySimpleFCFileVisitor = new MySimpleFCFileVisitor(   ui,	       verbose,         delete,         symlink,		 false,            null,		   new FCPathList(),        pattern,	     negatePattern,	    disabledMAC);
-        for (Path path:targetSourcePathList)
-        {
-            try{Files.walkFileTree(path, opts, Integer.MAX_VALUE, mySimpleFCFileVisitor);} catch(IOException e){System.err.println(e);}
-        }
+	if ( ! delete ) { return true; }
+	return new FCTreeDeleter(ui, FCPathPattern.compile(pattern, negatePattern), verbose).delete(targetSourcePathList);
     }
     
 
@@ -866,7 +908,7 @@ public class FinalCrypt extends Thread
     
     public boolean getPausing()             { return pausing; }
     public boolean getStopPending()         { return stopPending; }
-    public void setPausing(boolean val)     { pausing = val; if (pausing) {filesBytesPerMilliSecond = 0;}}
+    public void setPausing(boolean val)     { pausing = val; }
     public void setStopPending(boolean val) { stopPending = val; }
     
     public static void setPwd(String pwdParam)	    { pwd = pwdParam; }
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//  Java Flight Recorder events (category FinalCrypt): file lifecycle, buffer I/O, MAC token checks & device LBA I/O
+//  The events are defined at runtime through jdk.jfr.EventFactory (reflection), so the sources still build & run on a JDK 8 without jdk.jfr
+//  Every event type is disabled by default; enable them in a recording, e.g.:
+//  java -XX:StartFlightRecording:settings=finalcrypt.jfc,filename=run.jfr ...   (finalcrypt.jfc: <event name="rdj.BufferRead"><setting name="enabled">true</setting></event> ...)
+//  While no recording has them enabled begin() is one volatile read returning null and commit(null, ..) returns at once
+
+public class FlightEvents
+{
+    public static final int	FILE_STARTED =	    0; // path, mode, bytes
+    public static final int	FILE_FINISHED =	    1; // path, mode, bytes, digestNanos (duration: whole file)
+    public static final int	BUFFER_READ =	    2; // path, stage, position, bytes (duration: latency)
+    public static final int	BUFFER_WRITTEN =    3; // path, stage, position, bytes (duration: latency)
+    public static final int	MAC_CHECK =	    4; // path, authenticated
+    public static final int	DEVICE_READ =	    5; // device, desc, lba, bytes (duration: latency)
+    public static final int	DEVICE_WRITE =	    6; // device, desc, lba, bytes (duration: latency)
+
+    private static final String[]   NAMES =	    { "rdj.FileStarted", "rdj.FileFinished", "rdj.BufferRead", "rdj.BufferWritten", "rdj.MACCheck", "rdj.DeviceRead", "rdj.DeviceWrite" };
+    private static final String[]   LABELS =	    { "File Started", "File Finished", "Buffer Read", "Buffer Written", "MAC Token Check", "Device Read", "Device Write" };
+    private static final String[][] FIELDS =
+    {
+	{ "path", "mode", "bytes" },
+	{ "path", "mode", "bytes", "digestNanos" },
+	{ "path", "stage", "position", "bytes" },
+	{ "path", "stage", "position", "bytes" },
+	{ "path", "authenticated" },
+	{ "device", "desc", "lba", "bytes" },
+	{ "device", "desc", "lba", "bytes" }
+    };
+
+    private static volatile int	    enabledMask =   0; // Bit per event type enabled in a running recording
+    private static Object[]	    eventFactories;
+    private static Object[]	    eventTypes;
+    private static Method	    newEventMethod;
+    private static Method	    beginMethod;
+    private static Method	    setMethod;
+    private static Method	    commitMethod;
+    private static Method	    isEnabledMethod;
+
+    static
+    {
+	try { register(); refresh(); }
+	catch (ReflectiveOperationException | RuntimeException | LinkageError ex) { eventFactories = null; enabledMask = 0; } // No jdk.jfr (e.g. JDK 8 before u262): events stay off
+    }
+
+    private FlightEvents() {  }
+
+    public static boolean isAvailable()		    { return eventFactories != null; }
+    public static boolean isEnabled(int type)	    { return ( enabledMask & ( 1 << type ) ) != 0; }
+
+//  Starts the clock of an event; null while the type isn't enabled
+    public static Object begin(int type)
+    {
+	if ( ( enabledMask & ( 1 << type ) ) == 0 ) { return null; }
+	try { Object event = newEventMethod.invoke(eventFactories[type]); beginMethod.invoke(event); return new Object[] { event, type }; }
+	catch (ReflectiveOperationException | RuntimeException ex) { return null; }
+    }
+
+//  Text fields first (e.g. a Path, only turned into a String when recording), then the numbers (unused trailing values are ignored)
+    public static void commit(Object handle, Object text1, String text2, long value1, long value2)
+    {
+	if ( handle == null ) { return; }
+	commit(((Object[])handle)[0], (Integer)((Object[])handle)[1], new Object[] { String.valueOf(text1), text2, value1, value2 });
+    }
+
+    public static void commit(Object handle, Object text, boolean flag)
+    {
+	if ( handle == null ) { return; }
+	commit(((Object[])handle)[0], (Integer)((Object[])handle)[1], new Object[] { String.valueOf(text), flag });
+    }
+
+    private static void commit(Object event, int type, Object[] values)
+    {
+	try { for (int field = 0; field < FIELDS[type].length; field++) { setMethod.invoke(event, field, values[field]); } commitMethod.invoke(event); }
+	catch (ReflectiveOperationException | RuntimeException ex) {  }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void register() throws ReflectiveOperationException
+    {
+	Class<?> eventClass =		    Class.forName("jdk.jfr.Event");
+	Class<?> eventFactoryClass =	    Class.forName("jdk.jfr.EventFactory");
+	Class<?> eventTypeClass =	    Class.forName("jdk.jfr.EventType");
+	Class<?> annotationElementClass =   Class.forName("jdk.jfr.AnnotationElement");
+	Class<?> valueDescriptorClass =	    Class.forName("jdk.jfr.ValueDescriptor");
+	Class<?> flightRecorderClass =	    Class.forName("jdk.jfr.FlightRecorder");
+	Class<?> listenerClass =	    Class.forName("jdk.jfr.FlightRecorderListener");
+	Constructor<?> annotationElement =  annotationElementClass.getConstructor(Class.class, Object.class);
+	Constructor<?> valueDescriptor =    valueDescriptorClass.getConstructor(Class.class, String.class);
+	Method create =			    eventFactoryClass.getMethod("create", List.class, List.class);
+	Method getEventType =		    eventFactoryClass.getMethod("getEventType");
+
+	Object[] factories = new Object[NAMES.length]; Object[] types = new Object[NAMES.length];
+	for (int type = 0; type < NAMES.length; type++)
+	{
+	    List<Object> annotations = new ArrayList<>();
+	    annotations.add(annotationElement.newInstance((Class<? extends Annotation>)Class.forName("jdk.jfr.Name"), NAMES[type]));
+	    annotations.add(annotationElement.newInstance((Class<? extends Annotation>)Class.forName("jdk.jfr.Label"), LABELS[type]));
+	    annotations.add(annotationElement.newInstance((Class<? extends Annotation>)Class.forName("jdk.jfr.Category"), new String[] { "FinalCrypt" }));
+	    annotations.add(annotationElement.newInstance((Class<? extends Annotation>)Class.forName("jdk.jfr.Enabled"), false));
+	    annotations.add(annotationElement.newInstance((Class<? extends Annotation>)Class.forName("jdk.jfr.StackTrace"), false)); // Keeps enabled events cheap
+	    List<Object> fields = new ArrayList<>();
+	    for (String field:FIELDS[type])
+	    {
+		Class<?> fieldClass = ( Arrays.asList("path", "mode", "stage", "device", "desc").contains(field) ) ? String.class : ( field.equals("authenticated") ) ? boolean.class : long.class;
+		fields.add(valueDescriptor.newInstance(fieldClass, field));
+	    }
+	    factories[type] = create.invoke(null, annotations, fields); types[type] = getEventType.invoke(factories[type]);
+	}
+	newEventMethod =    eventFactoryClass.getMethod("newEvent");
+	beginMethod =	    eventClass.getMethod("begin");
+	setMethod =	    eventClass.getMethod("set", int.class, Object.class);
+	commitMethod =	    eventClass.getMethod("commit");
+	isEnabledMethod =   eventTypeClass.getMethod("isEnabled");
+	eventTypes = types; eventFactories = factories;
+
+//	Re-evaluated whenever a recording starts / stops, not per event
+	Object listener = Proxy.newProxyInstance(FlightEvents.class.getClassLoader(), new Class<?>[] { listenerClass }, (proxy, method, args) ->
+	{
+	    switch (method.getName())
+	    {
+		case "hashCode":    return System.identityHashCode(proxy);
+		case "equals":	    return proxy == args[0];
+		case "toString":    return "FlightEvents";
+		default:	    refresh(); return null;
+	    }
+	});
+	flightRecorderClass.getMethod("addListener", listenerClass).invoke(null, listener);
+    }
+
+    private static void refresh()
+    {
+	int mask = 0;
+	try { for (int type = 0; type < eventTypes.length; type++) { if ( (Boolean)isEnabledMethod.invoke(eventTypes[type]) ) { mask |= ( 1 << type ); } } }
+	catch (ReflectiveOperationException | RuntimeException ex) { mask = 0; }
+	enabledMask = mask;
+    }
+}
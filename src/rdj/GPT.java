@@ -34,17 +34,21 @@ package rdj;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileStore;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.UUID;
+import java.util.zip.CRC32;
 //import javax.xml.bind.DatatypeConverter; // Removed because deprecated from java9 up
 
 public class GPT
 {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
     UI ui;
     public GPT_PMBR	gpt_PMBR;
     public GPT_Header	gpt_Header1;
@@ -62,7 +66,7 @@ public class GPT
         gpt_Header1 =   new GPT_Header(this.ui, this, 1L);
         gpt_Entries1 =  new GPT_Entries(this.ui,this,2L, 128);
         gpt_Header2 =   new GPT_Header(this.ui, this, -1L);
-        gpt_Entries2 =  new GPT_Entries(this.ui,this,-33, 128);
+        gpt_Entries2 =  new GPT_Entries(this.ui,this,-(1L + DeviceController.getEntriesLBAs()), 128);
     }
     
     synchronized public void clear()
@@ -74,13 +78,59 @@ public class GPT
         gpt_Entries2.clear();
     }
     
+//  Two positional reads on one channel: LBA 0 - 33 (PMBR, primary header & entries) and the last 33 LBAs (secondary entries & header), then parsed from memory
     synchronized public void read(FCPath keyDevice)
     {
-        gpt_PMBR.read(keyDevice);
-        gpt_Header1.read(keyDevice); gpt_Entries1 =  new GPT_Entries(this.ui,this,2L, gpt_Header1.numberOfPartitionEntries);
-        gpt_Entries1.read(keyDevice);
-        gpt_Header2.read(keyDevice); gpt_Entries2 =  new GPT_Entries(this.ui,this,-33, gpt_Header2.numberOfPartitionEntries);
-        gpt_Entries2.read(keyDevice);
+	int bytesPerSector = (int)DeviceController.bytesPerSector; int entriesLBAs = (int)DeviceController.getEntriesLBAs();
+	ByteBuffer primaryBuffer =  allocateTable((2 + entriesLBAs) * bytesPerSector);
+	ByteBuffer secondaryBuffer = allocateTable((1 + entriesLBAs) * bytesPerSector);
+	long secondaryPos = keyDevice.size - secondaryBuffer.capacity();
+
+	try (FileChannel fileChannel = FileChannel.open(keyDevice.path, StandardOpenOption.READ))
+	{
+	    readFully(fileChannel, primaryBuffer, 0L);
+	    if ( secondaryPos >= primaryBuffer.capacity() ) { readFully(fileChannel, secondaryBuffer, secondaryPos); }
+	} catch (IOException ex) { ui.log("Error: GPT.read(..): " + keyDevice.path + " " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+
+        gpt_PMBR.decode(primaryBuffer, 0);
+        gpt_Header1.decode(primaryBuffer, bytesPerSector); gpt_Entries1 =  new GPT_Entries(this.ui,this,2L, gpt_Header1.getNumberOfPartitionEntries());
+        gpt_Entries1.decode(primaryBuffer, 2 * bytesPerSector, 2L * bytesPerSector);
+        gpt_Header2.decode(secondaryBuffer, entriesLBAs * bytesPerSector); gpt_Entries2 =  new GPT_Entries(this.ui,this,-(1L + entriesLBAs), gpt_Header2.getNumberOfPartitionEntries());
+        gpt_Entries2.decode(secondaryBuffer, 0, secondaryPos);
+	verify(keyDevice);
+    }
+
+    private static void readFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException
+    {
+	buffer.clear(); while ( buffer.hasRemaining() ) { int read = fileChannel.read(buffer, position + buffer.position()); if ( read <= 0 ) { break; } } buffer.clear();
+    }
+
+//  Reports what an OS would complain about: missing / damaged header copies, CRC32 mismatches and primary / secondary differences
+    synchronized public boolean verify(FCPath fcPath)
+    {
+	if ( ( ! gpt_Header1.hasSignature() ) && ( ! gpt_Header2.hasSignature() ) ) { ui.log("Info: GPT: " + fcPath.path + " has no GUID Partition Table\r\n", true, true, true, false, false); return false; }
+	boolean valid = true;
+	valid &= verify(fcPath, "Primary", gpt_Header1, gpt_Entries1);
+	valid &= verify(fcPath, "Secondary", gpt_Header2, gpt_Entries2);
+	if ( ( gpt_Header1.hasSignature() ) && ( gpt_Header2.hasSignature() ) )
+	{
+	    if ( gpt_Header1.getAlternateLBA() != gpt_Header2.getMyLBA() )	{ valid = false; ui.log("Warning: GPT: " + fcPath.path + " Primary AlternateLBA " + gpt_Header1.getAlternateLBA() + " != Secondary MyLBA " + gpt_Header2.getMyLBA() + " (device resized / cloned to a different size?)\r\n", true, true, true, false, false); }
+	    if ( ! gpt_Entries1.getBuffer().equals(gpt_Entries2.getBuffer()) )	{ valid = false; ui.log("Warning: GPT: " + fcPath.path + " Primary and Secondary partition entries differ\r\n", true, true, true, false, false); }
+	}
+	return valid;
+    }
+
+    private boolean verify(FCPath fcPath, String headerClass, GPT_Header gpt_Header, GPT_Entries gpt_Entries)
+    {
+	if ( ! gpt_Header.hasSignature() ) { ui.log("Warning: GPT: " + fcPath.path + " " + headerClass + " GPT Header missing (no \"EFI PART\" signature)\r\n", true, true, true, false, false); return false; }
+	boolean valid = true;
+	int headerCRC32 = gpt_Header.calculateHeaderCRC32();
+	if ( headerCRC32 != gpt_Header.getHeaderCRC32() )		{ valid = false; ui.log("Warning: GPT: " + fcPath.path + " " + headerClass + " Header CRC32 mismatch (stored: " + getHexStringLittleEndian(gpt_Header.getHeaderCRC32() & 0xFFFFFFFFL, 4) + " calculated: " + getHexStringLittleEndian(headerCRC32 & 0xFFFFFFFFL, 4) + ")\r\n", true, true, true, false, false); }
+	int entriesCRC32 = gpt_Entries.getCRC32();
+	if ( entriesCRC32 != gpt_Header.getCRC32Partitions() )	{ valid = false; ui.log("Warning: GPT: " + fcPath.path + " " + headerClass + " Partition Entries CRC32 mismatch (stored: " + getHexStringLittleEndian(gpt_Header.getCRC32Partitions() & 0xFFFFFFFFL, 4) + " calculated: " + getHexStringLittleEndian(entriesCRC32 & 0xFFFFFFFFL, 4) + ")\r\n", true, true, true, false, false); }
+	if ( gpt_Header.getNumberOfPartitionEntries() * gpt_Header.getSizeOfPartitionEntry() > DeviceController.getEntriesLBAs() * DeviceController.bytesPerSector )
+	{ valid = false; ui.log("Warning: GPT: " + fcPath.path + " " + headerClass + " " + gpt_Header.getNumberOfPartitionEntries() + " entries of " + gpt_Header.getSizeOfPartitionEntry() + " bytes exceed the standard " + (DeviceController.getEntriesLBAs() * DeviceController.bytesPerSector) + " byte array (not read)\r\n", true, true, true, false, false); }
+	return valid;
     }
     
     synchronized public void create(long partitionSize, FCPath targetFCPath)
@@ -110,7 +160,8 @@ public class GPT
 //    synchronized public void writeKey(Path keyFilePath, Device targetDevice)  { gpt_Entries1.writeKeyPartitions(keyFilePath, targetDevice); }
     synchronized public void createKeyPartitions(FCPath keyFCPath, FCPath targetFCPath)  { gpt_Entries1.createKeyPartitions(keyFCPath, targetFCPath); }
 //    synchronized public void cloneKey(Device keyDevice, Device targetDevice)  { gpt_Entries1.cloneKeyPartitions(keyDevice, targetDevice); }
-    synchronized public void cloneKeypartitions(FCPath keyFCPath, FCPath targetFCPath)  { gpt_Entries1.cloneKeyPartitions(keyFCPath, targetFCPath); }
+//  All targets got a GPT with this layout (same key size & sector size); returns the targets that were cloned
+    synchronized public ArrayList<FCPath> cloneKeypartitions(FCPath keyFCPath, long[] keyPartitionPositions, long partitionSize, ArrayList<FCPath> targetFCPathList)  { return gpt_Entries1.cloneKeyPartitions(keyFCPath, keyPartitionPositions, partitionSize, targetFCPathList); }
     
     public GPT_PMBR	get_GPT_PMBR()	    { return gpt_PMBR; }
     public GPT_Header	get_GPT_Header1()   { return gpt_Header1; }
@@ -118,7 +169,17 @@ public class GPT
     public GPT_Header	get_GPT_Header2()   { return gpt_Header2; }
     public GPT_Entries	get_GPT_Entries2()  { return gpt_Entries2; }
 
-    public static byte[] byteListToByteArray(List<Byte> list) { byte[] result = new byte[list.size()]; for(int i = 0; i < list.size(); i++) { result[i] = list.get(i).byteValue(); } return result; }
+//  Little endian table buffers: GPT_PMBR, GPT_Header & GPT_Entries each hold one, GPT_Entry is a view on its 128 bytes of the GPT_Entries buffer
+    public static ByteBuffer allocateTable(int length) { return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN); }
+    public static ByteBuffer getTableSlice(ByteBuffer buffer, int offset, int length) { ByteBuffer view = buffer.duplicate(); view.limit(offset + length).position(offset); return view.slice().order(ByteOrder.LITTLE_ENDIAN); }
+    public static void put(ByteBuffer buffer, int offset, byte[] bytes) { for (int index = 0; index < bytes.length; index++) { buffer.put(offset + index, bytes[index]); } }
+    public static void put(ByteBuffer buffer, int offset, ByteBuffer source, int sourceOffset, int length) { for (int index = 0; index < length; index++) { buffer.put(offset + index, source.get(sourceOffset + index)); } }
+    public static void load(ByteBuffer buffer, ByteBuffer source, int offset) { int length = Math.max(0, Math.min(buffer.capacity(), source.capacity() - offset)); fill(buffer, 0, buffer.capacity(), (byte)0); buffer.clear(); buffer.put(getTableSlice(source, offset, length)); buffer.clear(); }
+    public static void fill(ByteBuffer buffer, int offset, int length, byte value) { for (int index = offset; index < offset + length; index++) { buffer.put(index, value); } }
+    public static byte[] getBytes(ByteBuffer buffer, int offset, int length) { byte[] bytes = new byte[length]; for (int index = 0; index < length; index++) { bytes[index] = buffer.get(offset + index); } return bytes; }
+
+//  Continues crc32 over length bytes at offset of buffer (no copy)
+    public static void updateCRC32(CRC32 crc32, ByteBuffer buffer, int offset, int length) { ByteBuffer view = buffer.duplicate(); view.limit(offset + length).position(offset); crc32.update(view); }
     public static byte[] getUUID() { UUID uuid = UUID.randomUUID(); ByteBuffer bb = ByteBuffer.allocate(16); bb.putLong(uuid.getMostSignificantBits()); bb.putLong(uuid.getLeastSignificantBits()); return bb.array(); }
 
     synchronized public static byte[] getReverseBytes(byte[] bytes) // Reverses byte order (to Little Endian)
@@ -210,27 +271,21 @@ public class GPT
         return returnString.replaceAll("[^A-Za-z0-9]","");
     }
     
-    public static String getHexAndDecimal(byte[] bytes, boolean decimal)
+    public static String getHexAndDecimal(byte[] bytes, boolean decimal) { return getHexAndDecimal(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN), 0, bytes.length, decimal); }
+
+//  Straight from the table buffer: hex (in disk order) and the little endian decimal value of 4 and 8 byte fields
+    public static String getHexAndDecimal(ByteBuffer buffer, int offset, int length, boolean decimal)
     {
-	long allbytes = 0;
-	String returnString = "";
-        String hexPrefix = ""; // 0x
-        String hexString = "";
+	boolean zero = true; for (int index = offset; index < offset + length; index++) { if ( buffer.get(index) != 0 ) { zero = false; break; } }
+	if (zero) { return "0 [" + length + "]"; }
 
-	for (byte mybyte: bytes) { allbytes += (long)mybyte; }
-	if (allbytes == 0)
-	{
-	    returnString = "0 [" + bytes.length + "]";
-	}
-	else
+	StringBuilder hexStringBuilder = new StringBuilder(length * 2);
+	for (int index = offset; index < offset + length; index++) { int value = buffer.get(index) & 0xFF; hexStringBuilder.append(HEX_DIGITS[value >>> 4]).append(HEX_DIGITS[value & 0x0F]); }
+	String returnString = String.format("%-32s", hexStringBuilder);
+	if (decimal) // Decimal Integer or Long
 	{
-	    for (byte mybyte: bytes) { hexString += GPT.getHexString(mybyte, 2); } returnString += hexPrefix + (String.format("%-32s", hexString));
-	    if (decimal) // Decimal Integer or Long
-	    {
-		if (bytes.length == 4) { returnString += " " + Integer.reverseBytes(GPT.bytesToInteger(bytes)); }
-		if (bytes.length == 8) { returnString += " " + Long.reverseBytes(GPT.bytesToLong(bytes)); }
-	    }
-	    hexString = ""; returnString += ("");
+	    if (length == 4) { returnString += " " + buffer.getInt(offset); }
+	    if (length == 8) { returnString += " " + buffer.getLong(offset); }
 	}
 	return returnString;
     }
@@ -18,14 +18,17 @@
  */
 package rdj;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.zip.CRC32;
 
 public class GPT_Entries
 {
     private final long  ABSTRACT_LBA; // = 2L;
     private String DESCSTRING;
     public GPT_Entry[]	gpt_entry;
+    private final ByteBuffer buffer; // The whole entry array (little endian), the GPT_Entry objects are views on it
+    private final CRC32 crc32 = new CRC32();
     private UI ui;
     private GPT gpt;
     private long totalSize = 0;
@@ -35,35 +38,45 @@ public class GPT_Entries
     {
         this.ui = ui;
         this.gpt = gpt;
+	if ( ( numOfEntries < 0 ) || ( numOfEntries > 1024 ) ) { numOfEntries = 0; } // Garbage header (no GPT)
 	gpt_entry = new GPT_Entry[numOfEntries];
+	buffer = GPT.allocateTable(numOfEntries * GPT_Entry.LENGTH);
 	this.ABSTRACT_LBA = abstractLBA;	
-	for(int entry = 0; entry < gpt_entry.length; entry++)					    { gpt_entry[entry] = new GPT_Entry(this.ui,this.gpt,ABSTRACT_LBA,entry); }
+	for(int entry = 0; entry < gpt_entry.length; entry++)					    { gpt_entry[entry] = new GPT_Entry(this.ui,this.gpt,ABSTRACT_LBA,entry,buffer); }
 	if ( ABSTRACT_LBA >= 0 ) { HEADERCLASS = "Primary"; } else { HEADERCLASS = "Secondary"; }
 	setDesc();
     }
     
-    public void		clear()									    { for(int entry = 0; entry < gpt_entry.length; entry++)   { gpt_entry[entry].clear(); } setDesc(); }
-    public void		read(FCPath keyFCPath)							    { for(int entry = 0; entry < gpt_entry.length; entry++)   { gpt_entry[entry].read(keyFCPath); } setTotalSize(); setDesc(); }
+    public void		clear()									    { for(int entry = 0; entry < gpt_entry.length; entry++)   { gpt_entry[entry].clear(); } setTotalSize(); setDesc(); }
+    public void		decode(ByteBuffer source, int offset, long tablePos)			    { GPT.load(buffer, source, offset); decode(tablePos); } // From the GPT.read buffer
+    public void		decode(long tablePos)							    { for(int entry = 0; entry < gpt_entry.length; entry++)   { gpt_entry[entry].decode(tablePos); } setTotalSize(); setDesc(); }
 
     public void		create(long keySize)
     {
-	if ( ABSTRACT_LBA >= 0 ) { gpt_entry[0].create(keySize, GPT.getUUID());
-				   gpt_entry[1].create(keySize, GPT.getUUID()); }
-	else			 { gpt_entry[0].create(keySize, gpt.gpt_Entries1.getEntry(0).uniquePartitionGUIDBytes);
-				   gpt_entry[1].create(keySize, gpt.gpt_Entries1.getEntry(1).uniquePartitionGUIDBytes); } setTotalSize(); setDesc();
+	if ( ABSTRACT_LBA >= 0 ) { gpt_entry[0].create(keySize, ByteBuffer.wrap(GPT.getUUID()));
+				   gpt_entry[1].create(keySize, ByteBuffer.wrap(GPT.getUUID())); }
+	else			 { gpt_entry[0].create(keySize, gpt.gpt_Entries1.getEntry(0).getUniquePartitionGUID());
+				   gpt_entry[1].create(keySize, gpt.gpt_Entries1.getEntry(1).getUniquePartitionGUID()); } setTotalSize(); setDesc();
     }
 
-    public void		write(FCPath targetFCPath)						    { new DeviceController(ui).writeLBA(getDesc(), getBytes(), targetFCPath, ABSTRACT_LBA); }
+    public void		write(FCPath targetFCPath)						    { new DeviceController(ui).writeLBA(getDesc(), buffer, targetFCPath, ABSTRACT_LBA); }
 
     public void		createKeyPartitions(FCPath keyFCPath, FCPath targetFCPath)		    { gpt_entry[0].writeKeyPartitions(keyFCPath, targetFCPath); }
-    public void		cloneKeyPartitions(FCPath keyFCPath, FCPath targetFCPath)		    { gpt_entry[0].cloneKeyPartition(keyFCPath, targetFCPath); gpt_entry[1].cloneKeyPartition(keyFCPath, targetFCPath); ui.processFinished(new FCPathList(), false);
-}
+    public ArrayList<FCPath> cloneKeyPartitions(FCPath keyFCPath, long[] keyPartitionPositions, long partitionSize, ArrayList<FCPath> targetFCPathList)
+    {
+	return new DeviceController(ui).cloneKeyPartitions(keyFCPath, keyPartitionPositions, partitionSize, targetFCPathList, getKeyPartitionPositions(), new long[] { gpt_entry[0].partSize, gpt_entry[1].partSize });
+    }
+    public boolean	hasKeyPartitions()							    { return ( gpt_entry.length >= 2 ) && ( gpt_entry[0].partSize > 0 ) && ( gpt_entry[1].partSize > 0 ); }
+    public long[]	getKeyPartitionPositions()						    { return new long[] { gpt_entry[0].getStartingPos(), gpt_entry[1].getStartingPos() }; }
+    public long		getKeyPartitionSize()							    { return ( gpt_entry[0].endingLBA - gpt_entry[0].startingLBA + 1 ) * DeviceController.bytesPerSector; }
     
     private int		getTotalEntries()							    { return gpt_entry.length; }
     private int		getActiveEntries()							    { int activeEntries = 0; for(int entry = 0; entry < gpt_entry.length; entry++)   { if ( gpt_entry[entry].startingLBA != 0 ) { activeEntries++; } } return activeEntries; }
     
-    public byte[]	getBytes(int off, int length)						    { return GPT.getBytesPart(GPT_Entries.this.getBytes(), off, length); }
-    public byte[]	getBytes()								    { List<Byte> byteList = new ArrayList<Byte>(); for (int entry = 0; entry < gpt_entry.length; entry++) { for (byte mybyte:gpt_entry[entry].getBytes()) { byteList.add(mybyte); } } return GPT.byteListToByteArray(byteList); }
+    public byte[]	getBytes(int off, int length)						    { return GPT.getBytes(buffer, off, length); }
+    public byte[]	getBytes()								    { return GPT.getBytes(buffer, 0, buffer.capacity()); }
+    public ByteBuffer	getBuffer()								    { return buffer.duplicate(); }
+    synchronized public int getCRC32()							    { crc32.reset(); GPT.updateCRC32(crc32, buffer, 0, buffer.capacity()); return (int)crc32.getValue(); }
     
     public GPT_Entry	getEntry(int entry)							    { return  gpt_entry[entry]; }
     
@@ -71,7 +84,7 @@ public class GPT_Entries
     
     private void	setTotalSize()								    { totalSize = 0; for(int entry = 0; entry < gpt_entry.length; entry++)   { totalSize += gpt_entry[entry].partSize; } }
     
-    private void	setDesc() { DESCSTRING = ("[ LBA " + ABSTRACT_LBA + " - " + getActiveEntries() + "/" + getTotalEntries() + " " + HEADERCLASS + " Entries (" + getBytes().length + " Bytes) Partitions: " + GPT.getHumanSize(totalSize,1) + " ]"); }
+    private void	setDesc() { DESCSTRING = ("[ LBA " + ABSTRACT_LBA + " - " + getActiveEntries() + "/" + getTotalEntries() + " " + HEADERCLASS + " Entries (" + buffer.capacity() + " Bytes) Partitions: " + GPT.getHumanSize(totalSize,1) + " ]"); }
     private String	getDesc() { return DESCSTRING; }
 
     @Override
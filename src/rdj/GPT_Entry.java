@@ -18,9 +18,9 @@
  */
 package rdj;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 
+//  Flyweight view on its 128 bytes of the GPT_Entries table buffer
 public class GPT_Entry
 {
     private final long          ABSTRACT_LBA; // = Primary GPT Header: 2L; Secondary GPT Header: -33
@@ -28,119 +28,76 @@ public class GPT_Entry
     private final long          FIRST_LBA = 2048L;
     private final String        ENTRYCLASS;
     private final int           ENTRYNUMBER; // 0 - 127
-    private final long          LENGTH = 128L;
+    public static final int	LENGTH = 128;
     private       long          pos; // The Entry position / offset
+    private static final byte[]	PARTITION_TYPE_GUID = { (byte)0xAF, 0x3D, (byte)0xC6, 0x0F, (byte)0x83, (byte)0x84, 0x72, 0x47, (byte)0x8E, 0x79, 0x3D, 0x69, (byte)0xD8, 0x47, 0x7D, (byte)0xE4 };
 
-    private byte[]              partitionTypeGUIDBytes;
-    public  byte[]              uniquePartitionGUIDBytes;
-    public long                 startingLBA;
-    private byte[]              startingLBABytes;
-    public long                 endingLBA;
-    public long                 keySizeLBA;
-    private byte[]              endingLBABytes;
-    private byte[]              attributesBytes;
-    private byte[]              partitionNameBytes;
+//  Offset      Length      When            Data
+    private static final int	PARTITION_TYPE_GUID_OFF =   0;	// 16 bytes    During LBA 2    Partition type GUID
+    private static final int	UNIQUE_PARTITION_GUID =	    16;	// 16 bytes    During LBA 2    Unique partition GUID
+    private static final int	STARTING_LBA =		    32;	// 8 bytes     During LBA 2    First LBA (little endian) LBA 2048
+    private static final int	ENDING_LBA =		    40;	// 8 bytes     During LBA 2    Last LBA (inclusive, usually odd)
+    private static final int	ATTRIBUTES =		    48;	// 8 bytes     During LBA 2    Attribute flags (e.g. bit 60 denotes read-only)
+    private static final int	PARTITION_NAME =	    56;	// 72 bytes    During LBA 2    Partition name (36 UTF-16LE code units)
+
+    private final ByteBuffer	buffer;
+    public long                 startingLBA;	// Decoded from buffer
+    public long                 endingLBA;	// Decoded from buffer
     public long			partSize = 0;
     private UI ui;
     private GPT gpt;
 
-    public GPT_Entry(UI ui, GPT gpt, long abstractLBA, int EntryNumber)
+    public GPT_Entry(UI ui, GPT gpt, long abstractLBA, int EntryNumber, ByteBuffer tableBuffer)
     {
         this.ui = ui;
         this.gpt = gpt;
 	this.ABSTRACT_LBA = abstractLBA;
 	this.ENTRYNUMBER = EntryNumber;
+	this.buffer = GPT.getTableSlice(tableBuffer, ENTRYNUMBER * LENGTH, LENGTH);
 	if ( ABSTRACT_LBA >= 0 ) { ENTRYCLASS = "Primary"; } else { ENTRYCLASS = "Secondary"; }
 	
 	clear();
     }
     
-    public void clear()
-    {
-//      Offset      Length      When            Data
-//      0 (0x00)    16 bytes    During LBA 2    Partition type GUID
-                                                partitionTypeGUIDBytes =		    GPT.hex2Bytes("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00");
-//      16 (0x10)   16 bytes    During LBA 2    Unique partition GUID
-                                                uniquePartitionGUIDBytes =		    GPT.hex2Bytes("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00");
-//      32 (0x20)   8 bytes     During LBA 2    First LBA (little endian) LBA 2048
-                                                startingLBA =				    0L;
-                                                startingLBABytes =			    GPT.hex2Bytes(GPT.getHexStringLittleEndian(startingLBA, 8)); // hex2Bytes("00 08 00 00 00 00 00 00");
-//      40 (0x28)   8 bytes     During LBA 2    Last LBA (inclusive, usually odd)
-                                                endingLBA =				    0L;
-                                                endingLBABytes =			    GPT.hex2Bytes(GPT.getHexStringLittleEndian(endingLBA, 8));
-//      48 (0x30)   8 bytes     During LBA 2    Attribute flags (e.g. bit 60 denotes read-only)
-                                                attributesBytes =			    GPT.hex2Bytes("00 00 00 00 00 00 00 00");
-//      56 (0x38)   72 bytes    During LBA 2    Partition name (36 UTF-16LE code units)
-                                                partitionNameBytes =			    GPT.getZeroBytes(72);
-	setDesc();
-    }
+    public void clear() { GPT.fill(buffer, 0, LENGTH, (byte)0); decode(); }
+
+//  The GPT_Entries buffer holding this entry was (re)read from tablePos
+    public void decode(long tablePos) { pos = tablePos + (ENTRYNUMBER * LENGTH); decode(); }
 
-   public void read(FCPath keyFCPath)
+    private void decode()
     {
-	pos = ((DeviceController.getLBAOffSet(DeviceController.bytesPerSector, keyFCPath.size, ABSTRACT_LBA)) + (ENTRYNUMBER * LENGTH));
-        byte[] bytes = new byte[(int)LENGTH]; bytes = new DeviceController(ui).readPos(keyFCPath, pos, LENGTH);
-//      Offset      Length      When            Data
-//      0 (0x00)    16 bytes    During LBA 2    Partition type GUID
-                                                partitionTypeGUIDBytes =		    GPT.getBytesPart(bytes, 0, 16);
-//      16 (0x10)   16 bytes    During LBA 2    Unique partition GUID
-                                                uniquePartitionGUIDBytes =		    GPT.getBytesPart(bytes, 16, 16);
-//      32 (0x20)   8 bytes     During LBA 2    First LBA (little endian) LBA 2048
-                                                startingLBABytes =			    GPT.getBytesPart(bytes, 32, 8); startingLBA = Long.reverseBytes(GPT.bytesToLong(startingLBABytes));
-//      40 (0x28)   8 bytes     During LBA 2    Last LBA (inclusive, usually odd)
-                                                endingLBABytes =			    GPT.getBytesPart(bytes, 40, 8); endingLBA = Long.reverseBytes(GPT.bytesToLong(endingLBABytes));
-//      48 (0x30)   8 bytes     During LBA 2    Attribute flags (e.g. bit 60 denotes read-only)
-                                                attributesBytes =			    GPT.getBytesPart(bytes, 48, 8);
-//      56 (0x38)   72 bytes    During LBA 2    Partition name (36 UTF-16LE code units)
-                                                partitionNameBytes =			    GPT.getBytesPart(bytes, 56, 72);
-        partSize = ((endingLBA - startingLBA) + 1 ) * DeviceController.bytesPerSector;
+	startingLBA =	buffer.getLong(STARTING_LBA);
+	endingLBA =	buffer.getLong(ENDING_LBA);
+	if ( ( startingLBA + endingLBA ) != 0 ) { partSize = ((endingLBA - startingLBA) + 1 ) * DeviceController.bytesPerSector; } else { partSize = 0; }
 	setDesc();
     }
     
-    public void create(long keySize, byte[] uniquePartitionGUIDBytes)
+    public void create(long keySize, ByteBuffer uniquePartitionGUIDBuffer)
     {
-        keySizeLBA =  (long)((Math.floor((keySize - 1L) / DeviceController.bytesPerSector )));
-//      Offset      Length      When            Data
-//      0 (0x00)    16 bytes    During LBA 2    Partition type GUID
-                                                partitionTypeGUIDBytes =		    GPT.hex2Bytes("AF 3D C6 0F 83 84 72 47 8E 79 3D 69 D8 47 7D E4");
-//      16 (0x10)   16 bytes    During LBA 2    Unique partition GUID
-                                                this.uniquePartitionGUIDBytes = uniquePartitionGUIDBytes;
-//      32 (0x20)   8 bytes     During LBA 2    First LBA (little endian) LBA 2048
-                                                startingLBA =				    FIRST_LBA + (ENTRYNUMBER * keySizeLBA) + ENTRYNUMBER;
-                                                startingLBABytes =			    GPT.hex2Bytes(GPT.getHexStringLittleEndian(startingLBA, 8));
-//      40 (0x28)   8 bytes     During LBA 2    Last LBA (inclusive, usually odd)
-                                                endingLBA =				    startingLBA + keySizeLBA;
-                                                endingLBABytes =			    GPT.hex2Bytes(GPT.getHexStringLittleEndian(endingLBA, 8));
-//      48 (0x30)   8 bytes     During LBA 2    Attribute flags (e.g. bit 60 denotes read-only)
-                                                attributesBytes =			    GPT.hex2Bytes("00 00 00 00 00 00 00 00");
-//      56 (0x38)   72 bytes    During LBA 2    Partition name (36 UTF-16LE code units)
-                                                partitionNameBytes =			    GPT.getZeroBytes(72);
-        partSize = ((endingLBA - startingLBA) + 1 ) * DeviceController.bytesPerSector;
-	setDesc();
+        long keySizeLBA =  (long)((Math.floor((keySize - 1L) / DeviceController.bytesPerSector )));
+	GPT.fill(buffer, 0, LENGTH, (byte)0);
+	GPT.put(buffer,		PARTITION_TYPE_GUID_OFF,    PARTITION_TYPE_GUID);
+	GPT.put(buffer,		UNIQUE_PARTITION_GUID,	    uniquePartitionGUIDBuffer, 0, 16);
+	buffer.putLong(		STARTING_LBA,		    FIRST_LBA + (ENTRYNUMBER * keySizeLBA) + ENTRYNUMBER);
+	buffer.putLong(		ENDING_LBA,		    FIRST_LBA + (ENTRYNUMBER * keySizeLBA) + ENTRYNUMBER + keySizeLBA);
+	decode();
     }
+
+    public ByteBuffer getUniquePartitionGUID() { return GPT.getTableSlice(buffer, UNIQUE_PARTITION_GUID, 16); }
     
     public void write(FCPath fcPath)						{ pos = ((DeviceController.getLBAOffSet(DeviceController.bytesPerSector, fcPath.size, ABSTRACT_LBA)) + (ENTRYNUMBER * LENGTH));
-										  new DeviceController(ui).writePos(getDesc(), getBytes(), fcPath, pos); } // Causes exeption on OSX
+										  new DeviceController(ui).writePos(getDesc(), buffer, fcPath, pos); } // Causes exeption on OSX
     public void writeKeyPartitions(FCPath keyFCPath, FCPath targetFCPath)	{ new DeviceController(ui).createKeyPartition(keyFCPath, targetFCPath, startingLBA, endingLBA); }
-    public void cloneKeyPartition(FCPath keyFCPath, FCPath targetFCPath)	{ new DeviceController(ui).cloneKeyPartition(keyFCPath, targetFCPath, startingLBA, endingLBA); }
+    public long getStartingPos()						{ return startingLBA * DeviceController.bytesPerSector; } // Key partitions live at positive LBAs
     
         
-    public byte[] getBytes(int off, int length) { return GPT.getBytesPart(GPT_Entry.this.getBytes(), off, length); }
-    public byte[] getBytes()
-    {
-        List<Byte> byteList = new ArrayList<Byte>();
-        for (byte mybyte: partitionTypeGUIDBytes)   { byteList.add(mybyte); }
-        for (byte mybyte: uniquePartitionGUIDBytes) { byteList.add(mybyte); }
-        for (byte mybyte: startingLBABytes)         { byteList.add(mybyte); }
-        for (byte mybyte: endingLBABytes)           { byteList.add(mybyte); }
-        for (byte mybyte: attributesBytes)	    { byteList.add(mybyte); }
-        for (byte mybyte: partitionNameBytes)       { byteList.add(mybyte); }
-        return GPT.byteListToByteArray(byteList);
-    }
+    public byte[] getBytes(int off, int length) { return GPT.getBytes(buffer, off, length); }
+    public byte[] getBytes()			{ return GPT.getBytes(buffer, 0, LENGTH); }
     
     public void print() { ui.log(toString(), true, true, true, false, false); }
     
-    private void setDesc()			    { DESCSTRING = ("[ " + ENTRYCLASS + " Entry " + ENTRYNUMBER + " Pos " + pos + " (" + getBytes().length + " Bytes) Partition: " + GPT.getHumanSize(partSize,1) + " ]"); }
-    private String getDesc()			    { return DESCSTRING; }
+    private void setDesc()			    { DESCSTRING = null; } // Built on demand: 128 entries per table
+    private String getDesc()			    { if ( DESCSTRING == null ) { DESCSTRING = ("[ " + ENTRYCLASS + " Entry " + ENTRYNUMBER + " Pos " + pos + " (" + LENGTH + " Bytes) Partition: " + GPT.getHumanSize(partSize,1) + " ]"); } return DESCSTRING; }
     
     @Override
     public String toString()
@@ -152,14 +109,14 @@ public class GPT_Entry
             returnString += ("\r\n");
 	    returnString += ("------------------------------------------------------------------------\r\n");
             returnString += ("\r\n");
-	    returnString += DESCSTRING + "\r\n";
+	    returnString += getDesc() + "\r\n";
 	    returnString += ("\r\n");
-	    returnString += (String.format("%-25s", "PartttionTypeGUID"));	    returnString += GPT.getHexAndDecimal(partitionTypeGUIDBytes, false) + "\r\n";
-	    returnString += (String.format("%-25s", "UniquePartitionGUID"));	    returnString += GPT.getHexAndDecimal(uniquePartitionGUIDBytes, false) + "\r\n";
-	    returnString += (String.format("%-25s", "StartingLBA"));		    returnString += GPT.getHexAndDecimal(startingLBABytes, true) + "\r\n";
-	    returnString += (String.format("%-25s", "EndingLBA"));		    returnString += GPT.getHexAndDecimal(endingLBABytes, true) + "\r\n";
-	    returnString += (String.format("%-25s", "Attributes"));		    returnString += GPT.getHexAndDecimal(attributesBytes, false) + "\r\n";
-	    returnString += (String.format("%-25s", "PartitionName"));		    returnString += GPT.getHexAndDecimal(partitionNameBytes, false) + "\r\n";
+	    returnString += (String.format("%-25s", "PartttionTypeGUID"));	    returnString += GPT.getHexAndDecimal(buffer, PARTITION_TYPE_GUID_OFF, 16, false) + "\r\n";
+	    returnString += (String.format("%-25s", "UniquePartitionGUID"));	    returnString += GPT.getHexAndDecimal(buffer, UNIQUE_PARTITION_GUID, 16, false) + "\r\n";
+	    returnString += (String.format("%-25s", "StartingLBA"));		    returnString += GPT.getHexAndDecimal(buffer, STARTING_LBA, 8, true) + "\r\n";
+	    returnString += (String.format("%-25s", "EndingLBA"));		    returnString += GPT.getHexAndDecimal(buffer, ENDING_LBA, 8, true) + "\r\n";
+	    returnString += (String.format("%-25s", "Attributes"));		    returnString += GPT.getHexAndDecimal(buffer, ATTRIBUTES, 8, false) + "\r\n";
+	    returnString += (String.format("%-25s", "PartitionName"));		    returnString += GPT.getHexAndDecimal(buffer, PARTITION_NAME, 72, false) + "\r\n";
 	}
         return returnString;
     }
@@ -18,178 +18,66 @@
  */
 package rdj;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 
 public class GPT_PMBR // Protective MBR
 {
     private final long ABSTRACT_LBA = 0L;
     private String DESCSTRING;
-    private final long LENGTH = DeviceController.bytesPerSector * 1L;
+    private static final int LENGTH = 512;
 
-    private byte[] bootcodeBytes;
-    private byte[] diskSignatureBytes;
-    private byte[] reservedBytes;
-    private byte[] bootIndicatorBytes;
-    private byte[] startingCHSBytes;
-    private byte[] osTypeBytes;
-    private byte[] endingCHSBytes;
-    private byte[] startingLBABytes;
-    private byte[] sizeInLBABytes;
-    private byte[] partition2Bytes;
-    private byte[] partition3Bytes;
-    private byte[] partition4Bytes;
-    private byte[] magicNumberBytes;
+//  Offset        Length    When            Data
+    private static final int BOOTCODE =		0;	// 440 bytes During LBA 0    Bootloader bytes
+    private static final int DISK_SIGNATURE =	440;	// 4 bytes   During LBA 0    Disk Serial Number
+    private static final int RESERVED =		444;	// 2 bytes   During LBA 0    Reserved
+    private static final int BOOT_INDICATOR =	446;	// 1 byte    partition1      0x80 = Active
+    private static final int STARTING_CHS =	447;	// 3 bytes   partition1      Cylinder Head Sectors
+    private static final int OS_TYPE =		450;	// 1 byte    partition1      EE Protective
+    private static final int ENDING_CHS =	451;	// 3 bytes   partition1      sector bits 0-5 cylinder bits 6-7
+    private static final int STARTING_LBA =	454;	// 4 bytes   partition1      LBA 1
+    private static final int SIZE_IN_LBA =	458;	// 4 bytes   partition1      LBA-0
+    private static final int PARTITION2 =	462;	// 16 bytes  During LBA 0    partition2
+    private static final int PARTITION3 =	478;	// 16 bytes  During LBA 0    partition3
+    private static final int PARTITION4 =	494;	// 16 bytes  During LBA 0    partition4
+    private static final int MAGIC_NUMBER =	510;	// 2 bytes   During LBA 0    Magic Number 55 AA Confirming valid MBR to OS
+
+    private final ByteBuffer buffer = GPT.allocateTable(LENGTH); // The sector itself (little endian)
     private UI ui;
 
     public GPT_PMBR(UI ui)
     {
         this.ui = ui;
-	
-//	446
-        bootcodeBytes = new byte[440];
-        diskSignatureBytes = new byte[4];
-        reservedBytes = new byte[2];
-	
-//	16
-        bootIndicatorBytes = new byte[1];
-        startingCHSBytes = new byte[3];
-        osTypeBytes = new byte[1];
-        endingCHSBytes = new byte[3];
-        startingLBABytes = new byte[4];
-        sizeInLBABytes = new byte[4];
-
-//	48
-	partition2Bytes = new byte[16];
-        partition3Bytes = new byte[16];
-        partition4Bytes = new byte[16];
-
-//	2
-	magicNumberBytes = new byte[2];
 	clear();
     }
 
-    public void clear()
-    {
-//      Offset        Length    When            Data
-//      0  (0x00)     440 bytes During LBA 0    Bootloader bytes
-                                                bootcodeBytes =		GPT.getZeroBytes(440); // 440
-//      440  (0x00)   4 bytes   During LBA 0    Disk Serial Number
-                                                diskSignatureBytes =    GPT.hex2Bytes("00 00 00 00");
-//      444  (0x00)   2 bytes   During LBA 0    Reserved
-                                                reservedBytes =         GPT.hex2Bytes("00 00");
-                                                
-//      446  (0x00)   16 bytes  During LBA 0    partition1              00 00 01 00 EE FE FF FF 01 00 FF 7F 94 03 00 00 (unknown partition type)
-                                                bootIndicatorBytes =	GPT.hex2Bytes("00"); // 0x80 = Active
-                                                startingCHSBytes =	GPT.hex2Bytes("000000"); // Cylinder Head Sectors Set to 0x000200, corresponding to the Starting LBA field.
-                                                osTypeBytes =		GPT.hex2Bytes("00"); // EE Unknown
-                                                endingCHSBytes =        GPT.hex2Bytes("000000"); // sector bits 0-5 cylinder bits 6-7
-                                                startingLBABytes =      GPT.hex2Bytes("00 00 00 00"); // LBA 1
-                                                sizeInLBABytes =	GPT.hex2Bytes(GPT.getHexStringLittleEndian(0L, 4)); // LBA-0
-                                                
-//      462  (0x00)   16 bytes  During LBA 0    partition2              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                partition2Bytes =       GPT.hex2Bytes("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00");
-//      478  (0x00)   16 bytes  During LBA 0    partition3              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                partition3Bytes =       GPT.hex2Bytes("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00");
-//      494  (0x00)   16 bytes  During LBA 0    partition4              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                partition4Bytes =       GPT.hex2Bytes("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00");
-//      496  (0x08)     2 bytes   During LBA 0  Magic Number 55 AA Confirming valid MBR to OS
-                                                magicNumberBytes =      GPT.hex2Bytes("00 00");
-	setDesc();
-    }
+    public void clear() { GPT.fill(buffer, 0, LENGTH, (byte)0); setDesc(); }
 
-    public void read(FCPath fcPath)
-    {
-        byte[] bytes = new byte[(int)LENGTH]; bytes = new DeviceController(ui).readLBA(fcPath, ABSTRACT_LBA, this.LENGTH);
-//      Offset        Length    When            Data
-//      0  (0x00)     440 bytes During LBA 0    Bootloader bytes
-                                                                        bootcodeBytes = GPT.getBytesPart(bytes, 0, 440);
-//      440  (0x00)   4 bytes   During LBA 0    Disk Serial Number
-                                                                        diskSignatureBytes = GPT.getBytesPart(bytes, 440, 4);
-//      444  (0x00)   2 bytes   During LBA 0    Reserved
-                                                                        reservedBytes = GPT.getBytesPart(bytes, 444, 2);
-                                                
-//      446  (0x00)   16 bytes  During LBA 0    partition1              00 00 01 00 EE FE FF FF 01 00 FF 7F 94 03 00 00 (unknown partition type)
-//      446            1
-                                                                        bootIndicatorBytes = GPT.getBytesPart(bytes, 446, 1);
-//      447            3
-                                                                        startingCHSBytes = GPT.getBytesPart(bytes, 447, 3);
-//      450,           1
-                                                                        osTypeBytes = GPT.getBytesPart(bytes, 450, 1);
-//      451            3
-                                                                        endingCHSBytes = GPT.getBytesPart(bytes, 451, 3);
-//      454            4
-                                                                        startingLBABytes = GPT.getBytesPart(bytes, 454, 4);
-//      458	       4
-                                                                        sizeInLBABytes = GPT.getBytesPart(bytes, 458, 4);
-                                                
-//      462  (0x00)   16 bytes  During LBA 0    partition2              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                                        partition2Bytes = GPT.getBytesPart(bytes, 462, 16);
-//      478  (0x00)   16 bytes  During LBA 0    partition3              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                                        partition3Bytes = GPT.getBytesPart(bytes, 478, 16);
-//      494  (0x00)   16 bytes  During LBA 0    partition4              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                                        partition4Bytes = GPT.getBytesPart(bytes, 494, 16);
-//      510  (0x08)     2 bytes   During LBA 0  Magic Number 55 AA Confirming valid MBR to OS
-                                                                        magicNumberBytes = GPT.getBytesPart(bytes, 510, 2);
-	setDesc();
-    }
+    public void decode(ByteBuffer source, int offset) { GPT.load(buffer, source, offset); setDesc(); } // From the GPT.read buffer
     
     public void create(FCPath fcPath)
     {
-//      Offset        Length    When            Data
-//      0  (0x00)     440 bytes During LBA 0    Bootloader bytes
-                                                bootcodeBytes =		GPT.getZeroBytes(440); // 440
-//      440  (0x00)   4 bytes   During LBA 0    Disk Serial Number
-                                                diskSignatureBytes =    GPT.hex2Bytes("00 00 00 00");
-//      444  (0x00)   2 bytes   During LBA 0    Reserved
-                                                reservedBytes =         GPT.hex2Bytes("00 00");
-                                                
+	clear();
 //      446  (0x00)   16 bytes  During LBA 0    partition1              00 00 01 00 EE FE FF FF 01 00 FF 7F 94 03 00 00 (unknown partition type)
-                                                bootIndicatorBytes =	GPT.hex2Bytes("00"); // 0x80 = Active
-                                                startingCHSBytes =	GPT.hex2Bytes("000100"); // Set to 0x000200, corresponding to the Starting LBA field.
-                                                osTypeBytes =		GPT.hex2Bytes("EE"); // EE Protective / Unknown
-                                                endingCHSBytes =        GPT.hex2Bytes("FEFFFF"); // FE FF FF
-                                                startingLBABytes =      GPT.hex2Bytes("01 00 00 00"); // LBA 1
-                                                sizeInLBABytes =	GPT.hex2Bytes(GPT.getHexStringLittleEndian((fcPath.size - (long)DeviceController.bytesPerSector) / (long)DeviceController.bytesPerSector, 4)); // LBA-0
-                                                
-//      462  (0x00)   16 bytes  During LBA 0    partition2              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                partition2Bytes =       GPT.hex2Bytes("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00");
-//      478  (0x00)   16 bytes  During LBA 0    partition3              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                partition3Bytes =       GPT.hex2Bytes("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00");
-//      494  (0x00)   16 bytes  During LBA 0    partition4              00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 (notn)
-                                                partition4Bytes =       GPT.hex2Bytes("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00");
-//      496  (0x08)     2 bytes   During LBA 0  Magic Number 55 AA Confirming valid MBR to OS
-                                                magicNumberBytes =      GPT.hex2Bytes("55 AA");
+	buffer.put(BOOT_INDICATOR,	(byte)0x00); // 0x80 = Active
+	buffer.put(STARTING_CHS,	(byte)0x00); buffer.put(STARTING_CHS + 1, (byte)0x01); buffer.put(STARTING_CHS + 2, (byte)0x00); // Set to 0x000200, corresponding to the Starting LBA field.
+	buffer.put(OS_TYPE,		(byte)0xEE); // EE Protective / Unknown
+	buffer.put(ENDING_CHS,		(byte)0xFE); buffer.put(ENDING_CHS + 1, (byte)0xFF); buffer.put(ENDING_CHS + 2, (byte)0xFF); // FE FF FF
+	buffer.putInt(STARTING_LBA,	1); // LBA 1
+	buffer.putInt(SIZE_IN_LBA,	(int)((fcPath.size - DeviceController.bytesPerSector) / DeviceController.bytesPerSector)); // LBA-0
+//      510  (0x08)     2 bytes   During LBA 0  Magic Number 55 AA Confirming valid MBR to OS
+	buffer.put(MAGIC_NUMBER,	(byte)0x55); buffer.put(MAGIC_NUMBER + 1, (byte)0xAA);
 	setDesc();
     }
 
 //    public void write(Device device) { new DeviceController(ui).writeLBA(getDesc(), getBytes(), device, ABSTRACT_LBA); }
-    public void write(FCPath fcPath) { new DeviceController(ui).writeLBA(getDesc(), getBytes(), fcPath, ABSTRACT_LBA); }
+    public void write(FCPath fcPath) { new DeviceController(ui).writeLBA(getDesc(), buffer, fcPath, ABSTRACT_LBA); }
 
-    public byte[] getBytes(int off, int length) { return GPT.getBytesPart(getBytes(), off, length); }
-    public byte[] getBytes()
-    {
-        List<Byte> definitiveByteList = new ArrayList<Byte>();
-        for (byte mybyte: bootcodeBytes)	{ definitiveByteList.add(mybyte); }
-        for (byte mybyte: diskSignatureBytes)   { definitiveByteList.add(mybyte); }
-        for (byte mybyte: reservedBytes)        { definitiveByteList.add(mybyte); }
-        for (byte mybyte: bootIndicatorBytes)	{ definitiveByteList.add(mybyte); }
-        for (byte mybyte: startingCHSBytes)	{ definitiveByteList.add(mybyte); }
-        for (byte mybyte: osTypeBytes)		{ definitiveByteList.add(mybyte); }
-        for (byte mybyte: endingCHSBytes)	{ definitiveByteList.add(mybyte); }
-        for (byte mybyte: startingLBABytes)     { definitiveByteList.add(mybyte); }
-        for (byte mybyte: sizeInLBABytes)	{ definitiveByteList.add(mybyte); }
-        for (byte mybyte: partition2Bytes)      { definitiveByteList.add(mybyte); }
-        for (byte mybyte: partition3Bytes)      { definitiveByteList.add(mybyte); }
-        for (byte mybyte: partition4Bytes)      { definitiveByteList.add(mybyte); }
-        for (byte mybyte: magicNumberBytes)     { definitiveByteList.add(mybyte); }
-        
-        return GPT.byteListToByteArray(definitiveByteList);
-    }
+    public byte[] getBytes(int off, int length) { return GPT.getBytes(buffer, off, length); }
+    public byte[] getBytes() { return GPT.getBytes(buffer, 0, LENGTH); }
 
     public void print() { ui.log(toString(), true, true, true, false, false); }
     
-    private void setDesc() { DESCSTRING = ("[ LBA " + ABSTRACT_LBA + " - Protective MBR (" + getBytes().length + " Bytes) Storage: " + GPT.getLBAHumanSize(sizeInLBABytes,1) + " ]"); }
+    private void setDesc() { DESCSTRING = ("[ LBA " + ABSTRACT_LBA + " - Protective MBR (" + LENGTH + " Bytes) Storage: " + GPT.getHumanSize((buffer.getInt(SIZE_IN_LBA) & 0xFFFFFFFFL) * DeviceController.bytesPerSector,1) + " ]"); }
     private String getDesc() { return DESCSTRING; }
 
     @Override
@@ -201,23 +89,23 @@ public class GPT_PMBR // Protective MBR
         returnString += ("\r\n");
         returnString += DESCSTRING + "\r\n";
         returnString += ("\r\n");
-	returnString += (String.format("%-25s", "BootCode"));		    returnString += GPT.getHexAndDecimal(bootcodeBytes, false) + "\r\n";
-        returnString += (String.format("%-25s", "Disk Signature"));	    returnString += GPT.getHexAndDecimal(diskSignatureBytes, false) + "\r\n";
-        returnString += (String.format("%-25s", "Reserved"));		    returnString += GPT.getHexAndDecimal(reservedBytes, false) + "\r\n";
+	returnString += (String.format("%-25s", "BootCode"));		    returnString += GPT.getHexAndDecimal(buffer, BOOTCODE, 440, false) + "\r\n";
+        returnString += (String.format("%-25s", "Disk Signature"));	    returnString += GPT.getHexAndDecimal(buffer, DISK_SIGNATURE, 4, false) + "\r\n";
+        returnString += (String.format("%-25s", "Reserved"));		    returnString += GPT.getHexAndDecimal(buffer, RESERVED, 2, false) + "\r\n";
 
 //	Partition 1
-	returnString += (String.format("%-25s", "BootIndicator"));	    returnString += GPT.getHexAndDecimal(bootIndicatorBytes, false) + "\r\n";
-        returnString += (String.format("%-25s", "StartCHS"));		    returnString += GPT.getHexAndDecimal(startingCHSBytes, true) + "\r\n";
-        returnString += (String.format("%-25s", "OSType"));		    returnString += GPT.getHexAndDecimal(osTypeBytes, false) + "\r\n";
-        returnString += (String.format("%-25s", "EndingCHS"));		    returnString += GPT.getHexAndDecimal(endingCHSBytes, true) + "\r\n";
-        returnString += (String.format("%-25s", "StartingLBA"));	    returnString += GPT.getHexAndDecimal(startingLBABytes, true) + "\r\n";
-        returnString += (String.format("%-25s", "SizeInLBA"));		    returnString += GPT.getHexAndDecimal(sizeInLBABytes, true) + "\r\n";
+	returnString += (String.format("%-25s", "BootIndicator"));	    returnString += GPT.getHexAndDecimal(buffer, BOOT_INDICATOR, 1, false) + "\r\n";
+        returnString += (String.format("%-25s", "StartCHS"));		    returnString += GPT.getHexAndDecimal(buffer, STARTING_CHS, 3, true) + "\r\n";
+        returnString += (String.format("%-25s", "OSType"));		    returnString += GPT.getHexAndDecimal(buffer, OS_TYPE, 1, false) + "\r\n";
+        returnString += (String.format("%-25s", "EndingCHS"));		    returnString += GPT.getHexAndDecimal(buffer, ENDING_CHS, 3, true) + "\r\n";
+        returnString += (String.format("%-25s", "StartingLBA"));	    returnString += GPT.getHexAndDecimal(buffer, STARTING_LBA, 4, true) + "\r\n";
+        returnString += (String.format("%-25s", "SizeInLBA"));		    returnString += GPT.getHexAndDecimal(buffer, SIZE_IN_LBA, 4, true) + "\r\n";
 
 //	Partition 2,3,4
-	returnString += (String.format("%-25s", "Partition2"));		    returnString += GPT.getHexAndDecimal(partition2Bytes, false) + "\r\n";
-        returnString += (String.format("%-25s", "Partition3"));		    returnString += GPT.getHexAndDecimal(partition3Bytes, false) + "\r\n";
-        returnString += (String.format("%-25s", "Partition4"));		    returnString += GPT.getHexAndDecimal(partition4Bytes, false) + "\r\n";
-        returnString += (String.format("%-25s", "MagicNumber"));	    returnString += GPT.getHexAndDecimal(magicNumberBytes, false) + "\r\n";
+	returnString += (String.format("%-25s", "Partition2"));		    returnString += GPT.getHexAndDecimal(buffer, PARTITION2, 16, false) + "\r\n";
+        returnString += (String.format("%-25s", "Partition3"));		    returnString += GPT.getHexAndDecimal(buffer, PARTITION3, 16, false) + "\r\n";
+        returnString += (String.format("%-25s", "Partition4"));		    returnString += GPT.getHexAndDecimal(buffer, PARTITION4, 16, false) + "\r\n";
+        returnString += (String.format("%-25s", "MagicNumber"));	    returnString += GPT.getHexAndDecimal(buffer, MAGIC_NUMBER, 2, false) + "\r\n";
         return returnString;
     }    
 }
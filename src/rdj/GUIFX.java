@@ -38,6 +38,7 @@ import java.util.function.Consumer;
 import java.util.prefs.Preferences;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.collections.ObservableList;
 import javafx.embed.swing.SwingNode;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -54,10 +55,11 @@ import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.DialogPane;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.ProgressBar;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
-import javafx.scene.control.TextArea;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.Tooltip;
 import javafx.scene.input.MouseEvent;
@@ -91,6 +93,7 @@ import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
 import javafx.animation.Interpolator;
 import javafx.animation.KeyFrame;
@@ -134,7 +137,7 @@ public class GUIFX extends Application implements UI, Initializable
     @FXML   private TabPane tab;
     @FXML   private Tab encryptTab;
     @FXML   private Tab logTab;
-    @FXML   private TextArea logTextArea;
+    @FXML   private ListView<String> logListView;
     @FXML   private Button encryptButton;
     @FXML   private ProgressBar filesProgressBar;
     @FXML   private ProgressBar fileProgressBar;
@@ -334,14 +337,20 @@ public class GUIFX extends Application implements UI, Initializable
     private FileFilter nonFinalCryptFilter;
     private FileNameExtensionFilter finalCryptFilter;
 //    private DeviceManager deviceManager;
-    private int lineCounter;
+    private final LogViewBuffer logViewBuffer = new LogViewBuffer(LogViewBuffer.getConfiguredScrollBack());
+    private final ArrayList<String> logDrainList = new ArrayList<>();
+    private boolean logLineOpen; // Last row shows an unterminated line
+    private AnimationTimer logRenderTimer;
     private Configuration configuration;
+    private AsyncLogWriter logFileWriter; // Created on first use
+    private AsyncLogWriter errFileWriter;
 //    private Path keyPath;
     private FCPath keyFCPath;
     private boolean symlink = false;
     private final String procCPULoadAttribute = "ProcessCpuLoad";
     
     private FCPathList targetFCPathList; // Main List
+    private FCPathListWatcher targetFCPathListWatcher; // Keeps the Main List up to date after the scan
 
     // Filtered Lists
     private FCPathList decryptedList; 
@@ -491,6 +500,18 @@ public class GUIFX extends Application implements UI, Initializable
 	
 	AUTO_DISABLE_ARMING_MAC_MODE_TIMELINE.setCycleCount(1);
 
+//	LOG VIEW INITIALIZATION (virtualized rows, rendered at most once per frame)
+
+	logListView.setFixedCellSize(14); // Uniform rows, the virtual flow doesn't measure every cell
+	logListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+	logListView.setOnKeyPressed(e ->
+	{
+	    if	    ( ( e.isShortcutDown() ) && ( e.getCode() == KeyCode.C ) ) { ClipboardContent content = new ClipboardContent(); content.putString(String.join("\r\n", logListView.getSelectionModel().getSelectedItems()) + "\r\n"); Clipboard.getSystemClipboard().setContent(content); }
+	    else if ( e.getCode() == KeyCode.ESCAPE ) { logListView.getSelectionModel().clearSelection(); } // Follow the log again
+	});
+	logRenderTimer = new AnimationTimer() { @Override public void handle(long now) { renderLog(); } };
+	logRenderTimer.start();
+
 	targetFileDeleteButton = new javax.swing.JButton();
         targetFileDeleteButton.setFont(new java.awt.Font("Arimo", 0, 11)); // NOI18N
         targetFileDeleteButton.setText("Delete"); // X🗑❌❎⛔ (no utf8)
@@ -746,6 +767,8 @@ public class GUIFX extends Application implements UI, Initializable
     {
 	targetFCPathList = new FCPathList(); updateDashboard(targetFCPathList);
         configuration = new Configuration(ui);
+	String metricsFormat = System.getProperty("finalcrypt.metrics"); // -Dfinalcrypt.metrics=prom|json (CLUI: --metrics)
+	if ( metricsFormat != null ) { try { Metrics.startExport(configuration.getDataDirPath(), metricsFormat, Metrics.EXPORT_PERIOD_DEFAULT); } catch (IllegalArgumentException ex) { log("Warning: -Dfinalcrypt.metrics=" + metricsFormat + " (prom|json)\r\n", true, true, true, false, false); } }
         version = new Version(ui);
         version.checkCurrentlyInstalledVersion(this);
 		
@@ -1781,6 +1804,27 @@ public class GUIFX extends Application implements UI, Initializable
 	       )
 	    { targetFileDeleteButton.setEnabled(true); } else {targetFileDeleteButton.setEnabled(false); }
 	    
+	    // Reuse the watched Main List after a finished process instead of rescanning the whole selection
+	    if ((!status) && (targetFCPathListWatcher != null) && (targetFileChooser != null) && (targetFileChooser.getSelectedFiles() != null) && (keyFCPath != null) && (keyFCPath.isKey) && (keyFCPath.isValidKey))
+	    {
+		for (File file:targetFileChooser.getSelectedFiles()) { targetPathList.add(file.toPath()); }
+		String watchPattern = "glob:*"; try { watchPattern = getSelectedPatternFromFileChooser( targetFileChooser.getFileFilter()); } catch (ClassCastException exc) {  }
+		if (targetFCPathListWatcher.isWatching(targetPathList, keyFCPath, watchPattern, negatePattern, finalCrypt.disabledMAC))
+		{
+		    targetFCPathList = targetFCPathListWatcher.getFCPathList();
+		    Platform.runLater(() ->
+		    {
+			if (pwdField.getText().length() == 0) { passwordHeaderLabel.setText("Password (optional)"); } else { passwordHeaderLabel.setText("Password (set)"); }
+			pwdField.setDisable(false); finalCrypt.setPwd(pwdField.getText()); finalCrypt.resetPwdPos();
+			filesProgressBar.setProgress(0); filesProgressBar.setVisible(false);
+		    });
+		    targetFCPathListWatcher.resumeWatching(); // Reconciles the changes made during the process, then updateDashboard & checkModeReady
+		    return;
+		}
+		targetPathList.clear();
+	    }
+	    if (targetFCPathListWatcher != null) { targetFCPathListWatcher.close(); targetFCPathListWatcher = null; }
+
 	    targetFCPathList = new FCPathList();// targetFCPathList.clear();
 	    final FCPathList targetFCPathList2 = targetFCPathList;
 	    final UI ui = this;
@@ -1827,6 +1871,7 @@ public class GUIFX extends Application implements UI, Initializable
 		    {
 //				 buildSelection(UI ui, ArrayList<Path> pathList, FCPath keyFCPath, FCPathList targetFCPathList, boolean symlink, String pattern, boolean negatePattern,	   boolean disabledMAC, boolean status)
 			Validate.buildSelection(ui,		 targetPathList,	keyFCPath,	     targetFCPathList2,		symlink,	pattern,	 negatePattern,	finalCrypt.disabledMAC,		false);
+			startTargetFCPathListWatcher(targetPathList, targetFCPathList2);
 		    }); scanThread.setName("scanThread"); scanThread.setDaemon(true); scanThread.start();
 		});
 	    }
@@ -1851,6 +1896,16 @@ public class GUIFX extends Application implements UI, Initializable
 	}
     }
     
+    synchronized private void startTargetFCPathListWatcher(ArrayList<Path> targetPathList, FCPathList watchFCPathList)
+    {
+	if ((targetFCPathList != watchFCPathList) || (watchFCPathList.size() == 0) || (keyFCPath == null)) { return; } // A newer selection already replaced this one
+	if (targetFCPathListWatcher != null) { targetFCPathListWatcher.close(); }
+	targetFCPathListWatcher = new FCPathListWatcher(this, targetPathList, keyFCPath, watchFCPathList, symlink, pattern, negatePattern, finalCrypt.disabledMAC, Platform::runLater,
+	    () -> { if (targetFCPathList == watchFCPathList) { updateDashboard(watchFCPathList); checkModeReady(watchFCPathList, true); } },
+	    () -> { if (targetFCPathList == watchFCPathList) { targetFileChooserPropertyCheck(true); } }); // WatchService overflow: full rescan
+	targetFCPathListWatcher.start();
+    }
+
     @Override public void buildReady(FCPathList fcPathListParam, boolean validBuild)
     {
 	Platform.runLater(() ->
@@ -2352,7 +2407,8 @@ filesSizeLabel.setText(Validate.getHumanSize(targetFCPathList.filesSize,1));
 		    tab.getSelectionModel().select(1);
                     processStarted();
                     deviceManager = new DeviceManager(ui); deviceManager.start();
-                    deviceManager.cloneKeyDevice(keyFCPath, (FCPath) targetFCPathList.get(0));
+                    final FCPath keyFCPath2 = keyFCPath; // for Lambda expression
+                    deviceManager.cloneKeyDevice(keyFCPath, filter(targetFCPathList,(FCPath fcPath) -> fcPath.type == FCPath.DEVICE && fcPath.path.compareTo(keyFCPath2.path) != 0));
                     processFinished(targetFCPathList, false);
 		}
 		
@@ -2375,6 +2431,7 @@ filesSizeLabel.setText(Validate.getHumanSize(targetFCPathList.filesSize,1));
 
     @Override public void processStarted()
     {
+	if (targetFCPathListWatcher != null) { targetFCPathListWatcher.suspendWatching(); } // FinalCrypt updates the Main List stats itself
         Platform.runLater(() ->
 	{
 	    encryptionModeToggleButton.setMouseTransparent(!encryptionModeToggleButton.isMouseTransparent());
@@ -2617,6 +2674,7 @@ keyFileChooser.rescanCurrentDirectory();
 
 	    if (updateKeyFC) //	    Key FileChooser
 	    {
+		DeviceInventory.refresh(); // (Un)plugged key devices
 //		keyFileChooser.setSelectedFile(noKeyFile);
 		try { keyFileChooser.setCurrentDirectory(upKeyDir); }
 		catch (java.lang.IndexOutOfBoundsException ex) {  }
@@ -3095,9 +3153,24 @@ keyFileChooser.rescanCurrentDirectory();
     }
 
     public void status(String message)		    { Platform.runLater(() -> { statusLabel.setText(message.replace("\r\n", "")); }); }
-    public void log(String message)		    { Platform.runLater(() -> { lineCounter++;  logTextArea.appendText(message); if (lineCounter > 1000) { logTextArea.setText(message); lineCounter = 0; } }); }
-    public void logfile(String message)		    { Platform.runLater(() -> { try { Files.write(configuration.getLogFilePath(), message.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC); } catch (IOException ex) { log("Files.write(" + configuration.getLogFilePath() + ")..));", true, true, false, false, false); } }); }
-    public void errfile(String message)		    { Platform.runLater(() -> { try { Files.write(configuration.getErrFilePath(), message.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC); } catch (IOException ex) { log("Files.write(" + configuration.getErrFilePath() + ")..));", true, true, false, false, false); } }); }
+    public void log(String message)		    { logViewBuffer.append(message); } // Rendered by logRenderTimer
+
+//  FX thread, once per pulse: one batch of rows, bounded to the scroll-back, follows the end unless rows are selected
+    private void renderLog()
+    {
+	if ( ! logViewBuffer.isDirty() ) { return; }
+	logDrainList.clear(); String partialLine = logViewBuffer.drain(logDrainList);
+	ObservableList<String> items = logListView.getItems();
+	if ( ( logLineOpen ) && ( ! items.isEmpty() ) ) { items.remove(items.size() - 1); } // Its complete version (or longer tail) is in this batch
+	logLineOpen = ( ! partialLine.isEmpty() ); if ( logLineOpen ) { logDrainList.add(partialLine); }
+	items.addAll(logDrainList);
+	int excess = items.size() - logViewBuffer.getScrollBack(); if ( excess > 0 ) { items.remove(0, excess); }
+	if ( ( ! items.isEmpty() ) && ( logListView.getSelectionModel().isEmpty() ) ) { logListView.scrollTo(items.size() - 1); }
+    }
+    public void logfile(String message)		    { getLogFileWriter().write(message); } // Off the FX thread
+    public void errfile(String message)		    { getErrFileWriter().write(message); }
+    private synchronized AsyncLogWriter getLogFileWriter() { if ( logFileWriter == null ) { logFileWriter = new AsyncLogWriter(configuration.getLogFilePath()); } return logFileWriter; }
+    private synchronized AsyncLogWriter getErrFileWriter() { if ( errFileWriter == null ) { errFileWriter = new AsyncLogWriter(configuration.getErrFilePath()); } return errFileWriter; }
     public void print(String message,boolean err)   { if ( ! err ) { System.out.print(message); } else { System.err.print(message); } }
     
     public static void main(String[] args)  { launch(args); }
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+//  Coalesces GUI log messages between two frames (any thread appends, the FX pulse drains)
+//  Keeps at most scrollBack undisplayed lines: when the FX thread falls behind only display lines are dropped (the log file has them all)
+//  Messages may end mid line (e.g. "Encrypting: x ") the unterminated tail is handed out again until its line ends
+
+public class LogViewBuffer
+{
+    public static final int		SCROLLBACK_DEFAULT =	10000;
+    public static final String		SCROLLBACK_PROPERTY =	"finalcrypt.log.scrollback"; // -Dfinalcrypt.log.scrollback=lines
+
+    private final int			scrollBack;
+    private final ArrayDeque<String>	pendingLines =		new ArrayDeque<>();
+    private final StringBuilder		partialLine =		new StringBuilder();
+    private long			droppedLines =		0L;
+    private volatile boolean		dirty =			false;
+
+    public LogViewBuffer(int scrollBack)	{ this.scrollBack = Math.max(100, scrollBack); }
+
+    public static int getConfiguredScrollBack() { return Integer.getInteger(SCROLLBACK_PROPERTY, SCROLLBACK_DEFAULT); }
+    public int	    getScrollBack()		{ return scrollBack; }
+    public boolean  isDirty()			{ return dirty; } // Lock free check for every frame
+
+    public synchronized void append(String message)
+    {
+	int start = 0;
+	for (int index = 0; index < message.length(); index++)
+	{
+	    if ( message.charAt(index) != '\n' ) { continue; }
+	    int end = index; if ( ( end > start ) && ( message.charAt(end - 1) == '\r' ) ) { end--; }
+	    partialLine.append(message, start, end);
+	    pendingLines.addLast(partialLine.toString()); partialLine.setLength(0);
+	    if ( pendingLines.size() > scrollBack ) { pendingLines.pollFirst(); droppedLines++; }
+	    start = index + 1;
+	}
+	if ( start < message.length() ) { partialLine.append(message, start, message.length()); }
+	dirty = true;
+    }
+
+//  Moves the complete lines into lines (oldest first) and returns the unterminated tail ("" when none)
+    public synchronized String drain(List<String> lines)
+    {
+	if ( droppedLines > 0 ) { lines.add("[ " + droppedLines + " log lines not shown, see the log file ]"); droppedLines = 0L; }
+	lines.addAll(pendingLines); pendingLines.clear();
+	dirty = false;
+	return partialLine.toString();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//  Per stage I/O metrics: count, bytes & latency histogram per stage, processed files and errors by stage & exception type
+//  Recording is lock free (LongAdder) and costs nothing while disabled (now() returns 0, record() returns at once)
+//  startExport() periodically writes the registry to a file (Prometheus text format or JSON) e.g. for the node exporter textfile collector
+//  The file is written next to itself and moved in place, so a scraper never reads half a file
+
+public class Metrics
+{
+    public static final int	TARGET_READ =	    0;
+    public static final int	KEY_READ =	    1;
+    public static final int	XOR =		    2;
+    public static final int	DIGEST =	    3;
+    public static final int	DEST_WRITE =	    4;
+    public static final int	SHRED_READ =	    5;
+    public static final int	SHRED_WRITE =	    6;
+    public static final int	FSYNC =		    7;
+    public static final int	ATTRIBUTE_COPY =    8;
+    public static final String[] STAGE_NAMES =	    { "target_read", "key_read", "xor", "digest", "destination_write", "shred_read", "shred_write", "fsync", "attribute_copy" };
+
+    public static final String	FORMAT_PROMETHEUS = "prom";
+    public static final String	FORMAT_JSON =	    "json";
+    public static final long	EXPORT_PERIOD_DEFAULT =	10L; // Seconds
+
+    private static final double[] BUCKET_SECONDS =  { 0.00001, 0.00005, 0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1.0, 5.0, 10.0 }; // + Inf
+    private static final long[]	BUCKET_NANOS =	    new long[BUCKET_SECONDS.length];
+
+    private static final LongAdder[]	stageCount =	    new LongAdder[STAGE_NAMES.length];
+    private static final LongAdder[]	stageBytes =	    new LongAdder[STAGE_NAMES.length];
+    private static final LongAdder[]	stageNanos =	    new LongAdder[STAGE_NAMES.length];
+    private static final LongAdder[][]	stageBuckets =	    new LongAdder[STAGE_NAMES.length][BUCKET_SECONDS.length + 1];
+    private static final LongAdder	files =		    new LongAdder();
+    private static final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>(); // "stage type"
+
+    private static volatile boolean	enabled =	    false;
+    private static ScheduledExecutorService exporter;
+    private static Path			exportPath;
+    private static String		exportFormat;
+    private static long			lastFiles =	    0L; // Exporter thread only
+    private static long			lastExportNanoTime = 0L;
+    private static double		filesPerSecond =    0d;
+
+    static
+    {
+	for (int bucket = 0; bucket < BUCKET_SECONDS.length; bucket++) { BUCKET_NANOS[bucket] = (long)(BUCKET_SECONDS[bucket] * 1000000000d); }
+	for (int stage = 0; stage < STAGE_NAMES.length; stage++)
+	{
+	    stageCount[stage] = new LongAdder(); stageBytes[stage] = new LongAdder(); stageNanos[stage] = new LongAdder();
+	    for (int bucket = 0; bucket <= BUCKET_SECONDS.length; bucket++) { stageBuckets[stage][bucket] = new LongAdder(); }
+	}
+    }
+
+    private Metrics() {  }
+
+    public static boolean   isEnabled()			{ return enabled; }
+    public static void	    setEnabled(boolean val)	{ enabled = val; }
+    public static long	    now()			{ return ( enabled ) ? System.nanoTime() : 0L; } // Stage start time
+
+//  Stage took now() - startNanoTime and moved bytes (0 when not applicable)
+    public static void record(int stage, long startNanoTime, long bytes)
+    {
+	if ( ! enabled ) { return; }
+	long nanos = System.nanoTime() - startNanoTime;
+	stageCount[stage].increment(); stageNanos[stage].add(nanos); if ( bytes > 0 ) { stageBytes[stage].add(bytes); }
+	int bucket = 0; while ( ( bucket < BUCKET_NANOS.length ) && ( nanos > BUCKET_NANOS[bucket] ) ) { bucket++; }
+	stageBuckets[stage][bucket].increment();
+    }
+
+    public static void fileProcessed() { if ( enabled ) { files.increment(); } }
+
+    public static void error(int stage, Throwable throwable)
+    {
+	if ( ! enabled ) { return; }
+	errors.computeIfAbsent(STAGE_NAMES[stage] + " " + throwable.getClass().getSimpleName(), key -> new LongAdder()).increment();
+    }
+
+//  Enables recording and (re)writes dataDirPath/metrics.prom (or .json) every periodSeconds and once more at exit
+    public static synchronized void startExport(Path dataDirPath, String format, long periodSeconds)
+    {
+	if ( ( ! FORMAT_PROMETHEUS.equals(format) ) && ( ! FORMAT_JSON.equals(format) ) ) { throw new IllegalArgumentException("format: " + format); }
+	exportFormat = format; exportPath = dataDirPath.resolve("metrics." + format); enabled = true;
+	if ( exporter != null ) { return; }
+	lastExportNanoTime = System.nanoTime();
+	exporter = Executors.newSingleThreadScheduledExecutor(runnable -> { Thread thread = new Thread(runnable, "Metrics"); thread.setDaemon(true); return thread; });
+	exporter.scheduleAtFixedRate(Metrics::export, periodSeconds, Math.max(1L, periodSeconds), TimeUnit.SECONDS);
+	Runtime.getRuntime().addShutdownHook(new Thread(Metrics::export, "Metrics shutdown"));
+    }
+
+    public static synchronized void export()
+    {
+	if ( exportPath == null ) { return; }
+	long now = System.nanoTime(); long fileCount = files.sum();
+	filesPerSecond = ( fileCount - lastFiles ) / Math.max(0.001d, ( now - lastExportNanoTime ) / 1000000000d); lastFiles = fileCount; lastExportNanoTime = now;
+	String text = ( FORMAT_JSON.equals(exportFormat) ) ? getJSON() : getPrometheus();
+	Path tmpPath = exportPath.resolveSibling(exportPath.getFileName() + ".tmp");
+	try
+	{
+	    Files.createDirectories(exportPath.getParent());
+	    Files.write(tmpPath, text.getBytes(StandardCharsets.UTF_8));
+	    try { Files.move(tmpPath, exportPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+	    catch (IOException ex) { Files.move(tmpPath, exportPath, StandardCopyOption.REPLACE_EXISTING); } // e.g. no atomic move on this file system
+	}
+	catch (IOException ex) { System.err.print("Metrics: " + exportPath + " " + ex.getMessage() + "\r\n"); }
+    }
+
+    public static String getPrometheus()
+    {
+	StringBuilder text = new StringBuilder();
+	text.append("# HELP finalcrypt_stage_seconds Latency per I/O stage\n# TYPE finalcrypt_stage_seconds histogram\n");
+	for (int stage = 0; stage < STAGE_NAMES.length; stage++)
+	{
+	    String label = "stage=\"" + STAGE_NAMES[stage] + "\""; long cumulative = 0L;
+	    for (int bucket = 0; bucket <= BUCKET_SECONDS.length; bucket++)
+	    {
+		cumulative += stageBuckets[stage][bucket].sum();
+		text.append("finalcrypt_stage_seconds_bucket{").append(label).append(",le=\"").append(( bucket < BUCKET_SECONDS.length ) ? format(BUCKET_SECONDS[bucket]) : "+Inf").append("\"} ").append(cumulative).append('\n');
+	    }
+	    text.append("finalcrypt_stage_seconds_sum{").append(label).append("} ").append(format(stageNanos[stage].sum() / 1000000000d)).append('\n');
+	    text.append("finalcrypt_stage_seconds_count{").append(label).append("} ").append(stageCount[stage].sum()).append('\n');
+	}
+	text.append("# HELP finalcrypt_stage_bytes_total Bytes moved per I/O stage\n# TYPE finalcrypt_stage_bytes_total counter\n");
+	for (int stage = 0; stage < STAGE_NAMES.length; stage++) { text.append("finalcrypt_stage_bytes_total{stage=\"").append(STAGE_NAMES[stage]).append("\"} ").append(stageBytes[stage].sum()).append('\n'); }
+	text.append("# HELP finalcrypt_files_total Processed files\n# TYPE finalcrypt_files_total counter\nfinalcrypt_files_total ").append(files.sum()).append('\n');
+	text.append("# HELP finalcrypt_files_per_second Processed files per second over the last export period\n# TYPE finalcrypt_files_per_second gauge\nfinalcrypt_files_per_second ").append(format(filesPerSecond)).append('\n');
+	text.append("# HELP finalcrypt_errors_total Errors per I/O stage and exception type\n# TYPE finalcrypt_errors_total counter\n");
+	for (Map.Entry<String, Long> error:getErrors().entrySet())
+	{
+	    String[] key = error.getKey().split(" ", 2);
+	    text.append("finalcrypt_errors_total{stage=\"").append(key[0]).append("\",type=\"").append(key[1]).append("\"} ").append(error.getValue()).append('\n');
+	}
+	return text.toString();
+    }
+
+    public static String getJSON() // Buckets per latency range (Prometheus buckets are cumulative)
+    {
+	StringBuilder text = new StringBuilder();
+	text.append("{\n  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n  \"files\": ").append(files.sum()).append(",\n  \"files_per_second\": ").append(format(filesPerSecond)).append(",\n  \"stages\": {\n");
+	for (int stage = 0; stage < STAGE_NAMES.length; stage++)
+	{
+	    text.append("    \"").append(STAGE_NAMES[stage]).append("\": { \"count\": ").append(stageCount[stage].sum()).append(", \"bytes\": ").append(stageBytes[stage].sum()).append(", \"seconds\": ").append(format(stageNanos[stage].sum() / 1000000000d)).append(", \"buckets\": {");
+	    for (int bucket = 0; bucket <= BUCKET_SECONDS.length; bucket++) { text.append(( bucket > 0 ) ? ", " : " ").append('"').append(( bucket < BUCKET_SECONDS.length ) ? format(BUCKET_SECONDS[bucket]) : "+Inf").append("\": ").append(stageBuckets[stage][bucket].sum()); }
+	    text.append(" } }").append(( stage < STAGE_NAMES.length - 1 ) ? ",\n" : "\n");
+	}
+	text.append("  },\n  \"errors\": {");
+	int index = 0; for (Map.Entry<String, Long> error:getErrors().entrySet()) { text.append(( index++ > 0 ) ? ", " : " ").append('"').append(error.getKey().replace(' ', ':')).append("\": ").append(error.getValue()); }
+	text.append(" }\n}\n");
+	return text.toString();
+    }
+
+    public static long getStageCount(int stage)	{ return stageCount[stage].sum(); }
+    public static long getStageBytes(int stage)	{ return stageBytes[stage].sum(); }
+    public static long getStageNanos(int stage)	{ return stageNanos[stage].sum(); }
+    public static long getFiles()		{ return files.sum(); }
+
+    public static TreeMap<String, Long> getErrors()
+    {
+	TreeMap<String, Long> errorMap = new TreeMap<>(); for (Map.Entry<String, LongAdder> error:errors.entrySet()) { errorMap.put(error.getKey(), error.getValue().sum()); }
+	return errorMap;
+    }
+
+    private static String format(double value) { return String.format(Locale.ROOT, "%.6f", value).replaceAll("0+$", "").replaceAll("\\.$", ".0"); }
+}
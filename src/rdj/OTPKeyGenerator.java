@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+//  OTP key file generation shared by CLUI (--create-keyfile) and CreateOTPKey
+//  The key file is preallocated and cut into buffer sized chunks; every worker thread claims the next chunk, fills it from its own
+//  SecureRandom (two random streams XORed like FinalCrypt.encryptByte) in reused buffers and writes it positionally on one shared channel
+
+public class OTPKeyGenerator
+{
+    public static final int	BUFFER_SIZE_DEFAULT =	1024 * 1024;
+    private static final long	PROGRESS_PERIOD =	200L;
+
+    private final UI		ui;
+    private final Path		keyPath;
+    private final long		keySize;
+    private final int		bufferSize;
+    private final int		threads;
+
+    private final AtomicLong	nextChunk =		new AtomicLong(0L);
+    private final AtomicLong	bytesGenerated =	new AtomicLong(0L);
+    private volatile boolean	stopped =		false;
+    private volatile IOException failure =		null;
+
+    public OTPKeyGenerator(UI ui, Path keyPath, long keySize)
+    {
+	this.ui = ui;
+	this.keyPath = keyPath;
+	this.keySize = keySize;
+	this.bufferSize = (int)Math.max(1L, Math.min(BUFFER_SIZE_DEFAULT, keySize));
+	long chunks = ( keySize + bufferSize - 1 ) / bufferSize;
+	this.threads = (int)Math.max(1L, Math.min(Runtime.getRuntime().availableProcessors(), chunks));
+    }
+
+    public long getBytesGenerated()	{ return bytesGenerated.get(); }
+    public int getThreads()		{ return threads; }
+    public void stop()			{ stopped = true; }
+
+//  Blocks until the key file is complete (true) or failed / stopped (false); the key file must not exist yet and is deleted again when incomplete
+    public boolean generate()
+    {
+	long startNanoTime = System.nanoTime();
+	try (final FileChannel writeKeyFileChannel = FileChannel.open(keyPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+	{
+	    if ( keySize > 0 ) { writeKeyFileChannel.write(ByteBuffer.allocate(1), keySize - 1); } // Preallocate: workers write disjoint regions in any order
+
+	    ProgressPublisher.Session progressSession = ProgressPublisher.start(ui, "Creating OTP Key", snapshot ->
+	    {
+		snapshot.bytesCounted = snapshot.bytesProcessed = bytesGenerated.get(); snapshot.bytesTotal = keySize;
+		snapshot.fileProgressPercent = snapshot.filesProgressPercent = ( keySize > 0 ) ? (int)(snapshot.bytesProcessed / (keySize / 100.0)) : 100;
+	    }).subscribe(ProgressPublisher.uiListener(ui), PROGRESS_PERIOD);
+	    Thread[] workers = new Thread[threads];
+	    for (int worker = 0; worker < threads; worker++) { workers[worker] = new Thread(() -> work(writeKeyFileChannel), "OTPKeyGenerator " + worker); workers[worker].setDaemon(true); workers[worker].start(); }
+	    for (Thread worker:workers) { try { worker.join(); } catch (InterruptedException ex) { stopped = true; } }
+	    progressSession.finish();
+
+	    if ( failure != null ) { throw failure; }
+	    long stageNanoTime = Metrics.now(); writeKeyFileChannel.force(true); Metrics.record(Metrics.FSYNC, stageNanoTime, 0L); // One sync at the end instead of a SYNC channel per buffer
+	}
+	catch (FileAlreadyExistsException ex) { ui.log("Error: OTPKeyGenerator: " + keyPath + " already exists\r\n", true, true, true, true, false); return false; } // Not ours: never delete
+	catch (IOException ex) { ui.log("Error: OTPKeyGenerator: " + keyPath + " " + ex.getMessage() + "\r\n", true, true, true, true, false); deleteKeyFile(); return false; }
+
+	if ( ( stopped ) || ( bytesGenerated.get() != keySize ) ) { ui.log("Warning: OTPKeyGenerator: " + keyPath + " incomplete (" + bytesGenerated.get() + " of " + keySize + " bytes) deleting\r\n", true, true, true, false, false); deleteKeyFile(); return false; }
+
+	double seconds = Math.max((System.nanoTime() - startNanoTime) / 1000000000d, 0.001d);
+	ui.processProgress(100, 100, keySize, bytesGenerated.get(), (bytesGenerated.get() / seconds) / (1024d * 1024d));
+	if ( FinalCrypt.verbose ) { ui.log("OTPKeyGenerator: " + Validate.getHumanSize(bytesGenerated.get(), 1) + " in " + String.format("%.1f", seconds) + " seconds (" + threads + " threads, " + Validate.getHumanSize(bytesGenerated.get() / seconds, 1) + "/s)\r\n", true, true, true, false, false); }
+	return true;
+    }
+
+    private void deleteKeyFile()
+    {
+	try { Files.deleteIfExists(keyPath); } catch (IOException ex) { ui.log("Error: OTPKeyGenerator: Files.deleteIfExists(" + keyPath + ") " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+    }
+
+    private void work(FileChannel writeKeyFileChannel)
+    {
+	SecureRandom random =	RandomSource.getInstance(); // Per thread: no contention on one shared instance
+	byte[] randomBytes1 =	new byte[bufferSize];
+	byte[] randomBytes2 =	new byte[bufferSize];
+	ByteBuffer randomBuffer = ByteBuffer.wrap(randomBytes1);
+
+	long chunk;
+	while ( ( ! stopped ) && ( failure == null ) && ( ( chunk = nextChunk.getAndIncrement() ) * bufferSize < keySize ) )
+	{
+	    long position = chunk * bufferSize;
+	    int length = (int)Math.min(bufferSize, keySize - position);
+
+	    random.nextBytes(randomBytes1); random.nextBytes(randomBytes2);
+	    for (int index = 0; index < length; index++) { byte keyByte = randomBytes2[index]; if ( keyByte == 0 ) { keyByte = (byte)0xFF; } randomBytes1[index] ^= keyByte; } // Same as FinalCrypt.encryptByte
+
+	    randomBuffer.clear(); randomBuffer.limit(length);
+	    try { while ( randomBuffer.hasRemaining() ) { writeKeyFileChannel.write(randomBuffer, position + randomBuffer.position()); } }
+	    catch (IOException ex) { failure = ex; return; }
+	    bytesGenerated.addAndGet(length);
+	}
+    }
+}
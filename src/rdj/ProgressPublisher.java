@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//  Progress between the engines and the UIs (replaces a java.util.Timer per operation)
+//  Engines only bump lock free counters on their hot path (Session.addBytes, volatile Stat counters)
+//  One shared sampler thread takes a snapshot of every running Session per tick and hands it to the Session's listeners that are due,
+//  each at its own period (e.g. the UI that started it at UPDATE_PROGRESS_PERIOD, a status line at a slower one)
+//  Listeners run on the sampler thread, so they should return quickly (e.g. Platform.runLater)
+
+public class ProgressPublisher
+{
+    public static final long	TICK_MILLIS =	    50L;
+
+    public interface Source	{ void sample(Snapshot snapshot); } // Fills the percentages & bytes from the operation's own counters
+    public interface Listener	{ void progress(Snapshot snapshot); }
+
+    private static final CopyOnWriteArrayList<Session>		sessionList =	    new CopyOnWriteArrayList<>();
+    private static ScheduledExecutorService			sampler;
+    private static ScheduledFuture<?>				samplerFuture;
+
+    private ProgressPublisher() {  }
+
+//  The UI.processProgress bridge
+    public static Listener uiListener(UI ui)
+    {
+	return snapshot -> ui.processProgress(snapshot.fileProgressPercent, snapshot.filesProgressPercent, snapshot.bytesTotal, snapshot.bytesProcessed, snapshot.realtimeMiBPS);
+    }
+
+    public static synchronized Session start(UI ui, String operation, Source source)
+    {
+	Session session = new Session(ui, operation, source); sessionList.add(session);
+	if ( sampler == null ) { sampler = Executors.newSingleThreadScheduledExecutor(runnable -> { Thread thread = new Thread(runnable, "ProgressPublisher"); thread.setDaemon(true); return thread; }); }
+	if ( samplerFuture == null ) { samplerFuture = sampler.scheduleAtFixedRate(ProgressPublisher::tick, 0L, TICK_MILLIS, TimeUnit.MILLISECONDS); }
+	return session;
+    }
+
+//  Sampler thread
+    private static void tick()
+    {
+	long now = System.nanoTime();
+	for (Session session:sessionList) { session.publish(now); }
+    }
+
+//  Removed on the sampler thread, so no listener runs after finish() returns
+    private static void finish(Session session)
+    {
+	ScheduledExecutorService executor; synchronized (ProgressPublisher.class) { executor = sampler; }
+	try { executor.submit(() -> { sessionList.remove(session); stopWhenIdle(); }).get(); }
+	catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+	catch (ExecutionException ex) { sessionList.remove(session); }
+    }
+
+    private static synchronized void stopWhenIdle() { if ( ( sessionList.isEmpty() ) && ( samplerFuture != null ) ) { samplerFuture.cancel(false); samplerFuture = null; } }
+
+    public static final class Snapshot
+    {
+	public String	operation;
+	public int	fileProgressPercent;	// Source
+	public int	filesProgressPercent;	// Source
+	public long	bytesTotal;		// Source
+	public long	bytesProcessed;		// Source
+	public long	bytesCounted;		// Session.addBytes (or the Source's own lock free counter)
+	public double	realtimeMiBPS;		// bytesCounted per second since the listener's previous snapshot
+	public long	elapsedNanos;
+
+	private Snapshot copy() { Snapshot snapshot = new Snapshot(); snapshot.operation = operation; snapshot.fileProgressPercent = fileProgressPercent; snapshot.filesProgressPercent = filesProgressPercent; snapshot.bytesTotal = bytesTotal; snapshot.bytesProcessed = bytesProcessed; snapshot.bytesCounted = bytesCounted; snapshot.elapsedNanos = elapsedNanos; return snapshot; }
+    }
+
+    private static final class Subscription
+    {
+	private final Listener	listener;
+	private final long	periodNanos;
+	private long		lastNanoTime =	    0L; // Sampler thread only
+	private long		lastBytesCounted =  0L;
+	private Session		lastSession;
+
+	private Subscription(Listener listener, long periodMillis) { this.listener = listener; this.periodNanos = Math.max(TICK_MILLIS, periodMillis) * 1000000L; }
+
+	private boolean due(long now) { return ( lastNanoTime == 0L ) || ( now - lastNanoTime >= periodNanos - ( TICK_MILLIS * 500000L ) ); } // Half a tick slack
+
+	private void deliver(Session session, Snapshot snapshot, long now)
+	{
+	    if ( lastSession != session ) { lastSession = session; lastNanoTime = session.startNanoTime; lastBytesCounted = 0L; }
+	    Snapshot delivered = snapshot.copy();
+	    delivered.realtimeMiBPS = ( ( delivered.bytesCounted - lastBytesCounted ) * ( 1000000000d / Math.max(1L, now - lastNanoTime) ) ) / (1024d * 1024d);
+	    if ( delivered.realtimeMiBPS > FinalCrypt.io_Throughput_Ceiling ) { FinalCrypt.io_Throughput_Ceiling = delivered.realtimeMiBPS; }
+	    lastNanoTime = now; lastBytesCounted = delivered.bytesCounted;
+	    try { listener.progress(delivered); } catch (RuntimeException ex) { session.ui.log("Error: ProgressPublisher: " + session.operation + " listener: " + ex.getMessage() + "\r\n", true, true, true, true, false); } // Never stop the sampler
+	}
+    }
+
+    public static final class Session
+    {
+	private final UI					ui;
+	private final String					operation;
+	private final Source					source;
+	private final LongAdder					bytesCounted =	    new LongAdder();
+	private final CopyOnWriteArrayList<Subscription>	subscriptionList =  new CopyOnWriteArrayList<>();
+	private final long					startNanoTime =	    System.nanoTime();
+
+	private Session(UI ui, String operation, Source source) { this.ui = ui; this.operation = operation; this.source = source; }
+
+	public void	addBytes(long bytes)	{ bytesCounted.add(bytes); } // Hot path: no lock, no shared cache line
+	public long	getBytesCounted()	{ return bytesCounted.sum(); }
+	public Session	subscribe(Listener listener, long periodMillis) { subscriptionList.add(new Subscription(listener, periodMillis)); return this; }
+	public void	finish()		{ ProgressPublisher.finish(this); }
+
+	private void publish(long now)
+	{
+	    Snapshot snapshot = null;
+	    for (Subscription subscription:subscriptionList) { if ( subscription.due(now) ) { snapshot = sample(snapshot, now); subscription.deliver(this, snapshot, now); } }
+	}
+
+	private Snapshot sample(Snapshot snapshot, long now) // At most once per tick
+	{
+	    if ( snapshot != null ) { return snapshot; }
+	    snapshot = new Snapshot(); snapshot.operation = operation;
+	    snapshot.bytesCounted = bytesCounted.sum(); snapshot.elapsedNanos = now - startNanoTime;
+	    try { source.sample(snapshot); } catch (RuntimeException ex) { ui.log("Error: ProgressPublisher: " + operation + " source: " + ex.getMessage() + "\r\n", true, true, true, true, false); }
+	    return snapshot;
+	}
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.ArrayList;
+
+//  Entropy source for key generation (OTP key files & key devices), selected once per session:
+//  "default"			new SecureRandom() (platform default, e.g. NativePRNG)
+//  "NativePRNGNonBlocking"	Any SecureRandom algorithm name
+//  "DRBG:256"			DRBG with its strength set through the securerandom.drbg.config security property (Java 9+)
+//  Every caller gets its own instance (thread confinement, no contention); blocking sources (NativePRNGBlocking) can be selected but aren't benchmarked
+
+public class RandomSource
+{
+    public static final String	    DEFAULT =	    "default";
+    public static final String[]    CANDIDATES =    { DEFAULT, "NativePRNGNonBlocking", "NativePRNG", "DRBG:128", "DRBG:256", "SHA1PRNG", "Windows-PRNG" };
+    private static volatile String  algorithm =	    DEFAULT;
+
+    private RandomSource() {  }
+
+//  Throws when the algorithm isn't available on this platform (nothing changes then)
+    public static void setAlgorithm(String spec) throws NoSuchAlgorithmException { getInstance(spec); algorithm = spec; }
+    public static String getAlgorithm()		{ return algorithm; }
+    public static SecureRandom getInstance()	{ try { return getInstance(algorithm); } catch (NoSuchAlgorithmException ex) { return new SecureRandom(); } } // Validated by setAlgorithm
+
+    public static synchronized SecureRandom getInstance(String spec) throws NoSuchAlgorithmException
+    {
+	if ( ( spec == null ) || ( spec.equals(DEFAULT) ) ) { return new SecureRandom(); }
+	if ( spec.startsWith("DRBG:") )
+	{
+	    String strength = spec.substring(5); if ( ! strength.matches("[0-9]+") ) { throw new NoSuchAlgorithmException("DRBG strength: " + strength); }
+	    String config = Security.getProperty("securerandom.drbg.config");
+	    try { Security.setProperty("securerandom.drbg.config", strength); return SecureRandom.getInstance("DRBG"); } // Read when the DRBG gets instantiated
+	    finally { Security.setProperty("securerandom.drbg.config", ( config != null ) ? config : ""); }
+	}
+	return SecureRandom.getInstance(spec);
+    }
+
+    public static ArrayList<String> getAvailable()
+    {
+	ArrayList<String> availableList = new ArrayList<>();
+	for (String spec:CANDIDATES) { try { getInstance(spec); availableList.add(spec); } catch (NoSuchAlgorithmException | IllegalArgumentException ex) {  } }
+	return availableList;
+    }
+
+//  --benchmark-rng: nextBytes throughput of every available algorithm on one thread and on all cores (reused 1 MiB buffers)
+    public static void benchmark(UI ui, long bytes)
+    {
+	int threads = Runtime.getRuntime().availableProcessors();
+	ui.log("RNG Benchmark: " + Validate.getHumanSize(bytes, 1) + " per algorithm, 1 & " + threads + " thread(s)\r\n\r\n", false, true, true, false, false);
+	ui.log(String.format("%-24s %-28s %14s %14s\r\n", "Algorithm", "Provider / Instance", "1 thread", threads + " threads"), false, true, true, false, false);
+	for (String spec:getAvailable())
+	{
+	    String instance; try { SecureRandom random = getInstance(spec); instance = random.getProvider().getName() + " / " + random.getAlgorithm(); } catch (NoSuchAlgorithmException ex) { continue; }
+	    measure(spec, bytes / 16, 1); // Warm up (JIT) before measuring
+	    double single = measure(spec, bytes, 1);
+	    double multi = ( threads > 1 ) ? measure(spec, bytes, threads) : single;
+	    ui.log(String.format("%-24s %-28s %14s %14s\r\n", spec, instance, Validate.getHumanSize(single, 1) + "/s", Validate.getHumanSize(multi, 1) + "/s"), false, true, true, false, false);
+	}
+	ui.log("\r\nSelect with: --rng <algorithm> (current: " + algorithm + ")\r\n", false, true, true, false, false);
+    }
+
+//  Bytes per second for bytes spread over threads (seeding included, like a real run)
+    private static double measure(String spec, long bytes, int threads)
+    {
+	long bytesPerThread = Math.max(1L, bytes / threads);
+	Thread[] workers = new Thread[threads];
+	long startNanoTime = System.nanoTime();
+	for (int worker = 0; worker < threads; worker++)
+	{
+	    workers[worker] = new Thread(() ->
+	    {
+		SecureRandom random; try { random = getInstance(spec); } catch (NoSuchAlgorithmException ex) { return; }
+		byte[] randomBytes = new byte[(int)Math.min(1024L * 1024L, bytesPerThread)];
+		for (long done = 0; done < bytesPerThread; done += randomBytes.length) { random.nextBytes(randomBytes); }
+	    }, "RNGBenchmark " + worker);
+	    workers[worker].start();
+	}
+	for (Thread worker:workers) { try { worker.join(); } catch (InterruptedException ex) {  } }
+	double seconds = Math.max((System.nanoTime() - startNanoTime) / 1000000000d, 0.000001d);
+	return ( bytesPerThread * threads ) / seconds;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2017 Ron de Jong (ronuitzaandam@gmail.com).
+ *
+ * This is free software; you can redistribute it
+ * under the terms of the Creative Commons License
+ * Creative Commons License: (CC BY-NC-ND 4.0) as published by
+ * https://creativecommons.org/licenses/by-nc-nd/4.0/ ; either
+ * version 4.0 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Creative Commons Attribution-NonCommercial-NoDerivatives 4.0
+ * International Public License for more details.
+ *
+ * You should have received a copy of the Creative Commons
+ * Public License License along with this software;
+ */
+package rdj;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+//  End of run performance report: finalcrypt_<timestamp>_report.json & .txt in the log directory
+//  Covers the run (mode, buffer size, files, bytes, throughput), the time split between the encrypt, shred & attribute stages,
+//  throughput per file size bucket and per FileStore, the slowest files and (up to FILES_MAX) every file
+//  Aggregates cover all files, only the per file list is capped, so million file runs stay small. Not thread safe (one encryptor thread)
+//  Fixed size state: p50 / p99 latency from a log linear histogram (HISTOGRAM_SUB_BUCKETS per power of 2, <= 1 / HISTOGRAM_SUB_BUCKETS relative error),
+//  FileStore names cached per device (one stat per new directory instead of a mount table scan)
+
+public class RunReport
+{
+    public static final int	    SLOWEST_FILES =	10;
+    public static final int	    FILES_MAX =		10000;
+
+    private static final long[]	    BUCKET_LIMITS =	{ 64L * 1024, 1024L * 1024, 16L * 1024 * 1024, 256L * 1024 * 1024, 4096L * 1024 * 1024, Long.MAX_VALUE };
+    private static final String[]   BUCKET_NAMES =	{ "< 64 KiB", "< 1 MiB", "< 16 MiB", "< 256 MiB", "< 4 GiB", ">= 4 GiB" };
+    private static final double	    MiB =		1024.0 * 1024.0;
+    private static final int	    HISTOGRAM_SUB_BUCKETS = 16; // Power of 2
+    private static final int	    HISTOGRAM_SUB_BITS =    Integer.numberOfTrailingZeros(HISTOGRAM_SUB_BUCKETS);
+    private static final boolean    UNIX =		FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+
+    private final String	    mode;
+    private final int		    bufferSize;
+    private final Date		    startDate =		new Date();
+    private final long		    startNanoTime =	System.nanoTime();
+    private long		    runNanos =		0L;
+
+    private final Totals	    total =		new Totals();
+    private long		    cryptNanos =	0L;
+    private long		    shredNanos =	0L;
+    private long		    attributeNanos =	0L;
+    private final Totals[]	    buckets =		new Totals[BUCKET_LIMITS.length];
+    private final LinkedHashMap<String, Totals> fileStores = new LinkedHashMap<>();
+    private final HashMap<Object, String> fileStoreCache =  new HashMap<>(); // Per device (unix:dev, else the root), FileStore lookups scan the mount table
+    private Path		    lastDirPath =	null;
+    private String		    lastFileStoreName =	null;
+    private final PriorityQueue<FileRecord> slowestQueue =  new PriorityQueue<>((record1, record2) -> Long.compare(record1.nanos, record2.nanos)); // Fastest of the slowest on top
+    private final ArrayList<FileRecord> fileRecords =	    new ArrayList<>();
+    private long		    filesOmitted =	0L;
+    private final long[]	    fileNanosHistogram = new long[( 64 - HISTOGRAM_SUB_BITS + 1 ) * HISTOGRAM_SUB_BUCKETS];
+    private long		    fileNanosMax =	0L;
+
+    public RunReport(String mode, int bufferSize)
+    {
+	this.mode = mode;
+	this.bufferSize = bufferSize;
+	for (int bucket = 0; bucket < buckets.length; bucket++) { buckets[bucket] = new Totals(); }
+    }
+
+    public void addFile(Path path, long size, long nanos, long cryptNanos, long shredNanos, long attributeNanos)
+    {
+	FileRecord fileRecord = new FileRecord(path.toAbsolutePath().toString(), getFileStoreName(path), size, nanos, cryptNanos, shredNanos, attributeNanos);
+	total.add(size, nanos); fileNanosHistogram[getHistogramIndex(nanos)]++; fileNanosMax = Math.max(fileNanosMax, nanos);
+	this.cryptNanos += cryptNanos; this.shredNanos += shredNanos; this.attributeNanos += attributeNanos;
+	int bucket = 0; while ( size >= BUCKET_LIMITS[bucket] ) { bucket++; } buckets[bucket].add(size, nanos);
+	fileStores.computeIfAbsent(fileRecord.fileStore, key -> new Totals()).add(size, nanos);
+
+	slowestQueue.add(fileRecord); if ( slowestQueue.size() > SLOWEST_FILES ) { slowestQueue.poll(); }
+	if ( fileRecords.size() < FILES_MAX ) { fileRecords.add(fileRecord); } else { filesOmitted++; }
+    }
+
+    public void finish() { runNanos = System.nanoTime() - startNanoTime; }
+
+    public long getFiles()	{ return total.files; }
+    public long getBytes()	{ return total.bytes; }
+    public long getRunNanos()	{ return runNanos; }
+
+//  Nearest rank percentile of the per file times (upper bound of its histogram bucket, at most the slowest file), 0 without files
+    public long getFileNanosPercentile(double percentile)
+    {
+	if ( total.files == 0 ) { return 0L; }
+	long rank = Math.max(1L, Math.min(total.files, (long)Math.ceil(( percentile / 100.0 ) * total.files))); long count = 0L;
+	for (int index = 0; index < fileNanosHistogram.length; index++) { count += fileNanosHistogram[index]; if ( count >= rank ) { return Math.min(fileNanosMax, getHistogramUpperNanos(index)); } }
+	return fileNanosMax;
+    }
+
+//  Values below HISTOGRAM_SUB_BUCKETS are exact, above that every power of 2 is split into HISTOGRAM_SUB_BUCKETS
+    private static int getHistogramIndex(long nanos)
+    {
+	if ( nanos < HISTOGRAM_SUB_BUCKETS ) { return (int)Math.max(0L, nanos); }
+	int shift = ( 63 - Long.numberOfLeadingZeros(nanos) ) - HISTOGRAM_SUB_BITS;
+	return ( ( shift + 1 ) * HISTOGRAM_SUB_BUCKETS ) + (int)( ( nanos >>> shift ) & ( HISTOGRAM_SUB_BUCKETS - 1 ) );
+    }
+
+    private static long getHistogramUpperNanos(int index)
+    {
+	if ( index < HISTOGRAM_SUB_BUCKETS ) { return index; }
+	int shift = ( index / HISTOGRAM_SUB_BUCKETS ) - 1;
+	return ( ( (long)( HISTOGRAM_SUB_BUCKETS + ( index % HISTOGRAM_SUB_BUCKETS ) ) + 1L ) << shift ) - 1L;
+    }
+
+//  Writes both files into logDirPath and returns the JSON path (null on failure)
+    public Path write(UI ui, Path logDirPath)
+    {
+	String baseName = "finalcrypt_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(startDate) + "_report"; String fileName = baseName;
+	for (int run = 2; Files.exists(logDirPath.resolve(fileName + ".json")); run++) { fileName = baseName + "_" + run; } // Several runs within a second (e.g. --benchmark)
+	Path jsonPath = logDirPath.resolve(fileName + ".json");
+	Path textPath = logDirPath.resolve(fileName + ".txt");
+	try
+	{
+	    Files.createDirectories(logDirPath);
+	    Files.write(jsonPath, getJSON().getBytes(StandardCharsets.UTF_8));
+	    Files.write(textPath, getTable().getBytes(StandardCharsets.UTF_8));
+	}
+	catch (IOException ex) { ui.log("Error: RunReport: " + logDirPath + " " + ex.getMessage() + "\r\n", true, true, true, true, false); return null; }
+	return jsonPath;
+    }
+
+    public String getJSON()
+    {
+	StringBuilder text = new StringBuilder();
+	text.append("{\n  \"start\": \"").append(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(startDate)).append("\",\n  \"mode\": ").append(quote(mode)).append(",\n  \"buffer_size\": ").append(bufferSize);
+	text.append(",\n  \"run\": { \"seconds\": ").append(format(runNanos / 1000000000.0)).append(", ").append(total.toJSON()).append(", \"p50_file_seconds\": ").append(format(getFileNanosPercentile(50.0) / 1000000000.0)).append(", \"p99_file_seconds\": ").append(format(getFileNanosPercentile(99.0) / 1000000000.0)).append(" },\n");
+	text.append("  \"stages\": { \"encrypt_seconds\": ").append(format(cryptNanos / 1000000000.0)).append(", \"shred_seconds\": ").append(format(shredNanos / 1000000000.0)).append(", \"attribute_seconds\": ").append(format(attributeNanos / 1000000000.0)).append(", \"other_seconds\": ").append(format(getOtherNanos() / 1000000000.0)).append(" },\n");
+
+	text.append("  \"size_buckets\": [");
+	for (int bucket = 0; bucket < buckets.length; bucket++) { text.append(( bucket > 0 ) ? "," : "").append("\n    { \"bucket\": ").append(quote(BUCKET_NAMES[bucket])).append(", \"max_bytes\": ").append(( BUCKET_LIMITS[bucket] < Long.MAX_VALUE ) ? Long.toString(BUCKET_LIMITS[bucket]) : "null").append(", ").append(buckets[bucket].toJSON()).append(" }"); }
+	text.append("\n  ],\n  \"file_stores\": [");
+	int index = 0; for (Map.Entry<String, Totals> fileStore:fileStores.entrySet()) { text.append(( index++ > 0 ) ? "," : "").append("\n    { \"file_store\": ").append(quote(fileStore.getKey())).append(", ").append(fileStore.getValue().toJSON()).append(" }"); }
+	text.append("\n  ],\n  \"slowest_files\": [");
+	index = 0; for (FileRecord fileRecord:getSlowestFiles()) { text.append(( index++ > 0 ) ? "," : "").append("\n    ").append(fileRecord.toJSON()); }
+	text.append("\n  ],\n  \"files_omitted\": ").append(filesOmitted).append(",\n  \"files\": [");
+	index = 0; for (FileRecord fileRecord:fileRecords) { text.append(( index++ > 0 ) ? "," : "").append("\n    ").append(fileRecord.toJSON()); }
+	text.append("\n  ]\n}\n");
+	return text.toString();
+    }
+
+    public String getTable()
+    {
+	StringBuilder text = new StringBuilder();
+	text.append("FinalCrypt Run Report ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(startDate)).append("\r\n\r\n");
+	text.append(String.format(Locale.ROOT, "%-14s%s\r\n", "Mode:", mode));
+	text.append(String.format(Locale.ROOT, "%-14s%s\r\n", "Buffer:", Stats.getHumanSize(bufferSize, 1)));
+	text.append(String.format(Locale.ROOT, "%-14s%d files %s in %.3f seconds (%.1f MiB/s)\r\n", "Run:", total.files, Stats.getHumanSize(total.bytes, 1), runNanos / 1000000000.0, total.getMiBPS()));
+	text.append(String.format(Locale.ROOT, "%-14s%.3f ms p50, %.3f ms p99 per file\r\n\r\n", "Latency:", getFileNanosPercentile(50.0) / 1000000.0, getFileNanosPercentile(99.0) / 1000000.0));
+
+	text.append(String.format(Locale.ROOT, "%-14s%12s%8s\r\n", "Stage", "Seconds", "%"));
+	appendStage(text, "Encrypt", cryptNanos); appendStage(text, "Shred", shredNanos); appendStage(text, "Attributes", attributeNanos); appendStage(text, "Other", getOtherNanos());
+
+	text.append(String.format(Locale.ROOT, "\r\n%-24s%10s%14s%12s%10s\r\n", "Size", "Files", "Bytes", "Seconds", "MiB/s"));
+	for (int bucket = 0; bucket < buckets.length; bucket++) { if ( buckets[bucket].files > 0 ) { appendTotals(text, BUCKET_NAMES[bucket], buckets[bucket]); } }
+
+	text.append(String.format(Locale.ROOT, "\r\n%-24s%10s%14s%12s%10s\r\n", "File Store", "Files", "Bytes", "Seconds", "MiB/s"));
+	for (Map.Entry<String, Totals> fileStore:fileStores.entrySet()) { appendTotals(text, fileStore.getKey(), fileStore.getValue()); }
+
+	text.append(String.format(Locale.ROOT, "\r\n%-24s%10s%14s%12s%10s  %s\r\n", "Slowest Files", "Shred %", "Bytes", "Seconds", "MiB/s", "File"));
+	for (FileRecord fileRecord:getSlowestFiles())
+	{
+	    text.append(String.format(Locale.ROOT, "%-24s%10.0f%14d%12.3f%10.1f  %s\r\n", "", percent(fileRecord.shredNanos, fileRecord.nanos), fileRecord.size, fileRecord.nanos / 1000000000.0, getMiBPS(fileRecord.size, fileRecord.nanos), fileRecord.path));
+	}
+	return text.toString();
+    }
+
+    private ArrayList<FileRecord> getSlowestFiles() { ArrayList<FileRecord> slowestFiles = new ArrayList<>(slowestQueue); slowestFiles.sort((record1, record2) -> Long.compare(record2.nanos, record1.nanos)); return slowestFiles; }
+    private long getOtherNanos() { return Math.max(0L, total.nanos - cryptNanos - shredNanos - attributeNanos); } // Validation, renaming, deleting, hashing output
+
+    private void appendStage(StringBuilder text, String name, long nanos) { text.append(String.format(Locale.ROOT, "%-14s%12.3f%8.1f\r\n", name, nanos / 1000000000.0, percent(nanos, total.nanos))); }
+    private static void appendTotals(StringBuilder text, String name, Totals totals) { text.append(String.format(Locale.ROOT, "%-24s%10d%14d%12.3f%10.1f\r\n", name, totals.files, totals.bytes, totals.nanos / 1000000000.0, totals.getMiBPS())); }
+
+    private String getFileStoreName(Path path)
+    {
+	Path dirPath = path.toAbsolutePath().getParent(); if ( dirPath == null ) { dirPath = path.toAbsolutePath(); }
+	if ( dirPath.equals(lastDirPath) ) { return lastFileStoreName; } // Files arrive directory by directory
+	Object device; try { device = ( UNIX ) ? Files.getAttribute(dirPath, "unix:dev") : dirPath.getRoot(); } catch (IOException | RuntimeException ex) { device = dirPath.getRoot(); }
+	String name = fileStoreCache.get(device);
+	if ( name == null )
+	{
+	    try { FileStore fileStore = Files.getFileStore(dirPath); name = fileStore.name() + " (" + fileStore.type() + ")"; } catch (IOException ex) { name = "unknown"; } // The file itself is gone after shredding
+	    fileStoreCache.put(device, name);
+	}
+	lastDirPath = dirPath; lastFileStoreName = name;
+	return name;
+    }
+
+    private static double getMiBPS(long bytes, long nanos)	{ return ( nanos > 0 ) ? ( bytes / MiB ) / ( nanos / 1000000000.0 ) : 0.0; }
+    private static double percent(long part, long whole)	{ return ( whole > 0 ) ? ( part * 100.0 ) / whole : 0.0; }
+    private static String format(double value)			{ return String.format(Locale.ROOT, "%.6f", value).replaceAll("0+$", "").replaceAll("\\.$", ".0"); }
+
+    private static String quote(String string)
+    {
+	StringBuilder text = new StringBuilder("\"");
+	for (char character:string.toCharArray())
+	{
+	    if	    ( ( character == '"' ) || ( character == '\\' ) )	{ text.append('\\').append(character); }
+	    else if ( character < 0x20 )			{ text.append(String.format("\\u%04x", (int)character)); }
+	    else							{ text.append(character); }
+	}
+	return text.append('"').toString();
+    }
+
+    private static class Totals
+    {
+	private long files = 0L; private long bytes = 0L; private long nanos = 0L;
+
+	private void add(long size, long nanos) { files++; bytes += size; this.nanos += nanos; }
+	private double getMiBPS() { return RunReport.getMiBPS(bytes, nanos); }
+	private String toJSON() { return "\"files\": " + files + ", \"bytes\": " + bytes + ", \"file_seconds\": " + format(nanos / 1000000000.0) + ", \"mib_per_second\": " + format(getMiBPS()); }
+    }
+
+    private static class FileRecord
+    {
+	private final String path; private final String fileStore; private final long size; private final long nanos; private final long cryptNanos; private final long shredNanos; private final long attributeNanos;
+
+	private FileRecord(String path, String fileStore, long size, long nanos, long cryptNanos, long shredNanos, long attributeNanos)
+	{
+	    this.path = path; this.fileStore = fileStore; this.size = size; this.nanos = nanos; this.cryptNanos = cryptNanos; this.shredNanos = shredNanos; this.attributeNanos = attributeNanos;
+	}
+
+	private String toJSON()
+	{
+	    return "{ \"path\": " + quote(path) + ", \"file_store\": " + quote(fileStore) + ", \"bytes\": " + size + ", \"seconds\": " + format(nanos / 1000000000.0) + ", \"mib_per_second\": " + format(getMiBPS(size, nanos))
+		 + ", \"encrypt_seconds\": " + format(cryptNanos / 1000000000.0) + ", \"shred_seconds\": " + format(shredNanos / 1000000000.0) + ", \"attribute_seconds\": " + format(attributeNanos / 1000000000.0) + " }";
+	}
+    }
+}
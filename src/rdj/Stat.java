@@ -24,8 +24,8 @@ import java.util.Arrays;
 public class Stat
 {
 //  File Encrypting Bytes
-    private long fileBytesProcessed = 0;
-    private long fileBytesTotal = 0;
+    private volatile long fileBytesProcessed = 0; // Volatile: sampled by ProgressPublisher
+    private volatile long fileBytesTotal = 0;
     
 //  File Encryption Time
     private long fileStartEpoch = 0;
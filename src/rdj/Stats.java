@@ -25,15 +25,15 @@ public class Stats
 {
 //  Files
     private long filesProcessed = 0;
-    private long filesTotal = 0;
+    private volatile long filesTotal = 0; // Volatile: FinalCrypt.updateStreamTotals also runs on the ProgressPublisher thread
     
 //  File Encrypting Bytes
-    private long fileBytesProcessed = 0;
-    private long fileBytesTotal = 0;
+    private volatile long fileBytesProcessed = 0; // Volatile: sampled by ProgressPublisher
+    private volatile long fileBytesTotal = 0;
 
 //  Files Encrypting Bytes
-    private long filesBytesProcessed = 0;
-    private long filesBytesTotal = 0;
+    private volatile long filesBytesProcessed = 0;
+    private volatile long filesBytesTotal = 0; // Written by updateStreamTotals (ProgressPublisher thread) too
     
 //  File Encryption Time
     private long fileStartNanoTime = 0;
@@ -44,6 +44,9 @@ public class Stats
     private long filesEndNanoTime = 0;
     private long nanoSeconds = 0;
 
+//  Streaming Selection: totals keep growing while the scan is still running
+    private volatile boolean provisional = false; // Written by updateStreamTotals (ProgressPublisher thread) too
+
     public Stats()
     {
         
@@ -70,6 +73,7 @@ public class Stats
 //  Files Encryption Time
     public long getAllDataStartEpoch()						{ return filesStartNanoTime; }
     public long getAllDataEndEpoch()						{ return filesEndNanoTime; }
+    public boolean isProvisional()						{ return provisional; }
     
 //  Setters
     
@@ -84,6 +88,7 @@ public class Stats
 //  Files Encrypting Bytes
     public void setAllDataBytesProcessed(long filesBytesProcessed)		{ this.filesBytesProcessed = filesBytesProcessed; }
     public void setAllDataBytesTotal(long filesBytesTotal)			{ this.filesBytesTotal = filesBytesTotal; }
+    public void setProvisional(boolean provisional)				{ this.provisional = provisional; }
 
 //  File Encryption Time
     public void setFileStartNanoTime()						{ this.fileStartNanoTime = System.nanoTime(); }
@@ -118,6 +123,7 @@ public class Stats
     {
         String fileString = "files"; if (filesTotal == 1)			{ fileString = "file"; } else { fileString = "files"; }
         String returnString = "\r\nStarted " + mode + " " + filesTotal + " " + fileString + " totally " + getHumanSize(filesBytesTotal,1) + "\r\n\r\n";
+	if (provisional) { returnString = "\r\nStarted " + mode + " while scanning (totals provisional)\r\n\r\n"; }
         
         return returnString;
     }
@@ -137,6 +143,15 @@ public class Stats
     }
     
     
+    public String getAllDataBytesETA()
+    {
+	String provisionalString = ""; if (provisional) { provisionalString = " (provisional)"; }
+	double seconds = ((double)(System.nanoTime() - filesStartNanoTime) / 1000000000.0);
+	if ((filesBytesProcessed == 0) || (seconds <= 0)) { return "ETA: -" + provisionalString; }
+	double remaining = ((double)(filesBytesTotal - filesBytesProcessed) / ((double)filesBytesProcessed / seconds)); if (remaining < 0) { remaining = 0; }
+	return "ETA: " + getDecimal(remaining,0) + "s" + provisionalString;
+    }
+    
 //  END
     public String getEndSummary(String mode)                               
     {
@@ -187,6 +202,7 @@ public class Stats
         filesStartNanoTime = 0;
         filesEndNanoTime = 0;
         nanoSeconds = 0;
+	provisional = false;
     }
     
 //    public static void main(String[] args)
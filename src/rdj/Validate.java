@@ -22,13 +22,11 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
@@ -47,7 +45,7 @@ public class Validate
     {
     }
 
-    synchronized public static boolean isValidDir(UI ui, Path targetDirPath, boolean symlink, boolean report)
+    public static boolean isValidDir(UI ui, Path targetDirPath, boolean symlink, boolean report)
     {
         boolean validdir = true; String conditions = "";				    String exist = ""; String read = ""; String write = ""; String symbolic = "";
         if ( ! Files.exists(targetDirPath))						    { validdir = false; exist = "[not found] "; conditions += exist; }
@@ -69,7 +67,7 @@ public class Validate
 //        return validfile;
 //    }
 //
-    synchronized public static boolean isValidFile(UI ui, String caller, Path path, boolean isKey, boolean device, long minSize, boolean symlink, boolean writable, boolean report)
+    public static boolean isValidFile(UI ui, String caller, Path path, boolean isKey, boolean device, long minSize, boolean symlink, boolean writable, boolean report)
     {
         boolean validfile = true; String conditions = "";				    String size = ""; String exist = ""; String dir = ""; String read = ""; String write = ""; String symbolic = ""; String key = "";
 
@@ -103,7 +101,7 @@ public class Validate
 //			🔓!  Decrypt Legacy  (Key can't be checked! No Token present in old format)
 //			⛔   Decrypt Abort   (Key Failed)
 
-    synchronized public static boolean targetSourceHasMAC(UI ui, Path targetSourcePath) // Tested
+    public static boolean targetSourceHasMAC(UI ui, Path targetSourcePath) // Tested
     {
 	boolean targetSourceHasMAC = false;
 	
@@ -122,24 +120,19 @@ public class Validate
 	} catch (IOException ex) { ui.log("Error: targetSourceHasMAC: readTargetSourceChannel " + ex.getMessage() + "\r\n", true, true, true, true, false); }
 	
 	// Compare plainTextMACBuffer to FINALCRYPT_PLAIN_IEXT_AUTHENTICATION_MAC
-	String plainTextMACString = new String(plainTextMACBuffer.array(), StandardCharsets.UTF_8);
-//	ui.status("targetSourceHasMAC plainTextMACString: " +plainTextMACString + "\r\n", true);
-
-	if ( plainTextMACString.equals(FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE) ) { targetSourceHasMAC = true; }
+	targetSourceHasMAC = headerHasMAC(plainTextMACBuffer.array());
 
 	return targetSourceHasMAC;
     }
     
-    synchronized public static boolean targetHasAuthenticatedMACToken(UI ui, Path targetSourcePath, Path keySourcePath) // Tested
+//  Validation holds no shared state (encryptMACBuffer leaves pwdPos alone), so targets can be validated in parallel and while encrypting
+    public static boolean targetHasAuthenticatedMACToken(UI ui, Path targetSourcePath, Path keySourcePath) // Tested
     {
-	FinalCrypt.resetPwdPos();
-	
+	Object macCheckEvent = FlightEvents.begin(FlightEvents.MAC_CHECK);
 	boolean readTargetSourceChannelError = false;
 	boolean keyAuthenticatedTargetSource =   false;
         ByteBuffer targetSrcMACBuffer =		    ByteBuffer.allocate(FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length() * 2); targetSrcMACBuffer.clear();
-        ByteBuffer targetEncryptedMACBuffer =	    ByteBuffer.allocate(FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length()); targetEncryptedMACBuffer.clear();
         ByteBuffer keySourceBuffer =		    ByteBuffer.allocate(FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length()); keySourceBuffer.clear();
-        ByteBuffer keyDecryptedMACBuffer =	    ByteBuffer.allocate(FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length()); keyDecryptedMACBuffer.clear();
 	
 	long readTargetSourceChannelPosition = 0;	long readTargetSourceChannelTransfered = 0;
 	long readKeySourceChannelPosition = 0;	long readKeySourceChannelTransfered = 0;                
@@ -154,9 +147,6 @@ public class Validate
 	    readTargetSourceChannel.close(); 
 	} catch (IOException ex) { readTargetSourceChannelError = true; ui.log("Error: targetHasMAC: readTargetSourceChannel " + ex.getMessage() + "\r\n", true, true, true, true, false); }
 	
-	// Encrypted MAC Buffer
-	targetEncryptedMACBuffer.put(targetSrcMACBuffer.array(), FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length(), FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length()); targetEncryptedMACBuffer.flip();
-	
 	if (( ! readTargetSourceChannelError ) && ( ! Files.isDirectory(keySourcePath)) )
 	{
 	    try (final SeekableByteChannel readKeySourceChannel = Files.newByteChannel(keySourcePath, EnumSet.of(StandardOpenOption.READ)))
@@ -168,33 +158,56 @@ public class Validate
 		keySourceBuffer.flip(); readKeySourceChannel.close();
 	    } catch (IOException ex) { ui.log("Error: keyAuthenticatedTargetSource readKeySourceChannel " + ex.getMessage() + "\r\n", true, true, true, true, false); }
 	    
-	    // Create Encrypted Token Buffer
-	    keyDecryptedMACBuffer = FinalCrypt.encryptBuffer(targetEncryptedMACBuffer, keySourceBuffer, false);
-	    String keyDecryptedMACBufferString = new String(keyDecryptedMACBuffer.array(), StandardCharsets.UTF_8);
-//	    ui.status("targetHasAuthenticatedMAC.keyDecryptedMACBufferString: " + keyDecryptedMACBufferString + "\r\n", true);
-	    
 	    // Authenticate Key MAC against Target MAC
-	    if ( keyDecryptedMACBufferString.equals(FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE)) { keyAuthenticatedTargetSource = true; } else { keyAuthenticatedTargetSource = false; }
+	    keyAuthenticatedTargetSource = headerHasAuthenticatedMACToken(targetSrcMACBuffer.array(), keySourceBuffer.array());
 	    
 	} else { keyAuthenticatedTargetSource = false; }
 	
-	FinalCrypt.resetPwdPos();
+	FlightEvents.commit(macCheckEvent, targetSourcePath, keyAuthenticatedTargetSource);
 	return keyAuthenticatedTargetSource;
     }
 
 
+//  Header only MAC checks, shared with FCTreeVerifier (--verify-tree)
+//  header: first FCPath.MAC_SIZE bytes of a target (plain text token + encrypted token), keyHeader: first FCPath.MAC_SIZE / 2 bytes of the key
+    public static boolean headerHasMAC(byte[] header)
+    {
+	int length = FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length(); if ( header.length < length ) { return false; }
+	return new String(header, 0, length, StandardCharsets.UTF_8).equals(FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE);
+    }
+
+    public static boolean headerHasAuthenticatedMACToken(byte[] header, byte[] keyHeader)
+    {
+	int length = FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE.length(); if ( ( header.length < length * 2 ) || ( keyHeader.length < length ) ) { return false; }
+	ByteBuffer keyDecryptedMACBuffer = FinalCrypt.encryptMACBuffer(ByteBuffer.wrap(header, length, length).slice(), ByteBuffer.wrap(keyHeader, 0, length).slice());
+	return new String(keyDecryptedMACBuffer.array(), StandardCharsets.UTF_8).equals(FinalCrypt.FINALCRYPT_PLAIN_TEXT_MESSAGE_AUTHENTICATION_CODE);
+    }
+
     // Synchronized removes multifile target inconsistency, but also smooth busy animation
     public static void buildSelection(UI ui, ArrayList<Path> pathList, FCPath keyFCPath, FCPathList targetFCPathList, boolean symlink, String pattern, boolean negatePattern, boolean disabledMAC, boolean status)
+    {
+	buildSelection(ui, pathList, keyFCPath, targetFCPathList, symlink, FCPathPattern.compile(pattern, negatePattern), disabledMAC, status, null, false);
+    }
+
+    public static void buildSelection(UI ui, ArrayList<Path> pathList, FCPath keyFCPath, FCPathList targetFCPathList, boolean symlink, FCPathPattern fcPathPattern, boolean disabledMAC, boolean status)
+    {
+	buildSelection(ui, pathList, keyFCPath, targetFCPathList, symlink, fcPathPattern, disabledMAC, status, null, false);
+    }
+
+//  Streaming Selection: when streamQueue != null every encryptable (encryptmode) or decryptable file gets published to streamQueue while the walk continues
+    public static void buildSelection(UI ui, ArrayList<Path> pathList, FCPath keyFCPath, FCPathList targetFCPathList, boolean symlink, FCPathPattern fcPathPattern, boolean disabledMAC, boolean status, FCPathQueue streamQueue, boolean encryptmode)
     {
 //	if (mySimpleFCFileVisitor != null) {mySimpleFCFileVisitor.running = false;} else {mySimpleFCFileVisitor.running = false;} // Being set within MySimpleFCFileVisitor instantiation
-//				    MySimpleFCFileVisitor(UI ui, boolean verbose, boolean delete, boolean symlink, boolean setFCPathlist, Path keyPath, ArrayList<FCPath> targetFCPathList, String pattern, boolean negatePattern,  boolean disabledMAC)
-	mySimpleFCFileVisitor = new MySimpleFCFileVisitor(   ui,	   false,          false,         symlink,                  true,    keyFCPath,                   targetFCPathList,	   pattern,         negatePattern,	    disabledMAC);
+//				    MySimpleFCFileVisitor(UI ui, boolean verbose, boolean delete, boolean symlink, boolean setFCPathlist, Path keyPath, ArrayList<FCPath> targetFCPathList, FCPathPattern fcPathPattern,  boolean disabledMAC, FCPathQueue streamQueue, boolean encryptmode)
+	mySimpleFCFileVisitor = new MySimpleFCFileVisitor(   ui,	   false,          false,         symlink,                  true,    keyFCPath,                   targetFCPathList,	   fcPathPattern,	    disabledMAC,        streamQueue,         encryptmode);
 	
 	for (Path path:pathList)
 	{
+	    mySimpleFCFileVisitor.setRootPath(path);
 	    try{ Files.walkFileTree(path, EnumSet.of(FileVisitOption.FOLLOW_LINKS,FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, mySimpleFCFileVisitor);} catch(IOException e) { ui.log("Error: Validate.buildSelection: Files.walkFileTree(path, EnumSet.of(..) " + e.getMessage() + "\r\n", true, true, true, true, false); }
 	}
 	mySimpleFCFileVisitor.running = false;
+	if ( streamQueue != null ) { streamQueue.setScanEnded(); }
 	ui.buildReady(targetFCPathList, true);
 	
 //	if ( (targetFCPathList.size() > 0) && (mySimpleFCFileVisitor.running) )
@@ -226,47 +239,20 @@ public class Validate
     public static int getFCPathType(Path path)
     {
 	int returnFCPathType = FCPath.INVALID;
+	String pathString = path.toAbsolutePath().toString();
 
-	if (path.toAbsolutePath().toString().startsWith("/dev/"))
+	if (pathString.startsWith("/dev/"))
 	{
-	    if	    (path.toAbsolutePath().toString().startsWith("/dev/hd")) // Linux IDE Key Device Selection
-	    {
-		if  (Character.isDigit(path.getFileName().toString().charAt(path.getFileName().toString().length()-1))) { returnFCPathType = FCPath.PARTITION; }
-		else { if ( ! path.getFileName().endsWith("hda")) { returnFCPathType = FCPath.DEVICE; } else { returnFCPathType = FCPath.DEVICE_PROTECTED; } }
-	    }
-	    else if	    (path.toAbsolutePath().toString().startsWith("/dev/sd")) // Linux SATA Key Device Selection
-	    {
-		if  (Character.isDigit(path.getFileName().toString().charAt(path.getFileName().toString().length()-1))) { returnFCPathType = FCPath.PARTITION; }
-		else { if ( ! path.getFileName().endsWith("sda")) { returnFCPathType = FCPath.DEVICE; } else { returnFCPathType = FCPath.DEVICE_PROTECTED; } }
-	    }
-	    else if (path.toAbsolutePath().toString().startsWith("/dev/mmcblk")) // (mmcblk0p1) Linux SD-Card / MultiMedia Card
-	    {
-		if  (
-			(Character.isDigit(path.getFileName().toString().charAt(path.getFileName().toString().length()-1))) &&
-			(String.valueOf(path.getFileName().toString().charAt(path.getFileName().toString().length()-2)).equalsIgnoreCase("p"))
-		    )
-		{ returnFCPathType = FCPath.PARTITION; }
-		else { if ( ! path.getFileName().toString().endsWith("mmcblk0")) { returnFCPathType = FCPath.DEVICE; } else { returnFCPathType = FCPath.DEVICE/*_PROTECTED*/; } }
-	    }
-	    else if (path.toAbsolutePath().toString().startsWith("/dev/nvme")) // (nvme0n1p1) Linux High Speed Non-Volatile Memory Express storage device
-	    {
-		if  (
-			(Character.isDigit(path.getFileName().toString().charAt(path.getFileName().toString().length()-1))) &&
-			(String.valueOf(path.getFileName().toString().charAt(path.getFileName().toString().length()-2)).equalsIgnoreCase("p"))
-		    )
-		{ returnFCPathType = FCPath.PARTITION; }
-		else { if ( ! path.getFileName().toString().endsWith("nvme0n1")) { returnFCPathType = FCPath.DEVICE; } else { returnFCPathType = FCPath.DEVICE_PROTECTED; } }
-	    }
-	    else if (path.toAbsolutePath().toString().startsWith("/dev/disk")) // Apple Key Device Selection
+	    DeviceInventory.BlockDevice blockDevice = DeviceInventory.get(path);
+	    if	    ( blockDevice != null ) // Linux: any kernel block device (sd, hd, nvme, mmcblk, vd, dm, md, loop, ..)
 	    {
-		if  (
-			(Character.isDigit(path.getFileName().toString().charAt(path.getFileName().toString().length()-1))) &&
-			(String.valueOf(path.getFileName().toString().charAt(path.getFileName().toString().length()-2)).equalsIgnoreCase("s"))
-		    )
-		{ returnFCPathType = FCPath.PARTITION; }
-		else { if ( ! path.getFileName().toString().endsWith("disk0")) { returnFCPathType = FCPath.DEVICE; } else { returnFCPathType = FCPath.DEVICE_PROTECTED; } }
+		if	( blockDevice.size == 0 )								{ returnFCPathType = FCPath.DEVICE_INVALID; } // Empty card reader / unbound loop device
+		else if ( blockDevice.isPartition )								{ returnFCPathType = FCPath.PARTITION; }
+		else if ( ( blockDevice.system ) || ( isSystemDiskName(blockDevice.name) ) )			{ returnFCPathType = FCPath.DEVICE_PROTECTED; } // Root / boot / swap (or a holder of either), not an auto mounted USB stick
+		else												{ returnFCPathType = FCPath.DEVICE; }
 	    }
-	    else { returnFCPathType = FCPath.DEVICE_INVALID; }
+	    else if ( DeviceInventory.isAvailable() )								{ returnFCPathType = FCPath.DEVICE_INVALID; } // Not a block device (e.g. /dev/null)
+	    else												{ returnFCPathType = getFCPathTypeByName(pathString, path.getFileName().toString()); } // No sysfs (Apple)
 	} // Not a Device /dev/
 	else
 	{
@@ -276,8 +262,24 @@ public class Validate
 	}
 	return returnFCPathType;
     }
+
+    private static boolean isSystemDiskName(String name) { return ( name.equals("hda") ) || ( name.equals("sda") ) || ( name.equals("nvme0n1") ) || ( name.equals("disk0") ); }
+
+//  Device naming conventions, only used without a /sys/class/block inventory
+    private static int getFCPathTypeByName(String pathString, String name)
+    {
+	boolean digitEnd =  ( name.length() > 0 ) && ( Character.isDigit(name.charAt(name.length() - 1)) );
+	char	beforeEnd = ( name.length() > 1 ) ? Character.toLowerCase(name.charAt(name.length() - 2)) : ' ';
+
+	if	( ( pathString.startsWith("/dev/hd") ) || ( pathString.startsWith("/dev/sd") ) )	{ if ( digitEnd ) { return FCPath.PARTITION; } } // Linux IDE / SATA (sdb1)
+	else if ( ( pathString.startsWith("/dev/mmcblk") ) || ( pathString.startsWith("/dev/nvme") ) )	{ if ( ( digitEnd ) && ( beforeEnd == 'p' ) ) { return FCPath.PARTITION; } } // (mmcblk0p1) SD-Card / (nvme0n1p1) NVMe
+	else if ( pathString.startsWith("/dev/disk") )							{ if ( ( digitEnd ) && ( beforeEnd == 's' ) ) { return FCPath.PARTITION; } } // Apple (disk2s1)
+	else												{ return FCPath.DEVICE_INVALID; }
+
+	if ( isSystemDiskName(name) ) { return FCPath.DEVICE_PROTECTED; } else { return FCPath.DEVICE; }
+    }
     
-    synchronized public static FCPath getFCPath(UI ui, String caller, Path path, boolean isKey, Path keyPath, boolean disabledMAC, boolean report)
+    public static FCPath getFCPath(UI ui, String caller, Path path, boolean isKey, Path keyPath, boolean disabledMAC, boolean report)
     {
 	boolean exist =			    false;
 	int	type =			    FCPath.INVALID;
@@ -466,14 +468,16 @@ public class Validate
 class MySimpleFCFileVisitor extends SimpleFileVisitor<Path>
 {
     private final UI ui;
-    private final PathMatcher pathMatcher;
+    private final FCPathPattern fcPathPattern;
+    private Path rootPath = null; // The user selected item being walked (relative path patterns)
     private final boolean verbose; 
     private final boolean delete; 
     private final boolean symlink; 
     private final boolean setFCPathlist; 
     public FCPath keyFCPath;
     private FCPathList targetFCPathList;
-    private boolean negatePattern;
+    private final FCPathQueue streamQueue;
+    private final boolean encryptmode;
     public long bytesCount = 0;
     public static boolean running = false; 
     private static boolean disabledMAC = false; 
@@ -483,65 +487,77 @@ class MySimpleFCFileVisitor extends SimpleFileVisitor<Path>
 //  all but *.bit   'regex:(?!.*\.bit$)^.*$'
     
     public MySimpleFCFileVisitor(UI ui, boolean verbose, boolean delete, boolean symlink, boolean setFCPathlist, FCPath keyFCPath, FCPathList targetFCPathList, String pattern, boolean negatePattern, boolean disabledMAC)
+    {
+	this(ui, verbose, delete, symlink, setFCPathlist, keyFCPath, targetFCPathList, FCPathPattern.compile(pattern, negatePattern), disabledMAC, null, false);
+    }
+
+    public MySimpleFCFileVisitor(UI ui, boolean verbose, boolean delete, boolean symlink, boolean setFCPathlist, FCPath keyFCPath, FCPathList targetFCPathList, FCPathPattern fcPathPattern, boolean disabledMAC, FCPathQueue streamQueue, boolean encryptmode)
     {
         this.ui = ui;
-        pathMatcher = FileSystems.getDefault().getPathMatcher(pattern); // "glob:" or "regex:" included in pattern
+        this.fcPathPattern = fcPathPattern; // Compiled once per scan
         this.verbose = verbose;
         this.delete = delete;
         this.symlink = symlink;
         this.setFCPathlist = setFCPathlist;
 	this.keyFCPath = keyFCPath;
 	this.targetFCPathList = targetFCPathList;
-        this.negatePattern = negatePattern;
 	this.disabledMAC = disabledMAC;
+	this.streamQueue = streamQueue;
+	this.encryptmode = encryptmode;
 	bytesCount = 0;
 	running = true;
     }
+
+    public void setRootPath(Path rootPath) { this.rootPath = rootPath; }
+
+//  Streaming: the encryptor stops the scan through streamQueue.stop() and keeps using targetFCPathList (updateStat) so it is left alone
+    private boolean isRunning() { return ( running ) && ( ( streamQueue == null ) || ( ! streamQueue.isStopped() ) ); }
+    private FileVisitResult terminate() { if ( streamQueue == null ) { targetFCPathList.clear(); } return FileVisitResult.TERMINATE; }
    
     @Override public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs)
     {
-	if (running)
+	if (isRunning())
 	{
 	    if	(delete)	{ return FileVisitResult.CONTINUE; }
-	    else if (setFCPathlist)	{ if ( Validate.isValidDir(ui, path, symlink, true) ) { return FileVisitResult.CONTINUE; } else { return FileVisitResult.SKIP_SUBTREE; } }
+	    else if (setFCPathlist)	{ if ( ( ! fcPathPattern.prune(path, rootPath) ) && ( Validate.isValidDir(ui, path, symlink, true) ) ) { return FileVisitResult.CONTINUE; } else { return FileVisitResult.SKIP_SUBTREE; } }
 	    else			{ ui.log("Huh? this shouldn't have happened. Neither booleans: delete & returnpathlist are present?\r\n", true, true, false, false, false); return FileVisitResult.CONTINUE; }
 	}
-	else { targetFCPathList.clear(); return FileVisitResult.TERMINATE; }
+	else { return terminate(); }
     }    
     
     @Override public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
     {
-	if (running)
+	if (isRunning())
 	{
-	    if ( (path.getFileName() != null ) && ( negatePattern ^ pathMatcher.matches(path.getFileName())) ) // ^ = XOR just reverses the match when -W instead of -w if given in CLUI
+	    if ( fcPathPattern.matches(path, rootPath) ) // Includes (-w / -r) & excludes (-W)
 	    {            
 		if	(delete)                 { try { Files.delete(path); } catch (IOException ex) { ui.log("Error: visitFile(.. ) Failed file: " + path.toString() + " due to: " + ex.getMessage() + "\r\n", true, true, true, true, false); } }
 		else if (setFCPathlist)    
 		{
 //    					     getFCPath(UI ui, String caller, Path path, boolean isKey,	 Path keyPath, boolean disabledMAC, boolean report)
-		    FCPath fcPath = Validate.getFCPath(   ui,            "",      path,            false, this.keyFCPath.path, disabledMAC,          true); targetFCPathList.add(fcPath);
+		    FCPath fcPath = Validate.getFCPath(   ui,            "",      path,            false, this.keyFCPath.path, disabledMAC,          true); addFCPath(fcPath);
 		}
 		else { ui.log("Huh? this shouldn't have happened. Neither booleans: delete & returnpathlist are present?\r\n", true, true, false, false, false); }
 	    }
 	    return FileVisitResult.CONTINUE;
 	}
-	else { targetFCPathList.clear(); return FileVisitResult.TERMINATE; } 
+	else { return terminate(); } 
     }
     
     @Override public FileVisitResult visitFileFailed(Path path, IOException exc)
     {
-	if (running)
+	if (isRunning())
 	{
 //				    getFCPath(UI ui, String caller, Path path, boolean isKey,	     Path keyPath, boolean disabledMAC, boolean report)
-	    FCPath fcPath = Validate.getFCPath(  ui,            "",      path,         false, this.keyFCPath.path,	   disabledMAC,          true); targetFCPathList.add(fcPath);
+	    FCPath fcPath = Validate.getFCPath(  ui,            "",      path,         false, this.keyFCPath.path,	   disabledMAC,          true); addFCPath(fcPath);
 	    return FileVisitResult.SKIP_SIBLINGS;
 	}
-	else { targetFCPathList.clear(); return FileVisitResult.TERMINATE; } 
+	else { return terminate(); } 
     }
     
     @Override public FileVisitResult postVisitDirectory(Path path, IOException exc)
     {
-	if (running)
+	if (isRunning())
 	{
 	    if      (delete)        { try { Files.delete(path); } catch (IOException ex) { ui.log("Error: postVisitDirectory: " + path.toString() + " due to: " + ex.getMessage() + "\r\n", true, true, true, true, false); } }
 	    else if (setFCPathlist) {     }
@@ -549,7 +565,14 @@ class MySimpleFCFileVisitor extends SimpleFileVisitor<Path>
 	    
 	    return FileVisitResult.CONTINUE;
 	}
-	else { targetFCPathList.clear(); return FileVisitResult.TERMINATE; } 
+	else { return terminate(); } 
     }    
+
+//  Streaming mode shares targetFCPathList with the encrypting thread (FinalCrypt.encryptSelection updateStat)
+    private void addFCPath(FCPath fcPath)
+    {
+	if ( streamQueue == null )  { targetFCPathList.add(fcPath); }
+	else			    { synchronized (targetFCPathList) { targetFCPathList.add(fcPath); } streamQueue.publish(fcPath, encryptmode); }
+    }
 }
 